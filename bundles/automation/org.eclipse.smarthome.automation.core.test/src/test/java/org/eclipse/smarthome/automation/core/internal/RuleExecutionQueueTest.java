@@ -0,0 +1,150 @@
+/**
+ * Copyright (c) 1997, 2015 by ProSyst Software GmbH and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.automation.core.internal;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+import org.eclipse.smarthome.automation.core.internal.RuleExecutor.OverflowPolicy;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for the {@link RuleExecutor} and the {@link RuleExecutionQueue}.
+ *
+ * @author agent - Initial contribution
+ */
+public class RuleExecutionQueueTest {
+
+    /**
+     * Executor which collects the tasks, so that the test decides when they are run.
+     */
+    private static class ManualExecutor implements Executor {
+
+        private final Queue<Runnable> tasks = new LinkedList<>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        void runAll() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+    }
+
+    private final List<String> executions = new ArrayList<>();
+
+    private ManualExecutor executor;
+
+    private RuleExecutor ruleExecutor;
+
+    @Before
+    public void setUp() {
+        executor = new ManualExecutor();
+        ruleExecutor = new RuleExecutor(executor);
+    }
+
+    private Runnable execution(final String name) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                executions.add(name);
+            }
+        };
+    }
+
+    @Test
+    public void executionsOfARuleAreSerializedInOrder() {
+        RuleExecutionQueue queue = ruleExecutor.createQueue("rule");
+
+        for (int i = 0; i < 30; i++) {
+            assertTrue(queue.submit("trigger", execution(String.valueOf(i))));
+        }
+        assertEquals(1, executor.tasks.size());
+        assertTrue(queue.isRunning());
+
+        executor.runAll();
+
+        assertEquals(30, executions.size());
+        for (int i = 0; i < 30; i++) {
+            assertEquals(String.valueOf(i), executions.get(i));
+        }
+        assertFalse(queue.isRunning());
+        assertEquals(30, queue.getMetrics().getExecutedCount());
+    }
+
+    @Test
+    public void rejectPolicyDropsNewExecutions() {
+        ruleExecutor.setQueueSize(2);
+        ruleExecutor.setOverflowPolicy(OverflowPolicy.REJECT);
+        RuleExecutionQueue queue = ruleExecutor.createQueue("rule");
+
+        assertTrue(queue.submit("t1", execution("a")));
+        assertTrue(queue.submit("t1", execution("b")));
+        assertFalse(queue.submit("t1", execution("c")));
+        executor.runAll();
+
+        assertEquals(Arrays.asList("a", "b"), executions);
+        assertEquals(1, queue.getMetrics().getDroppedCount());
+    }
+
+    @Test
+    public void dropOldestPolicyKeepsNewestExecutions() {
+        ruleExecutor.setQueueSize(2);
+        ruleExecutor.setOverflowPolicy(OverflowPolicy.parse("drop-oldest"));
+        RuleExecutionQueue queue = ruleExecutor.createQueue("rule");
+
+        queue.submit("t1", execution("a"));
+        queue.submit("t1", execution("b"));
+        assertTrue(queue.submit("t1", execution("c")));
+        executor.runAll();
+
+        assertEquals(Arrays.asList("b", "c"), executions);
+        assertEquals(1, queue.getMetrics().getDroppedCount());
+    }
+
+    @Test
+    public void coalescePolicyReplacesExecutionOfSameTrigger() {
+        ruleExecutor.setQueueSize(2);
+        ruleExecutor.setOverflowPolicy(OverflowPolicy.COALESCE);
+        RuleExecutionQueue queue = ruleExecutor.createQueue("rule");
+
+        queue.submit("t1", execution("a"));
+        queue.submit("t2", execution("b"));
+        assertTrue(queue.submit("t1", execution("c")));
+        assertFalse(queue.submit("t3", execution("d")));
+        executor.runAll();
+
+        assertEquals(Arrays.asList("c", "b"), executions);
+        assertEquals(1, queue.getMetrics().getCoalescedCount());
+        assertEquals(1, queue.getMetrics().getDroppedCount());
+    }
+
+    @Test
+    public void disposedQueueDiscardsExecutions() {
+        RuleExecutionQueue queue = ruleExecutor.createQueue("rule");
+
+        queue.submit("t1", execution("a"));
+        queue.dispose();
+        assertFalse(queue.submit("t1", execution("b")));
+        executor.runAll();
+
+        assertTrue(executions.isEmpty());
+    }
+
+}
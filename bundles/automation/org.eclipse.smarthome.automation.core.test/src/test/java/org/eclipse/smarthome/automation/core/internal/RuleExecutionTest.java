@@ -0,0 +1,362 @@
+/**
+ * Copyright (c) 1997, 2015 by ProSyst Software GmbH and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.automation.core.internal;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.smarthome.automation.Action;
+import org.eclipse.smarthome.automation.Condition;
+import org.eclipse.smarthome.automation.Module;
+import org.eclipse.smarthome.automation.Rule;
+import org.eclipse.smarthome.automation.RuleStatus;
+import org.eclipse.smarthome.automation.RuleStatusDetail;
+import org.eclipse.smarthome.automation.Trigger;
+import org.eclipse.smarthome.automation.core.util.ConnectionValidator;
+import org.eclipse.smarthome.automation.handler.ActionHandler;
+import org.eclipse.smarthome.automation.handler.ConditionHandler;
+import org.eclipse.smarthome.automation.handler.ModuleHandler;
+import org.eclipse.smarthome.automation.handler.ModuleHandlerFactory;
+import org.eclipse.smarthome.automation.handler.RuleEngineCallback;
+import org.eclipse.smarthome.automation.handler.TriggerHandler;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.framework.ServiceReference;
+
+/**
+ * Tests the execution of rules by the {@link RuleEngine}: the {@link CompiledRule} which connects the modules, the
+ * transitions of the rule status and concurrent triggers.
+ *
+ * @author agent - Initial contribution
+ */
+public class RuleExecutionTest {
+
+    private static final String RULE_UID = "rule";
+
+    /**
+     * Handles the action modules of the test rule. The action 'action1' outputs the value of its input 'in3' as
+     * 'out4', which is connected to the input 'in3' of 'action2'.
+     */
+    private class TestActionHandler implements ActionHandler {
+
+        private final String id;
+
+        private TestActionHandler(String id) {
+            this.id = id;
+        }
+
+        @Override
+        public Map<String, Object> execute(Map<String, ?> context) {
+            if (activeExecutions.incrementAndGet() > 1) {
+                overlapping = true;
+            }
+            try {
+                statusDuringExecution.add(ruleEngine.getRuleStatus(RULE_UID));
+                inputs.put(id, context.get("in3"));
+                executions.incrementAndGet();
+                if (whileExecuting != null) {
+                    whileExecuting.run();
+                }
+                return Collections.<String, Object> singletonMap("out4", "from " + id);
+            } finally {
+                activeExecutions.decrementAndGet();
+            }
+        }
+
+        @Override
+        public void dispose() {
+        }
+    }
+
+    private class TestModuleHandlerFactory implements ModuleHandlerFactory {
+
+        @Override
+        public Collection<String> getTypes() {
+            return Arrays.asList(ModuleTypeManagerMockup.TRIGGER_TYPE, ModuleTypeManagerMockup.CONDITION_TYPE,
+                    ModuleTypeManagerMockup.ACTION_TYPE);
+        }
+
+        @Override
+        public ModuleHandler getHandler(Module module, String ruleUID) {
+            if (module instanceof Trigger) {
+                return new TriggerHandler() {
+                    @Override
+                    public void setRuleEngineCallback(RuleEngineCallback ruleCallback) {
+                        callback = (RuleEngineCallbackImpl) ruleCallback;
+                    }
+
+                    @Override
+                    public void dispose() {
+                    }
+                };
+            } else if (module instanceof Condition) {
+                return new ConditionHandler() {
+                    @Override
+                    public boolean isSatisfied(Map<String, ?> context) {
+                        return !"unsatisfied".equals(context.get("in1"));
+                    }
+
+                    @Override
+                    public void dispose() {
+                    }
+                };
+            }
+            return new TestActionHandler(module.getId());
+        }
+
+        @Override
+        public void ungetHandler(Module module, String ruleUID, ModuleHandler handler) {
+        }
+    }
+
+    private RuleEngine ruleEngine;
+
+    private RuleEngineCallbackImpl callback;
+
+    private volatile Runnable whileExecuting;
+
+    private final Map<String, Object> inputs = Collections.synchronizedMap(new HashMap<String, Object>());
+
+    private final List<RuleStatus> statusDuringExecution = Collections.synchronizedList(new ArrayList<RuleStatus>());
+
+    private final AtomicInteger executions = new AtomicInteger();
+
+    private final AtomicInteger activeExecutions = new AtomicInteger();
+
+    private volatile boolean overlapping;
+
+    @Before
+    public void setUp() {
+        final ModuleHandlerFactory factory = new TestModuleHandlerFactory();
+        BundleContextMockup bc = new BundleContextMockup() {
+            @SuppressWarnings("unchecked")
+            @Override
+            public <S> S getService(ServiceReference<S> reference) {
+                return (S) factory;
+            }
+        };
+        ruleEngine = new RuleEngine(bc);
+        ModuleTypeManagerMockup mtManager = new ModuleTypeManagerMockup(bc, ruleEngine);
+        ruleEngine.setModuleTypeManager(mtManager);
+        ConnectionValidator.setManager(mtManager);
+        ruleEngine.addingService(null);
+    }
+
+    /**
+     * Creates a rule whose condition and first action get the output 'out1' of the trigger, the second action gets
+     * the output of the first action. All inputs are connected, so that no connections are added by the auto mapping.
+     */
+    private Rule createRule(String uid, String actionType) {
+        Rule rule = new Rule(uid);
+        rule.setTriggers(Collections.singletonList(new Trigger("trigger", ModuleTypeManagerMockup.TRIGGER_TYPE, null)));
+        Map<String, String> conditionInputs = new HashMap<>();
+        conditionInputs.put("in1", "trigger.out1");
+        conditionInputs.put("in2", "trigger.out1");
+        rule.setConditions(Collections.singletonList(
+                new Condition("condition", ModuleTypeManagerMockup.CONDITION_TYPE, null, conditionInputs)));
+        List<Action> actions = new ArrayList<>();
+        actions.add(new Action("action1", actionType, null, createActionInputs("trigger.out1")));
+        actions.add(new Action("action2", actionType, null, createActionInputs("action1.out4")));
+        rule.setActions(actions);
+        return rule;
+    }
+
+    private Map<String, String> createActionInputs(String in3) {
+        Map<String, String> inputs = new HashMap<>();
+        inputs.put("in3", in3);
+        inputs.put("in4", "trigger.out1");
+        inputs.put("in5", "trigger.out1");
+        inputs.put("in6", "trigger.out1");
+        return inputs;
+    }
+
+    private void trigger(String value) {
+        Map<String, Object> outputs = Collections.<String, Object> singletonMap("out1", value);
+        RuntimeRule rule = ruleEngine.getRule0(RULE_UID);
+        ruleEngine.runRule(rule, callback.new TriggerData(rule, rule.getTriggers().get(0), outputs));
+    }
+
+    @Test
+    public void compiledRuleConnectsOutputsAndReferencesToInputs() {
+        Rule rule = new Rule(RULE_UID);
+        rule.setConditions(Collections.singletonList(new Condition("condition", "type", null,
+                Collections.singletonMap("in1", "$reference"))));
+        List<Action> actions = new ArrayList<>();
+        actions.add(new Action("action1", "type", null, Collections.singletonMap("in3", "trigger.out2")));
+        actions.add(new Action("action2", "type", null, Collections.singletonMap("in3", "action1.out4")));
+        rule.setActions(actions);
+        CompiledRule compiledRule = new CompiledRule(new RuntimeRule(rule),
+                Collections.<String, Object> singletonMap("action1.out4", "default"));
+
+        Map<String, Object> context = compiledRule.createContext();
+        assertEquals("default", context.get("action1.out4"));
+        context.put("reference", "referenced");
+        compiledRule.putOutputs(context, "trigger", Collections.singletonMap("out2", "triggered"));
+        compiledRule.resolveConditionInputs(0, context);
+        assertEquals("referenced", context.get("in1"));
+        compiledRule.resolveActionInputs(1, context);
+        assertEquals("default", context.get("in3"));
+        compiledRule.resolveActionInputs(0, context);
+        assertEquals("triggered", context.get("in3"));
+        compiledRule.putOutputs(context, "action1", Collections.singletonMap("out4", "executed"));
+        compiledRule.resolveActionInputs(1, context);
+        assertEquals("executed", context.get("in3"));
+
+        // every execution starts with a context of its own
+        Map<String, Object> otherContext = compiledRule.createContext();
+        assertEquals("default", otherContext.get("action1.out4"));
+        assertNull(otherContext.get("trigger.out2"));
+        assertEquals(1, compiledRule.getConditionCount());
+        assertEquals(2, compiledRule.getActionCount());
+        assertEquals("action2", compiledRule.getAction(1).getId());
+    }
+
+    @Test
+    public void ruleIsExecutedWithItsConnectionsAndReturnsToIdle() {
+        ruleEngine.addRule(createRule(RULE_UID, ModuleTypeManagerMockup.ACTION_TYPE), true);
+        assertEquals(RuleStatus.IDLE, ruleEngine.getRuleStatus(RULE_UID));
+
+        trigger("value");
+
+        assertEquals(2, executions.get());
+        assertEquals("value", inputs.get("action1"));
+        assertEquals("from action1", inputs.get("action2"));
+        assertEquals(Arrays.asList(RuleStatus.RUNNING, RuleStatus.RUNNING), statusDuringExecution);
+        assertEquals(RuleStatus.IDLE, ruleEngine.getRuleStatus(RULE_UID));
+
+        trigger("unsatisfied");
+        assertEquals(2, executions.get());
+        assertEquals(RuleStatus.IDLE, ruleEngine.getRuleStatus(RULE_UID));
+    }
+
+    @Test
+    public void ruleWithoutHandlersIsNotInitializedAndNotExecuted() {
+        ruleEngine.addRule(createRule(RULE_UID, "unknownActionType"), true);
+
+        assertEquals(RuleStatus.NOT_INITIALIZED, ruleEngine.getRuleStatus(RULE_UID));
+        assertEquals(RuleStatusDetail.HANDLER_INITIALIZING_ERROR,
+                ruleEngine.getRuleStatusInfo(RULE_UID).getStatusDetail());
+        assertNull(ruleEngine.getRule0(RULE_UID).getCompiledRule());
+    }
+
+    @Test
+    public void ruleWhichIsDisabledWhileRunningStaysDisabled() {
+        ruleEngine.addRule(createRule(RULE_UID, ModuleTypeManagerMockup.ACTION_TYPE), true);
+        whileExecuting = new Runnable() {
+            @Override
+            public void run() {
+                whileExecuting = null;
+                ruleEngine.setRuleEnabled(RULE_UID, false);
+            }
+        };
+
+        trigger("value");
+
+        assertEquals(RuleStatus.DISABLED, ruleEngine.getRuleStatus(RULE_UID));
+        assertNull(ruleEngine.getRule0(RULE_UID).getCompiledRule());
+
+        ruleEngine.setRuleEnabled(RULE_UID, true);
+        assertEquals(RuleStatus.IDLE, ruleEngine.getRuleStatus(RULE_UID));
+    }
+
+    @Test
+    public void ruleIsNotExecutedAgainWhileItIsRunning() {
+        ruleEngine.addRule(createRule(RULE_UID, ModuleTypeManagerMockup.ACTION_TYPE), true);
+        whileExecuting = new Runnable() {
+            @Override
+            public void run() {
+                whileExecuting = null;
+                trigger("nested");
+            }
+        };
+
+        trigger("value");
+
+        // the nested trigger is rejected, so that only the two actions of the first execution have been executed
+        assertEquals(2, executions.get());
+        assertEquals("value", inputs.get("action1"));
+        assertEquals(RuleStatus.IDLE, ruleEngine.getRuleStatus(RULE_UID));
+    }
+
+    @Test
+    public void concurrentRunsOfARuleNeverOverlap() throws InterruptedException {
+        ruleEngine.addRule(createRule(RULE_UID, ModuleTypeManagerMockup.ACTION_TYPE), true);
+        final int threadCount = 8;
+        final int runsPerThread = 200;
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (int j = 0; j < runsPerThread; j++) {
+                            trigger("value");
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }.start();
+        }
+
+        start.countDown();
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+
+        // runs which find the rule running are rejected, the others execute both actions without overlapping
+        assertTrue(executions.get() > 0);
+        assertEquals(0, executions.get() % 2);
+        assertFalse(overlapping);
+        assertFalse(statusDuringExecution.contains(RuleStatus.IDLE));
+        assertEquals(RuleStatus.IDLE, ruleEngine.getRuleStatus(RULE_UID));
+    }
+
+    @Test
+    public void concurrentTriggersAreAllExecutedOneAfterTheOther() throws InterruptedException {
+        ruleEngine.addRule(createRule(RULE_UID, ModuleTypeManagerMockup.ACTION_TYPE), true);
+        final int threadCount = 4;
+        final int triggersPerThread = 100;
+        final CountDownLatch executed = new CountDownLatch(threadCount * triggersPerThread * 2);
+        whileExecuting = new Runnable() {
+            @Override
+            public void run() {
+                executed.countDown();
+            }
+        };
+        final Trigger trigger = ruleEngine.getRule0(RULE_UID).getTriggers().get(0);
+        final Map<String, Object> outputs = Collections.<String, Object> singletonMap("out1", "value");
+        for (int i = 0; i < threadCount; i++) {
+            new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < triggersPerThread; j++) {
+                        callback.triggered(trigger, outputs);
+                    }
+                }
+            }.start();
+        }
+
+        assertTrue(executed.await(30, TimeUnit.SECONDS));
+        assertEquals(threadCount * triggersPerThread * 2, executions.get());
+        assertFalse(overlapping);
+    }
+
+}
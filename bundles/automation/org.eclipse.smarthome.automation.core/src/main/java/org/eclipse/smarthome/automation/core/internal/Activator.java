@@ -21,6 +21,7 @@ import org.eclipse.smarthome.automation.core.util.ConnectionValidator;
 import org.eclipse.smarthome.automation.events.RuleEventFactory;
 import org.eclipse.smarthome.automation.template.TemplateRegistry;
 import org.eclipse.smarthome.automation.type.ModuleTypeRegistry;
+import org.eclipse.smarthome.core.common.MetricsProvider;
 import org.eclipse.smarthome.core.common.registry.ManagedProvider;
 import org.eclipse.smarthome.core.events.EventFactory;
 import org.eclipse.smarthome.core.events.EventPublisher;
@@ -66,6 +67,7 @@ public class Activator implements BundleActivator {
     @SuppressWarnings("rawtypes")
     private ServiceTracker serviceTracker;
     private ServiceRegistration<?> configReg;
+    private ServiceRegistration<?> metricsProviderReg;
     private RuleEngine ruleEngine;
 
     @SuppressWarnings({ "rawtypes", "unchecked" })
@@ -76,6 +78,7 @@ public class Activator implements BundleActivator {
         Hashtable props = new Hashtable(11);
         props.put(Constants.SERVICE_PID, "smarthome.rule.configuration");
         configReg = bc.registerService(ManagedService.class.getName(), ruleEngine, props);
+        metricsProviderReg = bc.registerService(MetricsProvider.class.getName(), ruleEngine, null);
 
         this.tManager = new TemplateManager(bc);
         mtManager = new ModuleTypeManager(bc, ruleEngine);
@@ -170,6 +173,11 @@ public class Activator implements BundleActivator {
             configReg = null;
         }
 
+        if (metricsProviderReg != null) {
+            metricsProviderReg.unregister();
+            metricsProviderReg = null;
+        }
+
         if (ruleRegistryReg != null) {
             ruleRegistryReg.unregister();
             ruleRegistryReg = null;
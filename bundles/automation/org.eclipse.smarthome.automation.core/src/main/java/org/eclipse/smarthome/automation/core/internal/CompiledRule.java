@@ -0,0 +1,214 @@
+/**
+ * Copyright (c) 1997, 2015 by ProSyst Software GmbH and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.automation.core.internal;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.smarthome.automation.Action;
+import org.eclipse.smarthome.automation.Condition;
+import org.eclipse.smarthome.automation.Module;
+import org.eclipse.smarthome.automation.Trigger;
+
+/**
+ * The {@link CompiledRule} is the execution plan of an initialized {@link RuntimeRule}. It is created when the rule is
+ * registered and resolves the connections of the conditions and actions into slot-indexed arrays once, so that an
+ * execution only has to copy values between precomputed context keys. The default values of the module outputs are
+ * available in each execution.
+ * <p>
+ * Each execution works on its own context, created by {@link #createContext()}. Thereby executions do not share any
+ * mutable state through the plan and the rule engine does not need to hold a lock while a rule is executed.
+ *
+ * @author agent - Initial contribution
+ */
+class CompiledRule {
+
+    private final RuntimeCondition[] conditions;
+
+    private final CompiledConnections[] conditionConnections;
+
+    private final RuntimeAction[] actions;
+
+    private final CompiledConnections[] actionConnections;
+
+    /** context keys of the module outputs per module id, filled when outputs are written the first time */
+    private final ConcurrentMap<String, ConcurrentMap<String, String>> outputKeys = new ConcurrentHashMap<>();
+
+    private final Map<String, Object> defaultOutputs;
+
+    private final int contextCapacity;
+
+    CompiledRule(RuntimeRule rule, Map<String, Object> defaultOutputs) {
+        this.defaultOutputs = defaultOutputs != null ? new HashMap<String, Object>(defaultOutputs)
+                : Collections.<String, Object> emptyMap();
+        List<Condition> ruleConditions = rule.getConditions();
+        int conditionCount = ruleConditions != null ? ruleConditions.size() : 0;
+        conditions = new RuntimeCondition[conditionCount];
+        conditionConnections = new CompiledConnections[conditionCount];
+        int slots = 0;
+        for (int i = 0; i < conditionCount; i++) {
+            conditions[i] = (RuntimeCondition) ruleConditions.get(i);
+            conditionConnections[i] = new CompiledConnections(conditions[i].getConnections());
+            slots += conditionConnections[i].size();
+        }
+
+        List<Action> ruleActions = rule.getActions();
+        int actionCount = ruleActions != null ? ruleActions.size() : 0;
+        actions = new RuntimeAction[actionCount];
+        actionConnections = new CompiledConnections[actionCount];
+        for (int i = 0; i < actionCount; i++) {
+            actions[i] = (RuntimeAction) ruleActions.get(i);
+            actionConnections[i] = new CompiledConnections(actions[i].getConnections());
+            slots += actionConnections[i].size();
+        }
+
+        List<Trigger> triggers = rule.getTriggers();
+        int moduleCount = (triggers != null ? triggers.size() : 0) + conditionCount + actionCount;
+        // every connected input and at least one output per module end up in the context
+        contextCapacity = slots + moduleCount + this.defaultOutputs.size();
+        if (triggers != null) {
+            for (Module trigger : triggers) {
+                outputKeys.put(trigger.getId(), new ConcurrentHashMap<String, String>());
+            }
+        }
+        for (RuntimeAction action : actions) {
+            outputKeys.put(action.getId(), new ConcurrentHashMap<String, String>());
+        }
+    }
+
+    /**
+     * Creates a new context for an execution of the rule, containing the default output values.
+     *
+     * @return the context
+     */
+    Map<String, Object> createContext() {
+        // the capacity is chosen so that the map does not have to be resized during the execution
+        Map<String, Object> context = new HashMap<String, Object>(contextCapacity * 4 / 3 + 1);
+        if (!defaultOutputs.isEmpty()) {
+            context.putAll(defaultOutputs);
+        }
+        return context;
+    }
+
+    int getConditionCount() {
+        return conditions.length;
+    }
+
+    RuntimeCondition getCondition(int index) {
+        return conditions[index];
+    }
+
+    /**
+     * Sets the inputs of a condition from the outputs stored in the context.
+     *
+     * @param index the index of the condition
+     * @param context the context of the execution
+     */
+    void resolveConditionInputs(int index, Map<String, Object> context) {
+        conditionConnections[index].resolve(context);
+    }
+
+    int getActionCount() {
+        return actions.length;
+    }
+
+    RuntimeAction getAction(int index) {
+        return actions[index];
+    }
+
+    /**
+     * Sets the inputs of an action from the outputs stored in the context.
+     *
+     * @param index the index of the action
+     * @param context the context of the execution
+     */
+    void resolveActionInputs(int index, Map<String, Object> context) {
+        actionConnections[index].resolve(context);
+    }
+
+    /**
+     * Stores the outputs of a module in the context under the key 'moduleId.outputName'.
+     *
+     * @param context the context of the execution
+     * @param moduleId the id of the trigger or action providing the outputs
+     * @param outputs the outputs
+     */
+    void putOutputs(Map<String, Object> context, String moduleId, Map<String, ?> outputs) {
+        if (outputs == null || outputs.isEmpty()) {
+            return;
+        }
+        ConcurrentMap<String, String> keys = outputKeys.get(moduleId);
+        for (Map.Entry<String, ?> entry : outputs.entrySet()) {
+            String name = entry.getKey();
+            String key = keys != null ? keys.get(name) : null;
+            if (key == null) {
+                key = moduleId + RuleEngine.OUTPUT_SEPARATOR + name;
+                if (keys != null) {
+                    keys.putIfAbsent(name, key);
+                }
+            }
+            context.put(key, entry.getValue());
+        }
+    }
+
+    /**
+     * The connections of a module, resolved into arrays. Slot i connects the input {@code inputNames[i]} either to the
+     * output stored under {@code outputKeys[i]} or, if that is null, to the reference {@code references[i]}.
+     */
+    private static class CompiledConnections {
+
+        private final String[] inputNames;
+
+        private final String[] outputKeys;
+
+        private final String[] references;
+
+        private CompiledConnections(Set<Connection> connections) {
+            int size = connections != null ? connections.size() : 0;
+            inputNames = new String[size];
+            outputKeys = new String[size];
+            references = new String[size];
+            if (size > 0) {
+                int i = 0;
+                for (Connection connection : connections) {
+                    inputNames[i] = connection.getInputName();
+                    String outputModuleId = connection.getOuputModuleId();
+                    if (outputModuleId != null) {
+                        outputKeys[i] = outputModuleId + RuleEngine.OUTPUT_SEPARATOR + connection.getOutputName();
+                    } else {
+                        references[i] = connection.getOutputName();
+                    }
+                    i++;
+                }
+            }
+        }
+
+        private int size() {
+            return inputNames.length;
+        }
+
+        private void resolve(Map<String, Object> context) {
+            for (int i = 0; i < inputNames.length; i++) {
+                if (outputKeys[i] != null) {
+                    context.put(inputNames[i], context.get(outputKeys[i]));
+                } else {
+                    Object value = ReferenceResolverUtil.resolveReference(references[i], context);
+                    if (value != null) {
+                        context.put(inputNames[i], value);
+                    }
+                }
+            }
+        }
+    }
+
+}
@@ -18,6 +18,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
@@ -55,6 +56,8 @@ import org.eclipse.smarthome.automation.type.TriggerType;
 import org.eclipse.smarthome.config.core.ConfigDescriptionParameter;
 import org.eclipse.smarthome.config.core.ConfigDescriptionParameter.Type;
 import org.eclipse.smarthome.config.core.Configuration;
+import org.eclipse.smarthome.core.common.MetricsProvider;
+import org.eclipse.smarthome.core.common.ThreadPoolManager;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.ServiceReference;
 import org.osgi.service.cm.ConfigurationException;
@@ -82,8 +85,8 @@ import org.slf4j.LoggerFactory;
  *
  */
 @SuppressWarnings("rawtypes")
-public class RuleEngine
-        implements ServiceTrackerCustomizer/* <ModuleHandlerFactory, ModuleHandlerFactory> */, ManagedService {
+public class RuleEngine implements ServiceTrackerCustomizer/* <ModuleHandlerFactory, ModuleHandlerFactory> */,
+        ManagedService, MetricsProvider {
 
     /**
      * Constant defining separator between module uid and output name.
@@ -110,6 +113,32 @@ public class RuleEngine
      */
     private long scheduleReinitializationDelay = DEFAULT_REINITIALIZATION_DELAY;
 
+    /**
+     * Maximum number of triggered executions waiting in the queue of a rule.
+     */
+    public static final String CONFIG_PROPERTY_QUEUE_SIZE = "rule.queue.size";
+
+    /**
+     * Policy applied when the queue of a rule is full: drop-oldest, coalesce or reject.
+     */
+    public static final String CONFIG_PROPERTY_QUEUE_OVERFLOW = "rule.queue.overflow";
+
+    /**
+     * Name of the shared thread pool executing the rules. Its size can be configured through the
+     * {@link ThreadPoolManager}.
+     */
+    public static final String THREAD_POOL_NAME = "ruleEngine";
+
+    /**
+     * Name under which the execution statistics of the rules are provided as {@link MetricsProvider}.
+     */
+    private static final String METRICS_NAME = "automation";
+
+    /**
+     * Executes the triggered rules on the shared thread pool.
+     */
+    private final RuleExecutor ruleExecutor = new RuleExecutor(ThreadPoolManager.getPool(THREAD_POOL_NAME));
+
     /**
      * {@link Map} of rule's id to corresponding {@link RuleEngineCallback}s. For each {@link Rule} there is one and
      * only one rule callback.
@@ -151,13 +180,15 @@ public class RuleEngine
     /**
      * {@link Map} of {@link Rule}'s id to current {@link RuleStatus} object.
      */
-    private Map<String, RuleStatusInfo> statusMap = new HashMap<String, RuleStatusInfo>();
+    private Map<String, RuleStatusInfo> statusMap = new ConcurrentHashMap<String, RuleStatusInfo>();
 
-    protected Logger logger;
+    private static final RuleStatusInfo IDLE_STATUS_INFO = new RuleStatusInfo(RuleStatus.IDLE);
 
-    private StatusInfoCallback statusInfoCallback;
+    private static final RuleStatusInfo RUNNING_STATUS_INFO = new RuleStatusInfo(RuleStatus.RUNNING);
 
-    private Map<String, Map<String, Object>> contextMap;
+    protected Logger logger;
+
+    private volatile StatusInfoCallback statusInfoCallback;
 
     private ModuleTypeManager mtManager;
 
@@ -179,7 +210,6 @@ public class RuleEngine
     public RuleEngine(BundleContext bc) {
         this.bc = bc;
         logger = LoggerFactory.getLogger(getClass());
-        contextMap = new HashMap<String, Map<String, Object>>();
         if (rules == null) {
             rules = new HashMap<String, RuntimeRule>(20);
         }
@@ -214,6 +244,8 @@ public class RuleEngine
         Rule ruleWithUID;
         String rUID = rule.getUID();
         ruleWithUID = (rUID == null) ? initRuleId(rule) : rule;
+        // the status map does not accept a null key, so the generated UID is used for rules added without one
+        rUID = ruleWithUID.getUID();
         rr = new RuntimeRule(ruleWithUID);
         rules.put(rUID, rr);
         logger.debug("Added rule '{}'", rUID);
@@ -333,10 +365,7 @@ public class RuleEngine
             return;
         }
 
-        RuleStatusInfo ruleStatus = null;
-        synchronized (this) {
-            ruleStatus = statusMap.get(rUID);
-        }
+        RuleStatusInfo ruleStatus = statusMap.get(rUID);
         if (ruleStatus != null && RuleStatus.NOT_INITIALIZED != ruleStatus.getStatus()) {
             setRuleStatusInfo(rUID, new RuleStatusInfo(RuleStatus.NOT_INITIALIZED));
         }
@@ -364,10 +393,10 @@ public class RuleEngine
         }
 
         if (errMsgs == null) {
-            resolveDefaultValues(r);
-            register(r);
+            Map<String, Object> defaultOutputs = resolveDefaultValues(r);
+            register(r, defaultOutputs);
             // change state to IDLE
-            setRuleStatusInfo(rUID, new RuleStatusInfo(RuleStatus.IDLE));
+            setRuleStatusInfo(rUID, IDLE_STATUS_INFO);
 
             Future f = scheduleTasks.remove(rUID);
             if (f != null) {
@@ -399,11 +428,32 @@ public class RuleEngine
      * @param status new rule status info
      */
     private void setRuleStatusInfo(String rUID, RuleStatusInfo status) {
-        synchronized (this) {
-            statusMap.put(rUID, status);
+        statusMap.put(rUID, status);
+        notifyStatusInfoChanged(rUID, status);
+    }
+
+    /**
+     * This method changes the {@link RuleStatusInfo} of the rule atomically, if the rule currently has the expected
+     * status. It also notifies the registry about the change.
+     *
+     * @param rUID UID of the rule
+     * @param expected the expected current status
+     * @param status new rule status info
+     * @return true if the status has been changed, false if the rule does not have the expected status
+     */
+    private boolean compareAndSetRuleStatusInfo(String rUID, RuleStatus expected, RuleStatusInfo status) {
+        RuleStatusInfo current = statusMap.get(rUID);
+        if (current == null || current.getStatus() != expected || !statusMap.replace(rUID, current, status)) {
+            return false;
         }
-        if (statusInfoCallback != null) {
-            statusInfoCallback.statusInfoChanged(rUID, status);
+        notifyStatusInfoChanged(rUID, status);
+        return true;
+    }
+
+    private void notifyStatusInfoChanged(String rUID, RuleStatusInfo status) {
+        StatusInfoCallback callback = statusInfoCallback;
+        if (callback != null) {
+            callback.statusInfoChanged(rUID, status);
         }
     }
 
@@ -450,7 +500,7 @@ public class RuleEngine
     private RuleEngineCallbackImpl getRuleEngineCallback(RuntimeRule rule) {
         RuleEngineCallbackImpl result = reCallbacks.get(rule.getUID());
         if (result == null) {
-            result = new RuleEngineCallbackImpl(this, rule);
+            result = new RuleEngineCallbackImpl(this, rule, ruleExecutor);
             reCallbacks.put(rule.getUID(), result);
         }
         return result;
@@ -497,8 +547,10 @@ public class RuleEngine
      * activating all triggers the rule goes into IDLE state
      *
      * @param rule an initialized rule which has to starts tracking the triggers.
+     * @param defaultOutputs default values of the module outputs, which are available in each execution
      */
-    private void register(RuntimeRule rule) {
+    private void register(RuntimeRule rule, Map<String, Object> defaultOutputs) {
+        rule.setCompiledRule(new CompiledRule(rule, defaultOutputs));
         RuleEngineCallback reCallback = getRuleEngineCallback(rule);
         for (Iterator<Trigger> it = rule.getTriggers().iterator(); it.hasNext();) {
             RuntimeTrigger t = (RuntimeTrigger) it.next();
@@ -520,6 +572,7 @@ public class RuleEngine
             if (reCallback != null) {
                 reCallback.dispose();
             }
+            r.setCompiledRule(null);
             removeHandlers(r.getTriggers(), r.getUID());
             removeHandlers(r.getActions(), r.getUID());
             removeHandlers(r.getConditions(), r.getUID());
@@ -627,7 +680,7 @@ public class RuleEngine
      * @param rUID unieque id of the {@link Rule}
      * @return internal {@link RuntimeRule} object
      */
-    private synchronized RuntimeRule getRule0(String rUID) {
+    synchronized RuntimeRule getRule0(String rUID) {
         return rules.get(rUID);
     }
 
@@ -896,121 +949,48 @@ public class RuleEngine
      * @param td {@link TriggerData} object containing new values for {@link Trigger}'s {@link Output}s
      */
     protected void runRule(RuntimeRule rule, RuleEngineCallbackImpl.TriggerData td) {
-        RuleStatus ruleStatus = getRuleStatus(rule.getUID());
-        if (ruleStatus == RuleStatus.IDLE) {
-            try {
-
-                // change state to RUNNING
-                setRuleStatusInfo(rule.getUID(), new RuleStatusInfo(RuleStatus.RUNNING));
-                clearContext(rule);
-
-                setTriggerOutputs(rule.getUID(), td);
-                boolean isSatisfied = calculateConditions(rule);
-                if (isSatisfied) {
-                    executeActions(rule);
-                    logger.debug("The rule '{}' is executed.", rule.getUID());
-                } else {
-                    logger.debug("The rule '{}' is NOT executed, since it has unsatisfied conditions.", rule.getUID());
-                }
-            } catch (Throwable t) {
-                logger.error("Fail to execute rule '{}': {}", new Object[] { rule.getUID(), t.getMessage() }, t);
-            }
-
-            // change state to IDLE
-            setRuleStatusInfo(rule.getUID(), new RuleStatusInfo(RuleStatus.IDLE));
-        } else {
+        String rUID = rule.getUID();
+        CompiledRule compiledRule = rule.getCompiledRule();
+        // change state to RUNNING
+        if (compiledRule == null || !compareAndSetRuleStatusInfo(rUID, RuleStatus.IDLE, RUNNING_STATUS_INFO)) {
+            RuleStatus ruleStatus = getRuleStatus(rUID);
             logger.error("Trying to execute rule ‘{}' with status '{}'",
-                    new Object[] { rule.getUID(), ruleStatus.getValue() });
-        }
-
-    }
-
-    private void clearContext(RuntimeRule rule) {
-        Map<String, Object> context = contextMap.get(rule.getUID());
-        if (context != null) {
-            context.clear();
-        }
-    }
-
-    /**
-     * The method updates {@link Output} of the {@link Trigger} with a new triggered data.
-     *
-     * @param td new Triggered data.
-     */
-    private void setTriggerOutputs(String ruleUID, TriggerData td) {
-        Trigger t = td.getTrigger();
-        updateContext(ruleUID, t.getId(), td.getOutputs());
-    }
-
-    /**
-     * Updates current context of rule engine.
-     *
-     * @param moduleUID uid of updated module.
-     *
-     * @param outputs new output values.
-     */
-    private void updateContext(String ruleUID, String moduleUID, Map<String, ?> outputs) {
-        Map<String, Object> context = getContext(ruleUID);
-        for (Map.Entry<String, ?> entry : outputs.entrySet()) {
-            String key = moduleUID + OUTPUT_SEPARATOR + entry.getKey();
-            context.put(key, entry.getValue());
-        }
-    }
-
-    /**
-     * @return copy of current context in rule engine
-     */
-    private Map<String, Object> getContext(String ruleUID) {
-        return getContext(ruleUID, null);
-    }
-
-    private Map<String, Object> getContext(String ruleUID, Set<Connection> connections) {
-        Map<String, Object> context = contextMap.get(ruleUID);
-        if (context == null) {
-            context = new HashMap<String, Object>();
-            contextMap.put(ruleUID, context);
+                    new Object[] { rUID, ruleStatus != null ? ruleStatus.getValue() : null });
+            return;
         }
-        if (connections != null) {
-            StringBuffer sb = new StringBuffer();
-            for (Connection c : connections) {
-                String outputModuleId = c.getOuputModuleId();
-                if (outputModuleId != null) {
-                    sb.append(outputModuleId).append(OUTPUT_SEPARATOR).append(c.getOutputName());
-                    context.put(c.getInputName(), context.get(sb.toString()));
-                    sb.setLength(0);
-                } else {
-                    // get reference from context
-                    String ref = c.getOutputName();
-                    final Object value = ReferenceResolverUtil.resolveReference(ref, context);
-
-                    if (value != null) {
-                        context.put(c.getInputName(), value);
-                    }
-                }
-
+        try {
+            Map<String, Object> context = compiledRule.createContext();
+            compiledRule.putOutputs(context, td.getTrigger().getId(), td.getOutputs());
+            boolean isSatisfied = calculateConditions(rUID, compiledRule, context);
+            if (isSatisfied) {
+                executeActions(rUID, compiledRule, context);
+                logger.debug("The rule '{}' is executed.", rUID);
+            } else {
+                logger.debug("The rule '{}' is NOT executed, since it has unsatisfied conditions.", rUID);
             }
+        } catch (Throwable t) {
+            logger.error("Fail to execute rule '{}': {}", new Object[] { rUID, t.getMessage() }, t);
         }
-        return context;
+
+        // change state to IDLE, unless the status has been changed in the meantime
+        compareAndSetRuleStatusInfo(rUID, RuleStatus.RUNNING, IDLE_STATUS_INFO);
     }
 
     /**
      * This method checks if all rule's condition are satisfied or not.
      *
-     * @param rule the checked rule
+     * @param rUID UID of the checked rule
+     * @param compiledRule execution plan of the checked rule
+     * @param context context of the execution
      * @return true when all conditions of the rule are satisfied, false otherwise.
      */
-    private boolean calculateConditions(Rule rule) {
-        List<Condition> conditions = ((RuntimeRule) rule).getConditions();
-        if (conditions == null || conditions.size() == 0) {
-            return true;
-        }
-        for (Iterator<Condition> it = conditions.iterator(); it.hasNext();) {
-            RuntimeCondition c = (RuntimeCondition) it.next();
+    private boolean calculateConditions(String rUID, CompiledRule compiledRule, Map<String, Object> context) {
+        for (int i = 0; i < compiledRule.getConditionCount(); i++) {
+            RuntimeCondition c = compiledRule.getCondition(i);
             ConditionHandler tHandler = c.getModuleHandler();
-            Map<String, Object> context = getContext(rule.getUID(), c.getConnections());
+            compiledRule.resolveConditionInputs(i, context);
             if (!tHandler.isSatisfied(context)) {
-                logger.debug("The condition '{}' of rule '{}' is unsatisfied.",
-                        new Object[] { c.getId(), rule.getUID() });
+                logger.debug("The condition '{}' of rule '{}' is unsatisfied.", new Object[] { c.getId(), rUID });
                 return false;
             }
         }
@@ -1020,30 +1000,24 @@ public class RuleEngine
     /**
      * This method evaluates actions of the {@link Rule} and set their {@link Output}s when they exists.
      *
-     * @param rule executed rule.
+     * @param rUID UID of the executed rule
+     * @param compiledRule execution plan of the executed rule
+     * @param context context of the execution
      */
-    private void executeActions(Rule rule) {
-        List<Action> actions = ((RuntimeRule) rule).getActions();
-        if (actions == null || actions.size() == 0) {
-            return;
-        }
-        for (Iterator<Action> it = actions.iterator(); it.hasNext();) {
-            RuntimeAction a = (RuntimeAction) it.next();
+    private void executeActions(String rUID, CompiledRule compiledRule, Map<String, Object> context) {
+        for (int i = 0; i < compiledRule.getActionCount(); i++) {
+            RuntimeAction a = compiledRule.getAction(i);
             ActionHandler aHandler = a.getModuleHandler();
             try {
-                String rUID = rule.getUID();
-                Map<String, Object> context = getContext(rUID, a.getConnections());
+                compiledRule.resolveActionInputs(i, context);
                 Map<String, ?> outputs = aHandler.execute(context);
                 if (outputs != null) {
-                    context = getContext(rUID);
-                    updateContext(rUID, a.getId(), outputs);
+                    compiledRule.putOutputs(context, a.getId(), outputs);
                 }
             } catch (Throwable t) {
                 logger.error("Fail to execute the action: " + a.getId(), t);
             }
-
         }
-
     }
 
     /**
@@ -1078,10 +1052,6 @@ public class RuleEngine
         }
         scheduleTasks = null;
 
-        if (contextMap != null) {
-            contextMap.clear();
-            contextMap = null;
-        }
         statusInfoCallback = null;
     }
 
@@ -1106,9 +1076,8 @@ public class RuleEngine
      * @param rUID rule uid
      * @return status of the rule or null when such rule does not exists.
      */
-    public synchronized RuleStatusInfo getRuleStatusInfo(String rUID) {
-        RuleStatusInfo info = statusMap.get(rUID);
-        return info;
+    public RuleStatusInfo getRuleStatusInfo(String rUID) {
+        return statusMap.get(rUID);
     }
 
     protected String getUniqueId() {
@@ -1184,13 +1153,21 @@ public class RuleEngine
         this.compositeFactory = compositeFactory;
     }
 
-    private void resolveDefaultValues(RuntimeRule r) {
-        setDefautlValues(r.getUID(), r.getTriggers());
-        setDefautlValues(r.getUID(), r.getConditions());
-        setDefautlValues(r.getUID(), r.getActions());
+    /**
+     * Sets the default configuration values of the modules and collects the default values of their outputs.
+     *
+     * @param r the rule
+     * @return the default output values, stored by 'moduleId.outputName'
+     */
+    private Map<String, Object> resolveDefaultValues(RuntimeRule r) {
+        Map<String, Object> defaultOutputs = new HashMap<String, Object>();
+        setDefautlValues(r.getTriggers(), defaultOutputs);
+        setDefautlValues(r.getConditions(), defaultOutputs);
+        setDefautlValues(r.getActions(), defaultOutputs);
+        return defaultOutputs;
     }
 
-    private <T extends Module> void setDefautlValues(String ruleUID, List<T> modules) {
+    private <T extends Module> void setDefautlValues(List<T> modules, Map<String, Object> defaultOutputs) {
         for (T module : modules) {
             Configuration moduleConfiguration = module.getConfiguration();
             String typeId = module.getTypeUID();
@@ -1216,16 +1193,12 @@ public class RuleEngine
             }
 
             if (outputs != null) {
-                Map<String, Object> result = new HashMap<String, Object>(11);
                 for (Output output : outputs) {
                     Object defaultValue = output.getDefaultValue();
                     if (defaultValue != null) {
-                        result.put(output.getName(), defaultValue);
+                        defaultOutputs.put(module.getId() + OUTPUT_SEPARATOR + output.getName(), defaultValue);
                     }
                 }
-                if (result.size() > 0) {
-                    updateContext(ruleUID, module.getId(), result);
-                }
             }
         }
     }
@@ -1250,9 +1223,53 @@ public class RuleEngine
             } else {
                 scheduleReinitializationDelay = DEFAULT_REINITIALIZATION_DELAY;
             }
+            value = properties.get(CONFIG_PROPERTY_QUEUE_SIZE);
+            try {
+                ruleExecutor.setQueueSize(value != null ? Integer.parseInt(value.toString().trim())
+                        : RuleExecutor.DEFAULT_QUEUE_SIZE);
+            } catch (IllegalArgumentException e) {
+                logger.error("Invalid configuration value: " + value + ". It MUST be a positive Number.");
+            }
+            value = properties.get(CONFIG_PROPERTY_QUEUE_OVERFLOW);
+            try {
+                ruleExecutor.setOverflowPolicy(value != null ? RuleExecutor.OverflowPolicy.parse(value.toString())
+                        : RuleExecutor.DEFAULT_OVERFLOW_POLICY);
+            } catch (IllegalArgumentException e) {
+                logger.error("Invalid configuration value: " + value
+                        + ". It MUST be one of drop-oldest, coalesce or reject.");
+            }
         } else {
             scheduleReinitializationDelay = DEFAULT_REINITIALIZATION_DELAY;
+            ruleExecutor.setQueueSize(RuleExecutor.DEFAULT_QUEUE_SIZE);
+            ruleExecutor.setOverflowPolicy(RuleExecutor.DEFAULT_OVERFLOW_POLICY);
+        }
+    }
+
+    @Override
+    public String getMetricsName() {
+        return METRICS_NAME;
+    }
+
+    @Override
+    public List<String> getMetrics() {
+        List<String> metrics = new ArrayList<String>();
+        for (RuleExecutionMetrics ruleMetrics : getRuleExecutionMetrics()) {
+            metrics.add(ruleMetrics.toString());
+        }
+        return metrics;
+    }
+
+    /**
+     * Returns the execution statistics of all registered rules.
+     *
+     * @return a snapshot of the statistics of each rule
+     */
+    synchronized List<RuleExecutionMetrics> getRuleExecutionMetrics() {
+        List<RuleExecutionMetrics> metrics = new ArrayList<RuleExecutionMetrics>(reCallbacks.size());
+        for (RuleEngineCallbackImpl reCallback : reCallbacks.values()) {
+            metrics.add(reCallback.getMetrics());
         }
+        return metrics;
     }
 
     /**
@@ -8,9 +8,6 @@
 package org.eclipse.smarthome.automation.core.internal;
 
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
 
 import org.eclipse.smarthome.automation.Rule;
 import org.eclipse.smarthome.automation.Trigger;
@@ -19,36 +16,32 @@ import org.eclipse.smarthome.automation.handler.RuleEngineCallback;
 /**
  * This class is implementation of {@link RuleEngineCallback} used by the {@link Trigger}s to notify rule engine about
  * appearing of new triggered data. There is one and only one {@link RuleEngineCallback} per Rule and it is used by all
- * rule's {@link Trigger}s.
+ * rule's {@link Trigger}s. The triggered executions are queued in the {@link RuleExecutionQueue} of the rule, which
+ * executes them one after the other on the shared pool of the {@link RuleExecutor}.
  *
  * @author Yordan Mihaylov - Initial Contribution
  * @author Kai Kreuzer - improved stability
  */
 public class RuleEngineCallbackImpl implements RuleEngineCallback {
 
-    private RuntimeRule r;
+    private volatile RuntimeRule r;
 
-    private ExecutorService executor;
-
-    private Future<?> feature;
+    private final RuleExecutionQueue queue;
 
     private RuleEngine re;
 
-    protected RuleEngineCallbackImpl(RuleEngine re, RuntimeRule r) {
+    protected RuleEngineCallbackImpl(RuleEngine re, RuntimeRule r, RuleExecutor ruleExecutor) {
         this.re = re;
         this.r = r;
-        executor = Executors.newSingleThreadExecutor();
+        queue = ruleExecutor.createQueue(r.getUID());
     }
 
     @Override
     public void triggered(Trigger trigger, Map<String, ?> outputs) {
-        if (executor != null) {
-            re.logger.debug("The trigger '{}' of rule '{}' is triggred.", trigger.getId(), r.getUID());
-            synchronized (executor) {
-                if (executor != null) {
-                    feature = executor.submit(new TriggerData(trigger, outputs));
-                }
-            }
+        RuntimeRule rule = r;
+        if (rule != null) {
+            re.logger.debug("The trigger '{}' of rule '{}' is triggred.", trigger.getId(), rule.getUID());
+            queue.submit(trigger.getId(), new TriggerData(rule, trigger, outputs));
         }
     }
 
@@ -57,11 +50,22 @@ public class RuleEngineCallbackImpl implements RuleEngineCallback {
     }
 
     public boolean isRunning() {
-        return feature == null || !feature.isDone();
+        return queue.isRunning();
+    }
+
+    /**
+     * Returns a snapshot of the execution statistics of the rule.
+     *
+     * @return the statistics
+     */
+    public RuleExecutionMetrics getMetrics() {
+        return queue.getMetrics();
     }
 
     class TriggerData implements Runnable {
 
+        private RuntimeRule rule;
+
         private Trigger trigger;
 
         public Trigger getTrigger() {
@@ -74,22 +78,20 @@ public class RuleEngineCallbackImpl implements RuleEngineCallback {
 
         private Map<String, ?> outputs;
 
-        public TriggerData(Trigger t, Map<String, ?> outputs) {
+        public TriggerData(RuntimeRule rule, Trigger t, Map<String, ?> outputs) {
+            this.rule = rule;
             this.trigger = t;
             this.outputs = outputs;
         }
 
         @Override
         public void run() {
-            re.runRule(r, this);
+            re.runRule(rule, this);
         }
     }
 
     public void dispose() {
-        synchronized (executor) {
-            executor.shutdownNow();
-            executor = null;
-        }
+        queue.dispose();
         r = null;
     }
 
@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) 1997, 2015 by ProSyst Software GmbH and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.automation.core.internal;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@link RuleExecutionMetrics} is an immutable snapshot of the execution statistics of a single rule.
+ *
+ * @author agent - Initial contribution
+ */
+public class RuleExecutionMetrics {
+
+    private final String ruleUID;
+    private final int queueDepth;
+    private final long executedCount;
+    private final long droppedCount;
+    private final long coalescedCount;
+    private final long averageLatencyNanos;
+    private final long maxLatencyNanos;
+
+    RuleExecutionMetrics(String ruleUID, int queueDepth, long executedCount, long droppedCount, long coalescedCount,
+            long averageLatencyNanos, long maxLatencyNanos) {
+        this.ruleUID = ruleUID;
+        this.queueDepth = queueDepth;
+        this.executedCount = executedCount;
+        this.droppedCount = droppedCount;
+        this.coalescedCount = coalescedCount;
+        this.averageLatencyNanos = averageLatencyNanos;
+        this.maxLatencyNanos = maxLatencyNanos;
+    }
+
+    /**
+     * @return the UID of the rule
+     */
+    public String getRuleUID() {
+        return ruleUID;
+    }
+
+    /**
+     * @return the number of executions waiting in the queue of the rule
+     */
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    /**
+     * @return the number of finished executions
+     */
+    public long getExecutedCount() {
+        return executedCount;
+    }
+
+    /**
+     * @return the number of executions dropped because the queue of the rule was full
+     */
+    public long getDroppedCount() {
+        return droppedCount;
+    }
+
+    /**
+     * @return the number of executions which replaced a waiting execution of the same trigger
+     */
+    public long getCoalescedCount() {
+        return coalescedCount;
+    }
+
+    /**
+     * @return the average time in milliseconds from triggering the rule until its execution finished
+     */
+    public long getAverageLatency() {
+        return TimeUnit.NANOSECONDS.toMillis(averageLatencyNanos);
+    }
+
+    /**
+     * @return the maximum time in milliseconds from triggering the rule until its execution finished
+     */
+    public long getMaxLatency() {
+        return TimeUnit.NANOSECONDS.toMillis(maxLatencyNanos);
+    }
+
+    @Override
+    public String toString() {
+        return ruleUID + " [queueDepth=" + queueDepth + ", executed=" + executedCount + ", dropped=" + droppedCount
+                + ", coalesced=" + coalescedCount + ", avgLatency=" + getAverageLatency() + "ms, maxLatency="
+                + getMaxLatency() + "ms]";
+    }
+
+}
@@ -0,0 +1,234 @@
+/**
+ * Copyright (c) 1997, 2015 by ProSyst Software GmbH and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.automation.core.internal;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.smarthome.automation.core.internal.RuleExecutor.OverflowPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link RuleExecutionQueue} holds the triggered executions of a single rule. The executions are run by a drain
+ * task on the shared pool of the {@link RuleExecutor}, one after the other in the order of triggering. There is at most
+ * one drain task per rule at any time, so the executions of a rule never overlap.
+ *
+ * @author agent - Initial contribution
+ */
+class RuleExecutionQueue {
+
+    /**
+     * Maximum number of executions which are run by one drain task before it gives the thread back to the pool.
+     */
+    private static final int MAX_EXECUTIONS_PER_DRAIN = 20;
+
+    /**
+     * Dropped executions are logged for the first one and then for every n-th one.
+     */
+    private static final int DROP_LOG_INTERVAL = 1000;
+
+    private final Logger logger = LoggerFactory.getLogger(RuleExecutionQueue.class);
+
+    private final RuleExecutor ruleExecutor;
+
+    private final String ruleUID;
+
+    /** guarded by itself, as well as the scheduled and disposed flags */
+    private final Deque<QueuedExecution> queue = new ArrayDeque<QueuedExecution>();
+
+    private boolean scheduled;
+
+    private boolean disposed;
+
+    private volatile boolean running;
+
+    private final AtomicLong executedCount = new AtomicLong();
+
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    private final AtomicLong coalescedCount = new AtomicLong();
+
+    private final AtomicLong totalLatencyNanos = new AtomicLong();
+
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    private final Runnable drainTask = new Runnable() {
+        @Override
+        public void run() {
+            drain();
+        }
+    };
+
+    RuleExecutionQueue(RuleExecutor ruleExecutor, String ruleUID) {
+        this.ruleExecutor = ruleExecutor;
+        this.ruleUID = ruleUID;
+    }
+
+    /**
+     * Queues an execution of the rule.
+     *
+     * @param key identifies the origin of the execution (e.g. the trigger), used for coalescing
+     * @param execution the execution
+     * @return true if the execution has been queued, false if it has been rejected
+     */
+    boolean submit(Object key, Runnable execution) {
+        QueuedExecution queuedExecution = new QueuedExecution(key, execution, System.nanoTime());
+        synchronized (queue) {
+            if (disposed) {
+                return false;
+            }
+            if (queue.size() >= ruleExecutor.getQueueSize()) {
+                OverflowPolicy overflowPolicy = ruleExecutor.getOverflowPolicy();
+                switch (overflowPolicy) {
+                    case DROP_OLDEST:
+                        queue.poll();
+                        dropped(overflowPolicy);
+                        break;
+                    case COALESCE:
+                        if (replace(queuedExecution)) {
+                            coalescedCount.incrementAndGet();
+                            return true;
+                        }
+                        dropped(overflowPolicy);
+                        return false;
+                    default:
+                        dropped(overflowPolicy);
+                        return false;
+                }
+            }
+            queue.add(queuedExecution);
+            if (scheduled) {
+                return true;
+            }
+            scheduled = true;
+        }
+        schedule();
+        return true;
+    }
+
+    private boolean replace(QueuedExecution queuedExecution) {
+        for (Iterator<QueuedExecution> it = queue.descendingIterator(); it.hasNext();) {
+            QueuedExecution waiting = it.next();
+            if (waiting.key != null && waiting.key.equals(queuedExecution.key)) {
+                waiting.execution = queuedExecution.execution;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void dropped(OverflowPolicy overflowPolicy) {
+        long dropped = droppedCount.incrementAndGet();
+        if (dropped == 1 || dropped % DROP_LOG_INTERVAL == 0) {
+            logger.warn("Execution queue of rule '{}' is full ({} executions, policy {}), dropped {} executions "
+                    + "so far.", new Object[] { ruleUID, ruleExecutor.getQueueSize(), overflowPolicy, dropped });
+        }
+    }
+
+    private void schedule() {
+        try {
+            ruleExecutor.getExecutor().execute(drainTask);
+        } catch (RejectedExecutionException e) {
+            synchronized (queue) {
+                scheduled = false;
+            }
+            logger.warn("Execution of rule '{}' has been rejected by the executor.", ruleUID);
+        }
+    }
+
+    private void drain() {
+        for (int i = 0; i < MAX_EXECUTIONS_PER_DRAIN; i++) {
+            QueuedExecution queuedExecution;
+            synchronized (queue) {
+                queuedExecution = queue.poll();
+                if (queuedExecution == null) {
+                    scheduled = false;
+                    return;
+                }
+                running = true;
+            }
+            try {
+                queuedExecution.execution.run();
+            } catch (Throwable t) {
+                logger.error("Fail to execute rule '" + ruleUID + "': " + t.getMessage(), t);
+            } finally {
+                running = false;
+                recordLatency(System.nanoTime() - queuedExecution.queuedNanos);
+            }
+        }
+        // the drain limit has been reached, give other rules a chance to be executed
+        synchronized (queue) {
+            if (queue.isEmpty()) {
+                scheduled = false;
+                return;
+            }
+        }
+        schedule();
+    }
+
+    private void recordLatency(long latencyNanos) {
+        executedCount.incrementAndGet();
+        totalLatencyNanos.addAndGet(latencyNanos);
+        long max = maxLatencyNanos.get();
+        while (latencyNanos > max && !maxLatencyNanos.compareAndSet(max, latencyNanos)) {
+            max = maxLatencyNanos.get();
+        }
+    }
+
+    /**
+     * @return true if an execution of the rule is currently running or waiting
+     */
+    boolean isRunning() {
+        synchronized (queue) {
+            return running || !queue.isEmpty();
+        }
+    }
+
+    /**
+     * Discards all waiting executions and rejects all further ones. A currently running execution is not interrupted.
+     */
+    void dispose() {
+        synchronized (queue) {
+            disposed = true;
+            queue.clear();
+        }
+    }
+
+    /**
+     * Returns a snapshot of the statistics of this queue.
+     *
+     * @return the statistics
+     */
+    RuleExecutionMetrics getMetrics() {
+        int queueDepth;
+        synchronized (queue) {
+            queueDepth = queue.size();
+        }
+        long executed = executedCount.get();
+        long averageLatency = executed > 0 ? totalLatencyNanos.get() / executed : 0;
+        return new RuleExecutionMetrics(ruleUID, queueDepth, executed, droppedCount.get(), coalescedCount.get(),
+                averageLatency, maxLatencyNanos.get());
+    }
+
+    private static class QueuedExecution {
+        private final Object key;
+        private Runnable execution;
+        private final long queuedNanos;
+
+        private QueuedExecution(Object key, Runnable execution, long queuedNanos) {
+            this.key = key;
+            this.execution = execution;
+            this.queuedNanos = queuedNanos;
+        }
+    }
+
+}
@@ -0,0 +1,117 @@
+/**
+ * Copyright (c) 1997, 2015 by ProSyst Software GmbH and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.automation.core.internal;
+
+import java.util.concurrent.Executor;
+
+import org.eclipse.smarthome.automation.Rule;
+
+/**
+ * The {@link RuleExecutor} executes the triggered {@link Rule}s on a shared, bounded worker pool instead of a thread
+ * per rule. Each rule gets its own {@link RuleExecutionQueue}, which executes the triggered executions of the rule one
+ * after the other in the order of triggering, so that the executions of a single rule never overlap.
+ * <p>
+ * The number of executions waiting in the queue of a rule is limited. When the limit is reached, the configured
+ * {@link OverflowPolicy} decides which execution is dropped.
+ *
+ * @author agent - Initial contribution
+ */
+public class RuleExecutor {
+
+    /**
+     * Decides what happens with a triggered execution, if the queue of the rule is full.
+     */
+    public enum OverflowPolicy {
+
+        /**
+         * The oldest waiting execution is dropped in favor of the new one.
+         */
+        DROP_OLDEST,
+
+        /**
+         * A waiting execution of the same trigger is replaced by the new one. If there is none, the new execution is
+         * rejected.
+         */
+        COALESCE,
+
+        /**
+         * The new execution is rejected.
+         */
+        REJECT;
+
+        /**
+         * Returns the policy for the given configuration value, e.g. 'drop-oldest' or 'DROP_OLDEST'.
+         *
+         * @param value the configuration value
+         * @return the policy
+         * @throws IllegalArgumentException if there is no policy for the given value
+         */
+        public static OverflowPolicy parse(String value) {
+            return valueOf(value.trim().toUpperCase().replace('-', '_'));
+        }
+    }
+
+    /**
+     * Default maximum number of executions waiting in the queue of a rule.
+     */
+    public static final int DEFAULT_QUEUE_SIZE = 1000;
+
+    /**
+     * Default policy if the queue of a rule is full.
+     */
+    public static final OverflowPolicy DEFAULT_OVERFLOW_POLICY = OverflowPolicy.REJECT;
+
+    private final Executor executor;
+
+    private volatile int queueSize = DEFAULT_QUEUE_SIZE;
+
+    private volatile OverflowPolicy overflowPolicy = DEFAULT_OVERFLOW_POLICY;
+
+    /**
+     * Constructs a rule executor.
+     *
+     * @param executor the shared worker pool executing the rules
+     */
+    public RuleExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Creates the execution queue for a rule.
+     *
+     * @param ruleUID the UID of the rule
+     * @return the queue of the rule
+     */
+    RuleExecutionQueue createQueue(String ruleUID) {
+        return new RuleExecutionQueue(this, ruleUID);
+    }
+
+    Executor getExecutor() {
+        return executor;
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    public void setQueueSize(int queueSize) {
+        if (queueSize < 1) {
+            throw new IllegalArgumentException("The queue size must be positive.");
+        }
+        this.queueSize = queueSize;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy != null ? overflowPolicy : DEFAULT_OVERFLOW_POLICY;
+    }
+
+}
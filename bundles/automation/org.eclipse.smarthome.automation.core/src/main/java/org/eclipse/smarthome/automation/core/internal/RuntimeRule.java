@@ -29,6 +29,8 @@ public class RuntimeRule extends Rule {
 
     private Map<String, Module> moduleMap;
 
+    private volatile CompiledRule compiledRule;
+
     /**
      * Utility constructor creating copy of the Rule or create a new empty instance.
      *
@@ -67,6 +69,17 @@ public class RuntimeRule extends Rule {
         return moduleMap;
     }
 
+    /**
+     * @return the execution plan of the rule or null, if the rule is not registered
+     */
+    CompiledRule getCompiledRule() {
+        return compiledRule;
+    }
+
+    void setCompiledRule(CompiledRule compiledRule) {
+        this.compiledRule = compiledRule;
+    }
+
     protected void setUID(String rUID) {
         uid = rUID;
     }
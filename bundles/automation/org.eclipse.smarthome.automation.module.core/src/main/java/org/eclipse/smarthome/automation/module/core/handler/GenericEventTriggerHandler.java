@@ -19,6 +19,7 @@ import org.eclipse.smarthome.automation.handler.TriggerHandler;
 import org.eclipse.smarthome.core.events.Event;
 import org.eclipse.smarthome.core.events.EventFilter;
 import org.eclipse.smarthome.core.events.EventSubscriber;
+import org.eclipse.smarthome.core.events.TopicSubstringEventFilter;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.ServiceRegistration;
 import org.slf4j.Logger;
@@ -50,6 +51,7 @@ public class GenericEventTriggerHandler extends BaseModuleHandler<Trigger>
     private String topic;
     private Set<String> types;
     private BundleContext bundleContext;
+    private final EventFilter eventFilter;
 
     public static final String MODULE_TYPE_ID = "GenericEventTrigger";
 
@@ -66,6 +68,7 @@ public class GenericEventTriggerHandler extends BaseModuleHandler<Trigger>
         this.topic = (String) module.getConfiguration().get(CFG_EVENT_TOPIC);
         this.types = ImmutableSet.copyOf(((String) module.getConfiguration().get(CFG_EVENT_TYPES)).split(","));
         this.bundleContext = bundleContext;
+        this.eventFilter = source != null ? new TopicSubstringEventFilter(source) : this;
         Dictionary<String, Object> properties = new Hashtable<String, Object>();
         properties.put("event.topics", topic);
         eventSubscriberRegistration = this.bundleContext.registerService(EventSubscriber.class.getName(), this,
@@ -85,14 +88,18 @@ public class GenericEventTriggerHandler extends BaseModuleHandler<Trigger>
 
     @Override
     public EventFilter getEventFilter() {
-        return null;
+        // the source is checked on dispatching, so that events of other sources are not queued for this subscriber, and
+        // the event bus indexes the substring filters of all triggers instead of applying them one after the other
+        return eventFilter;
     }
 
     @Override
     public void receive(Event event) {
         if (callback != null) {
-            logger.trace("Received Event: Source: " + event.getSource() + " Topic: " + event.getTopic() + " Type: "
-                    + event.getType() + " Payload: " + event.getPayload());
+            if (logger.isTraceEnabled()) {
+                logger.trace("Received Event: Source: {} Topic: {} Type: {} Payload: {}", event.getSource(),
+                        event.getTopic(), event.getType(), event.getPayload());
+            }
 
             if (!event.getTopic().contains(source)) {
                 return;
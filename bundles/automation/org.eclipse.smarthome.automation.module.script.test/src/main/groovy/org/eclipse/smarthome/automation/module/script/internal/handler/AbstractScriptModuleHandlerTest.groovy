@@ -0,0 +1,167 @@
+/**
+ * Copyright (c) 1997, 2015 by ProSyst Software GmbH and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.automation.module.script.internal.handler
+
+import static org.hamcrest.CoreMatchers.*
+import static org.junit.Assert.*
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+import javax.script.AbstractScriptEngine
+import javax.script.Bindings
+import javax.script.Compilable
+import javax.script.CompiledScript
+import javax.script.ScriptContext
+import javax.script.ScriptEngine
+import javax.script.ScriptEngineFactory
+import javax.script.SimpleBindings
+
+import org.eclipse.smarthome.automation.Action
+import org.junit.Before
+import org.junit.Test
+
+/**
+ * Tests that the {@link AbstractScriptModuleHandler} compiles a script once and gives each execution a context of its
+ * own, without passing the variables of an execution on to the next one.
+ *
+ * @author agent - Initial contribution
+ */
+class AbstractScriptModuleHandlerTest {
+
+    /**
+     * A script engine which records the contexts it evaluates scripts with. A script evaluates to a copy of the
+     * variables of the engine scope.
+     */
+    static class RecordingScriptEngine extends AbstractScriptEngine implements Compilable {
+
+        List<ScriptContext> contexts = []
+        int createdBindings
+        int compiledScripts
+
+        @Override
+        Object eval(String script, ScriptContext context) {
+            contexts.add(context)
+            return new HashMap(context.getBindings(ScriptContext.ENGINE_SCOPE))
+        }
+
+        @Override
+        Object eval(Reader reader, ScriptContext context) {
+            return eval(reader.text, context)
+        }
+
+        @Override
+        Bindings createBindings() {
+            createdBindings++
+            return new SimpleBindings()
+        }
+
+        @Override
+        ScriptEngineFactory getFactory() {
+            return null
+        }
+
+        @Override
+        CompiledScript compile(String script) {
+            compiledScripts++
+            def engine = this
+            return new CompiledScript() {
+                @Override
+                Object eval(ScriptContext context) {
+                    return engine.eval(script, context)
+                }
+
+                @Override
+                ScriptEngine getEngine() {
+                    return engine
+                }
+            }
+        }
+
+        @Override
+        CompiledScript compile(Reader script) {
+            return compile(script.text)
+        }
+    }
+
+    RecordingScriptEngine engine
+
+    AbstractScriptModuleHandler<Action> handler
+
+    @Before
+    void setUp() {
+        engine = new RecordingScriptEngine()
+        engine.put("shared", "engine variable")
+        handler = new AbstractScriptModuleHandler<Action>(new Action("action", "ScriptAction", null, null)) {}
+    }
+
+    @Test
+    void 'assert that each execution gets a context of its own without the variables of the previous execution'() {
+        def first = handler.evaluate(engine, "script", [a: 1, "trigger.event": "first event"])
+        def second = handler.evaluate(engine, "script", [b: 2])
+
+        assertThat first, is([a: 1, trigger: [event: "first event"]])
+        assertThat second, is([b: 2])
+        assertThat engine.contexts.size(), is(2)
+        assertThat engine.contexts[1], is(not(sameInstance(engine.contexts[0])))
+        assertThat engine.createdBindings, is(2)
+        assertThat engine.compiledScripts, is(1)
+        assertThat engine.contexts[1].getAttribute("shared"), is("engine variable")
+        assertThat engine.contexts[1].getAttribute("a"), is(nullValue())
+    }
+
+    @Test
+    void 'assert that concurrent executions of a module do not wait for each other'() {
+        def secondFinished = new CountDownLatch(1)
+        def blockingEngine = new RecordingScriptEngine() {
+                    @Override
+                    Object eval(String script, ScriptContext context) {
+                        if (context.getAttribute("first") != null) {
+                            return secondFinished.await(10, TimeUnit.SECONDS)
+                        }
+                        return super.eval(script, context)
+                    }
+                }
+        def firstResult
+        def first = Thread.start { firstResult = handler.evaluate(blockingEngine, "script", [first: true]) }
+        handler.evaluate(blockingEngine, "script", [second: true])
+        secondFinished.countDown()
+        first.join()
+
+        assertThat firstResult, is(true)
+    }
+
+    @Test
+    void 'assert that a changed script is compiled again'() {
+        handler.evaluate(engine, "script", [a: 1])
+        handler.evaluate(engine, "script", [a: 2])
+        handler.evaluate(engine, "changed script", [a: 3])
+
+        assertThat engine.compiledScripts, is(2)
+    }
+
+    @Test
+    void 'assert that another engine compiles the script again'() {
+        def otherEngine = new RecordingScriptEngine()
+        handler.evaluate(engine, "script", [a: 1])
+        def result = handler.evaluate(otherEngine, "script", [b: 2])
+
+        assertThat result, is([b: 2])
+        assertThat otherEngine.compiledScripts, is(1)
+        assertThat otherEngine.createdBindings, is(1)
+    }
+
+    @Test
+    void 'assert that a disposed handler compiles the script again'() {
+        handler.evaluate(engine, "script", [a: 1])
+        handler.dispose()
+        handler.evaluate(engine, "script", [a: 1])
+
+        assertThat engine.compiledScripts, is(2)
+    }
+}
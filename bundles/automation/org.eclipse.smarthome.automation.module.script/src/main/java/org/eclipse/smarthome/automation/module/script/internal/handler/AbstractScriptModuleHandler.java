@@ -11,8 +11,13 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 
+import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
 import javax.script.ScriptContext;
 import javax.script.ScriptEngine;
+import javax.script.ScriptException;
+import javax.script.SimpleScriptContext;
 
 import org.eclipse.smarthome.automation.Module;
 import org.eclipse.smarthome.automation.handler.BaseModuleHandler;
@@ -32,42 +37,103 @@ abstract public class AbstractScriptModuleHandler<T extends Module> extends Base
     /** Constant defining the configuration parameter of modules that specifies the script itself */
     protected static final String SCRIPT = "script";
 
-    private ScriptContext executionContext;
+    /** the script compiled for the current configuration, null until the first execution */
+    private volatile CachedScript cachedScript;
 
     public AbstractScriptModuleHandler(T module) {
         super(module);
     }
 
     /**
-     * Gets an instance of the script context for the current module.
-     * The instance is kept across the lifetime of the handler, i.e. it will remain the same over multiple executions of
-     * the module.
+     * Evaluates a script with the given rule context. If the engine supports {@link Compilable}, the script is compiled
+     * on the first execution and the compiled script is reused as long as the script and the engine do not change.
+     * Each evaluation gets an execution context of its own, so concurrent evaluations of the module do not block each
+     * other.
      *
      * @param engine the scriptengine that is used
+     * @param script the script to evaluate
      * @param context the variables and types to put into the execution context
-     * @return the scope instance used for the module
+     * @return the result of the script
+     * @throws ScriptException if the script cannot be compiled or fails
      */
-    protected synchronized ScriptContext getExecutionContext(ScriptEngine engine, Map<String, ?> context) {
-        if (executionContext == null) {
-            executionContext = engine.getContext();
+    protected Object evaluate(ScriptEngine engine, String script, Map<String, ?> context) throws ScriptException {
+        CompiledScript compiledScript = getCompiledScript(engine, script);
+        ScriptContext executionContext = getExecutionContext(engine, context);
+        if (compiledScript != null) {
+            return compiledScript.eval(executionContext);
         }
-        // add the rule context to the script engine (only for this execution)
-        for (Entry<String, ?> entry : context.entrySet()) {
+        return engine.eval(script, executionContext);
+    }
+
+    private CompiledScript getCompiledScript(ScriptEngine engine, String script) throws ScriptException {
+        if (!(engine instanceof Compilable)) {
+            return null;
+        }
+        CachedScript cached = cachedScript;
+        if (cached == null || cached.engine != engine || !cached.script.equals(script)) {
+            // compiling the same script twice on concurrent first executions is harmless
+            cached = new CachedScript(engine, script, ((Compilable) engine).compile(script));
+            cachedScript = cached;
+        }
+        return cached.compiledScript;
+    }
 
-            final HashMap<String, Object> jsonObj = new HashMap<String, Object>();
+    /**
+     * Creates the script context for a single execution of the module. The variables of the rule context are only
+     * visible to this execution, while the variables of the engine (e.g. the ones provided by the scope providers) are
+     * shared through the global scope.
+     *
+     * @param engine the scriptengine that is used
+     * @param context the variables and types to put into the execution context
+     * @return the script context for the execution
+     */
+    protected ScriptContext getExecutionContext(ScriptEngine engine, Map<String, ?> context) {
+        ScriptContext engineContext = engine.getContext();
+        ScriptContext scriptContext = new SimpleScriptContext();
+        Bindings bindings = engine.createBindings();
+        scriptContext.setBindings(bindings, ScriptContext.ENGINE_SCOPE);
+        scriptContext.setBindings(engine.getBindings(ScriptContext.ENGINE_SCOPE), ScriptContext.GLOBAL_SCOPE);
+        scriptContext.setReader(engineContext.getReader());
+        scriptContext.setWriter(engineContext.getWriter());
+        scriptContext.setErrorWriter(engineContext.getErrorWriter());
+
+        for (Entry<String, ?> entry : context.entrySet()) {
             Object value = entry.getValue();
             String key = entry.getKey();
             int dotIndex = key.indexOf('.');
             if (dotIndex != -1) {
                 String jsonKey = key.substring(dotIndex + 1);
                 key = key.substring(0, dotIndex);
-                jsonObj.put(jsonKey, value);
-                executionContext.setAttribute(key, jsonObj, ScriptContext.ENGINE_SCOPE);
+                Object jsonObj = bindings.get(key);
+                if (!(jsonObj instanceof HashMap)) {
+                    jsonObj = new HashMap<String, Object>();
+                    bindings.put(key, jsonObj);
+                }
+                @SuppressWarnings("unchecked")
+                Map<String, Object> values = (Map<String, Object>) jsonObj;
+                values.put(jsonKey, value);
             } else {
-                executionContext.setAttribute(key, value, ScriptContext.ENGINE_SCOPE);
+                bindings.put(key, value);
             }
         }
-        return executionContext;
+        return scriptContext;
+    }
+
+    @Override
+    public void dispose() {
+        cachedScript = null;
+    }
+
+    private static class CachedScript {
+        private final ScriptEngine engine;
+        private final String script;
+        private final CompiledScript compiledScript;
+
+        private CachedScript(ScriptEngine engine, String script, CompiledScript compiledScript) {
+            this.engine = engine;
+            this.script = script;
+            this.compiledScript = compiledScript;
+        }
     }
 
 }
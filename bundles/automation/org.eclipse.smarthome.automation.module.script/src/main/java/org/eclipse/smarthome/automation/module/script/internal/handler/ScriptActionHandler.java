@@ -10,7 +10,6 @@ package org.eclipse.smarthome.automation.module.script.internal.handler;
 import java.util.HashMap;
 import java.util.Map;
 
-import javax.script.ScriptContext;
 import javax.script.ScriptEngine;
 import javax.script.ScriptException;
 
@@ -41,9 +40,6 @@ public class ScriptActionHandler extends AbstractScriptModuleHandler<Action>impl
         super(module);
     }
 
-    @Override
-    public void dispose() {}
-
     @Override
     public Map<String, Object> execute(Map<String, ?> context) {
         Object type = module.getConfiguration().get(SCRIPT_TYPE);
@@ -52,9 +48,8 @@ public class ScriptActionHandler extends AbstractScriptModuleHandler<Action>impl
             if (script instanceof String) {
                 ScriptEngine engine = ScriptModuleActivator.getScriptEngine((String) type);
                 if (engine != null) {
-                    ScriptContext executionContext = getExecutionContext(engine, context);
                     try {
-                        Object result = engine.eval((String) script, executionContext);
+                        Object result = evaluate(engine, (String) script, context);
                         HashMap<String, Object> resultMap = new HashMap<String, Object>();
                         resultMap.put("result", result);
                         return resultMap;
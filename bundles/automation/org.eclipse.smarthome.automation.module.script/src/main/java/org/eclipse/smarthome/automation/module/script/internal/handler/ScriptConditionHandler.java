@@ -9,7 +9,6 @@ package org.eclipse.smarthome.automation.module.script.internal.handler;
 
 import java.util.Map;
 
-import javax.script.ScriptContext;
 import javax.script.ScriptEngine;
 import javax.script.ScriptException;
 
@@ -43,9 +42,8 @@ public class ScriptConditionHandler extends AbstractScriptModuleHandler<Conditio
             if (script instanceof String) {
                 ScriptEngine engine = ScriptModuleActivator.getScriptEngine((String) type);
                 if (engine != null) {
-                    ScriptContext executionContext = getExecutionContext(engine, context);
                     try {
-                        Object returnVal = engine.eval((String) script, executionContext);
+                        Object returnVal = evaluate(engine, (String) script, context);
                         if (returnVal instanceof Boolean) {
                             return (boolean) returnVal;
                         } else {
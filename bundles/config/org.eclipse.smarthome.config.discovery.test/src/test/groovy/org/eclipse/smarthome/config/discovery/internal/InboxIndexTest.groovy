@@ -0,0 +1,116 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.config.discovery.internal
+
+import static org.junit.Assert.*
+
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.TimeUnit
+
+import org.eclipse.smarthome.config.discovery.DiscoveryResult
+import org.eclipse.smarthome.config.discovery.DiscoveryResultFlag
+import org.eclipse.smarthome.config.discovery.inbox.InboxFilterCriteria
+import org.eclipse.smarthome.core.storage.Storage
+import org.eclipse.smarthome.core.thing.ThingTypeUID
+import org.eclipse.smarthome.core.thing.ThingUID
+import org.junit.Before
+import org.junit.Test
+
+/**
+ * The {@link InboxIndexTest} checks that the {@link InboxIndex} finds the same results as a full scan and that the
+ * {@link InboxStorageWriter} writes the changes of the inbox in groups.
+ *
+ * @author agent - Initial contribution and API
+ */
+class InboxIndexTest {
+
+    def BRIDGE_UID = new ThingUID("binding1:bridge:bridge1")
+    def BRIDGE = new DiscoveryResultImpl(BRIDGE_UID, null, null, null, "Bridge", 60)
+    def THING1 = new DiscoveryResultImpl(new ThingUID("binding1:thing:id1"), BRIDGE_UID, null, null, "Thing1", 60)
+    def THING2 = new DiscoveryResultImpl(new ThingUID("binding1:thing:id2"), BRIDGE_UID, null, null, "Thing2", 60)
+    def THING3 = new DiscoveryResultImpl(new ThingUID("binding2:thing:id3"), null, null, null, "Thing3",
+    DiscoveryResult.TTL_UNLIMITED)
+
+    InboxIndex index
+
+    @Before
+    void setUp() {
+        index = new InboxIndex()
+        [BRIDGE, THING1, THING2, THING3].each { index.put(it) }
+    }
+
+    @Test
+    void 'assert that results are found by their criteria'() {
+        assertEquals([BRIDGE, THING1, THING2, THING3], index.get((InboxFilterCriteria) null))
+        assertEquals([BRIDGE, THING1, THING2], index.get(new InboxFilterCriteria("binding1", null)))
+        assertEquals([THING3], index.get(new InboxFilterCriteria(THING3.thingUID, null)))
+        assertEquals([THING1, THING2], index.get(new InboxFilterCriteria(new ThingTypeUID("binding1:thing"), null)))
+        assertEquals([], index.get(new InboxFilterCriteria("binding3", null)))
+        assertEquals([], index.get(new InboxFilterCriteria(new ThingUID("binding1:thing:unknown"), null)))
+    }
+
+    @Test
+    void 'assert that a changed result is indexed again'() {
+        THING2.setFlag(DiscoveryResultFlag.IGNORED)
+        index.put(THING2)
+
+        assertEquals([BRIDGE, THING1], index.get(new InboxFilterCriteria("binding1", DiscoveryResultFlag.NEW)))
+        assertEquals([THING2], index.get(new InboxFilterCriteria((String) null, DiscoveryResultFlag.IGNORED)))
+        assertEquals(4, index.size())
+    }
+
+    @Test
+    void 'assert that removed results are not found anymore'() {
+        assertSame(THING1, index.remove(THING1.thingUID))
+        assertNull(index.remove(THING1.thingUID))
+
+        assertNull(index.get(THING1.thingUID))
+        assertEquals([THING2.thingUID], index.getResultsForBridge(BRIDGE_UID))
+        assertEquals([BRIDGE, THING2], index.get(new InboxFilterCriteria("binding1", DiscoveryResultFlag.NEW)))
+    }
+
+    @Test
+    void 'assert that only expired results are returned'() {
+        assertEquals([], index.getExpired(THING1.timestamp))
+
+        def expired = index.getExpired(THING2.timestamp + 61000)
+        assertEquals([BRIDGE.thingUID, THING1.thingUID, THING2.thingUID] as Set, expired as Set)
+    }
+
+    @Test
+    void 'assert that the storage writer writes the last change of each result once'() {
+        def written = [:]
+        def writes = 0
+        def scheduled = []
+        def storage = [
+            put: { key, value -> writes++; written.put(key, value) },
+            remove: { key -> writes++; written.remove(key) }
+        ] as Storage
+        def scheduler = [
+            schedule: { Runnable task, long delay, TimeUnit unit -> scheduled.add(task); null }
+        ] as ScheduledExecutorService
+
+        def writer = new InboxStorageWriter(storage, scheduler, 1000, new Object())
+        writer.put(THING1)
+        writer.put(THING2)
+        writer.put(THING1)
+        writer.remove(THING2.thingUID.toString())
+        assertEquals(1, scheduled.size())
+        assertEquals(2, writer.pendingCount)
+
+        scheduled[0].run()
+        assertEquals(2, writes)
+        assertEquals([(THING1.thingUID.toString()): THING1], written)
+        assertEquals(0, writer.pendingCount)
+
+        writer.put(THING3)
+        assertEquals(2, scheduled.size())
+        writer.flush()
+        assertSame(THING3, written[THING3.thingUID.toString()])
+    }
+}
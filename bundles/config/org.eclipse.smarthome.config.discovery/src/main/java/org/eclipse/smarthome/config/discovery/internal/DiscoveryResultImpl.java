@@ -36,6 +36,23 @@ public class DiscoveryResultImpl implements DiscoveryResult {
     DiscoveryResultImpl() {
     }
 
+    /**
+     * Creates a copy of the given result.
+     *
+     * @param result the result to copy (must not be null)
+     */
+    DiscoveryResultImpl(DiscoveryResultImpl result) {
+        this.bridgeUID = result.bridgeUID;
+        this.thingUID = result.thingUID;
+        this.thingTypeUID = result.thingTypeUID;
+        this.properties = result.properties;
+        this.representationProperty = result.representationProperty;
+        this.flag = result.flag;
+        this.label = result.label;
+        this.timestamp = result.timestamp;
+        this.timeToLive = result.timeToLive;
+    }
+
     /**
      * Creates a new instance of this class with the specified parameters.
      *
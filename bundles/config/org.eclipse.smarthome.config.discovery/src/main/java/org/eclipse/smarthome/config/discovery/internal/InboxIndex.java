@@ -0,0 +1,247 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.config.discovery.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.eclipse.smarthome.config.discovery.DiscoveryResult;
+import org.eclipse.smarthome.config.discovery.DiscoveryResultFlag;
+import org.eclipse.smarthome.config.discovery.inbox.InboxFilterCriteria;
+import org.eclipse.smarthome.core.thing.ThingTypeUID;
+import org.eclipse.smarthome.core.thing.ThingUID;
+
+/**
+ * The {@link InboxIndex} keeps the {@link DiscoveryResult}s of the inbox in memory, indexed by their thing UID, bridge
+ * UID, binding ID and flag, so that the inbox can be queried without reading all results from the storage. The expiry
+ * times of the results are kept in order, so that the expired results can be found without checking every result.
+ * <p>
+ * The index remembers the values a result has been indexed with. A result which has been changed must be put again,
+ * so that it is indexed with its new values.
+ *
+ * @author agent - Initial contribution and API
+ */
+class InboxIndex {
+
+    private final Map<ThingUID, Entry> entries = new LinkedHashMap<>();
+
+    private final Map<ThingUID, Set<ThingUID>> bridges = new LinkedHashMap<>();
+
+    private final Map<String, Set<ThingUID>> bindings = new LinkedHashMap<>();
+
+    private final Map<DiscoveryResultFlag, Set<ThingUID>> flags = new EnumMap<>(DiscoveryResultFlag.class);
+
+    private final TreeMap<Long, Set<ThingUID>> expiries = new TreeMap<>();
+
+    /**
+     * Adds a result or indexes it again with its current values.
+     *
+     * @param result the result
+     */
+    synchronized void put(DiscoveryResult result) {
+        remove(result.getThingUID());
+
+        Entry entry = new Entry(result);
+        entries.put(result.getThingUID(), entry);
+        if (entry.bridgeUID != null) {
+            add(bridges, entry.bridgeUID, result.getThingUID());
+        }
+        add(bindings, entry.bindingId, result.getThingUID());
+        add(flags, entry.flag, result.getThingUID());
+        if (entry.expiry != null) {
+            add(expiries, entry.expiry, result.getThingUID());
+        }
+    }
+
+    /**
+     * Removes a result.
+     *
+     * @param thingUID the thing UID of the result
+     * @return the removed result or null if there has been no result for the thing UID
+     */
+    synchronized DiscoveryResult remove(ThingUID thingUID) {
+        Entry entry = entries.remove(thingUID);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.bridgeUID != null) {
+            remove(bridges, entry.bridgeUID, thingUID);
+        }
+        remove(bindings, entry.bindingId, thingUID);
+        remove(flags, entry.flag, thingUID);
+        if (entry.expiry != null) {
+            remove(expiries, entry.expiry, thingUID);
+        }
+        return entry.result;
+    }
+
+    synchronized void clear() {
+        entries.clear();
+        bridges.clear();
+        bindings.clear();
+        flags.clear();
+        expiries.clear();
+    }
+
+    synchronized DiscoveryResult get(ThingUID thingUID) {
+        Entry entry = entries.get(thingUID);
+        return entry != null ? entry.result : null;
+    }
+
+    /**
+     * Returns the results which match the criteria. Only the results which are indexed with the most selective
+     * criterion are checked.
+     *
+     * @param criteria the criteria, null for all results
+     * @return the matching results
+     */
+    synchronized List<DiscoveryResult> get(InboxFilterCriteria criteria) {
+        Collection<ThingUID> candidates = entries.keySet();
+        if (criteria != null) {
+            if (criteria.getThingUID() != null) {
+                candidates = Collections.singleton(criteria.getThingUID());
+            } else {
+                String bindingId = criteria.getBindingId();
+                if (bindingId != null && !bindingId.isEmpty()) {
+                    candidates = select(candidates, bindings.get(bindingId));
+                }
+                if (criteria.getFlag() != null) {
+                    candidates = select(candidates, flags.get(criteria.getFlag()));
+                }
+            }
+        }
+
+        List<DiscoveryResult> results = new ArrayList<>(candidates.size());
+        for (ThingUID thingUID : candidates) {
+            Entry entry = entries.get(thingUID);
+            if (entry != null && matchFilter(entry.result, criteria)) {
+                results.add(entry.result);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * @param bridgeUID the thing UID of a bridge
+     * @return the thing UIDs of the results which have the bridge
+     */
+    synchronized List<ThingUID> getResultsForBridge(ThingUID bridgeUID) {
+        Set<ThingUID> thingUIDs = bridges.get(bridgeUID);
+        return thingUIDs != null ? new ArrayList<>(thingUIDs) : new ArrayList<ThingUID>();
+    }
+
+    /**
+     * @param now the current time in milliseconds
+     * @return the thing UIDs of the results whose time to live has passed
+     */
+    synchronized List<ThingUID> getExpired(long now) {
+        List<ThingUID> expired = new ArrayList<>();
+        for (Set<ThingUID> thingUIDs : expiries.headMap(now).values()) {
+            expired.addAll(thingUIDs);
+        }
+        return expired;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    private static Collection<ThingUID> select(Collection<ThingUID> candidates, Set<ThingUID> indexed) {
+        if (indexed == null) {
+            return Collections.emptySet();
+        }
+        return indexed.size() < candidates.size() ? indexed : candidates;
+    }
+
+    private static <K> void add(Map<K, Set<ThingUID>> index, K key, ThingUID thingUID) {
+        Set<ThingUID> thingUIDs = index.get(key);
+        if (thingUIDs == null) {
+            thingUIDs = new LinkedHashSet<>();
+            index.put(key, thingUIDs);
+        }
+        thingUIDs.add(thingUID);
+    }
+
+    private static <K> void remove(Map<K, Set<ThingUID>> index, K key, ThingUID thingUID) {
+        Set<ThingUID> thingUIDs = index.get(key);
+        if (thingUIDs != null) {
+            thingUIDs.remove(thingUID);
+            if (thingUIDs.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    private static boolean matchFilter(DiscoveryResult discoveryResult, InboxFilterCriteria criteria) {
+        if (criteria != null) {
+            String bindingId = criteria.getBindingId();
+            if ((bindingId != null) && (!bindingId.isEmpty())) {
+                if (!discoveryResult.getBindingId().equals(bindingId)) {
+                    return false;
+                }
+            }
+
+            ThingTypeUID thingTypeUID = criteria.getThingTypeUID();
+            if (thingTypeUID != null) {
+                if (!discoveryResult.getThingTypeUID().equals(thingTypeUID)) {
+                    return false;
+                }
+            }
+
+            ThingUID thingUID = criteria.getThingUID();
+            if (thingUID != null) {
+                if (!discoveryResult.getThingUID().equals(thingUID)) {
+                    return false;
+                }
+            }
+
+            DiscoveryResultFlag flag = criteria.getFlag();
+            if (flag != null) {
+                if (discoveryResult.getFlag() != flag) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A result together with the values it has been indexed with.
+     */
+    private static class Entry {
+
+        private final DiscoveryResult result;
+
+        private final ThingUID bridgeUID;
+
+        private final String bindingId;
+
+        private final DiscoveryResultFlag flag;
+
+        /** null if the result does not expire */
+        private final Long expiry;
+
+        private Entry(DiscoveryResult result) {
+            this.result = result;
+            this.bridgeUID = result.getBridgeUID();
+            this.bindingId = result.getBindingId();
+            this.flag = result.getFlag() != null ? result.getFlag() : DiscoveryResultFlag.NEW;
+            this.expiry = result.getTimeToLive() == DiscoveryResult.TTL_UNLIMITED ? null
+                    : result.getTimestamp() + result.getTimeToLive() * 1000;
+        }
+    }
+
+}
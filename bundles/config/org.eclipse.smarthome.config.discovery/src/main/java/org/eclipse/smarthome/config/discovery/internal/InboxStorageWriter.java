@@ -0,0 +1,177 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.config.discovery.internal;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.smarthome.config.discovery.DiscoveryResult;
+import org.eclipse.smarthome.core.storage.BatchStorage;
+import org.eclipse.smarthome.core.storage.Storage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link InboxStorageWriter} writes the changes of the inbox to the storage in the background. The changes are
+ * collected for a short delay and written together, several changes of the same result are written only once. This
+ * keeps the serialization of the results out of the discovery callbacks, which may deliver hundreds of results
+ * during a single scan.
+ * <p>
+ * The results are written while holding the given lock, which is the lock the inbox holds while changing results, so
+ * that no result is serialized while it is being changed. If the storage is a {@link BatchStorage}, all changes are
+ * written with a single {@link BatchStorage#putAll(Map)} and {@link BatchStorage#removeAll(java.util.Collection)}.
+ *
+ * @author agent - Initial contribution and API
+ */
+class InboxStorageWriter implements Runnable {
+
+    private final Logger logger = LoggerFactory.getLogger(InboxStorageWriter.class);
+
+    private final Storage<DiscoveryResult> storage;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final long delay;
+
+    private final Object lock;
+
+    /** the results to write by their key, null values are removals; guarded by itself */
+    private final Map<String, DiscoveryResult> pending = new LinkedHashMap<>();
+
+    /** guarded by pending */
+    private boolean scheduled;
+
+    /** keeps two flushes from writing changes of the same result in the wrong order */
+    private final Object flushLock = new Object();
+
+    /**
+     * @param storage the storage to write to
+     * @param scheduler the scheduler to write with
+     * @param delay the time in milliseconds to collect changes before they are written
+     * @param lock the lock to hold while writing a result
+     */
+    InboxStorageWriter(Storage<DiscoveryResult> storage, ScheduledExecutorService scheduler, long delay, Object lock) {
+        this.storage = storage;
+        this.scheduler = scheduler;
+        this.delay = delay;
+        this.lock = lock;
+    }
+
+    /**
+     * Schedules a result to be written.
+     *
+     * @param result the result
+     */
+    void put(DiscoveryResult result) {
+        enqueue(result.getThingUID().toString(), result);
+    }
+
+    /**
+     * Schedules a result to be removed.
+     *
+     * @param key the key of the result
+     */
+    void remove(String key) {
+        enqueue(key, null);
+    }
+
+    private void enqueue(String key, DiscoveryResult result) {
+        synchronized (pending) {
+            // a key which is written again moves to the end, so that the order of the changes is kept
+            pending.remove(key);
+            pending.put(key, result);
+            if (!scheduled) {
+                scheduled = true;
+                scheduler.schedule(this, delay, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        synchronized (pending) {
+            scheduled = false;
+        }
+        flush();
+    }
+
+    /**
+     * Writes all pending changes immediately. It must not be called while holding the lock of the writer.
+     */
+    void flush() {
+        synchronized (flushLock) {
+            Map<String, DiscoveryResult> changes;
+            synchronized (pending) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                changes = new LinkedHashMap<>(pending);
+                pending.clear();
+            }
+            if (storage instanceof BatchStorage) {
+                writeAll((BatchStorage<DiscoveryResult>) storage, changes);
+                return;
+            }
+            for (Entry<String, DiscoveryResult> change : changes.entrySet()) {
+                try {
+                    synchronized (lock) {
+                        if (change.getValue() != null) {
+                            storage.put(change.getKey(), change.getValue());
+                        } else {
+                            storage.remove(change.getKey());
+                        }
+                    }
+                } catch (Exception e) {
+                    logger.error("Could not write inbox entry '" + change.getKey() + "' to the storage.", e);
+                }
+            }
+            logger.trace("Wrote {} inbox changes to the storage.", changes.size());
+        }
+    }
+
+    private void writeAll(BatchStorage<DiscoveryResult> batchStorage, Map<String, DiscoveryResult> changes) {
+        // every key occurs once only, so the puts and the removals can be written separately
+        Map<String, DiscoveryResult> puts = new LinkedHashMap<>();
+        List<String> removals = new ArrayList<>();
+        for (Entry<String, DiscoveryResult> change : changes.entrySet()) {
+            if (change.getValue() != null) {
+                puts.put(change.getKey(), change.getValue());
+            } else {
+                removals.add(change.getKey());
+            }
+        }
+        try {
+            synchronized (lock) {
+                if (!puts.isEmpty()) {
+                    batchStorage.putAll(puts);
+                }
+                if (!removals.isEmpty()) {
+                    batchStorage.removeAll(removals);
+                }
+            }
+            logger.trace("Wrote {} inbox changes to the storage.", changes.size());
+        } catch (Exception e) {
+            logger.error("Could not write " + changes.size() + " inbox changes to the storage.", e);
+        }
+    }
+
+    /**
+     * @return the number of changes which have not been written yet
+     */
+    int getPendingCount() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+}
@@ -60,8 +60,10 @@ import org.slf4j.LoggerFactory;
  * This implementation uses the {@link DiscoveryServiceRegistry} to register itself as {@link DiscoveryListener} to
  * receive {@link DiscoveryResult} objects automatically from {@link DiscoveryService}s.
  * <p>
- * This implementation does neither handle memory leaks (orphaned listener instances) nor blocked listeners. No
- * performance optimizations have been done (synchronization).
+ * This implementation does neither handle memory leaks (orphaned listener instances) nor blocked listeners.
+ * <p>
+ * The results are kept in an {@link InboxIndex}, which serves all queries, and are loaded from the storage only once.
+ * Changes are written to the storage in the background by an {@link InboxStorageWriter}.
  *
  * @author Michael Grammling - Initial Contribution
  * @author Dennis Nobel - Added automated removing of entries
@@ -93,22 +95,16 @@ public final class PersistentInbox implements Inbox, DiscoveryListener, ThingReg
         @Override
         public void run() {
             long now = new Date().getTime();
-            for (DiscoveryResult result : inbox.getAll()) {
-                if (isResultExpired(result, now)) {
-                    logger.debug("Inbox entry for thing {} is expired and will be removed", result.getThingUID());
-                    remove(result.getThingUID());
-                }
-            }
-        }
-
-        private boolean isResultExpired(DiscoveryResult result, long now) {
-            if (result.getTimeToLive() == DiscoveryResult.TTL_UNLIMITED) {
-                return false;
+            for (ThingUID thingUID : inbox.index.getExpired(now)) {
+                logger.debug("Inbox entry for thing {} is expired and will be removed", thingUID);
+                inbox.remove(thingUID);
             }
-            return (result.getTimestamp() + result.getTimeToLive() * 1000 < now);
         }
     }
 
+    /** the time in milliseconds the changes are collected before they are written to the storage */
+    private static final long STORAGE_WRITE_DELAY = 1000;
+
     private final Logger logger = LoggerFactory.getLogger(PersistentInbox.class);
 
     private Set<InboxListener> listeners = new CopyOnWriteArraySet<>();
@@ -125,6 +121,10 @@ public final class PersistentInbox implements Inbox, DiscoveryListener, ThingReg
 
     private Storage<DiscoveryResult> discoveryResultStorage;
 
+    private final InboxIndex index = new InboxIndex();
+
+    private InboxStorageWriter storageWriter;
+
     private ScheduledFuture<?> timeToLiveChecker;
 
     private EventPublisher eventPublisher;
@@ -172,7 +172,8 @@ public final class PersistentInbox implements Inbox, DiscoveryListener, ThingReg
                 DiscoveryResult inboxResult = get(thingUID);
 
                 if (inboxResult == null) {
-                    discoveryResultStorage.put(result.getThingUID().toString(), result);
+                    index.put(result);
+                    storageWriter.put(result);
                     notifyListeners(result, EventType.added);
                     logger.info("Added new thing '{}' to inbox.", thingUID);
                     return true;
@@ -180,7 +181,8 @@ public final class PersistentInbox implements Inbox, DiscoveryListener, ThingReg
                     if (inboxResult instanceof DiscoveryResultImpl) {
                         DiscoveryResultImpl resultImpl = (DiscoveryResultImpl) inboxResult;
                         resultImpl.synchronize(result);
-                        discoveryResultStorage.put(result.getThingUID().toString(), resultImpl);
+                        index.put(resultImpl);
+                        storageWriter.put(resultImpl);
                         notifyListeners(resultImpl, EventType.updated);
                         logger.debug("Updated discovery result for '{}'.", thingUID);
                         return true;
@@ -244,15 +246,16 @@ public final class PersistentInbox implements Inbox, DiscoveryListener, ThingReg
 
     @Override
     public List<DiscoveryResult> get(InboxFilterCriteria criteria) throws IllegalStateException {
-        List<DiscoveryResult> filteredEntries = new ArrayList<>();
-
-        for (DiscoveryResult discoveryResult : this.discoveryResultStorage.getValues()) {
-            if (matchFilter(discoveryResult, criteria)) {
-                filteredEntries.add(discoveryResult);
+        List<DiscoveryResult> results = index.get(criteria);
+        // the indexed results are changed in place, so the callers get copies which they cannot change either
+        List<DiscoveryResult> copies = new ArrayList<>(results.size());
+        synchronized (this) {
+            for (DiscoveryResult result : results) {
+                copies.add(result instanceof DiscoveryResultImpl ? new DiscoveryResultImpl((DiscoveryResultImpl) result)
+                        : result);
             }
         }
-
-        return filteredEntries;
+        return copies;
     }
 
     @Override
@@ -268,7 +271,8 @@ public final class PersistentInbox implements Inbox, DiscoveryListener, ThingReg
                 if (!isInRegistry(thingUID)) {
                     removeResultsForBridge(thingUID);
                 }
-                this.discoveryResultStorage.remove(thingUID.toString());
+                index.remove(thingUID);
+                storageWriter.remove(thingUID.toString());
                 notifyListeners(discoveryResult, EventType.removed);
                 return true;
             }
@@ -330,12 +334,13 @@ public final class PersistentInbox implements Inbox, DiscoveryListener, ThingReg
     }
 
     @Override
-    public void setFlag(ThingUID thingUID, DiscoveryResultFlag flag) {
+    public synchronized void setFlag(ThingUID thingUID, DiscoveryResultFlag flag) {
         DiscoveryResult result = get(thingUID);
         if (result instanceof DiscoveryResultImpl) {
             DiscoveryResultImpl resultImpl = (DiscoveryResultImpl) result;
             resultImpl.setFlag((flag == null) ? DiscoveryResultFlag.NEW : flag);
-            discoveryResultStorage.put(resultImpl.getThingUID().toString(), resultImpl);
+            index.put(resultImpl);
+            storageWriter.put(resultImpl);
             notifyListeners(resultImpl, EventType.updated);
         } else {
             logger.warn("Cannot set flag for result of instance type '{}'", result.getClass().getName());
@@ -354,45 +359,12 @@ public final class PersistentInbox implements Inbox, DiscoveryListener, ThingReg
      */
     private DiscoveryResult get(ThingUID thingUID) {
         if (thingUID != null) {
-            return discoveryResultStorage.get(thingUID.toString());
+            return index.get(thingUID);
         }
 
         return null;
     }
 
-    private boolean matchFilter(DiscoveryResult discoveryResult, InboxFilterCriteria criteria) {
-        if (criteria != null) {
-            String bindingId = criteria.getBindingId();
-            if ((bindingId != null) && (!bindingId.isEmpty())) {
-                if (!discoveryResult.getBindingId().equals(bindingId)) {
-                    return false;
-                }
-            }
-
-            ThingTypeUID thingTypeUID = criteria.getThingTypeUID();
-            if (thingTypeUID != null) {
-                if (!discoveryResult.getThingTypeUID().equals(thingTypeUID)) {
-                    return false;
-                }
-            }
-
-            ThingUID thingUID = criteria.getThingUID();
-            if (thingUID != null) {
-                if (!discoveryResult.getThingUID().equals(thingUID)) {
-                    return false;
-                }
-            }
-
-            DiscoveryResultFlag flag = criteria.getFlag();
-            if (flag != null) {
-                if (discoveryResult.getFlag() != flag) {
-                    return false;
-                }
-            }
-        }
-        return true;
-    }
-
     private void notifyListeners(DiscoveryResult result, EventType type) {
         for (InboxListener listener : this.listeners) {
             try {
@@ -447,25 +419,15 @@ public final class PersistentInbox implements Inbox, DiscoveryListener, ThingReg
     }
 
     private void removeResultsForBridge(ThingUID bridgeUID) {
-        for (ThingUID thingUID : getResultsForBridge(bridgeUID)) {
-            DiscoveryResult discoveryResult = get(thingUID);
+        for (ThingUID thingUID : index.getResultsForBridge(bridgeUID)) {
+            DiscoveryResult discoveryResult = index.remove(thingUID);
             if (discoveryResult != null) {
-                this.discoveryResultStorage.remove(thingUID.toString());
+                storageWriter.remove(thingUID.toString());
                 notifyListeners(discoveryResult, EventType.removed);
             }
         }
     }
 
-    private List<ThingUID> getResultsForBridge(ThingUID bridgeUID) {
-        List<ThingUID> thingsForBridge = new ArrayList<>();
-        for (DiscoveryResult result : discoveryResultStorage.getValues()) {
-            if (bridgeUID.equals(result.getBridgeUID())) {
-                thingsForBridge.add(result.getThingUID());
-            }
-        }
-        return thingsForBridge;
-    }
-
     /**
      * Get the properties and configuration parameters for the thing with the given {@link DiscoveryResult}.
      *
@@ -531,6 +493,7 @@ public final class PersistentInbox implements Inbox, DiscoveryListener, ThingReg
         this.discoveryServiceRegistry.removeDiscoveryListener(this);
         this.listeners.clear();
         this.timeToLiveChecker.cancel(true);
+        this.storageWriter.flush();
     }
 
     protected void setDiscoveryServiceRegistry(DiscoveryServiceRegistry discoveryServiceRegistry) {
@@ -562,10 +525,21 @@ public final class PersistentInbox implements Inbox, DiscoveryListener, ThingReg
     protected void setStorageService(StorageService storageService) {
         this.discoveryResultStorage = storageService.getStorage(DiscoveryResult.class.getName(),
                 this.getClass().getClassLoader());
+        this.storageWriter = new InboxStorageWriter(discoveryResultStorage,
+                ThreadPoolManager.getScheduledPool("discovery"), STORAGE_WRITE_DELAY, this);
+        index.clear();
+        for (DiscoveryResult result : discoveryResultStorage.getValues()) {
+            if (result != null) {
+                index.put(result);
+            }
+        }
     }
 
     protected void unsetStorageService(StorageService storageService) {
+        this.storageWriter.flush();
+        this.storageWriter = null;
         this.discoveryResultStorage = null;
+        index.clear();
     }
 
     protected void setEventPublisher(EventPublisher eventPublisher) {
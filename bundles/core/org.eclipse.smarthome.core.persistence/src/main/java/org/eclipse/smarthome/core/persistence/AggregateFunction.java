@@ -0,0 +1,26 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.core.persistence;
+
+/**
+ * The functions by which the numeric states of an item can be aggregated by an {@link AggregatePersistenceService}.
+ *
+ * @author agent - Initial contribution and API
+ */
+public enum AggregateFunction {
+    /** the historic item with the smallest state */
+    MINIMUM,
+    /** the historic item with the largest state */
+    MAXIMUM,
+    /** the arithmetic mean of the states */
+    AVERAGE,
+    /** the sum of the states */
+    SUM,
+    /** the number of states */
+    COUNT
+}
@@ -0,0 +1,41 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.core.persistence;
+
+/**
+ * A queryable persistence service which can aggregate the stored states itself, e.g. by the aggregate functions of a
+ * database, instead of returning every single state to the caller.
+ * <p>
+ * Only states which are a {@link org.eclipse.smarthome.core.library.types.DecimalType} (or can be converted to one by
+ * the service) are aggregated, all other states are ignored. The {@link Aggregator} implements the expected results
+ * on a time series and can be used by services which only support some of the functions.
+ * </p>
+ *
+ * @author agent - Initial contribution and API
+ */
+public interface AggregatePersistenceService extends QueryablePersistenceService {
+
+    /**
+     * Aggregates the states which match the given filter criteria. The ordering and paging of the filter are ignored.
+     * <p>
+     * The states of a {@link AggregateFunction#MINIMUM} or {@link AggregateFunction#MAXIMUM} are the stored states
+     * and their timestamps are the ones of the stored states. The timestamps of all other results are the start of
+     * their interval or, if there is just one interval, the timestamp of the first aggregated state.
+     * </p>
+     *
+     * @param filter the filter to select the states to aggregate
+     * @param function the aggregate function
+     * @param interval the length of the time intervals in milliseconds for which separate results are returned, or 0
+     *            for a single result over all states
+     * @return the results in ascending order of time, without any results for intervals without states, or
+     *         <code>null</code> if the service does not support the function, so that the caller has to aggregate the
+     *         result of {@link #query(FilterCriteria)} itself
+     */
+    Iterable<HistoricItem> aggregate(FilterCriteria filter, AggregateFunction function, long interval);
+
+}
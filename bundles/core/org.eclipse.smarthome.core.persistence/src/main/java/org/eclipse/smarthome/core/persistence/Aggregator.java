@@ -0,0 +1,200 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.core.persistence;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.core.types.State;
+
+/**
+ * The {@link Aggregator} aggregates a time series of historic items in a single pass, as described for
+ * {@link AggregatePersistenceService#aggregate(FilterCriteria, AggregateFunction, long)}. It is used if a service
+ * cannot aggregate the states itself.
+ * <p>
+ * The historic items have to be added in ascending order of time, as an interval is completed as soon as an item of a
+ * later interval is added.
+ * </p>
+ *
+ * @author agent - Initial contribution and API
+ */
+public class Aggregator {
+
+    private final AggregateFunction function;
+
+    private final long interval;
+
+    private final List<HistoricItem> results = new ArrayList<>();
+
+    private String name;
+
+    private long intervalStart;
+
+    private Date timestamp;
+
+    private HistoricItem extreme;
+
+    private BigDecimal sum;
+
+    private long count;
+
+    /**
+     * Creates a new aggregator.
+     *
+     * @param function the aggregate function
+     * @param interval the length of the time intervals in milliseconds, or 0 for a single result
+     */
+    public Aggregator(AggregateFunction function, long interval) {
+        if (function == null) {
+            throw new IllegalArgumentException("The aggregate function must not be null.");
+        }
+        this.function = function;
+        this.interval = Math.max(0, interval);
+    }
+
+    /**
+     * Aggregates all historic items of a time series.
+     *
+     * @param items the historic items in ascending order of time
+     * @param function the aggregate function
+     * @param interval the length of the time intervals in milliseconds, or 0 for a single result
+     * @return the results in ascending order of time
+     */
+    public static List<HistoricItem> aggregate(Iterable<HistoricItem> items, AggregateFunction function,
+            long interval) {
+        Aggregator aggregator = new Aggregator(function, interval);
+        for (HistoricItem item : items) {
+            aggregator.add(item);
+        }
+        return aggregator.getResults();
+    }
+
+    /**
+     * Adds a historic item to the aggregation. Items whose state is not a {@link DecimalType} are ignored.
+     *
+     * @param item the historic item, which must not be older than the previously added one
+     */
+    public void add(HistoricItem item) {
+        State state = item.getState();
+        if (!(state instanceof DecimalType)) {
+            return;
+        }
+        DecimalType value = (DecimalType) state;
+        if (count > 0 && interval > 0 && item.getTimestamp().getTime() >= intervalStart + interval) {
+            complete();
+        }
+        if (count == 0) {
+            start(item);
+        }
+        count++;
+        switch (function) {
+            case MINIMUM:
+                if (value.compareTo((DecimalType) extreme.getState()) < 0) {
+                    extreme = item;
+                }
+                break;
+            case MAXIMUM:
+                if (value.compareTo((DecimalType) extreme.getState()) > 0) {
+                    extreme = item;
+                }
+                break;
+            case AVERAGE:
+            case SUM:
+                sum = sum.add(value.toBigDecimal());
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Completes the aggregation and returns the results of all intervals.
+     *
+     * @return the results in ascending order of time
+     */
+    public List<HistoricItem> getResults() {
+        if (count > 0) {
+            complete();
+        }
+        return results;
+    }
+
+    private void start(HistoricItem item) {
+        name = item.getName();
+        timestamp = item.getTimestamp();
+        if (interval > 0) {
+            long time = timestamp.getTime();
+            intervalStart = time - (((time % interval) + interval) % interval);
+            timestamp = new Date(intervalStart);
+        }
+        extreme = item;
+        sum = BigDecimal.ZERO;
+    }
+
+    private void complete() {
+        switch (function) {
+            case MINIMUM:
+            case MAXIMUM:
+                results.add(extreme);
+                break;
+            case AVERAGE:
+                BigDecimal average = sum.divide(BigDecimal.valueOf(count), MathContext.DECIMAL64);
+                results.add(new AggregatedItem(name, new DecimalType(average), timestamp));
+                break;
+            case SUM:
+                results.add(new AggregatedItem(name, new DecimalType(sum), timestamp));
+                break;
+            case COUNT:
+                results.add(new AggregatedItem(name, DecimalType.valueOf(count), timestamp));
+                break;
+        }
+        count = 0;
+        extreme = null;
+        sum = null;
+    }
+
+    private static class AggregatedItem implements HistoricItem {
+
+        private final String name;
+
+        private final State state;
+
+        private final Date timestamp;
+
+        private AggregatedItem(String name, State state, Date timestamp) {
+            this.name = name;
+            this.state = state;
+            this.timestamp = timestamp;
+        }
+
+        @Override
+        public Date getTimestamp() {
+            return timestamp;
+        }
+
+        @Override
+        public State getState() {
+            return state;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String toString() {
+            return name + ": " + state + " (" + timestamp + ")";
+        }
+    }
+
+}
@@ -0,0 +1,32 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.core.persistence;
+
+import java.util.Collection;
+
+/**
+ * A persistence service which can store several item states at once, e.g. in a single transaction.
+ * <p>
+ * The states of the items which are persisted on updates and changes are queued per service and handed over in
+ * batches, in the order of their occurrence. Unlike {@link #store(org.eclipse.smarthome.core.items.Item)}, this method
+ * is called from a thread which is dedicated to this service at that time, so it may block until the states are
+ * written.
+ * </p>
+ *
+ * @author agent - Initial contribution and API
+ */
+public interface BatchPersistenceService extends PersistenceService {
+
+    /**
+     * Stores the given item states.
+     *
+     * @param entries the item states to store, in the order in which they occurred
+     */
+    void store(Collection<PersistenceEntry> entries);
+
+}
@@ -0,0 +1,76 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.core.persistence;
+
+import java.util.Date;
+
+import org.eclipse.smarthome.core.items.Item;
+import org.eclipse.smarthome.core.types.State;
+
+/**
+ * A state of an item which is to be stored by a {@link BatchPersistenceService}. The state and the timestamp are taken
+ * when the store is requested, as the item might already have a different state when the entry is stored.
+ *
+ * @author agent - Initial contribution and API
+ */
+public final class PersistenceEntry implements HistoricItem {
+
+    private final Item item;
+
+    private final String alias;
+
+    private final State state;
+
+    private final Date timestamp;
+
+    public PersistenceEntry(Item item, String alias, State state, Date timestamp) {
+        this.item = item;
+        this.alias = alias;
+        this.state = state;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * returns the item to store
+     *
+     * @return the item
+     */
+    public Item getItem() {
+        return item;
+    }
+
+    /**
+     * returns the alias under which the item should be stored
+     *
+     * @return the alias or <code>null</code>, if the item should be stored under its name
+     */
+    public String getAlias() {
+        return alias;
+    }
+
+    @Override
+    public State getState() {
+        return state;
+    }
+
+    @Override
+    public Date getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String getName() {
+        return item.getName();
+    }
+
+    @Override
+    public String toString() {
+        return item.getName() + (alias != null ? " (" + alias + ")" : "") + ": " + state + " at " + timestamp;
+    }
+
+}
@@ -0,0 +1,117 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.core.internal.events
+
+import static org.hamcrest.CoreMatchers.*
+import static org.junit.Assert.*
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+import org.eclipse.smarthome.core.events.AbstractEvent
+import org.eclipse.smarthome.core.events.Event
+import org.eclipse.smarthome.core.events.EventSubscriber
+import org.eclipse.smarthome.core.items.events.ItemEventFactory
+import org.eclipse.smarthome.core.items.events.ItemStateEvent
+import org.eclipse.smarthome.core.library.types.DecimalType
+import org.eclipse.smarthome.core.library.types.OnOffType
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.osgi.framework.BundleContext
+import org.osgi.service.component.ComponentContext
+
+/**
+ * The {@link OSGiEventManagerDirectDispatchTest} tests the {@link OSGiEventManager} in the direct dispatch mode, in
+ * which posted events are handed to the subscribers without the OSGi Event Admin.
+ *
+ * @author agent - Initial contribution
+ */
+class OSGiEventManagerDirectDispatchTest {
+
+    OSGiEventManager eventManager
+
+    List<Event> receivedEvents = Collections.synchronizedList([])
+
+    CountDownLatch latch
+
+    @Before
+    void setUp() {
+        def bundleContext = [
+            createFilter: { filter -> null },
+            addServiceListener: { listener, filter -> },
+            removeServiceListener: { listener -> },
+            getServiceReferences: { clazz, filter -> null }
+        ] as BundleContext
+        def componentContext = [
+            getProperties: {
+                new Hashtable([(OSGiEventManager.DISPATCH_MODE_PROPERTY): OSGiEventManager.DISPATCH_MODE_DIRECT])
+            },
+            getBundleContext: { bundleContext }
+        ] as ComponentContext
+
+        eventManager = new OSGiEventManager()
+        eventManager.activate(componentContext)
+        eventManager.addEventSubscriber([
+            receive: { event ->
+                receivedEvents.add(event)
+                latch.countDown()
+            },
+            getSubscribedEventTypes: { [ItemStateEvent.TYPE] as Set },
+            getEventFilter: { null }
+        ] as EventSubscriber)
+    }
+
+    @After
+    void tearDown() {
+        eventManager.deactivate(null)
+    }
+
+    @Test
+    void 'assert that posted events are delivered without an event admin and without serialization'() {
+        latch = new CountDownLatch(1)
+        ItemStateEvent event = ItemEventFactory.createStateEvent("item", OnOffType.ON)
+
+        eventManager.post(event)
+
+        assertTrue latch.await(5, TimeUnit.SECONDS)
+        assertThat receivedEvents[0], is(sameInstance(event))
+        def payloadField = AbstractEvent.getDeclaredField("payload")
+        payloadField.setAccessible(true)
+        assertThat payloadField.get(event), is(nullValue())
+    }
+
+    @Test
+    void 'assert that posted events are delivered in the order of posting'() {
+        latch = new CountDownLatch(100)
+        def events = (0..99).collect { ItemEventFactory.createStateEvent("item", new DecimalType(it)) }
+
+        events.each { eventManager.post(it) }
+
+        assertTrue latch.await(5, TimeUnit.SECONDS)
+        assertThat receivedEvents, is(events)
+    }
+
+    @Test
+    void 'assert that events without payload are accepted in the direct mode'() {
+        latch = new CountDownLatch(1)
+        def event = [ getType: { ItemStateEvent.TYPE }, getPayload: { null },
+            getTopic: { "smarthome/items/item/state" }, getSource: { null } ] as Event
+
+        eventManager.post(event)
+
+        assertTrue latch.await(5, TimeUnit.SECONDS)
+        assertThat receivedEvents[0], is(sameInstance(event))
+    }
+
+    @Test(expected = IllegalArgumentException)
+    void 'assert that events without topic are rejected in the direct mode'() {
+        eventManager.post([ getType: { ItemStateEvent.TYPE }, getPayload: { null }, getTopic: { null },
+            getSource: { null } ] as Event)
+    }
+}
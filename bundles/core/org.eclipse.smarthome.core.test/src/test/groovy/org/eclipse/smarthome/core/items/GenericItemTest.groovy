@@ -10,12 +10,19 @@ package org.eclipse.smarthome.core.items
 import static org.hamcrest.CoreMatchers.*
 import static org.junit.Assert.*
 
+import java.lang.ref.WeakReference
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
 import org.eclipse.smarthome.core.events.Event
 import org.eclipse.smarthome.core.events.EventPublisher
 import org.eclipse.smarthome.core.items.events.ItemEventFactory
 import org.eclipse.smarthome.core.items.events.ItemStateChangedEvent
 import org.eclipse.smarthome.core.items.events.ItemStateEvent
+import org.eclipse.smarthome.core.library.types.DecimalType
 import org.eclipse.smarthome.core.library.types.RawType
+import org.eclipse.smarthome.core.types.State
+import org.eclipse.smarthome.core.types.UnDefType
 import org.junit.Before
 import org.junit.Test
 
@@ -70,6 +77,170 @@ class GenericItemTest {
         assertThat events.size(), is(0)
     }
 
+    @Test
+    void 'assert that inline listeners are notified by the updating thread'() {
+        def item = new TestItem("member1")
+        def notifications = []
+        def listener = [
+            stateUpdated : { updatedItem, state ->
+                notifications.add("updated " + state + " " + Thread.currentThread().getName())
+            },
+            stateChanged : { changedItem, oldState, newState ->
+                notifications.add("changed " + newState + " " + Thread.currentThread().getName())
+            },
+            isNotifiedInline : { true }
+        ] as InlineStateChangeListener
+        item.addStateChangeListener(listener)
+
+        def threadName = Thread.currentThread().getName()
+        item.setState(new DecimalType(1))
+        item.setState(new DecimalType(1))
+
+        assertThat notifications, is([
+            "updated 1 " + threadName,
+            "changed 1 " + threadName,
+            "updated 1 " + threadName
+        ])
+
+        item.removeStateChangeListener(listener)
+        item.setState(new DecimalType(2))
+        assertThat notifications.size(), is(3)
+    }
+
+    @Test
+    void 'assert that asynchronous listeners get all updates of an item in order'() {
+        def item = new TestItem("member1")
+        def updates = Collections.synchronizedList([])
+        def changes = Collections.synchronizedList([])
+        def latch = new CountDownLatch(1)
+        def listener = [
+            stateUpdated : { updatedItem, State state ->
+                updates.add(state)
+                if (state == new DecimalType(999)) {
+                    latch.countDown()
+                }
+            },
+            stateChanged : { changedItem, State oldState, State newState ->
+                changes.add(newState)
+            }
+        ] as StateChangeListener
+        item.addStateChangeListener(listener)
+
+        for (int i = 0; i < 1000; i++) {
+            item.setState(new DecimalType(i))
+        }
+        assertTrue latch.await(10, TimeUnit.SECONDS)
+
+        // no update is dropped or reordered as long as the buffer of the listener is not full
+        assertThat updates, is((0..999).collect { new DecimalType(it) })
+        assertThat changes.size(), is(1000)
+        item.removeStateChangeListener(listener)
+    }
+
+    @Test
+    void 'assert that a blocked asynchronous listener gets the latest state once its buffer is full'() {
+        def item = new TestItem("member1")
+        def updates = Collections.synchronizedList([])
+        def released = new CountDownLatch(1)
+        def latch = new CountDownLatch(1)
+        def listener = [
+            stateUpdated : { updatedItem, State state ->
+                released.await(10, TimeUnit.SECONDS)
+                updates.add(state)
+                if (state == new DecimalType(2999)) {
+                    latch.countDown()
+                }
+            },
+            stateChanged : { changedItem, State oldState, State newState -> }
+        ] as StateChangeListener
+        item.addStateChangeListener(listener)
+
+        for (int i = 0; i < 3000; i++) {
+            item.setState(new DecimalType(i))
+        }
+        released.countDown()
+        assertTrue latch.await(10, TimeUnit.SECONDS)
+
+        // the first update and at most 1024 buffered updates are delivered in order, ending with the latest state
+        assertThat updates.size() <= 1025, is(true)
+        assertThat updates.first(), is(new DecimalType(0))
+        assertThat updates.last(), is(new DecimalType(2999))
+        assertThat updates, is(updates.sort(false) { it.intValue() })
+        item.removeStateChangeListener(listener)
+    }
+
+    @Test
+    void 'assert that a listener which is only referenced by the item is notified until it is removed'() {
+        def item = new TestItem("member1")
+        def updates = Collections.synchronizedList([])
+        def latch = new CountDownLatch(1)
+        def listener = addAnonymousListener(item, updates, latch)
+        def listenerRef = new WeakReference(listener)
+        listener = null
+
+        for (int i = 0; i < 10; i++) {
+            System.gc()
+            Thread.sleep(20)
+        }
+        assertThat listenerRef.get(), is(notNullValue())
+
+        item.setState(new DecimalType(1))
+        assertTrue latch.await(10, TimeUnit.SECONDS)
+        assertThat updates, is([new DecimalType(1)])
+
+        item.removeStateChangeListener(listenerRef.get())
+        item.setState(new DecimalType(2))
+        Thread.sleep(100)
+        assertThat updates, is([new DecimalType(1)])
+    }
+
+    private StateChangeListener addAnonymousListener(GenericItem item, List updates, CountDownLatch latch) {
+        def listener = [
+            stateUpdated : { updatedItem, State state ->
+                updates.add(state)
+                latch.countDown()
+            },
+            stateChanged : { changedItem, State oldState, State newState -> }
+        ] as StateChangeListener
+        item.addStateChangeListener(listener)
+        return listener
+    }
+
+    @Test
+    void 'assert that a group is notified inline only if its function is incremental'() {
+        def member = new TestItem("member1")
+        def callingThreads = Collections.synchronizedList([])
+        def latch = new CountDownLatch(2)
+        def incrementalGroup = new GroupItem("incremental", null, new GroupFunction.Equality()) {
+                    @Override
+                    void stateUpdated(Item item, State state) {
+                        callingThreads.add("incremental " + Thread.currentThread().getName())
+                        latch.countDown()
+                    }
+                }
+        def fullGroup = new GroupItem("full", null, [
+            calculate: { items -> UnDefType.UNDEF },
+            getStateAs: { items, stateClass -> null }
+        ] as GroupFunction) {
+                    @Override
+                    void stateUpdated(Item item, State state) {
+                        callingThreads.add("full " + Thread.currentThread().getName())
+                        latch.countDown()
+                    }
+                }
+        incrementalGroup.addMember(member)
+        fullGroup.addMember(member)
+
+        member.setState(new DecimalType(1))
+
+        assertThat incrementalGroup.isNotifiedInline(), is(true)
+        assertThat fullGroup.isNotifiedInline(), is(false)
+        assertTrue latch.await(10, TimeUnit.SECONDS)
+        def threadName = Thread.currentThread().getName()
+        assertThat callingThreads.contains("incremental " + threadName), is(true)
+        assertThat callingThreads.contains("full " + threadName), is(false)
+    }
+
     @Test(expected = IllegalArgumentException.class)
     void 'assert that null as group name is not allowed for addGroupName'() {
         def item = new TestItem("member1")
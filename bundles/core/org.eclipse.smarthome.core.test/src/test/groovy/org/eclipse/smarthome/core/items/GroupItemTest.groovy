@@ -16,6 +16,8 @@ import org.eclipse.smarthome.core.items.events.GroupItemStateChangedEvent
 import org.eclipse.smarthome.core.items.events.ItemEventFactory
 import org.eclipse.smarthome.core.library.items.NumberItem
 import org.eclipse.smarthome.core.library.items.SwitchItem
+import org.eclipse.smarthome.core.library.types.ArithmeticGroupFunction
+import org.eclipse.smarthome.core.library.types.DecimalType
 import org.eclipse.smarthome.core.library.types.RawType
 import org.eclipse.smarthome.core.types.RefreshType
 import org.eclipse.smarthome.test.OSGiTest
@@ -117,4 +119,77 @@ class GroupItemTest extends OSGiTest {
         member.setState(member.getState())
         assertThat events.size(), is(0)
     }
+
+    @Test
+    void 'assert that the aggregated group state follows the updates, additions and removals of members'() {
+        GroupItem groupItem = new GroupItem("sum", new NumberItem("base"), new ArithmeticGroupFunction.Sum())
+        def member1 = new NumberItem("member1")
+        def member2 = new NumberItem("member2")
+        member1.setState(new DecimalType(1))
+        member2.setState(new DecimalType(2))
+        groupItem.addMember(member1)
+
+        groupItem.stateUpdated(member1, member1.getState())
+        assertThat groupItem.getState(), is(new DecimalType(1))
+
+        groupItem.addMember(member2)
+        member1.setState(new DecimalType(5))
+        waitForAssert {
+            assertThat groupItem.getState(), is(new DecimalType(7))
+        }
+
+        groupItem.removeMember(member1)
+        member2.setState(new DecimalType(3))
+        waitForAssert {
+            assertThat groupItem.getState(), is(new DecimalType(3))
+        }
+    }
+
+    @Test
+    void 'assert that a member which has been relabelled after it was added is still aggregated and removed'() {
+        GroupItem groupItem = new GroupItem("sum", new NumberItem("base"), new ArithmeticGroupFunction.Sum())
+        def member1 = new NumberItem("member1")
+        def member2 = new NumberItem("member2")
+        member1.setState(new DecimalType(1))
+        member2.setState(new DecimalType(2))
+        groupItem.addMember(member1)
+        groupItem.addMember(member2)
+        groupItem.stateUpdated(member1, member1.getState())
+        assertThat groupItem.getState(), is(new DecimalType(3))
+
+        // the hash code of the item changes with its label
+        member1.setLabel("Relabelled member")
+        member1.setState(new DecimalType(10))
+        waitForAssert {
+            assertThat groupItem.getState(), is(new DecimalType(12))
+        }
+
+        groupItem.removeMember(member1)
+        member2.setState(new DecimalType(4))
+        waitForAssert {
+            assertThat groupItem.getState(), is(new DecimalType(4))
+        }
+    }
+
+    @Test
+    void 'assert that an equal member is aggregated only once'() {
+        GroupItem groupItem = new GroupItem("sum", new NumberItem("base"), new ArithmeticGroupFunction.Sum())
+        def member = new NumberItem("member")
+        def equalMember = new NumberItem("member")
+        member.setState(new DecimalType(1))
+        groupItem.addMember(member)
+        groupItem.stateUpdated(member, member.getState())
+
+        groupItem.addMember(equalMember)
+        member.setState(new DecimalType(2))
+        waitForAssert {
+            assertThat groupItem.getState(), is(new DecimalType(2))
+        }
+
+        // the equal item removes the member, although it is not the same instance
+        groupItem.removeMember(equalMember)
+        groupItem.stateUpdated(member, member.getState())
+        assertThat groupItem.getMembers().isEmpty(), is(true)
+        assertThat groupItem.getState(), is(new DecimalType(0))
+    }
 }
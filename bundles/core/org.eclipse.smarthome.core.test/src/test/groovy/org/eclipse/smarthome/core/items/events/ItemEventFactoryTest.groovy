@@ -11,6 +11,7 @@ import static org.hamcrest.CoreMatchers.*
 import static org.junit.Assert.*
 import static org.junit.matchers.JUnitMatchers.*
 
+import org.eclipse.smarthome.core.events.AbstractEvent
 import org.eclipse.smarthome.core.events.Event
 import org.eclipse.smarthome.core.items.GroupItem
 import org.eclipse.smarthome.core.items.dto.ItemDTOMapper
@@ -186,4 +187,20 @@ class ItemEventFactoryTest extends OSGiTest {
         assertThat event.getItem().name, is(ITEM_NAME)
         assertThat event.getItem().type, is("SwitchItem")
     }
+
+    @Test
+    void 'ItemEventFactory serializes the payload of created events on demand'() {
+        def payloadField = AbstractEvent.getDeclaredField("payload")
+        payloadField.setAccessible(true)
+        ItemStateChangedEvent event = ItemEventFactory.createStateChangedEvent(ITEM_NAME, NEW_ITEM_STATE, ITEM_STATE)
+
+        assertThat payloadField.get(event), is(nullValue())
+        String payload = event.getPayload()
+        assertThat payload, is(ITEM_STATE_CHANGED_EVENT_PAYLOAD)
+        assertThat event.getPayload(), is(sameInstance(payload))
+
+        Event recreatedEvent = factory.createEvent(ItemStateChangedEvent.TYPE, event.getTopic(), payload, null)
+        assertThat recreatedEvent.getItemState(), is(NEW_ITEM_STATE)
+        assertThat recreatedEvent.getOldItemState(), is(ITEM_STATE)
+    }
 }
@@ -0,0 +1,175 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.core.common.registry;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for the key index of the {@link AbstractRegistry} and the {@link RegistryIndex}.
+ *
+ * @author agent - Initial contribution
+ */
+public class RegistryIndexTest {
+
+    /**
+     * Elements are strings of the form 'key:value'.
+     */
+    private static class TestRegistry extends AbstractRegistry<String, String> {
+
+        private final RegistryIndex<String, String> valueIndex = new RegistryIndex<String, String>() {
+            @Override
+            protected Collection<String> getIndexValues(String element) {
+                return Collections.singleton(element.split(":")[1]);
+            }
+        };
+
+        @Override
+        protected String getKey(String element) {
+            return element.split(":")[0];
+        }
+
+        @Override
+        public String get(String key) {
+            return getByKey(key);
+        }
+    }
+
+    private static class TestProvider implements Provider<String> {
+
+        private final List<String> elements = new ArrayList<>();
+
+        private TestProvider(String... elements) {
+            Collections.addAll(this.elements, elements);
+        }
+
+        @Override
+        public void addProviderChangeListener(ProviderChangeListener<String> listener) {
+        }
+
+        @Override
+        public Collection<String> getAll() {
+            return elements;
+        }
+
+        @Override
+        public void removeProviderChangeListener(ProviderChangeListener<String> listener) {
+        }
+    }
+
+    private TestRegistry registry;
+
+    @Before
+    public void setUp() {
+        registry = new TestRegistry();
+        registry.addIndex(registry.valueIndex);
+    }
+
+    @Test
+    public void elementsAreIndexedWhenAdded() {
+        TestProvider provider = new TestProvider("a:x", "b:y");
+        registry.addProvider(provider);
+        registry.added(provider, "c:x");
+
+        assertEquals("a:x", registry.get("a"));
+        assertEquals("c:x", registry.get("c"));
+        assertNull(registry.get("d"));
+        assertEquals(2, registry.valueIndex.count("x"));
+        assertTrue(registry.valueIndex.get("x").contains("c:x"));
+        assertSame(registry.valueIndex.get("x"), registry.valueIndex.get("x"));
+        assertEquals(3, registry.getAll().size());
+    }
+
+    @Test
+    public void indexesAreUpdatedOnUpdateAndRemoval() {
+        TestProvider provider = new TestProvider("a:x", "b:y");
+        registry.addProvider(provider);
+
+        registry.updated(provider, "a:x", "a:y");
+        assertEquals("a:y", registry.get("a"));
+        assertEquals(0, registry.valueIndex.count("x"));
+        assertEquals(2, registry.valueIndex.count("y"));
+
+        registry.removed(provider, "b:y");
+        assertNull(registry.get("b"));
+        assertEquals(Collections.singletonList("a:y"), new ArrayList<>(registry.valueIndex.get("y")));
+
+        registry.removeProvider(provider);
+        assertNull(registry.get("a"));
+        assertEquals(0, registry.valueIndex.count("y"));
+        assertTrue(registry.getAll().isEmpty());
+    }
+
+    @Test
+    public void indexIsFilledWithExistingElements() {
+        registry.addProvider(new TestProvider("a:x", "b:y"));
+        RegistryIndex<String, String> keyIndex = new RegistryIndex<String, String>() {
+            @Override
+            protected Collection<String> getIndexValues(String element) {
+                return Collections.singleton(element.split(":")[0]);
+            }
+        };
+        registry.addIndex(keyIndex);
+
+        assertEquals(1, keyIndex.count("a"));
+        assertEquals(1, keyIndex.count("b"));
+    }
+
+    @Test
+    public void duplicateKeyOfOtherProviderIsRestoredOnRemoval() {
+        TestProvider first = new TestProvider("a:x");
+        TestProvider second = new TestProvider("a:y");
+        registry.addProvider(first);
+        registry.addProvider(second);
+
+        registry.removeProvider(second);
+
+        assertEquals("a:x", registry.get("a"));
+        assertEquals(1, registry.valueIndex.count("x"));
+    }
+
+    @Test
+    public void allElementsSnapshotIsRefreshedAfterChanges() {
+        TestProvider provider = new TestProvider("a:x");
+        registry.addProvider(provider);
+        Collection<String> snapshot = registry.getAll();
+        assertSame(snapshot, registry.getAll());
+
+        registry.added(provider, "b:x");
+
+        assertEquals(2, registry.getAll().size());
+        assertEquals(1, snapshot.size());
+    }
+
+    @Test
+    public void indexSnapshotIsRefreshedAfterChangesOfItsValue() {
+        TestProvider provider = new TestProvider("a:x", "b:y");
+        registry.addProvider(provider);
+        Collection<String> x = registry.valueIndex.get("x");
+        Collection<String> y = registry.valueIndex.get("y");
+
+        registry.updated(provider, "b:y", "b:x");
+
+        assertEquals(Collections.singletonList("a:x"), new ArrayList<>(x));
+        assertEquals(2, registry.valueIndex.get("x").size());
+        assertNotSame(x, registry.valueIndex.get("x"));
+        assertEquals(Collections.singletonList("b:y"), new ArrayList<>(y));
+        assertTrue(registry.valueIndex.get("y").isEmpty());
+
+        registry.removed(provider, "a:x");
+        assertEquals(Collections.singletonList("b:x"), new ArrayList<>(registry.valueIndex.get("x")));
+    }
+
+}
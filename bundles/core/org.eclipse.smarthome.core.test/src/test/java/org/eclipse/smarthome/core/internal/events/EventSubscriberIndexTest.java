@@ -0,0 +1,273 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.core.internal.events;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+import org.eclipse.smarthome.core.events.Event;
+import org.eclipse.smarthome.core.events.EventFilter;
+import org.eclipse.smarthome.core.events.EventSubscriber;
+import org.eclipse.smarthome.core.events.TopicEventFilter;
+import org.eclipse.smarthome.core.events.TopicPatternEventFilter;
+import org.eclipse.smarthome.core.events.TopicSubstringEventFilter;
+import org.junit.Test;
+
+/**
+ * Tests for the {@link EventSubscriberIndex} and the {@link TopicPatternEventFilter}.
+ *
+ * @author agent - Initial contribution
+ */
+public class EventSubscriberIndexTest {
+
+    private static final String ITEM_STATE_EVENT = "ItemStateEvent";
+
+    private static final String ITEM_COMMAND_EVENT = "ItemCommandEvent";
+
+    private static final Executor DIRECT_EXECUTOR = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private static class TestSubscriber implements EventSubscriber {
+
+        private final Set<String> eventTypes;
+        private EventFilter filter;
+        private final List<Event> receivedEvents = new ArrayList<>();
+
+        private TestSubscriber(String eventType, EventFilter filter) {
+            this.eventTypes = Collections.singleton(eventType);
+            this.filter = filter;
+        }
+
+        @Override
+        public Set<String> getSubscribedEventTypes() {
+            return eventTypes;
+        }
+
+        @Override
+        public EventFilter getEventFilter() {
+            return filter;
+        }
+
+        @Override
+        public void receive(Event event) {
+            receivedEvents.add(event);
+        }
+    }
+
+    private final EventSubscriberIndex index = new EventSubscriberIndex();
+
+    private TestSubscriber subscribe(String eventType, EventFilter filter) {
+        TestSubscriber subscriber = new TestSubscriber(eventType, filter);
+        index.add(subscriber, new EventSubscriberMailbox(subscriber, DIRECT_EXECUTOR, 100));
+        return subscriber;
+    }
+
+    private static Event createEvent(final String type, final String topic) {
+        return new Event() {
+            @Override
+            public String getType() {
+                return type;
+            }
+
+            @Override
+            public String getTopic() {
+                return topic;
+            }
+
+            @Override
+            public String getPayload() {
+                return "{}";
+            }
+
+            @Override
+            public String getSource() {
+                return null;
+            }
+        };
+    }
+
+    @Test
+    public void topicPatternMatchesSegments() {
+        TopicPatternEventFilter exact = new TopicPatternEventFilter("smarthome/items/MyItem/state");
+        assertTrue(exact.matches("smarthome/items/MyItem/state"));
+        assertFalse(exact.matches("smarthome/items/MyItem/statechanged"));
+        assertFalse(exact.matches("smarthome/items/MyItem"));
+        assertFalse(exact.matches("smarthome/items/MyItem/state/more"));
+
+        TopicPatternEventFilter singleSegment = new TopicPatternEventFilter("smarthome/items/*/state");
+        assertTrue(singleSegment.matches("smarthome/items/MyItem/state"));
+        assertFalse(singleSegment.matches("smarthome/items/Group/MyItem/state"));
+
+        TopicPatternEventFilter remainder = new TopicPatternEventFilter("smarthome/items/*");
+        assertTrue(remainder.matches("smarthome/items/MyItem/state"));
+        assertTrue(remainder.matches("smarthome/items/Group/MyItem/statechanged"));
+        assertFalse(remainder.matches("smarthome/items"));
+        assertFalse(remainder.matches("smarthome/things/MyThing/status"));
+    }
+
+    @Test
+    public void indexedSubscribersReceiveMatchingTopicsOnly() {
+        TestSubscriber myItem = subscribe(ITEM_STATE_EVENT,
+                new TopicPatternEventFilter("smarthome/items/MyItem/state"));
+        TestSubscriber otherItem = subscribe(ITEM_STATE_EVENT,
+                new TopicPatternEventFilter("smarthome/items/OtherItem/state"));
+        TestSubscriber allItems = subscribe(ITEM_STATE_EVENT, new TopicPatternEventFilter("smarthome/items/*"));
+        TestSubscriber allStates = subscribe(ITEM_STATE_EVENT,
+                new TopicPatternEventFilter("smarthome/items/*/state"));
+
+        int count = index.dispatch(createEvent(ITEM_STATE_EVENT, "smarthome/items/MyItem/state"));
+
+        assertEquals(3, count);
+        assertEquals(1, myItem.receivedEvents.size());
+        assertEquals(0, otherItem.receivedEvents.size());
+        assertEquals(1, allItems.receivedEvents.size());
+        assertEquals(1, allStates.receivedEvents.size());
+    }
+
+    @Test
+    public void indexedSubscribersReceiveSubscribedEventTypesOnly() {
+        TestSubscriber stateSubscriber = subscribe(ITEM_STATE_EVENT, new TopicPatternEventFilter("smarthome/items/*"));
+        TestSubscriber allTypesSubscriber = subscribe(EventSubscriber.ALL_EVENT_TYPES,
+                new TopicPatternEventFilter("smarthome/items/*"));
+
+        index.dispatch(createEvent(ITEM_COMMAND_EVENT, "smarthome/items/MyItem/command"));
+
+        assertEquals(0, stateSubscriber.receivedEvents.size());
+        assertEquals(1, allTypesSubscriber.receivedEvents.size());
+        assertTrue(index.hasSubscribers(ITEM_COMMAND_EVENT));
+    }
+
+    @Test
+    public void plainTopicEventFiltersAreIndexed() {
+        TestSubscriber plain = subscribe(ITEM_STATE_EVENT, new TopicEventFilter("smarthome/items/MyItem/state"));
+        TestSubscriber subTopics = subscribe(ITEM_STATE_EVENT, new TopicEventFilter("smarthome/items/.*"));
+        TestSubscriber regex = subscribe(ITEM_STATE_EVENT, new TopicEventFilter("smarthome/items/My.*/state"));
+
+        index.dispatch(createEvent(ITEM_STATE_EVENT, "smarthome/items/MyItem/state"));
+        index.dispatch(createEvent(ITEM_STATE_EVENT, "smarthome/items/OtherItem/state"));
+
+        assertEquals(1, plain.receivedEvents.size());
+        assertEquals(2, subTopics.receivedEvents.size());
+        assertEquals(1, regex.receivedEvents.size());
+    }
+
+    @Test
+    public void typedSubscribersAreNotDuplicated() {
+        TestSubscriber typed = subscribe(ITEM_STATE_EVENT, null);
+        TestSubscriber all = subscribe(EventSubscriber.ALL_EVENT_TYPES, null);
+
+        index.dispatch(createEvent(ITEM_STATE_EVENT, "smarthome/items/MyItem/state"));
+        index.dispatch(createEvent(ITEM_COMMAND_EVENT, "smarthome/items/MyItem/command"));
+
+        assertEquals(1, typed.receivedEvents.size());
+        assertEquals(2, all.receivedEvents.size());
+    }
+
+    @Test
+    public void removedSubscribersDoNotReceiveEvents() {
+        TestSubscriber subscriber = subscribe(ITEM_STATE_EVENT, new TopicPatternEventFilter("smarthome/items/*"));
+        assertNotNull(index.remove(subscriber));
+
+        index.dispatch(createEvent(ITEM_STATE_EVENT, "smarthome/items/MyItem/state"));
+
+        assertEquals(0, subscriber.receivedEvents.size());
+        assertFalse(index.hasSubscribers(ITEM_STATE_EVENT));
+        assertEquals(0, index.getMailboxes().length);
+    }
+
+    @Test
+    public void substringSubscribersReceiveTopicsContainingTheirSubstring() {
+        TestSubscriber light = subscribe(ITEM_STATE_EVENT, new TopicSubstringEventFilter("Light"));
+        TestSubscriber light2 = subscribe(ITEM_STATE_EVENT, new TopicSubstringEventFilter("Light2"));
+        TestSubscriber ght = subscribe(ITEM_STATE_EVENT, new TopicSubstringEventFilter("ght2/st"));
+        TestSubscriber other = subscribe(ITEM_STATE_EVENT, new TopicSubstringEventFilter("Lights"));
+        TestSubscriber all = subscribe(ITEM_STATE_EVENT, new TopicSubstringEventFilter(""));
+
+        int count = index.dispatch(createEvent(ITEM_STATE_EVENT, "smarthome/items/Light2/state"));
+
+        assertEquals(4, count);
+        assertEquals(1, light.receivedEvents.size());
+        assertEquals(1, light2.receivedEvents.size());
+        assertEquals(1, ght.receivedEvents.size());
+        assertEquals(0, other.receivedEvents.size());
+        assertEquals(1, all.receivedEvents.size());
+    }
+
+    @Test
+    public void substringSubscribersReceiveAnEventOnceIfTheSubstringOccursSeveralTimes() {
+        TestSubscriber item = subscribe(ITEM_STATE_EVENT, new TopicSubstringEventFilter("Item"));
+        TestSubscriber items = subscribe(ITEM_STATE_EVENT, new TopicSubstringEventFilter("items"));
+        TestSubscriber command = subscribe(ITEM_COMMAND_EVENT, new TopicSubstringEventFilter("Item"));
+
+        int count = index.dispatch(createEvent(ITEM_STATE_EVENT, "smarthome/items/ItemGroup/MyItem/state"));
+
+        assertEquals(2, count);
+        assertEquals(1, item.receivedEvents.size());
+        assertEquals(1, items.receivedEvents.size());
+        assertEquals(0, command.receivedEvents.size());
+    }
+
+    @Test
+    public void substringIndexFindsTheSameSubscribersAsTheFilters() {
+        String[] substrings = { "a", "ab", "bab", "bc", "bca", "c", "caa", "/", "s/a", "" };
+        List<TestSubscriber> subscribers = new ArrayList<>();
+        for (String substring : substrings) {
+            subscribers.add(subscribe(ITEM_STATE_EVENT, new TopicSubstringEventFilter(substring)));
+        }
+
+        String[] topics = { "abccab", "s/abab/bca", "xyz", "", "caab/bc/a" };
+        for (String topic : topics) {
+            Event event = createEvent(ITEM_STATE_EVENT, topic);
+            int expected = 0;
+            for (TestSubscriber subscriber : subscribers) {
+                expected += subscriber.filter.apply(event) ? 1 : 0;
+            }
+            assertEquals(topic, expected, index.dispatch(event));
+        }
+        for (TestSubscriber subscriber : subscribers) {
+            int expected = 0;
+            for (String topic : topics) {
+                expected += topic.contains(((TopicSubstringEventFilter) subscriber.filter).getSubstring()) ? 1 : 0;
+            }
+            assertEquals(expected, subscriber.receivedEvents.size());
+        }
+    }
+
+    @Test
+    public void changedFiltersAreIndexedOnRefresh() {
+        TestSubscriber subscriber = subscribe(ITEM_STATE_EVENT, new TopicSubstringEventFilter("MyItem"));
+        TestSubscriber unchanged = subscribe(ITEM_STATE_EVENT, new TopicSubstringEventFilter("MyItem"));
+        assertFalse(index.refresh());
+
+        subscriber.filter = new TopicPatternEventFilter("smarthome/items/OtherItem/*");
+        unchanged.filter = new TopicSubstringEventFilter("MyItem");
+        assertTrue(index.refresh());
+        assertFalse(index.refresh());
+        index.dispatch(createEvent(ITEM_STATE_EVENT, "smarthome/items/MyItem/state"));
+        index.dispatch(createEvent(ITEM_STATE_EVENT, "smarthome/items/OtherItem/state"));
+        assertEquals(1, subscriber.receivedEvents.size());
+        assertEquals("smarthome/items/OtherItem/state", subscriber.receivedEvents.get(0).getTopic());
+        assertEquals(1, unchanged.receivedEvents.size());
+
+        subscriber.filter = null;
+        assertTrue(index.update(subscriber));
+        index.dispatch(createEvent(ITEM_STATE_EVENT, "smarthome/items/MyItem/state"));
+        assertEquals(2, subscriber.receivedEvents.size());
+        assertEquals(2, index.getMailboxes().length);
+    }
+
+}
@@ -0,0 +1,203 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.core.internal.events;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.smarthome.core.events.Event;
+import org.eclipse.smarthome.core.events.EventFilter;
+import org.eclipse.smarthome.core.events.EventSubscriber;
+import org.junit.Test;
+
+/**
+ * Tests for the {@link EventSubscriberMailbox}.
+ *
+ * @author agent - Initial contribution
+ */
+public class EventSubscriberMailboxTest {
+
+    private static class RecordingSubscriber implements EventSubscriber {
+
+        private final List<Event> receivedEvents = new ArrayList<>();
+
+        @Override
+        public Set<String> getSubscribedEventTypes() {
+            return Collections.singleton(ALL_EVENT_TYPES);
+        }
+
+        @Override
+        public EventFilter getEventFilter() {
+            return null;
+        }
+
+        @Override
+        public void receive(Event event) {
+            receivedEvents.add(event);
+        }
+    }
+
+    /**
+     * Executor which collects the tasks, so that the test decides when they are run.
+     */
+    private static class ManualExecutor implements Executor {
+
+        private final Queue<Runnable> tasks = new LinkedList<>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        void runAll() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+    }
+
+    private static Event createEvent(final String topic) {
+        return new Event() {
+            @Override
+            public String getType() {
+                return "TestEvent";
+            }
+
+            @Override
+            public String getTopic() {
+                return topic;
+            }
+
+            @Override
+            public String getPayload() {
+                return "{}";
+            }
+
+            @Override
+            public String getSource() {
+                return null;
+            }
+        };
+    }
+
+    @Test
+    public void eventsAreDeliveredInOrderOfPosting() {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        ManualExecutor executor = new ManualExecutor();
+        EventSubscriberMailbox mailbox = new EventSubscriberMailbox(subscriber, executor, 10);
+
+        Event first = createEvent("a");
+        Event second = createEvent("b");
+        assertTrue(mailbox.offer(first));
+        assertTrue(mailbox.offer(second));
+        assertEquals(1, executor.tasks.size());
+        assertEquals(2, mailbox.getMetrics().getQueueDepth());
+
+        executor.runAll();
+
+        assertEquals(2, subscriber.receivedEvents.size());
+        assertSame(first, subscriber.receivedEvents.get(0));
+        assertSame(second, subscriber.receivedEvents.get(1));
+        assertEquals(0, mailbox.getMetrics().getQueueDepth());
+        assertEquals(2, mailbox.getMetrics().getReceivedCount());
+    }
+
+    @Test
+    public void eventsAreDroppedIfMailboxIsFull() {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        ManualExecutor executor = new ManualExecutor();
+        EventSubscriberMailbox mailbox = new EventSubscriberMailbox(subscriber, executor, 2);
+
+        assertTrue(mailbox.offer(createEvent("a")));
+        assertTrue(mailbox.offer(createEvent("b")));
+        assertFalse(mailbox.offer(createEvent("c")));
+        executor.runAll();
+
+        assertEquals(2, subscriber.receivedEvents.size());
+        assertEquals(1, mailbox.getMetrics().getDroppedCount());
+        assertTrue(mailbox.offer(createEvent("d")));
+    }
+
+    @Test
+    public void closedMailboxDiscardsQueuedEventsAndRejectsNewEvents() {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        ManualExecutor executor = new ManualExecutor();
+        EventSubscriberMailbox mailbox = new EventSubscriberMailbox(subscriber, executor, 10);
+
+        assertTrue(mailbox.offer(createEvent("a")));
+        assertTrue(mailbox.offer(createEvent("b")));
+        mailbox.close();
+        assertEquals(0, mailbox.getMetrics().getQueueDepth());
+
+        assertFalse(mailbox.offer(createEvent("c")));
+        executor.runAll();
+
+        assertTrue(subscriber.receivedEvents.isEmpty());
+        assertEquals(0, mailbox.getMetrics().getQueueDepth());
+        assertEquals(0, mailbox.getMetrics().getDroppedCount());
+    }
+
+    @Test
+    public void failingSubscriberDoesNotStopDelivery() {
+        final List<Event> receivedEvents = new ArrayList<>();
+        EventSubscriber subscriber = new RecordingSubscriber() {
+            @Override
+            public void receive(Event event) {
+                receivedEvents.add(event);
+                throw new IllegalStateException("test");
+            }
+        };
+        ManualExecutor executor = new ManualExecutor();
+        EventSubscriberMailbox mailbox = new EventSubscriberMailbox(subscriber, executor, 10);
+
+        mailbox.offer(createEvent("a"));
+        mailbox.offer(createEvent("b"));
+        executor.runAll();
+
+        assertEquals(2, receivedEvents.size());
+    }
+
+    @Test
+    public void overrunIsDetectedOncePerDelivery() {
+        final long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(100);
+        final List<Boolean> overruns = new ArrayList<>();
+        final EventSubscriberMailbox[] mailboxHolder = new EventSubscriberMailbox[1];
+        EventSubscriber subscriber = new RecordingSubscriber() {
+            @Override
+            public void receive(Event event) {
+                long now = System.nanoTime();
+                EventSubscriberMailbox mailbox = mailboxHolder[0];
+                overruns.add(mailbox.checkOverrun(now, timeoutNanos));
+                overruns.add(mailbox.checkOverrun(now + 2 * timeoutNanos, timeoutNanos));
+                overruns.add(mailbox.checkOverrun(now + 3 * timeoutNanos, timeoutNanos));
+            }
+        };
+        ManualExecutor executor = new ManualExecutor();
+        mailboxHolder[0] = new EventSubscriberMailbox(subscriber, executor, 10);
+
+        mailboxHolder[0].offer(createEvent("a"));
+        executor.runAll();
+
+        assertEquals(Boolean.FALSE, overruns.get(0));
+        assertEquals(Boolean.TRUE, overruns.get(1));
+        assertEquals(Boolean.FALSE, overruns.get(2));
+        assertEquals(1, mailboxHolder[0].getMetrics().getOverrunCount());
+        // nothing is executed anymore, so there is no overrun
+        assertFalse(mailboxHolder[0].checkOverrun(System.nanoTime() + 10 * timeoutNanos, timeoutNanos));
+    }
+
+}
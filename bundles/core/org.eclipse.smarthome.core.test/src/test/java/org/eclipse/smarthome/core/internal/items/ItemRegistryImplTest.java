@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.core.internal.items;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.smarthome.core.common.registry.ProviderChangeListener;
+import org.eclipse.smarthome.core.common.registry.RegistryChangeListener;
+import org.eclipse.smarthome.core.items.Item;
+import org.eclipse.smarthome.core.items.ItemProvider;
+import org.eclipse.smarthome.core.library.items.SwitchItem;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that the {@link ItemRegistryImpl} keeps its collection of all items up to date when a provider replaces all
+ * of its items.
+ *
+ * @author agent - Initial contribution
+ */
+public class ItemRegistryImplTest {
+
+    private static class TestItemProvider implements ItemProvider {
+
+        private final List<Item> items = new ArrayList<>();
+
+        @Override
+        public void addProviderChangeListener(ProviderChangeListener<Item> listener) {
+        }
+
+        @Override
+        public Collection<Item> getAll() {
+            return items;
+        }
+
+        @Override
+        public void removeProviderChangeListener(ProviderChangeListener<Item> listener) {
+        }
+    }
+
+    private ItemRegistryImpl registry;
+
+    private TestItemProvider provider;
+
+    @Before
+    public void setUp() {
+        registry = new ItemRegistryImpl();
+        provider = new TestItemProvider();
+        provider.items.add(new SwitchItem("Unchanged"));
+        registry.allItemsChanged(provider, null);
+    }
+
+    @Test
+    public void allItemsAreReturnedAfterTheItemsHaveBeenReplaced() {
+        Item unchanged = registry.getAll().iterator().next();
+        final List<Collection<Item>> itemsSeenByListener = new ArrayList<>();
+        registry.addRegistryChangeListener(new RegistryChangeListener<Item>() {
+            @Override
+            public void added(Item element) {
+                // the new item is added before the unchanged one, which is taken over afterwards
+                itemsSeenByListener.add(registry.getAll());
+            }
+
+            @Override
+            public void removed(Item element) {
+            }
+
+            @Override
+            public void updated(Item oldElement, Item element) {
+            }
+        });
+
+        provider.items.clear();
+        provider.items.addAll(Arrays.asList(new SwitchItem("New"), new SwitchItem("Unchanged")));
+        registry.allItemsChanged(provider, Collections.<String> emptyList());
+
+        assertEquals(1, itemsSeenByListener.size());
+        assertEquals(2, registry.getAll().size());
+        assertTrue(registry.getAll().contains(unchanged));
+        assertSame(unchanged, registry.get("Unchanged"));
+    }
+
+}
@@ -9,12 +9,16 @@ package org.eclipse.smarthome.core.library.types;
 
 import static org.junit.Assert.assertEquals;
 
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.smarthome.core.items.GenericItem;
 import org.eclipse.smarthome.core.items.GroupFunction;
+import org.eclipse.smarthome.core.items.IncrementalGroupFunction;
+import org.eclipse.smarthome.core.items.IncrementalGroupFunction.Accumulator;
 import org.eclipse.smarthome.core.items.Item;
 import org.eclipse.smarthome.core.library.items.DimmerItem;
 import org.eclipse.smarthome.core.library.items.SwitchItem;
@@ -201,6 +205,81 @@ public class ArithmeticGroupFunctionTest {
         assertEquals(new DecimalType("234.95"), state);
     }
 
+    @Test
+    public void testIncrementalFunctions() {
+        TestItem item1 = new TestItem("TestItem1", new DecimalType("23.54"));
+        TestItem item2 = new TestItem("TestItem2", UnDefType.NULL);
+        TestItem item3 = new TestItem("TestItem3", new DecimalType("89"));
+        items.add(item1);
+        items.add(item2);
+        items.add(item3);
+
+        IncrementalGroupFunction[] functions = new IncrementalGroupFunction[] { new ArithmeticGroupFunction.Sum(),
+                new ArithmeticGroupFunction.Avg(), new ArithmeticGroupFunction.Min(),
+                new ArithmeticGroupFunction.Max(), new ArithmeticGroupFunction.Count(new StringType("[0-9]+")),
+                new ArithmeticGroupFunction.And(new DecimalType("89"), UnDefType.UNDEF),
+                new ArithmeticGroupFunction.NOr(new DecimalType("89"), UnDefType.UNDEF) };
+        for (IncrementalGroupFunction incrementalFunction : functions) {
+            Accumulation<?> accumulation = accumulate(incrementalFunction.createAccumulator(), items);
+            assertAccumulated(incrementalFunction, accumulation);
+
+            // the member with the highest scale changes, so the scale of the sum has to follow
+            accumulation.remove(item1);
+            item1.setState(new DecimalType("7"));
+            accumulation.add(item1);
+            assertAccumulated(incrementalFunction, accumulation);
+
+            accumulation.remove(item2);
+            item2.setState(new DecimalType("89"));
+            accumulation.add(item2);
+            assertAccumulated(incrementalFunction, accumulation);
+
+            accumulation.remove(item3);
+            items.remove(item3);
+            assertAccumulated(incrementalFunction, accumulation);
+
+            items.add(item3);
+            item1.setState(new DecimalType("23.54"));
+            item2.setState(UnDefType.NULL);
+        }
+    }
+
+    private void assertAccumulated(GroupFunction function, Accumulation<?> accumulation) {
+        State calculated = function.calculate(items);
+        State accumulated = accumulation.getState();
+        assertEquals(function.getClass().getSimpleName(), calculated, accumulated);
+        assertEquals(function.getClass().getSimpleName(), calculated.toString(), accumulated.toString());
+    }
+
+    private <C> Accumulation<C> accumulate(Accumulator<C> accumulator, Set<Item> items) {
+        Accumulation<C> accumulation = new Accumulation<C>(accumulator);
+        for (Item item : items) {
+            accumulation.add(item);
+        }
+        return accumulation;
+    }
+
+    private class Accumulation<C> {
+        private final Accumulator<C> accumulator;
+        private final Map<Item, C> contributions = new HashMap<Item, C>();
+
+        private Accumulation(Accumulator<C> accumulator) {
+            this.accumulator = accumulator;
+        }
+
+        private void add(Item item) {
+            contributions.put(item, accumulator.add(item));
+        }
+
+        private void remove(Item item) {
+            accumulator.remove(contributions.remove(item));
+        }
+
+        private State getState() {
+            return accumulator.getState();
+        }
+    }
+
     class TestItem extends GenericItem {
 
         public TestItem(String name, State state) {
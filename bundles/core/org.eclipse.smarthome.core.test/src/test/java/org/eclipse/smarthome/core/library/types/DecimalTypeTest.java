@@ -8,12 +8,18 @@
 package org.eclipse.smarthome.core.library.types;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.math.BigDecimal;
 import java.text.DecimalFormatSymbols;
 
 import org.junit.Test;
 
+import com.google.gson.Gson;
+
 /**
  * @author Thomas.Eichstaedt-Engelen
  */
@@ -32,6 +38,120 @@ public class DecimalTypeTest {
         assertEquals(false, dt1.equals(pt));
     }
 
+    @Test
+    public void testLongAndBigDecimalValuesAreEqual() {
+        DecimalType[] values = new DecimalType[] { new DecimalType(42), new DecimalType("42"),
+                new DecimalType("42.00"), new DecimalType(new BigDecimal("4.2E+1")), new DecimalType(42.0),
+                DecimalType.valueOf("42") };
+        for (DecimalType value : values) {
+            for (DecimalType other : values) {
+                assertEquals(value, other);
+                assertEquals(value.hashCode(), other.hashCode());
+                assertEquals(0, value.compareTo(other));
+            }
+            assertEquals(42, value.intValue());
+            assertEquals(42.0, value.doubleValue(), 0.0);
+        }
+        assertEquals(new DecimalType(0), new DecimalType("-0.000"));
+        assertEquals(new DecimalType(0).hashCode(), new DecimalType("-0.000").hashCode());
+        assertEquals(-1, new DecimalType(Long.MIN_VALUE).compareTo(new DecimalType(Long.MAX_VALUE)));
+        assertEquals(1, new DecimalType("12345678901234567890").compareTo(new DecimalType(Long.MAX_VALUE)));
+    }
+
+    @Test
+    public void testLongValuesWithNineteenDigitsHaveTheHashCodeOfTheirBigDecimal() {
+        long[] longs = new long[] { Long.MAX_VALUE, Long.MIN_VALUE, 1000000000000000000L, -1234567890123456789L };
+        for (long l : longs) {
+            DecimalType longValue = new DecimalType(l);
+            DecimalType bigDecimalValue = new DecimalType(new BigDecimal(l).setScale(2));
+            assertEquals(longValue, bigDecimalValue);
+            assertEquals(longValue.hashCode(), bigDecimalValue.hashCode());
+            assertEquals(longValue.hashCode(), new DecimalType(Long.toString(l)).hashCode());
+        }
+        // the values next to the range of a long are not hashed like a long
+        DecimalType beyondLong = new DecimalType(new BigDecimal(Long.MAX_VALUE).add(BigDecimal.ONE));
+        assertEquals(new DecimalType(new BigDecimal("9223372036854775808.0")).hashCode(), beyondLong.hashCode());
+    }
+
+    @Test
+    public void testValueFieldIsSetForLongValues() {
+        DecimalType[] values = new DecimalType[] { new DecimalType(), new DecimalType(42), new DecimalType("42"),
+                new DecimalType(42.0), DecimalType.valueOf(1000), DecimalType.valueOf("7"), PercentType.valueOf("50") };
+        for (DecimalType value : values) {
+            assertNotNull(value.value);
+            assertEquals(value.longValue(), value.value.longValueExact());
+            assertSame(value.value, value.toBigDecimal());
+            assertTrue(value.isLong());
+        }
+    }
+
+    @Test
+    public void testJsonContainsTheValueOnly() {
+        Gson gson = new Gson();
+        assertEquals("{\"value\":42}", gson.toJson(new DecimalType(42)));
+        assertEquals("{\"value\":4.5}", gson.toJson(new DecimalType("4.5")));
+        DecimalType parsed = gson.fromJson("{\"value\":42}", DecimalType.class);
+        assertEquals(new DecimalType(42), parsed);
+        assertEquals(new DecimalType(42).hashCode(), parsed.hashCode());
+    }
+
+    @Test
+    public void testValueFieldReplacedBySubclassIsUsed() {
+        DecimalType value = new DecimalType(42) {
+            private static final long serialVersionUID = 1L;
+
+            {
+                this.value = new BigDecimal("4.5");
+            }
+        };
+        assertEquals("4.5", value.toString());
+        assertEquals(4.5, value.doubleValue(), 0.0);
+        assertEquals(new DecimalType("4.50"), value);
+        assertEquals(new DecimalType("4.50").hashCode(), value.hashCode());
+    }
+
+    @Test
+    public void testToStringIsUnchanged() {
+        assertEquals("42", new DecimalType(42).toString());
+        assertEquals("-42", new DecimalType("-42").toString());
+        assertEquals("42", new DecimalType("+42").toString());
+        assertEquals("42.00", new DecimalType("42.00").toString());
+        assertEquals("42", new DecimalType(42.0).toString());
+        assertEquals("0.5", new DecimalType(0.5).toString());
+        assertEquals("123456789012345678901", new DecimalType("123456789012345678901").toString());
+        assertEquals(new BigDecimal(42), new DecimalType(42).toBigDecimal());
+        assertEquals(0, new DecimalType(42).toBigDecimal().scale());
+    }
+
+    @Test
+    public void testValueOfSharesSmallValues() {
+        assertSame(DecimalType.ZERO, DecimalType.valueOf("0"));
+        assertSame(DecimalType.valueOf(200), DecimalType.valueOf("200"));
+        assertEquals("200.0", DecimalType.valueOf("200.0").toString());
+        assertEquals(new DecimalType(-3), DecimalType.valueOf("-3"));
+    }
+
+    @Test
+    public void testDecimalSum() {
+        DecimalSum sum = new DecimalSum();
+        sum.add(new DecimalType(Long.MAX_VALUE));
+        sum.add(new DecimalType(1));
+        assertEquals(new BigDecimal(Long.MAX_VALUE).add(BigDecimal.ONE), sum.toBigDecimal());
+        sum.subtract(new DecimalType(Long.MAX_VALUE));
+        assertEquals(new DecimalType(1), sum.toDecimalType());
+
+        sum = new DecimalSum();
+        sum.add(new DecimalType(Long.MIN_VALUE));
+        sum.subtract(new DecimalType(1));
+        assertEquals(new BigDecimal(Long.MIN_VALUE).subtract(BigDecimal.ONE), sum.toBigDecimal());
+
+        sum = new DecimalSum();
+        sum.add(new DecimalType(12));
+        sum.add(new DecimalType("0.50"));
+        sum.subtract(new DecimalType(2));
+        assertEquals("10.50", sum.toBigDecimal().toPlainString());
+    }
+
     @Test
     public void testIntFormat() {
         DecimalType dt;
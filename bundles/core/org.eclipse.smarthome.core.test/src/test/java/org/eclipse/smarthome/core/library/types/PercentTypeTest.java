@@ -8,6 +8,7 @@
 package org.eclipse.smarthome.core.library.types;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 import org.junit.Test;
 
@@ -26,6 +27,19 @@ public class PercentTypeTest {
         new PercentType("100.2");
     }
 
+    @Test(expected = IllegalArgumentException.class)
+    public void valueOfMoreThan100() {
+        PercentType.valueOf("101");
+    }
+
+    @Test
+    public void valueOfSharesIntegerValues() {
+        assertSame(PercentType.ZERO, PercentType.valueOf("0"));
+        assertSame(PercentType.HUNDRED, PercentType.valueOf("100"));
+        assertSame(PercentType.valueOf(50), PercentType.valueOf("50"));
+        assertEquals("50.0", PercentType.valueOf("50.0").toString());
+    }
+
     @Test
     public void DoubleValue() {
         PercentType pt = new PercentType("0.0001");
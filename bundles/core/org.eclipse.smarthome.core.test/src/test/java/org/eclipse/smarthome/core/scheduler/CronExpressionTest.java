@@ -39,6 +39,27 @@ public class CronExpressionTest {
         assertEquals(checkDate, nextDate);
     }
 
+    @Test
+    public void getTimeAfterBeyondCandidatesCheck() throws ParseException {
+
+        Calendar cal = Calendar.getInstance();
+        cal.set(2016, 0, 1, 0, 0, 0); // set to Jan 1st 2016, 00:00
+        cal.set(Calendar.MILLISECOND, 0);
+        Date startDate = cal.getTime();
+
+        // Fire every second, which is more than the candidates calculated at once
+        CronExpression expr = new CronExpression("* * * * * ?", startDate);
+
+        cal.add(Calendar.HOUR, 1);
+        Date afterDate = cal.getTime();
+        Date nextDate = expr.getTimeAfter(afterDate);
+
+        cal.add(Calendar.SECOND, 1);
+        assertEquals(cal.getTime(), nextDate);
+        cal.add(Calendar.SECOND, 1);
+        assertEquals(cal.getTime(), expr.getTimeAfter(nextDate));
+    }
+
     @Test
     public void getFinalTimeCheck() throws ParseException {
 
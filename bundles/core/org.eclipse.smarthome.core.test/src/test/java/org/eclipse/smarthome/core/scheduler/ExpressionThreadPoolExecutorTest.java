@@ -0,0 +1,87 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.core.scheduler;
+
+import static org.junit.Assert.*;
+
+import java.text.ParseException;
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.smarthome.core.scheduler.ExpressionThreadPoolManager.ExpressionThreadPoolExecutor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for the {@link ExpressionThreadPoolExecutor}.
+ *
+ * @author agent - Initial contribution
+ */
+public class ExpressionThreadPoolExecutorTest {
+
+    private ExpressionThreadPoolExecutor executor;
+
+    @Before
+    public void setUp() {
+        executor = new ExpressionThreadPoolExecutor("test", 2);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void expressionFiresRepeatedly() throws ParseException, InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(2);
+        executor.schedule(new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        }, new CronExpression("* * * * * ?", new Date()));
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void removedExpressionDoesNotFire() throws ParseException, InterruptedException {
+        final AtomicInteger count = new AtomicInteger();
+        Expression expression = new CronExpression("* * * * * ?", new Date());
+        executor.schedule(new Runnable() {
+            @Override
+            public void run() {
+                count.incrementAndGet();
+            }
+        }, expression);
+
+        assertTrue(executor.remove(expression));
+        assertFalse(executor.remove(expression));
+        Thread.sleep(1500);
+
+        assertEquals(0, count.get());
+        assertTrue(executor.getQueue().isEmpty());
+    }
+
+    @Test
+    public void onlyTheNextFireTimeIsQueued() throws ParseException {
+        for (int i = 0; i < 100; i++) {
+            executor.schedule(new Runnable() {
+                @Override
+                public void run() {
+                }
+            }, new CronExpression("0 0 0 1 1 ?", new Date()));
+        }
+
+        assertEquals(100, executor.getQueue().size());
+    }
+
+}
@@ -0,0 +1,70 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.core.types;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.core.library.types.IncreaseDecreaseType;
+import org.eclipse.smarthome.core.library.types.OnOffType;
+import org.eclipse.smarthome.core.library.types.PercentType;
+import org.eclipse.smarthome.core.library.types.StringType;
+import org.junit.Test;
+
+/**
+ * @author agent - Initial contribution and API
+ */
+public class TypeParserTest {
+
+    @Test
+    public void testParseStateRespectsOrder() {
+        List<Class<? extends State>> types = new ArrayList<Class<? extends State>>();
+        types.add(OnOffType.class);
+        types.add(DecimalType.class);
+        types.add(StringType.class);
+
+        assertEquals(OnOffType.ON, TypeParser.parseState(types, "ON"));
+        assertEquals(new DecimalType("12.5"), TypeParser.parseState(types, "12.5"));
+        assertEquals(new StringType("on"), TypeParser.parseState(types, "on"));
+    }
+
+    @Test
+    public void testParseStateReturnsNullForInvalidValues() {
+        List<Class<? extends State>> types = new ArrayList<Class<? extends State>>();
+        types.add(OnOffType.class);
+        types.add(PercentType.class);
+
+        assertNull(TypeParser.parseState(types, "OPEN"));
+        assertNull(TypeParser.parseState(types, "101"));
+        assertNull(TypeParser.parseState(types, null));
+    }
+
+    @Test
+    public void testParseCommand() {
+        List<Class<? extends Command>> types = new ArrayList<Class<? extends Command>>();
+        types.add(OnOffType.class);
+        types.add(IncreaseDecreaseType.class);
+        types.add(PercentType.class);
+
+        assertEquals(IncreaseDecreaseType.INCREASE, TypeParser.parseCommand(types, "INCREASE"));
+        assertEquals(new PercentType(50), TypeParser.parseCommand(types, "50"));
+        assertNull(TypeParser.parseCommand(types, "UP"));
+    }
+
+    @Test
+    public void testParseType() {
+        assertEquals(UnDefType.NULL, TypeParser.parseType(UnDefType.class, "NULL"));
+        assertEquals(RefreshType.REFRESH, TypeParser.parseType(RefreshType.class, "REFRESH"));
+        assertNull(TypeParser.parseType(UnDefType.class, "REFRESH"));
+        assertNull(TypeParser.parseType(DecimalType.class, "ON"));
+    }
+}
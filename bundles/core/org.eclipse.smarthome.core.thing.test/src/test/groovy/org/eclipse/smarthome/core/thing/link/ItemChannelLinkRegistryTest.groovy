@@ -0,0 +1,135 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.core.thing.link
+
+import static org.hamcrest.CoreMatchers.*
+import static org.junit.Assert.*
+
+import org.eclipse.smarthome.core.common.registry.ManagedProvider
+import org.eclipse.smarthome.core.common.registry.Provider
+import org.eclipse.smarthome.core.thing.ChannelUID
+import org.eclipse.smarthome.core.thing.ThingUID
+import org.junit.Before
+import org.junit.Test
+
+/**
+ * Tests the lookups of the {@link ItemChannelLinkRegistry} by link ID, item name, channel UID and thing UID and that
+ * the lookups follow the changes of the links.
+ *
+ * @author agent - Initial contribution
+ */
+class ItemChannelLinkRegistryTest {
+
+    ChannelUID CHANNEL1 = new ChannelUID("binding:type:thing1:channel1")
+    ChannelUID CHANNEL2 = new ChannelUID("binding:type:thing1:channel2")
+    ChannelUID CHANNEL3 = new ChannelUID("binding:type:thing2:channel1")
+
+    ItemChannelLink LINK1 = new ItemChannelLink("item1", CHANNEL1)
+    ItemChannelLink LINK2 = new ItemChannelLink("item1", CHANNEL2)
+    ItemChannelLink LINK3 = new ItemChannelLink("item2", CHANNEL1)
+    ItemChannelLink LINK4 = new ItemChannelLink("item3", CHANNEL3)
+
+    ItemChannelLinkRegistry registry
+
+    Provider<ItemChannelLink> provider
+
+    List<ItemChannelLink> providedLinks
+
+    @Before
+    void setUp() {
+        providedLinks = [LINK1, LINK2, LINK3, LINK4]
+        provider = [
+            getAll: { providedLinks },
+            addProviderChangeListener: { listener -> },
+            removeProviderChangeListener: { listener -> }
+        ] as Provider<ItemChannelLink>
+        registry = new ItemChannelLinkRegistry()
+        registry.addProvider(provider)
+    }
+
+    @Test
+    void 'assert that links are found by their ID'() {
+        assertThat registry.get(LINK1.getID()), is(sameInstance(LINK1))
+        assertThat registry.get(new ItemChannelLink("item3", CHANNEL1).getID()), is(nullValue())
+        assertThat registry.isLinked("item1", CHANNEL2), is(true)
+        assertThat registry.isLinked("item2", CHANNEL2), is(false)
+        assertThat registry.isLinked(null, CHANNEL2), is(false)
+    }
+
+    @Test
+    void 'assert that links are found by item name, channel UID and thing UID'() {
+        assertThat registry.getLinksForItem("item1"), is([LINK1, LINK2] as Set)
+        assertThat registry.getBoundChannels("item1"), is([CHANNEL1, CHANNEL2] as Set)
+        assertThat registry.getBoundChannels("unknown").isEmpty(), is(true)
+        assertThat registry.getLinks(CHANNEL1), is([LINK1, LINK3] as Set)
+        assertThat registry.getLinkedItems(CHANNEL1), is(["item1", "item2"] as Set)
+        assertThat registry.getLinkedItems(new ChannelUID("binding:type:thing1:unknown")).isEmpty(), is(true)
+        assertThat registry.getLinksForThing(CHANNEL1.getThingUID()), is([LINK1, LINK2, LINK3] as Set)
+        assertThat registry.getLinksForThing(new ThingUID("binding:type:unknown")).isEmpty(), is(true)
+    }
+
+    @Test
+    void 'assert that the lookups follow added, updated and removed links'() {
+        def linksOfItem1 = registry.getLinksForItem("item1")
+        def linksOfThing2 = registry.getLinksForThing(CHANNEL3.getThingUID())
+
+        def added = new ItemChannelLink("item1", CHANNEL3)
+        registry.added(provider, added)
+        registry.removed(provider, LINK1)
+        def updated = new ItemChannelLink("item2", CHANNEL3)
+        registry.updated(provider, LINK4, updated)
+
+        assertThat registry.getLinksForItem("item1"), is([LINK2, added] as Set)
+        assertThat registry.getLinksForItem("item3").isEmpty(), is(true)
+        assertThat registry.getLinkedItems(CHANNEL3), is(["item1", "item2"] as Set)
+        assertThat registry.getLinksForThing(CHANNEL3.getThingUID()), is([added, updated] as Set)
+        assertThat registry.get(LINK1.getID()), is(nullValue())
+        assertThat registry.get(LINK4.getID()), is(nullValue())
+        assertThat registry.isLinked("item2", CHANNEL3), is(true)
+
+        // the results returned before the changes are snapshots, which are not changed
+        assertThat linksOfItem1, is([LINK1, LINK2] as Set)
+        assertThat linksOfThing2, is([LINK4] as Set)
+    }
+
+    @Test
+    void 'assert that the links of a removed provider are not found anymore'() {
+        def otherLink = new ItemChannelLink("item4", CHANNEL1)
+        registry.addProvider([
+            getAll: { [otherLink] },
+            addProviderChangeListener: { listener -> },
+            removeProviderChangeListener: { listener -> }
+        ] as Provider<ItemChannelLink>)
+        assertThat registry.getLinkedItems(CHANNEL1), is(["item1", "item2", "item4"] as Set)
+
+        registry.removeProvider(provider)
+
+        assertThat registry.getLinkedItems(CHANNEL1), is(["item4"] as Set)
+        assertThat registry.getLinksForItem("item1").isEmpty(), is(true)
+        assertThat registry.getLinksForThing(CHANNEL3.getThingUID()).isEmpty(), is(true)
+        assertThat registry.get(otherLink.getID()), is(sameInstance(otherLink))
+        assertThat registry.getAll() as List, is([otherLink])
+    }
+
+    @Test
+    void 'assert that removeLinksForThing removes only the links of the thing'() {
+        def removedIds = []
+        registry.setManagedProvider([
+            remove: { id ->
+                removedIds.add(id)
+                registry.removed(provider, registry.get(id))
+            }
+        ] as ManagedProvider<ItemChannelLink, String>)
+
+        registry.removeLinksForThing(CHANNEL1.getThingUID())
+
+        assertThat removedIds as Set, is([LINK1.getID(), LINK2.getID(), LINK3.getID()] as Set)
+        assertThat registry.getAll() as List, is([LINK4])
+        assertThat registry.getLinksForThing(CHANNEL1.getThingUID()).isEmpty(), is(true)
+    }
+}
@@ -8,16 +8,22 @@
 package org.eclipse.smarthome.core.thing.link;
 
 import java.util.Collection;
-import java.util.LinkedHashSet;
+import java.util.Collections;
 import java.util.Set;
 
 import org.eclipse.smarthome.core.common.registry.AbstractRegistry;
+import org.eclipse.smarthome.core.common.registry.RegistryIndex;
 import org.eclipse.smarthome.core.thing.UID;
 
+import com.google.common.collect.ImmutableSet;
+
 /**
  * {@link AbstractLinkRegistry} is an abstract class for link based registries,
  * which handle {@link AbstractLink}s.
  *
+ * The links are indexed by their ID, their UID and their item name, so that the lookups in both directions do not
+ * need to iterate over all links. The returned sets are immutable snapshots.
+ *
  * @author Dennis Nobel - Initial contribution
  *
  * @param <L>
@@ -25,6 +31,30 @@ import org.eclipse.smarthome.core.thing.UID;
  */
 public abstract class AbstractLinkRegistry<L extends AbstractLink> extends AbstractRegistry<L, String> {
 
+    private final RegistryIndex<L, UID> uidIndex = new RegistryIndex<L, UID>() {
+        @Override
+        protected Collection<UID> getIndexValues(L link) {
+            return Collections.singleton(link.getUID());
+        }
+    };
+
+    private final RegistryIndex<L, String> itemNameIndex = new RegistryIndex<L, String>() {
+        @Override
+        protected Collection<String> getIndexValues(L link) {
+            return Collections.singleton(link.getItemName());
+        }
+    };
+
+    public AbstractLinkRegistry() {
+        addIndex(uidIndex);
+        addIndex(itemNameIndex);
+    }
+
+    @Override
+    protected String getKey(L element) {
+        return element.getID();
+    }
+
     /**
      * Returns if an item for a given item name is linked to a channel or thing for a
      * given UID.
@@ -36,14 +66,7 @@ public abstract class AbstractLinkRegistry<L extends AbstractLink> extends Abstr
      * @return true if linked, false otherwise
      */
     public boolean isLinked(String itemName, UID uid) {
-
-        for (AbstractLink link : getAll()) {
-            if (link.getUID().equals(uid) && link.getItemName().equals(itemName)) {
-                return true;
-            }
-        }
-
-        return false;
+        return itemName != null && uid != null && getByKey(AbstractLink.getIDFor(itemName, uid)) != null;
     }
 
     /**
@@ -53,13 +76,15 @@ public abstract class AbstractLinkRegistry<L extends AbstractLink> extends Abstr
      * @return a non-null collection of item names that are linked to the given UID.
      */
     public Set<String> getLinkedItems(UID uid) {
-        Set<String> linkedItems = new LinkedHashSet<>();
-        for (AbstractLink link : getAll()) {
-            if (link.getUID().equals(uid)) {
-                linkedItems.add(link.getItemName());
-            }
+        Collection<L> links = uidIndex.get(uid);
+        if (links.isEmpty()) {
+            return Collections.emptySet();
+        }
+        ImmutableSet.Builder<String> linkedItems = ImmutableSet.builder();
+        for (L link : links) {
+            linkedItems.add(link.getItemName());
         }
-        return linkedItems;
+        return linkedItems.build();
     }
 
     /**
@@ -69,23 +94,21 @@ public abstract class AbstractLinkRegistry<L extends AbstractLink> extends Abstr
      * @return a set of links for the given UID
      */
     public Set<L> getLinks(UID uid) {
-        Set<L> links = new LinkedHashSet<>();
-        for (L link : getAll()) {
-            if (link.getUID().equals(uid)) {
-                links.add(link);
-            }
-        }
-        return links;
+        return ImmutableSet.copyOf(uidIndex.get(uid));
+    }
+
+    /**
+     * Returns all links for a given item name.
+     *
+     * @param itemName item name
+     * @return a set of links for the given item name
+     */
+    public Set<L> getLinksForItem(String itemName) {
+        return ImmutableSet.copyOf(itemNameIndex.get(itemName));
     }
 
     @Override
     public L get(String key) {
-        Collection<L> links = getAll();
-        for (L link : links) {
-            if (link.getID().equals(key)) {
-                return link;
-            }
-        }
-        return null;
+        return getByKey(key);
     }
 }
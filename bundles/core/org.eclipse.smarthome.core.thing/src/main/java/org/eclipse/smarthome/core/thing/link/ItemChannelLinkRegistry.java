@@ -7,16 +7,22 @@
  */
 package org.eclipse.smarthome.core.thing.link;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
+import org.eclipse.smarthome.core.common.registry.RegistryIndex;
 import org.eclipse.smarthome.core.thing.ChannelUID;
 import org.eclipse.smarthome.core.thing.Thing;
 import org.eclipse.smarthome.core.thing.ThingRegistry;
 import org.eclipse.smarthome.core.thing.ThingUID;
 import org.eclipse.smarthome.core.thing.link.events.LinkEventFactory;
 
+import com.google.common.collect.ImmutableSet;
+
 /**
  * {@link ItemChannelLinkRegistry} tracks all {@link ItemChannelLinkProvider}s
  * and aggregates all {@link ItemChannelLink}s.
@@ -28,6 +34,17 @@ public class ItemChannelLinkRegistry extends AbstractLinkRegistry<ItemChannelLin
 
     private ThingRegistry thingRegistry;
 
+    private final RegistryIndex<ItemChannelLink, ThingUID> thingIndex = new RegistryIndex<ItemChannelLink, ThingUID>() {
+        @Override
+        protected Collection<ThingUID> getIndexValues(ItemChannelLink link) {
+            return Collections.singleton(link.getUID().getThingUID());
+        }
+    };
+
+    public ItemChannelLinkRegistry() {
+        addIndex(thingIndex);
+    }
+
     /**
      * Returns a set of bound channels for the given item name.
      *
@@ -36,16 +53,26 @@ public class ItemChannelLinkRegistry extends AbstractLinkRegistry<ItemChannelLin
      * @return set of bound channels for the given item name
      */
     public Set<ChannelUID> getBoundChannels(String itemName) {
-
-        Set<ChannelUID> channelUIDs = new HashSet<>();
-
-        for (ItemChannelLink itemChannelLink : getAll()) {
-            if (itemChannelLink.getItemName().equals(itemName)) {
-                channelUIDs.add(itemChannelLink.getUID());
-            }
+        Set<ItemChannelLink> links = getLinksForItem(itemName);
+        if (links.isEmpty()) {
+            return Collections.emptySet();
         }
+        ImmutableSet.Builder<ChannelUID> channelUIDs = ImmutableSet.builder();
+        for (ItemChannelLink itemChannelLink : links) {
+            channelUIDs.add(itemChannelLink.getUID());
+        }
+        return channelUIDs.build();
+    }
 
-        return channelUIDs;
+    /**
+     * Returns all links to the channels of the given thing.
+     *
+     * @param thingUID
+     *            thing UID
+     * @return set of links to the channels of the given thing
+     */
+    public Set<ItemChannelLink> getLinksForThing(ThingUID thingUID) {
+        return ImmutableSet.copyOf(thingIndex.get(thingUID));
     }
 
     /**
@@ -90,8 +117,17 @@ public class ItemChannelLinkRegistry extends AbstractLinkRegistry<ItemChannelLin
     }
 
     public void removeLinksForThing(ThingUID thingUID) {
-        if (this.managedProvider != null) {
-            ((ManagedItemChannelLinkProvider) this.managedProvider).removeLinksForThing(thingUID);
+        if (this.managedProvider instanceof ManagedItemChannelLinkProvider) {
+            List<String> linkIds = new ArrayList<>();
+            for (ItemChannelLink link : getLinksForThing(thingUID)) {
+                linkIds.add(link.getID());
+            }
+            // remove the links at once, so that they are persisted together
+            ((ManagedItemChannelLinkProvider) this.managedProvider).removeAll(linkIds);
+        } else if (this.managedProvider != null) {
+            for (ItemChannelLink link : getLinksForThing(thingUID)) {
+                this.managedProvider.remove(link.getID());
+            }
         } else {
             throw new IllegalStateException("ManagedProvider is not available");
         }
@@ -0,0 +1,34 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.core.common;
+
+import java.util.List;
+
+/**
+ * A {@link MetricsProvider} is registered as an OSGi service by components which keep runtime statistics, e.g. the
+ * queue depths and latencies of their workers, so that these can be shown on the console by the "metrics" command.
+ *
+ * @author agent - Initial contribution
+ */
+public interface MetricsProvider {
+
+    /**
+     * Returns the name of the statistics, by which they can be selected on the console, e.g. "events".
+     *
+     * @return the name (not null)
+     */
+    String getMetricsName();
+
+    /**
+     * Returns a snapshot of the current statistics in a human readable form, one line per monitored element.
+     *
+     * @return the lines of the statistics (not null)
+     */
+    List<String> getMetrics();
+
+}
@@ -7,8 +7,16 @@
  */
 package org.eclipse.smarthome.core.common.registry;
 
+import java.util.ArrayList;
 import java.util.Collection;
-
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.eclipse.smarthome.core.storage.BatchStorage;
 import org.eclipse.smarthome.core.storage.Storage;
 import org.eclipse.smarthome.core.storage.StorageService;
 import org.slf4j.Logger;
@@ -62,6 +70,42 @@ public abstract class AbstractManagedProvider<E, K, PE> extends AbstractProvider
         logger.debug("Added new element {} to {}.", keyAsString, this.getClass().getSimpleName());
     }
 
+    /**
+     * Adds all given elements. If the storage is a {@link BatchStorage}, the elements are persisted together, which is
+     * considerably cheaper than adding them one by one.
+     *
+     * @param elements the elements to add
+     * @throws IllegalArgumentException if an element is null or an element with the same key already exists
+     */
+    public void addAll(Collection<E> elements) {
+        // the keys are enough to detect duplicates, the stored values do not need to be deserialized
+        Set<String> existingKeys = new HashSet<String>(storage.getKeys());
+        Map<String, PE> persistableElements = new LinkedHashMap<String, PE>();
+        for (E element : elements) {
+            if (element == null) {
+                throw new IllegalArgumentException("Cannot add null element");
+            }
+            String keyAsString = getKeyAsString(element);
+            if (persistableElements.containsKey(keyAsString) || existingKeys.contains(keyAsString)) {
+                throw new IllegalArgumentException("Cannot add element, because an element with same UID ("
+                        + keyAsString + ") already exists.");
+            }
+            persistableElements.put(keyAsString, toPersistableElement(element));
+        }
+
+        if (storage instanceof BatchStorage) {
+            ((BatchStorage<PE>) storage).putAll(persistableElements);
+        } else {
+            for (Entry<String, PE> entry : persistableElements.entrySet()) {
+                storage.put(entry.getKey(), entry.getValue());
+            }
+        }
+        for (E element : elements) {
+            notifyListenersAboutAddedElement(element);
+        }
+        logger.debug("Added {} new elements to {}.", persistableElements.size(), this.getClass().getSimpleName());
+    }
+
     @Override
     public Collection<E> getAll() {
         final Function<String, E> toElementList = new Function<String, E>() {
@@ -120,6 +164,46 @@ public abstract class AbstractManagedProvider<E, K, PE> extends AbstractProvider
         return null;
     }
 
+    /**
+     * Removes the elements with the given keys. If the storage is a {@link BatchStorage}, the removal is persisted at
+     * once, which is considerably cheaper than removing the elements one by one.
+     *
+     * @param keys the keys of the elements to remove
+     * @return the removed elements
+     */
+    public Collection<E> removeAll(Collection<K> keys) {
+        List<String> keysAsString = new ArrayList<String>(keys.size());
+        for (K key : keys) {
+            if (key == null) {
+                throw new IllegalArgumentException("Cannot remove null element");
+            }
+            keysAsString.add(keyToString(key));
+        }
+
+        Map<String, PE> persistableElements;
+        if (storage instanceof BatchStorage) {
+            persistableElements = ((BatchStorage<PE>) storage).removeAll(keysAsString);
+        } else {
+            persistableElements = new LinkedHashMap<String, PE>();
+            for (String keyAsString : keysAsString) {
+                PE persistableElement = storage.remove(keyAsString);
+                if (persistableElement != null) {
+                    persistableElements.put(keyAsString, persistableElement);
+                }
+            }
+        }
+        List<E> elements = new ArrayList<E>(persistableElements.size());
+        for (Entry<String, PE> entry : persistableElements.entrySet()) {
+            E element = toElement(entry.getKey(), entry.getValue());
+            if (element != null) {
+                notifyListenersAboutRemovedElement(element);
+                elements.add(element);
+            }
+        }
+        logger.debug("Removed {} elements from {}.", elements.size(), this.getClass().getSimpleName());
+        return elements;
+    }
+
     @Override
     public E update(E element) {
 
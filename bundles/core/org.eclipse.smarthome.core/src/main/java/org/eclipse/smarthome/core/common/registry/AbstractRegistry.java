@@ -8,9 +8,15 @@
 package org.eclipse.smarthome.core.common.registry;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.smarthome.core.events.Event;
 import org.eclipse.smarthome.core.events.EventPublisher;
@@ -24,6 +30,11 @@ import com.google.common.collect.Iterables;
  * The {@link AbstractRegistry} is an abstract implementation of the {@link Registry} interface, that can be used as
  * base class for {@link Registry} implementations.
  *
+ * If a subclass provides the key of its elements by overriding {@link #getKey(Object)}, the registry maintains a
+ * concurrent index from the keys to the elements, which can be queried by {@link #getByKey(Object)}. Additional
+ * {@link RegistryIndex}es can be registered by {@link #addIndex(RegistryIndex)}. All indexes are updated incrementally
+ * whenever elements are added, removed or updated.
+ *
  * @author Dennis Nobel - Initial contribution
  * @author Stefan Bußweiler - Migration to new event mechanism
  *
@@ -48,6 +59,17 @@ public abstract class AbstractRegistry<E, K> implements ProviderChangeListener<E
 
     protected EventPublisher eventPublisher;
 
+    private final ConcurrentMap<K, E> elementsByKey = new ConcurrentHashMap<>();
+
+    /** keys which are provided by more than one provider */
+    private final Set<K> duplicateKeys = Collections.newSetFromMap(new ConcurrentHashMap<K, Boolean>());
+
+    private final List<RegistryIndex<E, ?>> indexes = new CopyOnWriteArrayList<>();
+
+    private final AtomicLong modificationCount = new AtomicLong();
+
+    private volatile ElementsSnapshot<E> elementsSnapshot;
+
     @Override
     public void added(Provider<E> provider, E element) {
         Collection<E> elements = elementMap.get(provider);
@@ -55,6 +77,7 @@ public abstract class AbstractRegistry<E, K> implements ProviderChangeListener<E
             try {
                 onAddElement(element);
                 elements.add(element);
+                addToIndexes(element);
                 notifyListenersAboutAddedElement(element);
             } catch (Exception ex) {
                 logger.warn("Could not add element: " + ex.getMessage(), ex);
@@ -69,7 +92,15 @@ public abstract class AbstractRegistry<E, K> implements ProviderChangeListener<E
 
     @Override
     public Collection<E> getAll() {
-        return ImmutableList.copyOf(Iterables.concat(elementMap.values()));
+        // the snapshot is only reused as long as no element has been changed since it was created
+        long modification = modificationCount.get();
+        ElementsSnapshot<E> snapshot = elementsSnapshot;
+        if (snapshot != null && snapshot.modification == modification) {
+            return snapshot.elements;
+        }
+        ImmutableList<E> elements = ImmutableList.copyOf(Iterables.concat(elementMap.values()));
+        elementsSnapshot = new ElementsSnapshot<E>(elements, modification);
+        return elements;
     }
 
     @Override
@@ -79,6 +110,7 @@ public abstract class AbstractRegistry<E, K> implements ProviderChangeListener<E
             try {
                 onRemoveElement(element);
                 elements.remove(element);
+                removeFromIndexes(element);
                 notifyListenersAboutRemovedElement(element);
             } catch (Exception ex) {
                 logger.warn("Could not remove element: " + ex.getMessage(), ex);
@@ -99,6 +131,8 @@ public abstract class AbstractRegistry<E, K> implements ProviderChangeListener<E
                 onUpdateElement(oldElement, element);
                 elements.remove(oldElement);
                 elements.add(element);
+                removeFromIndexes(oldElement);
+                addToIndexes(element);
                 notifyListenersAboutUpdatedElement(oldElement, element);
             } catch (Exception ex) {
                 logger.warn("Could not update element: " + ex.getMessage(), ex);
@@ -184,6 +218,7 @@ public abstract class AbstractRegistry<E, K> implements ProviderChangeListener<E
                 try {
                     onAddElement(element);
                     elements.add(element);
+                    addToIndexes(element);
                     notifyListenersAboutAddedElement(element);
                 } catch (Exception ex) {
                     logger.warn("Could not add element: " + ex.getMessage(), ex);
@@ -259,7 +294,10 @@ public abstract class AbstractRegistry<E, K> implements ProviderChangeListener<E
                 }
             }
 
-            elementMap.remove(provider);
+            Collection<E> removedElements = elementMap.remove(provider);
+            for (E element : removedElements) {
+                removeFromIndexes(element);
+            }
 
             provider.removeProviderChangeListener(this);
 
@@ -267,6 +305,110 @@ public abstract class AbstractRegistry<E, K> implements ProviderChangeListener<E
         }
     }
 
+    /**
+     * Returns the key of the given element. Subclasses should override this method in order to enable the lookup of
+     * elements by {@link #getByKey(Object)} and the usage of {@link RegistryIndex}es. The default implementation
+     * returns null, so that no element is indexed.
+     *
+     * @param element the element (not null)
+     * @return the key of the element or null
+     */
+    protected K getKey(E element) {
+        return null;
+    }
+
+    /**
+     * Returns the element with the given key in constant time. Requires the subclass to override
+     * {@link #getKey(Object)}.
+     *
+     * @param key the key
+     * @return the element or null, if no element with the given key exists
+     */
+    protected E getByKey(K key) {
+        return key != null ? elementsByKey.get(key) : null;
+    }
+
+    /**
+     * Registers a secondary index. All elements which are already known are added to the index immediately.
+     *
+     * @param index the index (must not be null)
+     */
+    protected void addIndex(RegistryIndex<E, ?> index) {
+        indexes.add(index);
+        for (Map.Entry<K, E> entry : elementsByKey.entrySet()) {
+            index.add(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Adds an element to the key index and to all secondary indexes. This method must be called by subclasses which
+     * add elements to the {@link #elementMap} directly.
+     *
+     * @param element the element
+     */
+    protected void addToIndexes(E element) {
+        K key = getKey(element);
+        if (key != null) {
+            E previous = elementsByKey.put(key, element);
+            if (previous != null && previous != element) {
+                duplicateKeys.add(key);
+            }
+            for (RegistryIndex<E, ?> index : indexes) {
+                index.add(key, element);
+            }
+        }
+        modificationCount.incrementAndGet();
+    }
+
+    /**
+     * Removes an element from the key index and from all secondary indexes. This method must be called by subclasses
+     * which remove elements from the {@link #elementMap} directly, after the element has been removed.
+     *
+     * @param element the element
+     */
+    protected void removeFromIndexes(E element) {
+        K key = getKey(element);
+        if (key != null) {
+            elementsByKey.remove(key);
+            for (RegistryIndex<E, ?> index : indexes) {
+                index.remove(key);
+            }
+            if (duplicateKeys.contains(key)) {
+                // another provider might still provide an element with the same key
+                E replacement = findByKey(key);
+                if (replacement != null) {
+                    elementsByKey.put(key, replacement);
+                    for (RegistryIndex<E, ?> index : indexes) {
+                        index.add(key, replacement);
+                    }
+                } else {
+                    duplicateKeys.remove(key);
+                }
+            }
+        }
+        modificationCount.incrementAndGet();
+    }
+
+    /**
+     * Invalidates the collection of all elements which is returned by {@link #getAll()}. This method must be called by
+     * subclasses which change the {@link #elementMap} directly after they have finished the change, as elements which
+     * are added without {@link #addToIndexes(Object)} are not noticed otherwise.
+     */
+    protected void elementsChanged() {
+        modificationCount.incrementAndGet();
+    }
+
+    private E findByKey(K key) {
+        for (Collection<E> elements : elementMap.values()) {
+            for (E element : elements) {
+                if (key.equals(getKey(element))) {
+                    return element;
+                }
+            }
+        }
+        return null;
+    }
+
     protected void removeManagedProvider(ManagedProvider<E, K> managedProvider) {
         this.managedProvider = null;
     }
@@ -295,4 +437,14 @@ public abstract class AbstractRegistry<E, K> implements ProviderChangeListener<E
         }
     }
 
+    private static class ElementsSnapshot<E> {
+        private final ImmutableList<E> elements;
+        private final long modification;
+
+        private ElementsSnapshot(ImmutableList<E> elements, long modification) {
+            this.elements = elements;
+            this.modification = modification;
+        }
+    }
+
 }
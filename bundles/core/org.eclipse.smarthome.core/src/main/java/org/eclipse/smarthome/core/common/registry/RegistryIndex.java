@@ -0,0 +1,155 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.core.common.registry;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * A {@link RegistryIndex} is a secondary index of an {@link AbstractRegistry}. It maps the values an element is
+ * indexed by (e.g. the type or the tags of an item) to the elements, so that a registry is able to look up elements by
+ * such a value without iterating over all elements.
+ *
+ * The index is updated incrementally by the registry whenever an element is added, removed or updated. The values of
+ * an element are recorded when it is indexed, so that it is removed correctly even if the element has been modified in
+ * place in the meantime. The elements of a value are returned as an immutable snapshot, which is reused until the
+ * elements of the value change, so that frequent lookups do not copy the elements again and again.
+ *
+ * @author agent - Initial contribution
+ *
+ * @param <E> type of the element
+ * @param <V> type of the indexed value
+ */
+public abstract class RegistryIndex<E, V> {
+
+    private final ConcurrentMap<V, Bucket<E>> elementsByValue = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<Object, Collection<V>> valuesByKey = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the values the given element should be indexed by.
+     *
+     * @param element the element (not null)
+     * @return the values (can be null or empty if the element should not be indexed)
+     */
+    protected abstract Collection<V> getIndexValues(E element);
+
+    /**
+     * Returns all elements which have been indexed by the given value.
+     *
+     * @param value the value
+     * @return an immutable snapshot of the matching elements (not null)
+     */
+    public Collection<E> get(V value) {
+        Bucket<E> bucket = value != null ? elementsByValue.get(value) : null;
+        if (bucket == null) {
+            return Collections.emptyList();
+        }
+        return bucket.getSnapshot();
+    }
+
+    /**
+     * Returns the number of elements which have been indexed by the given value.
+     *
+     * @param value the value
+     * @return the number of elements
+     */
+    public int count(V value) {
+        Bucket<E> bucket = value != null ? elementsByValue.get(value) : null;
+        return bucket == null ? 0 : bucket.elements.size();
+    }
+
+    synchronized void add(Object key, E element) {
+        remove(key);
+        Collection<V> values = getIndexValues(element);
+        if (values == null || values.isEmpty()) {
+            return;
+        }
+        Collection<V> recordedValues = new LinkedHashSet<V>(values);
+        for (V value : recordedValues) {
+            Bucket<E> bucket = elementsByValue.get(value);
+            if (bucket == null) {
+                bucket = new Bucket<E>();
+                elementsByValue.put(value, bucket);
+            }
+            bucket.put(key, element);
+        }
+        valuesByKey.put(key, recordedValues);
+    }
+
+    synchronized void remove(Object key) {
+        Collection<V> recordedValues = valuesByKey.remove(key);
+        if (recordedValues == null) {
+            return;
+        }
+        for (V value : recordedValues) {
+            Bucket<E> bucket = elementsByValue.get(value);
+            if (bucket != null) {
+                bucket.remove(key);
+                if (bucket.elements.isEmpty()) {
+                    elementsByValue.remove(value);
+                }
+            }
+        }
+    }
+
+    synchronized void clear() {
+        elementsByValue.clear();
+        valuesByKey.clear();
+    }
+
+    private static class Bucket<E> {
+
+        private final Map<Object, E> elements = new ConcurrentHashMap<>();
+
+        private volatile long modification;
+
+        private volatile Snapshot<E> snapshot;
+
+        private void put(Object key, E element) {
+            elements.put(key, element);
+            modification++;
+        }
+
+        private void remove(Object key) {
+            elements.remove(key);
+            modification++;
+        }
+
+        private Collection<E> getSnapshot() {
+            // a snapshot created concurrently to a modification is never reused, because its modification is outdated
+            long currentModification = modification;
+            Snapshot<E> current = snapshot;
+            if (current != null && current.modification == currentModification) {
+                return current.elements;
+            }
+            ImmutableList<E> copy = ImmutableList.copyOf(elements.values());
+            snapshot = new Snapshot<E>(copy, currentModification);
+            return copy;
+        }
+    }
+
+    private static class Snapshot<E> {
+
+        private final ImmutableList<E> elements;
+
+        private final long modification;
+
+        private Snapshot(ImmutableList<E> elements, long modification) {
+            this.elements = elements;
+            this.modification = modification;
+        }
+    }
+
+}
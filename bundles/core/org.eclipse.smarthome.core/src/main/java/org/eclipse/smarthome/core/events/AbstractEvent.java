@@ -7,6 +7,8 @@
  */
 package org.eclipse.smarthome.core.events;
 
+import com.google.gson.Gson;
+
 /**
  * Abstract implementation of the {@link Event} interface.
  * 
@@ -14,9 +16,13 @@ package org.eclipse.smarthome.core.events;
  */
 public abstract class AbstractEvent implements Event {
 
+    private static final Gson jsonConverter = new Gson();
+
     private final String topic;
 
-    private final String payload;
+    private volatile String payload;
+
+    private final Object payloadObject;
 
     private final String source;
 
@@ -28,8 +34,24 @@ public abstract class AbstractEvent implements Event {
      * @param source the source
      */
     public AbstractEvent(String topic, String payload, String source) {
+        this(topic, payload, null, source);
+    }
+
+    /**
+     * Must be called in subclass constructor to create a new event whose payload is serialized lazily. If the
+     * serialized payload is null, the payload object is converted into its Json representation on the first call of
+     * {@link #getPayload()}. Events which are dispatched in-process are therefore never serialized unless a
+     * subscriber asks for the payload.
+     * 
+     * @param topic the topic
+     * @param payload the serialized payload, can be null if a payload object is given
+     * @param payloadObject the object to serialize the payload from, can be null if a payload is given
+     * @param source the source
+     */
+    protected AbstractEvent(String topic, String payload, Object payloadObject, String source) {
         this.topic = topic;
         this.payload = payload;
+        this.payloadObject = payloadObject;
         this.source = source;
     }
 
@@ -40,7 +62,12 @@ public abstract class AbstractEvent implements Event {
 
     @Override
     public String getPayload() {
-        return payload;
+        String serializedPayload = payload;
+        if (serializedPayload == null && payloadObject != null) {
+            serializedPayload = jsonConverter.toJson(payloadObject);
+            payload = serializedPayload;
+        }
+        return serializedPayload;
     }
 
     @Override
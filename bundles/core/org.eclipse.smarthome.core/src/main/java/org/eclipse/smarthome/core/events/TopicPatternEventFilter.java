@@ -0,0 +1,116 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.core.events;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * The {@link TopicPatternEventFilter} is a default Eclipse SmartHome {@link EventFilter} implementation that ensures
+ * filtering of events based on a topic pattern. The pattern consists of segments separated by '/'. A segment '*'
+ * matches exactly one arbitrary topic segment, except for the last segment of the pattern, where '*' matches one or
+ * more remaining topic segments (like the topic syntax of the OSGi Event Admin).
+ * <p>
+ * Examples:
+ * <ul>
+ * <li>{@code smarthome/items/MyItem/state} matches only the state events of the item 'MyItem'</li>
+ * <li>{@code smarthome/items/*}{@code /state} matches the state events of all items</li>
+ * <li>{@code smarthome/items/*} matches all item events</li>
+ * </ul>
+ * <p>
+ * In contrast to the {@link TopicEventFilter} no regular expressions are evaluated. Event subscribers providing such a
+ * filter are indexed by the event bus, so that the subscribers are resolved by the topic directly instead of applying
+ * each filter on each event.
+ *
+ * @author agent - Initial contribution
+ */
+public class TopicPatternEventFilter implements EventFilter {
+
+    /**
+     * The wildcard segment of a topic pattern.
+     */
+    public static final String WILDCARD = "*";
+
+    private static final char SEPARATOR = '/';
+
+    private final String topicPattern;
+
+    private final String[] segments;
+
+    /**
+     * Constructs a new topic pattern event filter.
+     *
+     * @param topicPattern the topic pattern (must not be null or empty)
+     */
+    public TopicPatternEventFilter(String topicPattern) {
+        Preconditions.checkArgument(topicPattern != null && !topicPattern.isEmpty(),
+                "The argument 'topicPattern' must not be null or empty.");
+        this.topicPattern = topicPattern;
+        this.segments = topicPattern.split(String.valueOf(SEPARATOR), -1);
+    }
+
+    /**
+     * Gets the topic pattern.
+     *
+     * @return the topic pattern
+     */
+    public String getTopicPattern() {
+        return topicPattern;
+    }
+
+    /**
+     * Gets the segments of the topic pattern.
+     *
+     * @return the segments
+     */
+    public String[] getSegments() {
+        return segments.clone();
+    }
+
+    @Override
+    public boolean apply(Event event) {
+        return matches(event.getTopic());
+    }
+
+    /**
+     * Checks whether the given topic matches the topic pattern.
+     *
+     * @param topic the topic
+     * @return true if the topic matches
+     */
+    public boolean matches(String topic) {
+        if (topic == null) {
+            return false;
+        }
+        int position = 0;
+        for (int i = 0; i < segments.length; i++) {
+            if (position > topic.length()) {
+                // no segment left in the topic
+                return false;
+            }
+            String segment = segments[i];
+            int end = topic.indexOf(SEPARATOR, position);
+            int segmentEnd = end < 0 ? topic.length() : end;
+            if (WILDCARD.equals(segment)) {
+                if (i == segments.length - 1) {
+                    return true;
+                }
+            } else if (segment.length() != segmentEnd - position
+                    || !topic.regionMatches(position, segment, 0, segment.length())) {
+                return false;
+            }
+            position = end < 0 ? topic.length() + 1 : end + 1;
+        }
+        return position > topic.length();
+    }
+
+    @Override
+    public String toString() {
+        return "TopicPatternEventFilter [topicPattern=" + topicPattern + "]";
+    }
+
+}
@@ -0,0 +1,55 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.core.events;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * The {@link TopicSubstringEventFilter} is a default Eclipse SmartHome {@link EventFilter} implementation that applies
+ * to all events whose topic contains a given string, e.g. the name of an item.
+ * <p>
+ * Event subscribers providing such a filter are indexed by the event bus, so that the subscribers are resolved by
+ * scanning the topic once instead of applying each filter on each event.
+ *
+ * @author agent - Initial contribution
+ */
+public class TopicSubstringEventFilter implements EventFilter {
+
+    private final String substring;
+
+    /**
+     * Constructs a new topic substring event filter.
+     *
+     * @param substring the string the topic must contain (must not be null)
+     */
+    public TopicSubstringEventFilter(String substring) {
+        Preconditions.checkArgument(substring != null, "The argument 'substring' must not be null.");
+        this.substring = substring;
+    }
+
+    /**
+     * Gets the string the topic must contain.
+     *
+     * @return the substring
+     */
+    public String getSubstring() {
+        return substring;
+    }
+
+    @Override
+    public boolean apply(Event event) {
+        String topic = event.getTopic();
+        return topic != null && topic.contains(substring);
+    }
+
+    @Override
+    public String toString() {
+        return "TopicSubstringEventFilter [substring=" + substring + "]";
+    }
+
+}
@@ -0,0 +1,91 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.core.internal.events;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.eclipse.smarthome.core.events.Event;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link DirectEventDispatcher} hands posted {@link Event} objects to the {@link OSGiEventManager} without
+ * converting them into OSGi events. The events are queued and delivered by a single dispatcher thread, so that posting
+ * stays asynchronous and the delivery order matches the order of posting, just like with the OSGi Event Admin.
+ *
+ * Since the original event instance is delivered, neither the payload serialization nor the re-creation of the event
+ * by an {@link org.eclipse.smarthome.core.events.EventFactory} takes place.
+ *
+ * @author agent - Initial contribution
+ */
+class DirectEventDispatcher {
+
+    private static final String THREAD_NAME = "ESH-eventDispatcher";
+
+    private final Logger logger = LoggerFactory.getLogger(DirectEventDispatcher.class);
+
+    private final BlockingQueue<Event> queue = new LinkedBlockingQueue<Event>();
+
+    private final OSGiEventManager eventManager;
+
+    private Thread dispatcherThread;
+
+    private volatile boolean running;
+
+    DirectEventDispatcher(OSGiEventManager eventManager) {
+        this.eventManager = eventManager;
+    }
+
+    synchronized void start() {
+        if (dispatcherThread == null) {
+            running = true;
+            dispatcherThread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    dispatchLoop();
+                }
+            }, THREAD_NAME);
+            dispatcherThread.setDaemon(true);
+            dispatcherThread.start();
+        }
+    }
+
+    synchronized void stop() {
+        running = false;
+        if (dispatcherThread != null) {
+            dispatcherThread.interrupt();
+            dispatcherThread = null;
+        }
+        queue.clear();
+    }
+
+    /**
+     * Queues the given event for the delivery to the event subscribers.
+     *
+     * @param event the event (must not be null)
+     */
+    void post(Event event) {
+        queue.add(event);
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            try {
+                Event event = queue.take();
+                eventManager.dispatchEvent(event);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Throwable t) {
+                logger.error("Dispatching event failed: " + t.getMessage(), t);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,623 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.core.internal.events;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.eclipse.smarthome.core.events.Event;
+import org.eclipse.smarthome.core.events.EventFilter;
+import org.eclipse.smarthome.core.events.EventSubscriber;
+import org.eclipse.smarthome.core.events.TopicEventFilter;
+import org.eclipse.smarthome.core.events.TopicPatternEventFilter;
+import org.eclipse.smarthome.core.events.TopicSubstringEventFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link EventSubscriberIndex} resolves the {@link EventSubscriberMailbox}es an event has to be delivered to.
+ *
+ * Subscribers with a {@link TopicPatternEventFilter} (or a {@link TopicEventFilter} with a plain topic) are stored
+ * in a trie of topic segments, so that the matching subscribers are found in time proportional to the depth of the
+ * topic instead of applying the filter of every subscriber. Subscribers with a {@link TopicSubstringEventFilter}, like
+ * the event triggers of the automation rules, are stored in an Aho-Corasick automaton of their substrings, which finds
+ * all of them with a single scan of the topic. All other subscribers are stored per subscribed event type and their
+ * filters are applied as before.
+ *
+ * The filter of an indexed subscriber is read when the subscriber is added or updated. Since
+ * {@link EventSubscriber#getEventFilter()} may return another filter later on, {@link #refresh()} has to be called
+ * periodically to index the subscribers again whose filters have changed.
+ *
+ * The index is copy-on-write: every modification builds a new immutable {@link Snapshot}, while the dispatching threads
+ * read the current snapshot without locking and without allocating any objects.
+ *
+ * @author agent - Initial contribution
+ */
+class EventSubscriberIndex {
+
+    private static final EventSubscriberMailbox[] NO_MAILBOXES = new EventSubscriberMailbox[0];
+
+    private static final char SEPARATOR = '/';
+
+    private static final String ANY_SUB_TOPIC_REGEX = "/.*";
+
+    private static final String REGEX_META_CHARACTERS = "\\^$.|?*+()[]{}";
+
+    private final Logger logger = LoggerFactory.getLogger(EventSubscriberIndex.class);
+
+    /** all registered subscribers in order of registration, guarded by this */
+    private final Map<EventSubscriber, Registration> registrations = new LinkedHashMap<>();
+
+    private volatile Snapshot snapshot = new Snapshot(Collections.<Registration> emptyList());
+
+    /**
+     * Adds a subscriber with its mailbox to the index.
+     *
+     * @param eventSubscriber the subscriber
+     * @param mailbox the mailbox of the subscriber
+     * @return false if the subscriber has already been added before
+     */
+    synchronized boolean add(EventSubscriber eventSubscriber, EventSubscriberMailbox mailbox) {
+        if (registrations.containsKey(eventSubscriber)) {
+            return false;
+        }
+        registrations.put(eventSubscriber, new Registration(eventSubscriber, mailbox));
+        snapshot = new Snapshot(registrations.values());
+        return true;
+    }
+
+    /**
+     * Removes a subscriber from the index.
+     *
+     * @param eventSubscriber the subscriber
+     * @return the mailbox of the removed subscriber or null, if the subscriber was not indexed
+     */
+    synchronized EventSubscriberMailbox remove(EventSubscriber eventSubscriber) {
+        Registration registration = registrations.remove(eventSubscriber);
+        if (registration == null) {
+            return null;
+        }
+        snapshot = new Snapshot(registrations.values());
+        return registration.mailbox;
+    }
+
+    /**
+     * Indexes a subscriber again, e.g. after the properties of its service have been changed.
+     *
+     * @param eventSubscriber the subscriber
+     * @return false if the subscriber has not been added before
+     */
+    synchronized boolean update(EventSubscriber eventSubscriber) {
+        Registration registration = registrations.get(eventSubscriber);
+        if (registration == null) {
+            return false;
+        }
+        registrations.put(eventSubscriber, new Registration(eventSubscriber, registration.mailbox));
+        snapshot = new Snapshot(registrations.values());
+        return true;
+    }
+
+    /**
+     * Indexes all subscribers again whose event filter is not the one they have been indexed with.
+     *
+     * @return true if at least one subscriber has been indexed again
+     */
+    synchronized boolean refresh() {
+        boolean changed = false;
+        for (Map.Entry<EventSubscriber, Registration> entry : registrations.entrySet()) {
+            EventSubscriber eventSubscriber = entry.getKey();
+            Registration registration = entry.getValue();
+            try {
+                if (!registration.isIndexedWith(eventSubscriber.getEventFilter())) {
+                    entry.setValue(new Registration(eventSubscriber, registration.mailbox));
+                    changed = true;
+                }
+            } catch (Throwable t) {
+                logger.error("Reading the event filter of subscriber '" + eventSubscriber + "' failed: "
+                        + t.getMessage(), t);
+            }
+        }
+        if (changed) {
+            snapshot = new Snapshot(registrations.values());
+        }
+        return changed;
+    }
+
+    /**
+     * Returns the mailboxes of all indexed subscribers.
+     *
+     * @return the mailboxes
+     */
+    EventSubscriberMailbox[] getMailboxes() {
+        return snapshot.mailboxes;
+    }
+
+    /**
+     * Checks whether any subscriber could be interested in events of the given type.
+     *
+     * @param eventType the event type
+     * @return true if there is at least one candidate subscriber
+     */
+    boolean hasSubscribers(String eventType) {
+        Snapshot current = snapshot;
+        return current.allTypes.length > 0 || current.typed.containsKey(eventType)
+                || current.topicTypes.contains(eventType) || current.topicAllTypes;
+    }
+
+    /**
+     * Offers the event to the mailboxes of all subscribers whose event type subscription and filter match the event.
+     *
+     * @param event the event
+     * @return the number of mailboxes the event has been offered to
+     */
+    int dispatch(Event event) {
+        Snapshot current = snapshot;
+        String type = event.getType();
+        int count = 0;
+
+        EventSubscriberMailbox[] candidates = current.typed.get(type);
+        if (candidates == null) {
+            candidates = current.allTypes;
+        }
+        for (EventSubscriberMailbox mailbox : candidates) {
+            EventSubscriber eventSubscriber = mailbox.getEventSubscriber();
+            try {
+                EventFilter filter = eventSubscriber.getEventFilter();
+                if (filter == null || filter.apply(event)) {
+                    mailbox.offer(event);
+                    count++;
+                }
+            } catch (Throwable t) {
+                logger.error("Dispatching/filtering event for subscriber '" + eventSubscriber.getClass().getName()
+                        + "' failed: " + t.getMessage(), t);
+            }
+        }
+
+        String topic = event.getTopic();
+        if (current.topicRoot != null && topic != null) {
+            count += current.topicRoot.dispatch(topic, 0, event, type);
+        }
+        if (current.substringRoot != null && topic != null) {
+            count += current.substringRoot.dispatch(topic, event, type);
+        }
+        return count;
+    }
+
+    /**
+     * A subscriber together with its mailbox and the topic pattern or substring it has been indexed with.
+     */
+    private static class Registration {
+        private final EventSubscriberMailbox mailbox;
+        private final Set<String> eventTypes;
+        private final boolean allEventTypes;
+        private final String[] topicSegments;
+        private final String topicSubstring;
+
+        private Registration(EventSubscriber eventSubscriber, EventSubscriberMailbox mailbox) {
+            this.mailbox = mailbox;
+            Set<String> subscribedEventTypes = eventSubscriber.getSubscribedEventTypes();
+            this.eventTypes = subscribedEventTypes != null ? new LinkedHashSet<>(subscribedEventTypes)
+                    : Collections.<String> emptySet();
+            this.allEventTypes = eventTypes.contains(EventSubscriber.ALL_EVENT_TYPES);
+            EventFilter filter = eventSubscriber.getEventFilter();
+            this.topicSegments = getTopicSegments(filter);
+            this.topicSubstring = getTopicSubstring(filter);
+        }
+
+        /**
+         * Checks whether the given filter is indexed the same way as the filter this registration has been created
+         * with.
+         */
+        private boolean isIndexedWith(EventFilter filter) {
+            if (topicSegments != null || topicSubstring != null) {
+                return Arrays.equals(topicSegments, getTopicSegments(filter))
+                        && (topicSubstring == null ? getTopicSubstring(filter) == null
+                                : topicSubstring.equals(getTopicSubstring(filter)));
+            }
+            // the filters of subscribers which are not indexed are applied on dispatching
+            return getTopicSegments(filter) == null && getTopicSubstring(filter) == null;
+        }
+
+        private static String getTopicSubstring(EventFilter filter) {
+            if (filter != null && filter.getClass() == TopicSubstringEventFilter.class) {
+                return ((TopicSubstringEventFilter) filter).getSubstring();
+            }
+            return null;
+        }
+
+        /**
+         * Returns the topic pattern segments of the given filter, if the filter can be replaced by the topic index.
+         * This is the case for {@link TopicPatternEventFilter}s and for {@link TopicEventFilter}s whose regular
+         * expression is a plain topic, optionally followed by "/.*".
+         */
+        private static String[] getTopicSegments(EventFilter filter) {
+            if (filter == null) {
+                return null;
+            }
+            if (filter.getClass() == TopicPatternEventFilter.class) {
+                return ((TopicPatternEventFilter) filter).getSegments();
+            }
+            if (filter.getClass() == TopicEventFilter.class) {
+                String regex = ((TopicEventFilter) filter).getTopicRegex();
+                boolean anySubTopic = regex.endsWith(ANY_SUB_TOPIC_REGEX);
+                String topic = anySubTopic ? regex.substring(0, regex.length() - ANY_SUB_TOPIC_REGEX.length())
+                        : regex;
+                if (topic.isEmpty() || !isPlainTopic(topic)) {
+                    return null;
+                }
+                String pattern = anySubTopic ? topic + SEPARATOR + TopicPatternEventFilter.WILDCARD : topic;
+                return new TopicPatternEventFilter(pattern).getSegments();
+            }
+            return null;
+        }
+
+        private static boolean isPlainTopic(String topic) {
+            for (int i = 0; i < topic.length(); i++) {
+                if (REGEX_META_CHARACTERS.indexOf(topic.charAt(i)) >= 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean isSubscribedTo(String eventType) {
+            return allEventTypes || eventTypes.contains(eventType);
+        }
+    }
+
+    /**
+     * An immutable view of the index.
+     */
+    private static class Snapshot {
+        private final EventSubscriberMailbox[] mailboxes;
+        private final Map<String, EventSubscriberMailbox[]> typed;
+        private final EventSubscriberMailbox[] allTypes;
+        private final TopicNode topicRoot;
+        private final SubstringNode substringRoot;
+        private final Set<String> topicTypes;
+        private final boolean topicAllTypes;
+
+        private Snapshot(Collection<Registration> registrations) {
+            List<EventSubscriberMailbox> all = new ArrayList<>();
+            List<EventSubscriberMailbox> allTypesList = new ArrayList<>();
+            Map<String, List<EventSubscriberMailbox>> typedLists = new HashMap<>();
+            TopicNodeBuilder topicRootBuilder = new TopicNodeBuilder();
+            SubstringNode substringRootNode = new SubstringNode();
+            Set<String> topicTypeSet = new LinkedHashSet<>();
+            boolean topicAll = false;
+            boolean topicIndexed = false;
+            boolean substringIndexed = false;
+
+            for (Registration registration : registrations) {
+                all.add(registration.mailbox);
+                if (registration.topicSegments != null) {
+                    topicRootBuilder.add(registration.topicSegments, 0, registration);
+                    topicTypeSet.addAll(registration.eventTypes);
+                    topicAll |= registration.allEventTypes;
+                    topicIndexed = true;
+                } else if (registration.topicSubstring != null) {
+                    substringRootNode.add(registration.topicSubstring, registration);
+                    topicTypeSet.addAll(registration.eventTypes);
+                    topicAll |= registration.allEventTypes;
+                    substringIndexed = true;
+                } else if (registration.allEventTypes) {
+                    allTypesList.add(registration.mailbox);
+                } else {
+                    for (String eventType : registration.eventTypes) {
+                        List<EventSubscriberMailbox> list = typedLists.get(eventType);
+                        if (list == null) {
+                            list = new ArrayList<>();
+                            typedLists.put(eventType, list);
+                        }
+                        list.add(registration.mailbox);
+                    }
+                }
+            }
+
+            this.mailboxes = all.toArray(NO_MAILBOXES);
+            this.allTypes = allTypesList.toArray(NO_MAILBOXES);
+            this.typed = new HashMap<>();
+            for (Map.Entry<String, List<EventSubscriberMailbox>> entry : typedLists.entrySet()) {
+                // subscribers for all event types receive the events of every type
+                List<EventSubscriberMailbox> list = entry.getValue();
+                list.addAll(allTypesList);
+                this.typed.put(entry.getKey(), list.toArray(NO_MAILBOXES));
+            }
+            this.topicRoot = topicIndexed ? topicRootBuilder.build() : null;
+            this.substringRoot = substringIndexed ? substringRootNode.build() : null;
+            this.topicTypes = topicTypeSet;
+            this.topicAllTypes = topicAll;
+        }
+    }
+
+    /**
+     * Mutable node of the topic trie, used while building a snapshot.
+     */
+    private static class TopicNodeBuilder {
+        private final Map<String, TopicNodeBuilder> children = new LinkedHashMap<>();
+        private TopicNodeBuilder wildcard;
+        private final List<Registration> terminal = new ArrayList<>();
+        private final List<Registration> remainder = new ArrayList<>();
+
+        private void add(String[] segments, int index, Registration registration) {
+            String segment = segments[index];
+            boolean last = index == segments.length - 1;
+            if (TopicPatternEventFilter.WILDCARD.equals(segment)) {
+                if (last) {
+                    remainder.add(registration);
+                    return;
+                }
+                if (wildcard == null) {
+                    wildcard = new TopicNodeBuilder();
+                }
+                wildcard.add(segments, index + 1, registration);
+            } else {
+                TopicNodeBuilder child = children.get(segment);
+                if (child == null) {
+                    child = new TopicNodeBuilder();
+                    children.put(segment, child);
+                }
+                if (last) {
+                    child.terminal.add(registration);
+                } else {
+                    child.add(segments, index + 1, registration);
+                }
+            }
+        }
+
+        private TopicNode build() {
+            int tableSize = 1;
+            while (tableSize < children.size() * 2) {
+                tableSize <<= 1;
+            }
+            String[] keys = new String[children.isEmpty() ? 0 : tableSize];
+            TopicNode[] nodes = new TopicNode[keys.length];
+            for (Map.Entry<String, TopicNodeBuilder> entry : children.entrySet()) {
+                String key = entry.getKey();
+                int slot = key.hashCode() & (keys.length - 1);
+                while (keys[slot] != null) {
+                    slot = (slot + 1) & (keys.length - 1);
+                }
+                keys[slot] = key;
+                nodes[slot] = entry.getValue().build();
+            }
+            return new TopicNode(keys, nodes, wildcard != null ? wildcard.build() : null,
+                    terminal.toArray(new Registration[terminal.size()]),
+                    remainder.toArray(new Registration[remainder.size()]));
+        }
+    }
+
+    /**
+     * Immutable node of the topic trie. The children are kept in an open addressing hash table, which is probed with
+     * the hash of a topic segment computed in place, so that no substrings have to be created during the lookup.
+     */
+    private static class TopicNode {
+        private final String[] keys;
+        private final TopicNode[] children;
+        private final TopicNode wildcard;
+        private final Registration[] terminal;
+        private final Registration[] remainder;
+
+        private TopicNode(String[] keys, TopicNode[] children, TopicNode wildcard, Registration[] terminal,
+                Registration[] remainder) {
+            this.keys = keys;
+            this.children = children;
+            this.wildcard = wildcard;
+            this.terminal = terminal;
+            this.remainder = remainder;
+        }
+
+        /**
+         * Dispatches the event to the registrations matching the topic from the given position on.
+         *
+         * @param topic the topic
+         * @param position the start of the next topic segment, or topic length + 1 if the topic is consumed
+         * @param event the event
+         * @param eventType the type of the event
+         * @return the number of mailboxes the event has been offered to
+         */
+        private int dispatch(String topic, int position, Event event, String eventType) {
+            if (position > topic.length()) {
+                return offer(terminal, event, eventType);
+            }
+            int count = offer(remainder, event, eventType);
+            int end = topic.indexOf(SEPARATOR, position);
+            int segmentEnd = end < 0 ? topic.length() : end;
+            int next = end < 0 ? topic.length() + 1 : end + 1;
+            TopicNode child = findChild(topic, position, segmentEnd);
+            if (child != null) {
+                count += child.dispatch(topic, next, event, eventType);
+            }
+            if (wildcard != null) {
+                count += wildcard.dispatch(topic, next, event, eventType);
+            }
+            return count;
+        }
+
+        private TopicNode findChild(String topic, int start, int end) {
+            if (keys.length == 0) {
+                return null;
+            }
+            int hash = 0;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + topic.charAt(i);
+            }
+            int length = end - start;
+            int slot = hash & (keys.length - 1);
+            String key;
+            while ((key = keys[slot]) != null) {
+                if (key.length() == length && topic.regionMatches(start, key, 0, length)) {
+                    return children[slot];
+                }
+                slot = (slot + 1) & (keys.length - 1);
+            }
+            return null;
+        }
+
+        private static int offer(Registration[] registrations, Event event, String eventType) {
+            int count = 0;
+            for (Registration registration : registrations) {
+                if (registration.isSubscribedTo(eventType)) {
+                    registration.mailbox.offer(event);
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Node of the Aho-Corasick automaton of the topic substrings. The children of a node are the possible next
+     * characters, the failure link points to the node of the longest proper suffix of the node's string which is also
+     * a prefix of any substring, and the output link points to the nearest node on the failure chain at which
+     * subscribers are registered. Thereby a single scan of the topic finds all substrings it contains.
+     * <p>
+     * The nodes are built and linked by {@link #build()} before the snapshot which contains them is published, and are
+     * not changed afterwards.
+     */
+    private static class SubstringNode {
+        private static final char[] NO_KEYS = new char[0];
+
+        private Map<Character, SubstringNode> childMap = new TreeMap<>();
+        private List<Registration> registrationList = new ArrayList<>();
+
+        private char[] keys = NO_KEYS;
+        private SubstringNode[] children;
+        private SubstringNode failure;
+        private SubstringNode output;
+        private Registration[] registrations;
+        /** the number of the node among the nodes with registrations, -1 for the others */
+        private int id = -1;
+
+        private void add(String substring, Registration registration) {
+            SubstringNode node = this;
+            for (int i = 0; i < substring.length(); i++) {
+                Character c = substring.charAt(i);
+                SubstringNode child = node.childMap.get(c);
+                if (child == null) {
+                    child = new SubstringNode();
+                    node.childMap.put(c, child);
+                }
+                node = child;
+            }
+            node.registrationList.add(registration);
+        }
+
+        /**
+         * Builds the automaton, which must be called on the root node once all substrings have been added.
+         */
+        private SubstringNode build() {
+            int nextId = 0;
+            Queue<SubstringNode> queue = new ArrayDeque<>();
+            queue.add(this);
+            while (!queue.isEmpty()) {
+                SubstringNode node = queue.poll();
+                node.keys = new char[node.childMap.size()];
+                node.children = new SubstringNode[node.childMap.size()];
+                int i = 0;
+                for (Map.Entry<Character, SubstringNode> entry : node.childMap.entrySet()) {
+                    char c = entry.getKey();
+                    SubstringNode child = entry.getValue();
+                    node.keys[i] = c;
+                    node.children[i++] = child;
+                    if (node == this) {
+                        child.failure = this;
+                    } else {
+                        SubstringNode failure = node.failure;
+                        while (failure != this && failure.childMap.get(c) == null) {
+                            failure = failure.failure;
+                        }
+                        SubstringNode next = failure.childMap.get(c);
+                        child.failure = next != null ? next : this;
+                    }
+                    queue.add(child);
+                }
+                // the failure node is closer to the root and has therefore been visited before, the registrations of
+                // the root are not part of the output chains, since they are offered once for every topic
+                if (node != this) {
+                    SubstringNode failure = node.failure;
+                    node.output = failure != this && failure.registrations.length > 0 ? failure : failure.output;
+                }
+                node.registrations = node.registrationList.toArray(new Registration[node.registrationList.size()]);
+                if (node.registrations.length > 0) {
+                    node.id = nextId++;
+                }
+            }
+            // the maps are only needed while building
+            queue.add(this);
+            while (!queue.isEmpty()) {
+                SubstringNode node = queue.poll();
+                queue.addAll(node.childMap.values());
+                node.childMap = null;
+                node.registrationList = null;
+            }
+            return this;
+        }
+
+        private SubstringNode getChild(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            return index >= 0 ? children[index] : null;
+        }
+
+        /**
+         * Dispatches the event to the registrations whose substring is contained in the topic. This must be called on
+         * the root node.
+         *
+         * @param topic the topic
+         * @param event the event
+         * @param eventType the type of the event
+         * @return the number of mailboxes the event has been offered to
+         */
+        private int dispatch(String topic, Event event, String eventType) {
+            // registrations of the empty string match every topic
+            int count = TopicNode.offer(registrations, event, eventType);
+            int first = -1;
+            BitSet offered = null;
+            SubstringNode state = this;
+            for (int i = 0; i < topic.length(); i++) {
+                char c = topic.charAt(i);
+                SubstringNode next = state.getChild(c);
+                while (next == null && state != this) {
+                    state = state.failure;
+                    next = state.getChild(c);
+                }
+                state = next != null ? next : this;
+                SubstringNode match = state == this ? null : state.registrations.length > 0 ? state : state.output;
+                for (; match != null; match = match.output) {
+                    // a substring which occurs several times in the topic is only delivered once
+                    if (match.id == first || (offered != null && offered.get(match.id))) {
+                        continue;
+                    }
+                    if (first < 0) {
+                        first = match.id;
+                    } else {
+                        if (offered == null) {
+                            offered = new BitSet();
+                        }
+                        offered.set(match.id);
+                    }
+                    count += TopicNode.offer(match.registrations, event, eventType);
+                }
+            }
+            return count;
+        }
+    }
+
+}
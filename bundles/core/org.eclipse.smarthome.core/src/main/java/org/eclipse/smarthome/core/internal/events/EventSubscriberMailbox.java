@@ -0,0 +1,235 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.core.internal.events;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.smarthome.core.events.Event;
+import org.eclipse.smarthome.core.events.EventSubscriber;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link EventSubscriberMailbox} is a bounded mailbox for a single {@link EventSubscriber}. Events are queued by
+ * the dispatching thread and delivered by a drain task on a shared executor, one event after the other. Thereby each
+ * subscriber receives its events in the order of posting, while a slow subscriber only delays its own events and not
+ * the ones of all other subscribers.
+ *
+ * If the mailbox is full, new events are dropped. Once the subscriber has been unregistered, the mailbox is closed:
+ * the queued events are discarded and the drain task stops before the next delivery. The start time of the currently
+ * executed
+ * {@link EventSubscriber#receive(Event)} call is recorded, so that a watchdog is able to detect overruns without
+ * waiting for the call to complete.
+ *
+ * @author agent - Initial contribution
+ */
+class EventSubscriberMailbox {
+
+    /**
+     * Maximum number of events which are delivered by one drain task before it gives the thread back to the pool.
+     */
+    private static final int MAX_EVENTS_PER_DRAIN = 50;
+
+    /**
+     * Dropped events are logged for the first one and then for every n-th one.
+     */
+    private static final int DROP_LOG_INTERVAL = 1000;
+
+    private final Logger logger = LoggerFactory.getLogger(EventSubscriberMailbox.class);
+
+    private final EventSubscriber eventSubscriber;
+
+    private final Executor executor;
+
+    private final int capacity;
+
+    private final Queue<QueuedEvent> queue = new ConcurrentLinkedQueue<QueuedEvent>();
+
+    private final AtomicInteger queueSize = new AtomicInteger();
+
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    private final AtomicLong receivedCount = new AtomicLong();
+
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    private final AtomicLong totalLatencyNanos = new AtomicLong();
+
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    private final AtomicLong overrunCount = new AtomicLong();
+
+    private volatile long executionStartNanos;
+
+    private volatile boolean overrunReported;
+
+    private volatile boolean closed;
+
+    private final Runnable drainTask = new Runnable() {
+        @Override
+        public void run() {
+            drain();
+        }
+    };
+
+    EventSubscriberMailbox(EventSubscriber eventSubscriber, Executor executor, int capacity) {
+        this.eventSubscriber = eventSubscriber;
+        this.executor = executor;
+        this.capacity = capacity;
+    }
+
+    EventSubscriber getEventSubscriber() {
+        return eventSubscriber;
+    }
+
+    /**
+     * Queues the event for the delivery to the subscriber.
+     *
+     * @param event the event
+     * @return true if the event has been queued, false if it has been dropped because the mailbox is full
+     */
+    boolean offer(Event event) {
+        if (closed) {
+            return false;
+        }
+        if (queueSize.incrementAndGet() > capacity) {
+            queueSize.decrementAndGet();
+            long dropped = droppedCount.incrementAndGet();
+            if (dropped == 1 || dropped % DROP_LOG_INTERVAL == 0) {
+                logger.warn("Mailbox of event subscriber '{}' is full ({} events), dropped {} events so far.",
+                        new Object[] { eventSubscriber, capacity, dropped });
+            }
+            return false;
+        }
+        queue.add(new QueuedEvent(event, System.nanoTime()));
+        schedule();
+        return true;
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(drainTask);
+            } catch (RejectedExecutionException e) {
+                scheduled.set(false);
+                logger.warn("Delivery of events to subscriber '{}' has been rejected by the executor.",
+                        eventSubscriber);
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            for (int i = 0; i < MAX_EVENTS_PER_DRAIN && !closed; i++) {
+                QueuedEvent queuedEvent = queue.poll();
+                if (queuedEvent == null) {
+                    break;
+                }
+                queueSize.decrementAndGet();
+                deliver(queuedEvent);
+            }
+        } finally {
+            scheduled.set(false);
+            // events might have been queued after the last poll, or the drain limit has been reached
+            if (closed) {
+                discard();
+            } else if (!queue.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+
+    /**
+     * Closes the mailbox after its subscriber has been unregistered. The queued events are discarded and no further
+     * events are accepted or delivered. A delivery which is currently executed is not interrupted.
+     */
+    void close() {
+        closed = true;
+        discard();
+    }
+
+    private void discard() {
+        while (queue.poll() != null) {
+            queueSize.decrementAndGet();
+        }
+    }
+
+    private void deliver(QueuedEvent queuedEvent) {
+        executionStartNanos = System.nanoTime();
+        try {
+            eventSubscriber.receive(queuedEvent.event);
+        } catch (Throwable t) {
+            logger.error("Dispatching event to subscriber '" + eventSubscriber + "' failed: " + t.getMessage(), t);
+        } finally {
+            long now = System.nanoTime();
+            executionStartNanos = 0;
+            if (overrunReported) {
+                overrunReported = false;
+                logger.info("Event subscriber '{}' finished the delivery of an event after {}ms.", eventSubscriber,
+                        (now - queuedEvent.queuedNanos) / 1000000);
+            }
+            recordLatency(now - queuedEvent.queuedNanos);
+        }
+    }
+
+    private void recordLatency(long latencyNanos) {
+        receivedCount.incrementAndGet();
+        totalLatencyNanos.addAndGet(latencyNanos);
+        long max = maxLatencyNanos.get();
+        while (latencyNanos > max && !maxLatencyNanos.compareAndSet(max, latencyNanos)) {
+            max = maxLatencyNanos.get();
+        }
+    }
+
+    /**
+     * Checks whether the currently executed delivery takes longer than the given timeout. An overrun is only reported
+     * once per delivery.
+     *
+     * @param now the current value of {@link System#nanoTime()}
+     * @param timeoutNanos the timeout in nanoseconds
+     * @return true if a new overrun has been detected
+     */
+    boolean checkOverrun(long now, long timeoutNanos) {
+        long start = executionStartNanos;
+        if (start != 0 && !overrunReported && now - start > timeoutNanos) {
+            overrunReported = true;
+            overrunCount.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns a snapshot of the statistics of this mailbox.
+     *
+     * @return the statistics
+     */
+    EventSubscriberMetrics getMetrics() {
+        long received = receivedCount.get();
+        long averageLatency = received > 0 ? totalLatencyNanos.get() / received : 0;
+        return new EventSubscriberMetrics(eventSubscriber.toString(), queueSize.get(), capacity, received,
+                droppedCount.get(), overrunCount.get(), averageLatency, maxLatencyNanos.get());
+    }
+
+    private static class QueuedEvent {
+        private final Event event;
+        private final long queuedNanos;
+
+        private QueuedEvent(Event event, long queuedNanos) {
+            this.event = event;
+            this.queuedNanos = queuedNanos;
+        }
+    }
+
+}
@@ -0,0 +1,103 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.core.internal.events;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@link EventSubscriberMetrics} is an immutable snapshot of the delivery statistics of a single event subscriber.
+ *
+ * @author agent - Initial contribution
+ */
+public class EventSubscriberMetrics {
+
+    private final String subscriber;
+    private final int queueDepth;
+    private final int queueCapacity;
+    private final long receivedCount;
+    private final long droppedCount;
+    private final long overrunCount;
+    private final long averageLatencyNanos;
+    private final long maxLatencyNanos;
+
+    EventSubscriberMetrics(String subscriber, int queueDepth, int queueCapacity, long receivedCount, long droppedCount,
+            long overrunCount, long averageLatencyNanos, long maxLatencyNanos) {
+        this.subscriber = subscriber;
+        this.queueDepth = queueDepth;
+        this.queueCapacity = queueCapacity;
+        this.receivedCount = receivedCount;
+        this.droppedCount = droppedCount;
+        this.overrunCount = overrunCount;
+        this.averageLatencyNanos = averageLatencyNanos;
+        this.maxLatencyNanos = maxLatencyNanos;
+    }
+
+    /**
+     * @return the string representation of the subscriber
+     */
+    public String getSubscriber() {
+        return subscriber;
+    }
+
+    /**
+     * @return the number of events waiting for the delivery
+     */
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    /**
+     * @return the maximum number of events waiting for the delivery
+     */
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * @return the number of delivered events
+     */
+    public long getReceivedCount() {
+        return receivedCount;
+    }
+
+    /**
+     * @return the number of events dropped because the mailbox was full
+     */
+    public long getDroppedCount() {
+        return droppedCount;
+    }
+
+    /**
+     * @return the number of deliveries which took longer than the dispatch timeout
+     */
+    public long getOverrunCount() {
+        return overrunCount;
+    }
+
+    /**
+     * @return the average time in milliseconds from queuing an event until the subscriber returned
+     */
+    public long getAverageLatency() {
+        return TimeUnit.NANOSECONDS.toMillis(averageLatencyNanos);
+    }
+
+    /**
+     * @return the maximum time in milliseconds from queuing an event until the subscriber returned
+     */
+    public long getMaxLatency() {
+        return TimeUnit.NANOSECONDS.toMillis(maxLatencyNanos);
+    }
+
+    @Override
+    public String toString() {
+        return subscriber + " [queueDepth=" + queueDepth + "/" + queueCapacity + ", received=" + receivedCount
+                + ", dropped=" + droppedCount + ", overruns=" + overrunCount + ", avgLatency=" + getAverageLatency()
+                + "ms, maxLatency=" + getMaxLatency() + "ms]";
+    }
+
+}
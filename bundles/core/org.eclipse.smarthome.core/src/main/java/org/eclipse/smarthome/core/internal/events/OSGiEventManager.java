@@ -10,19 +10,21 @@ package org.eclipse.smarthome.core.internal.events;
 import java.security.AccessController;
 import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
+import java.util.ArrayList;
 import java.util.Dictionary;
-import java.util.HashSet;
 import java.util.Hashtable;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.TimeoutException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
+import org.eclipse.smarthome.core.common.MetricsProvider;
 import org.eclipse.smarthome.core.common.SafeMethodCaller;
-import org.eclipse.smarthome.core.common.SafeMethodCaller.ActionWithException;
+import org.eclipse.smarthome.core.common.ThreadPoolManager;
 import org.eclipse.smarthome.core.events.Event;
 import org.eclipse.smarthome.core.events.EventFactory;
-import org.eclipse.smarthome.core.events.EventFilter;
 import org.eclipse.smarthome.core.events.EventPublisher;
 import org.eclipse.smarthome.core.events.EventSubscriber;
 import org.osgi.framework.BundleContext;
@@ -35,9 +37,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.Multimaps;
-import com.google.common.collect.SetMultimap;
 
 /**
  * The {@link OSGiEventManager} provides an OSGi based default implementation of the Eclipse SmartHome event bus.
@@ -49,9 +48,23 @@ import com.google.common.collect.SetMultimap;
  * The {@link OSGiEventManager} also serves as {@link EventPublisher} by implementing the EventPublisher interface.
  * Events are send in an asynchronous way via OSGi Event Admin mechanism.
  *
+ * If the component property {@code dispatchMode} is set to {@code direct}, posted events are not converted into OSGi
+ * events. Instead the original {@link Event} objects are handed to the {@link EventSubscriber}s by a
+ * {@link DirectEventDispatcher}, which avoids the serialization of the payload and the re-creation of the event by
+ * an {@link EventFactory}.
+ *
+ * Each {@link EventSubscriber} owns an {@link EventSubscriberMailbox}, which is drained serially on the shared
+ * "eventSubscribers" thread pool. A watchdog periodically checks for subscribers which block longer than
+ * {@link SafeMethodCaller#DEFAULT_TIMEOUT} milliseconds and indexes the subscribers again whose event filter has
+ * changed. The size of the mailboxes can be configured through the component property {@code subscriberQueueSize}.
+ * If the mailbox of a subscriber is full, further events for this subscriber are dropped. This is logged for the first
+ * dropped event and then for every 1000th one, and the number of dropped events is part of the
+ * {@link EventSubscriberMetrics}, which the {@link OSGiEventManager} provides as {@link MetricsProvider} named
+ * "events".
+ *
  * @author Stefan Bußweiler - Initial contribution
  */
-public class OSGiEventManager implements EventHandler, EventPublisher {
+public class OSGiEventManager implements EventHandler, EventPublisher, MetricsProvider {
 
     @SuppressWarnings("rawtypes")
     private class EventSubscriberServiceTracker extends ServiceTracker {
@@ -73,6 +86,11 @@ public class OSGiEventManager implements EventHandler, EventPublisher {
             }
         }
 
+        @Override
+        public void modifiedService(ServiceReference reference, Object service) {
+            eventSubscriberIndex.update((EventSubscriber) service);
+        }
+
         @Override
         public void removedService(ServiceReference reference, Object service) {
             removeEventSubscriber((EventSubscriber) service);
@@ -80,26 +98,102 @@ public class OSGiEventManager implements EventHandler, EventPublisher {
 
     }
 
+    /**
+     * Name of the component property which defines how events are dispatched.
+     */
+    static final String DISPATCH_MODE_PROPERTY = "dispatchMode";
+
+    /**
+     * Dispatch mode which sends events through the OSGi Event Admin (default).
+     */
+    static final String DISPATCH_MODE_EVENTADMIN = "eventadmin";
+
+    /**
+     * Dispatch mode which hands events in-process to the subscribers.
+     */
+    static final String DISPATCH_MODE_DIRECT = "direct";
+
+    /**
+     * Name of the component property which defines the capacity of the subscriber mailboxes.
+     */
+    static final String SUBSCRIBER_QUEUE_SIZE_PROPERTY = "subscriberQueueSize";
+
+    static final int DEFAULT_SUBSCRIBER_QUEUE_SIZE = 1000;
+
+    private static final String METRICS_NAME = "events";
+
+    private static final String SUBSCRIBER_POOL_NAME = "eventSubscribers";
+
+    private static final String WATCHDOG_POOL_NAME = "events";
+
+    private static final long WATCHDOG_INTERVAL = 1000;
+
     private Logger logger = LoggerFactory.getLogger(OSGiEventManager.class);
 
     private EventAdmin osgiEventAdmin;
 
     private final Map<String, EventFactory> typedEventFactories = new ConcurrentHashMap<String, EventFactory>();
 
-    private final SetMultimap<String, EventSubscriber> typedEventSubscribers = Multimaps
-            .synchronizedSetMultimap(HashMultimap.<String, EventSubscriber> create());
+    private final EventSubscriberIndex eventSubscriberIndex = new EventSubscriberIndex();
 
     private EventSubscriberServiceTracker eventSubscriberServiceTracker;
 
+    private DirectEventDispatcher directEventDispatcher;
+
+    private int subscriberQueueSize = DEFAULT_SUBSCRIBER_QUEUE_SIZE;
+
+    private ScheduledFuture<?> watchdogJob;
+
     protected void activate(ComponentContext componentContext) {
+        Dictionary<String, Object> properties = componentContext.getProperties();
+        subscriberQueueSize = getSubscriberQueueSize(properties.get(SUBSCRIBER_QUEUE_SIZE_PROPERTY));
+        Object dispatchMode = properties.get(DISPATCH_MODE_PROPERTY);
+        if (DISPATCH_MODE_DIRECT.equals(dispatchMode)) {
+            directEventDispatcher = new DirectEventDispatcher(this);
+            directEventDispatcher.start();
+            logger.debug("Events are dispatched directly to the event subscribers.");
+        } else if (dispatchMode != null && !DISPATCH_MODE_EVENTADMIN.equals(dispatchMode)) {
+            logger.warn("Ignoring invalid dispatch mode '{}', events are dispatched via the OSGi Event Admin.",
+                    dispatchMode);
+        }
         eventSubscriberServiceTracker = new EventSubscriberServiceTracker(componentContext.getBundleContext());
         eventSubscriberServiceTracker.open();
+        watchdogJob = ThreadPoolManager.getScheduledPool(WATCHDOG_POOL_NAME).scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                checkSubscriberOverruns();
+                eventSubscriberIndex.refresh();
+            }
+        }, WATCHDOG_INTERVAL, WATCHDOG_INTERVAL, TimeUnit.MILLISECONDS);
     }
 
     protected void deactivate(ComponentContext componentContext) {
+        if (watchdogJob != null) {
+            watchdogJob.cancel(false);
+            watchdogJob = null;
+        }
         if (eventSubscriberServiceTracker != null) {
             eventSubscriberServiceTracker.close();
         }
+        if (directEventDispatcher != null) {
+            directEventDispatcher.stop();
+            directEventDispatcher = null;
+        }
+    }
+
+    private int getSubscriberQueueSize(Object value) {
+        if (value != null) {
+            try {
+                int queueSize = Integer.parseInt(value.toString());
+                if (queueSize > 0) {
+                    return queueSize;
+                }
+            } catch (NumberFormatException e) {
+                // handled below
+            }
+            logger.warn("Ignoring invalid subscriber queue size '{}' - value must be a positive integer.", value);
+        }
+        return DEFAULT_SUBSCRIBER_QUEUE_SIZE;
     }
 
     protected void setEventAdmin(EventAdmin eventAdmin) {
@@ -156,11 +250,10 @@ public class OSGiEventManager implements EventHandler, EventPublisher {
         EventFactory eventFactory = typedEventFactories.get(type);
 
         if (eventFactory != null) {
-            Set<EventSubscriber> eventSubscribers = getEventSubscribers(type);
-            if (!eventSubscribers.isEmpty()) {
+            if (eventSubscriberIndex.hasSubscribers(type)) {
                 Event eshEvent = createESHEvent(eventFactory, type, payload, topic, source);
                 if (eshEvent != null) {
-                    dispatchESHEvent(eventSubscribers, eshEvent);
+                    eventSubscriberIndex.dispatch(eshEvent);
                 }
             }
         } else {
@@ -168,6 +261,15 @@ public class OSGiEventManager implements EventHandler, EventPublisher {
         }
     }
 
+    /**
+     * Dispatches an event which has been posted in-process to the event subscribers.
+     *
+     * @param event the event
+     */
+    void dispatchEvent(Event event) {
+        eventSubscriberIndex.dispatch(event);
+    }
+
     private Event createESHEvent(final EventFactory eventFactory, final String type, final String payload,
             final String topic, final String source) {
         Event eshEvent = null;
@@ -180,50 +282,57 @@ public class OSGiEventManager implements EventHandler, EventPublisher {
         return eshEvent;
     }
 
-    private void dispatchESHEvent(final Set<EventSubscriber> eventSubscribers, final Event event) {
-        for (final EventSubscriber eventSubscriber : eventSubscribers) {
-            try {
-                EventFilter filter = eventSubscriber.getEventFilter();
-                if (filter == null || filter.apply(event)) {
-                    SafeMethodCaller.call(new ActionWithException<Void>() {
-
-                        @Override
-                        public Void call() throws Exception {
-                            eventSubscriber.receive(event);
-                            return null;
-                        }
-                    });
-                }
-            } catch (TimeoutException timeoutException) {
-                logger.warn("Dispatching event to subscriber '{}' takes more than {}ms.", eventSubscriber.toString(),
-                        SafeMethodCaller.DEFAULT_TIMEOUT);
-            } catch (Throwable t) {
-                logger.error("Dispatching/filtering event for subscriber '" + EventSubscriber.class.getName()
-                        + "' failed: " + t.getMessage(), t);
+    private void checkSubscriberOverruns() {
+        long now = System.nanoTime();
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(SafeMethodCaller.DEFAULT_TIMEOUT);
+        for (EventSubscriberMailbox mailbox : eventSubscriberIndex.getMailboxes()) {
+            if (mailbox.checkOverrun(now, timeoutNanos)) {
+                logger.warn("Dispatching event to subscriber '{}' takes more than {}ms.",
+                        mailbox.getEventSubscriber().toString(), SafeMethodCaller.DEFAULT_TIMEOUT);
             }
         }
     }
 
-    private Set<EventSubscriber> getEventSubscribers(String eventType) {
-        Set<EventSubscriber> eventTypeSubscribers = typedEventSubscribers.get(eventType);
-        Set<EventSubscriber> allEventTypeSubscribers = typedEventSubscribers.get(EventSubscriber.ALL_EVENT_TYPES);
+    @Override
+    public String getMetricsName() {
+        return METRICS_NAME;
+    }
 
-        Set<EventSubscriber> subscribers = new HashSet<EventSubscriber>();
-        if (eventTypeSubscribers != null) {
-            subscribers.addAll(eventTypeSubscribers);
+    @Override
+    public List<String> getMetrics() {
+        List<String> metrics = new ArrayList<String>();
+        for (EventSubscriberMetrics subscriberMetrics : getEventSubscriberMetrics()) {
+            metrics.add(subscriberMetrics.toString());
         }
-        if (allEventTypeSubscribers != null) {
-            subscribers.addAll(allEventTypeSubscribers);
+        return metrics;
+    }
+
+    /**
+     * Returns the delivery statistics of all tracked event subscribers.
+     *
+     * @return a list of statistics snapshots (not null)
+     */
+    List<EventSubscriberMetrics> getEventSubscriberMetrics() {
+        EventSubscriberMailbox[] mailboxes = eventSubscriberIndex.getMailboxes();
+        List<EventSubscriberMetrics> metrics = new ArrayList<EventSubscriberMetrics>(mailboxes.length);
+        for (EventSubscriberMailbox mailbox : mailboxes) {
+            metrics.add(mailbox.getMetrics());
         }
-        return subscribers;
+        return metrics;
     }
 
     @Override
     public void post(final Event event) throws IllegalArgumentException, IllegalStateException {
-        EventAdmin eventAdmin = this.osgiEventAdmin;
-        assertValidArgument(event);
-        assertValidState(eventAdmin);
-        postAsOSGiEvent(eventAdmin, event);
+        DirectEventDispatcher directEventDispatcher = this.directEventDispatcher;
+        if (directEventDispatcher != null) {
+            assertValidArgument(event, false);
+            directEventDispatcher.post(event);
+        } else {
+            EventAdmin eventAdmin = this.osgiEventAdmin;
+            assertValidArgument(event, true);
+            assertValidState(eventAdmin);
+            postAsOSGiEvent(eventAdmin, event);
+        }
     }
 
     private void postAsOSGiEvent(final EventAdmin eventAdmin, final Event event) throws IllegalStateException {
@@ -249,13 +358,16 @@ public class OSGiEventManager implements EventHandler, EventPublisher {
         }
     }
 
-    private void assertValidArgument(Event event) throws IllegalArgumentException {
+    private void assertValidArgument(Event event, boolean checkPayload) throws IllegalArgumentException {
         String errorMsg = "The %s of the 'event' argument must not be null or empty.";
         Preconditions.checkArgument(event != null, "Argument 'event' must not be null.");
         Preconditions.checkArgument(event.getType() != null && !event.getType().isEmpty(),
                 String.format(errorMsg, "type"));
-        Preconditions.checkArgument(event.getPayload() != null && !event.getPayload().isEmpty(),
-                String.format(errorMsg, "payload"));
+        // the payload is only needed if the event gets serialized, checking it would force a lazy serialization
+        if (checkPayload) {
+            Preconditions.checkArgument(event.getPayload() != null && !event.getPayload().isEmpty(),
+                    String.format(errorMsg, "payload"));
+        }
         Preconditions.checkArgument(event.getTopic() != null && !event.getTopic().isEmpty(),
                 String.format(errorMsg, "topic"));
     }
@@ -265,22 +377,14 @@ public class OSGiEventManager implements EventHandler, EventPublisher {
     }
 
     private void addEventSubscriber(EventSubscriber eventSubscriber) {
-        Set<String> subscribedEventTypes = eventSubscriber.getSubscribedEventTypes();
-
-        for (String subscribedEventType : subscribedEventTypes) {
-            synchronized (this) {
-                if (!typedEventSubscribers.containsEntry(subscribedEventType, eventSubscriber)) {
-                    typedEventSubscribers.put(subscribedEventType, eventSubscriber);
-                }
-            }
-        }
+        eventSubscriberIndex.add(eventSubscriber, new EventSubscriberMailbox(eventSubscriber,
+                ThreadPoolManager.getPool(SUBSCRIBER_POOL_NAME), subscriberQueueSize));
     }
 
     private void removeEventSubscriber(EventSubscriber eventSubscriber) {
-        Set<String> subscribedEventTypes = eventSubscriber.getSubscribedEventTypes();
-
-        for (String subscribedEventType : subscribedEventTypes) {
-            typedEventSubscribers.remove(subscribedEventType, eventSubscriber);
+        EventSubscriberMailbox mailbox = eventSubscriberIndex.remove(eventSubscriber);
+        if (mailbox != null) {
+            mailbox.close();
         }
     }
 
@@ -20,6 +20,7 @@ import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.eclipse.smarthome.core.common.registry.AbstractRegistry;
 import org.eclipse.smarthome.core.common.registry.RegistryChangeListener;
+import org.eclipse.smarthome.core.common.registry.RegistryIndex;
 import org.eclipse.smarthome.core.events.EventPublisher;
 import org.eclipse.smarthome.core.items.GenericItem;
 import org.eclipse.smarthome.core.items.GroupItem;
@@ -47,6 +48,8 @@ import org.slf4j.LoggerFactory;
  * current state in memory. This is the central point where states are kept and
  * thus it is a core part for all stateful services.
  *
+ * Items are indexed by their name, type, tags and group names, so that lookups do not need to iterate over all items.
+ *
  * @author Kai Kreuzer - Initial contribution and API
  * @author Stefan Bußweiler - Migration to new event mechanism
  *
@@ -62,6 +65,38 @@ public class ItemRegistryImpl extends AbstractRegistry<Item, String>implements I
 
     private Map<String, Integer> stateDescriptionProviderRanking = new ConcurrentHashMap<>();
 
+    private final RegistryIndex<Item, String> typeIndex = new RegistryIndex<Item, String>() {
+        @Override
+        protected Collection<String> getIndexValues(Item item) {
+            return Collections.singleton(item.getType());
+        }
+    };
+
+    private final RegistryIndex<Item, String> tagIndex = new RegistryIndex<Item, String>() {
+        @Override
+        protected Collection<String> getIndexValues(Item item) {
+            return item.getTags();
+        }
+    };
+
+    private final RegistryIndex<Item, String> groupIndex = new RegistryIndex<Item, String>() {
+        @Override
+        protected Collection<String> getIndexValues(Item item) {
+            return item.getGroupNames();
+        }
+    };
+
+    public ItemRegistryImpl() {
+        addIndex(typeIndex);
+        addIndex(tagIndex);
+        addIndex(groupIndex);
+    }
+
+    @Override
+    protected String getKey(Item element) {
+        return element.getName();
+    }
+
     @Override
     public void allItemsChanged(ItemProvider provider, Collection<String> oldItemNames) {
 
@@ -95,6 +130,7 @@ public class ItemRegistryImpl extends AbstractRegistry<Item, String>implements I
                 try {
                     onAddElement(item);
                     items.add(item);
+                    addToIndexes(item);
                     for (RegistryChangeListener<Item> listener : listeners) {
                         listener.added(item);
                     }
@@ -105,7 +141,9 @@ public class ItemRegistryImpl extends AbstractRegistry<Item, String>implements I
                 // it is a modified item
                 try {
                     onAddElement(item);
+                    removeFromIndexes(oldItem);
                     items.add(item);
+                    addToIndexes(item);
                     for (RegistryChangeListener<Item> listener : listeners) {
                         listener.updated(oldItem, item);
                     }
@@ -118,9 +156,13 @@ public class ItemRegistryImpl extends AbstractRegistry<Item, String>implements I
             }
             oldItemsMap.remove(item.getName());
         }
+        // unmodified items are taken over without changing the indexes, so a collection of all items which has been
+        // created while the items were added must not be reused
+        elementsChanged();
 
         // send a remove notification for all remaining old items
         for (Item removedItem : oldItemsMap.values()) {
+            removeFromIndexes(removedItem);
             for (RegistryChangeListener<Item> listener : listeners) {
                 listener.removed(removedItem);
             }
@@ -137,14 +179,11 @@ public class ItemRegistryImpl extends AbstractRegistry<Item, String>implements I
      */
     @Override
     public Item getItem(String name) throws ItemNotFoundException {
-
-        for (Item item : getItems()) {
-            if (item.getName().equals(name)) {
-                return item;
-            }
+        Item item = getByKey(name);
+        if (item == null) {
+            throw new ItemNotFoundException(name);
         }
-
-        throw new ItemNotFoundException(name);
+        return item;
     }
 
     @Override
@@ -191,15 +230,7 @@ public class ItemRegistryImpl extends AbstractRegistry<Item, String>implements I
 
     @Override
     public Collection<Item> getItemsOfType(String type) {
-        Collection<Item> matchedItems = new ArrayList<Item>();
-
-        for (Item item : getItems()) {
-            if (item.getType().equals(type)) {
-                matchedItems.add(item);
-            }
-        }
-
-        return matchedItems;
+        return new ArrayList<Item>(typeIndex.get(type));
     }
 
     /*
@@ -264,10 +295,8 @@ public class ItemRegistryImpl extends AbstractRegistry<Item, String>implements I
     }
 
     private void addMembersToGroupItem(GroupItem groupItem) {
-        for (Item i : getItems()) {
-            if (i.getGroupNames().contains(groupItem.getName())) {
-                groupItem.addMember(i);
-            }
+        for (Item i : groupIndex.get(groupItem.getName())) {
+            groupItem.addMember(i);
         }
     }
 
@@ -322,7 +351,7 @@ public class ItemRegistryImpl extends AbstractRegistry<Item, String>implements I
     @Override
     public Collection<Item> getItemsByTag(String... tags) {
         List<Item> filteredItems = new ArrayList<Item>();
-        for (Item item : getItems()) {
+        for (Item item : getCandidatesByTag(tags)) {
             if (itemHasTags(item, tags)) {
                 filteredItems.add(item);
             }
@@ -330,6 +359,25 @@ public class ItemRegistryImpl extends AbstractRegistry<Item, String>implements I
         return filteredItems;
     }
 
+    /**
+     * Returns the items of the tag with the fewest items, which have to be filtered by the other tags afterwards.
+     */
+    private Collection<Item> getCandidatesByTag(String... tags) {
+        if (tags == null || tags.length == 0) {
+            return getItems();
+        }
+        String rarestTag = tags[0];
+        int rarestCount = tagIndex.count(rarestTag);
+        for (int i = 1; i < tags.length && rarestCount > 0; i++) {
+            int count = tagIndex.count(tags[i]);
+            if (count < rarestCount) {
+                rarestTag = tags[i];
+                rarestCount = count;
+            }
+        }
+        return tagIndex.get(rarestTag);
+    }
+
     private boolean itemHasTags(Item item, String... tags) {
         for (String tag : tags) {
             if (!item.hasTag(tag)) {
@@ -356,7 +404,7 @@ public class ItemRegistryImpl extends AbstractRegistry<Item, String>implements I
     @Override
     public Collection<Item> getItemsByTagAndType(String type, String... tags) {
         List<Item> filteredItems = new ArrayList<Item>();
-        for (Item item : getItemsOfType(type)) {
+        for (Item item : typeIndex.get(type)) {
             if (itemHasTags(item, tags)) {
                 filteredItems.add(item);
             }
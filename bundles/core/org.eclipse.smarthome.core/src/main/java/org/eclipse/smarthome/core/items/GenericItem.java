@@ -18,6 +18,7 @@ import java.util.Set;
 import java.util.WeakHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.eclipse.smarthome.core.common.ThreadPoolManager;
 import org.eclipse.smarthome.core.events.EventPublisher;
@@ -51,11 +52,32 @@ abstract public class GenericItem implements ActiveItem {
 
     private static final String ITEM_THREADPOOLNAME = "items";
 
+    /**
+     * The maximum number of updates which are delivered to an asynchronous listener by a single task of the thread
+     * pool. Further pending updates are delivered by a new task, so that a busy item does not occupy a thread.
+     */
+    private static final int MAX_UPDATES_PER_TASK = 64;
+
+    /**
+     * The maximum number of updates which are buffered for an asynchronous listener. If the buffer is full, the newest
+     * pending update is replaced, so that the listener still gets the latest state.
+     */
+    private static final int MAX_PENDING_UPDATES = 1024;
+
+    private static final ListenerNotifier[] NO_NOTIFIERS = new ListenerNotifier[0];
+
     protected EventPublisher eventPublisher;
 
+    /**
+     * The registered listeners. They must be changed through {@link #addStateChangeListener(StateChangeListener)} and
+     * {@link #removeStateChangeListener(StateChangeListener)} only, as the notification uses a snapshot of them.
+     */
     protected Set<StateChangeListener> listeners = new CopyOnWriteArraySet<StateChangeListener>(
             Collections.newSetFromMap(new WeakHashMap<StateChangeListener, Boolean>()));
 
+    /** immutable snapshot of the listeners, replaced whenever a listener is added or removed */
+    private volatile ListenerNotifier[] notifiers = NO_NOTIFIERS;
+
     protected List<String> groupNames = new ArrayList<String>();
 
     protected Set<String> tags = new HashSet<String>();
@@ -217,26 +239,50 @@ abstract public class GenericItem implements ActiveItem {
     }
 
     protected void notifyListeners(final State oldState, final State newState) {
-        // if nothing has changed, we send update notifications
-        Set<StateChangeListener> clonedListeners = null;
-        clonedListeners = new CopyOnWriteArraySet<StateChangeListener>(listeners);
-        ExecutorService pool = ThreadPoolManager.getPool(ITEM_THREADPOOLNAME);
-        for (final StateChangeListener listener : clonedListeners) {
-            pool.execute(new Runnable() {
-                @Override
-                public void run() {
-                    try {
-                        listener.stateUpdated(GenericItem.this, newState);
-                        if (newState != null && !newState.equals(oldState)) {
-                            listener.stateChanged(GenericItem.this, oldState, newState);
-                        }
-                    } catch (Exception e) {
-                        logger.warn("failed notifying listener '{}' about state update of item {}: {}",
-                                new Object[] { listener.toString(), GenericItem.this.getName(), e.getMessage() }, e);
-                    }
+        ExecutorService pool = null;
+        for (ListenerNotifier notifier : notifiers) {
+            if (notifier.inline) {
+                notifyListener(notifier.listener, oldState, newState);
+            } else {
+                if (pool == null) {
+                    pool = ThreadPoolManager.getPool(ITEM_THREADPOOLNAME);
+                }
+                notifier.enqueue(oldState, newState, pool);
+            }
+        }
+    }
+
+    private void notifyListener(StateChangeListener listener, State oldState, State newState) {
+        try {
+            // if nothing has changed, we send update notifications
+            listener.stateUpdated(this, newState);
+            if (newState != null && !newState.equals(oldState)) {
+                listener.stateChanged(this, oldState, newState);
+            }
+        } catch (Exception e) {
+            logger.warn("failed notifying listener '{}' about state update of item {}: {}",
+                    new Object[] { listener.toString(), getName(), e.getMessage() }, e);
+        }
+    }
+
+    /**
+     * Replaces the snapshot of the listeners. Must be called while holding the lock of the listeners.
+     */
+    private void updateNotifiers() {
+        ListenerNotifier[] oldNotifiers = notifiers;
+        List<ListenerNotifier> newNotifiers = new ArrayList<ListenerNotifier>(listeners.size());
+        for (StateChangeListener listener : listeners) {
+            ListenerNotifier notifier = null;
+            for (ListenerNotifier oldNotifier : oldNotifiers) {
+                if (oldNotifier.listener == listener) {
+                    notifier = oldNotifier;
+                    break;
                 }
-            });
+            }
+            newNotifiers.add(notifier != null ? notifier : new ListenerNotifier(listener));
         }
+        notifiers = newNotifiers.isEmpty() ? NO_NOTIFIERS
+                : newNotifiers.toArray(new ListenerNotifier[newNotifiers.size()]);
     }
 
     /**
@@ -276,13 +322,17 @@ abstract public class GenericItem implements ActiveItem {
 
     public void addStateChangeListener(StateChangeListener listener) {
         synchronized (listeners) {
-            listeners.add(listener);
+            if (listeners.add(listener)) {
+                updateNotifiers();
+            }
         }
     }
 
     public void removeStateChangeListener(StateChangeListener listener) {
         synchronized (listeners) {
-            listeners.remove(listener);
+            if (listeners.remove(listener)) {
+                updateNotifiers();
+            }
         }
     }
 
@@ -421,4 +471,99 @@ abstract public class GenericItem implements ActiveItem {
         return null;
     }
 
+    /**
+     * Notifies a single listener about the updates of this item. An {@link InlineStateChangeListener} which wants to be
+     * notified inline is notified directly, all other listeners get all pending updates delivered in order by a single
+     * task on the thread pool, which is only submitted if there is no task for the listener yet. At most
+     * {@link #MAX_PENDING_UPDATES} updates are buffered; further updates replace the newest pending one.
+     */
+    private final class ListenerNotifier implements Runnable {
+
+        private final StateChangeListener listener;
+
+        private final boolean inline;
+
+        /** ring buffer of the pending updates as pairs of old and new state, guarded by this */
+        private State[] pending;
+
+        private int head;
+
+        private int count;
+
+        private boolean scheduled;
+
+        private ListenerNotifier(StateChangeListener listener) {
+            this.listener = listener;
+            this.inline = listener instanceof InlineStateChangeListener
+                    && ((InlineStateChangeListener) listener).isNotifiedInline();
+        }
+
+        private void enqueue(State oldState, State newState, ExecutorService pool) {
+            synchronized (this) {
+                if (pending != null && 2 * count == pending.length && count >= MAX_PENDING_UPDATES) {
+                    // the pool does not keep up, the newest pending update is replaced by the latest state
+                    int newest = (head + 2 * (count - 1)) % pending.length;
+                    pending[newest + 1] = newState;
+                    return;
+                }
+                if (pending == null || 2 * count == pending.length) {
+                    grow();
+                }
+                int tail = (head + 2 * count) % pending.length;
+                pending[tail] = oldState;
+                pending[tail + 1] = newState;
+                count++;
+                if (scheduled) {
+                    return;
+                }
+                scheduled = true;
+            }
+            submit(pool);
+        }
+
+        private void grow() {
+            State[] newPending = new State[pending == null ? 4 : pending.length * 2];
+            for (int i = 0; i < 2 * count; i++) {
+                newPending[i] = pending[(head + i) % pending.length];
+            }
+            pending = newPending;
+            head = 0;
+        }
+
+        private void submit(ExecutorService pool) {
+            try {
+                pool.execute(this);
+            } catch (RejectedExecutionException e) {
+                synchronized (this) {
+                    scheduled = false;
+                }
+                logger.warn("failed notifying listener '{}' about state update of item {}: {}",
+                        new Object[] { listener, getName(), e.getMessage() });
+            }
+        }
+
+        @Override
+        public void run() {
+            // a long batch is split, so that a busy item does not occupy the thread
+            for (int i = 0; i < MAX_UPDATES_PER_TASK; i++) {
+                State oldState;
+                State newState;
+                synchronized (this) {
+                    if (count == 0) {
+                        scheduled = false;
+                        return;
+                    }
+                    oldState = pending[head];
+                    newState = pending[head + 1];
+                    pending[head] = null;
+                    pending[head + 1] = null;
+                    head = (head + 2) % pending.length;
+                    count--;
+                }
+                notifyListener(listener, oldState, newState);
+            }
+            submit(ThreadPoolManager.getPool(ITEM_THREADPOOLNAME));
+        }
+    }
+
 }
@@ -7,7 +7,9 @@
  */
 package org.eclipse.smarthome.core.items;
 
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.smarthome.core.types.State;
@@ -46,7 +48,7 @@ abstract public interface GroupFunction {
      * @author Kai Kreuzer - Initial contribution and API
      *
      */
-    static class Equality implements GroupFunction {
+    static class Equality implements IncrementalGroupFunction {
 
         /**
          * @{inheritDoc
@@ -79,6 +81,45 @@ abstract public interface GroupFunction {
                 return null;
             }
         }
+
+        /**
+         * @{inheritDoc
+         */
+        @Override
+        public Accumulator<State> createAccumulator() {
+            return new Accumulator<State>() {
+
+                // the number of members per distinct state
+                private final Map<State, Integer> stateCounts = new HashMap<State, Integer>();
+
+                @Override
+                public State add(Item member) {
+                    State state = member.getState();
+                    Integer count = stateCounts.get(state);
+                    stateCounts.put(state, count == null ? 1 : count + 1);
+                    return state;
+                }
+
+                @Override
+                public void remove(State state) {
+                    Integer count = stateCounts.get(state);
+                    if (count == null || count <= 1) {
+                        stateCounts.remove(state);
+                    } else {
+                        stateCounts.put(state, count - 1);
+                    }
+                }
+
+                @Override
+                public State getState() {
+                    if (stateCounts.size() == 1) {
+                        return stateCounts.keySet().iterator().next();
+                    } else {
+                        return UnDefType.UNDEF;
+                    }
+                }
+            };
+        }
     }
 
 }
@@ -10,10 +10,13 @@ package org.eclipse.smarthome.core.items;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
 
+import org.eclipse.smarthome.core.items.IncrementalGroupFunction.Accumulator;
 import org.eclipse.smarthome.core.items.events.ItemEventFactory;
 import org.eclipse.smarthome.core.types.Command;
 import org.eclipse.smarthome.core.types.State;
@@ -23,7 +26,12 @@ import org.slf4j.LoggerFactory;
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableSet;
 
-public class GroupItem extends GenericItem implements StateChangeListener {
+public class GroupItem extends GenericItem implements InlineStateChangeListener {
+
+    /**
+     * The number of incremental updates of the group state after which it is compared to a full calculation.
+     */
+    private static final int CONSISTENCY_CHECK_INTERVAL = 1000;
 
     private final Logger logger = LoggerFactory.getLogger(GroupItem.class);
 
@@ -33,6 +41,13 @@ public class GroupItem extends GenericItem implements StateChangeListener {
 
     protected GroupFunction function;
 
+    /** guards the aggregation, the update counter and the calculation of the state from the updates of the members */
+    private final Object aggregationLock = new Object();
+
+    private Aggregation<?> aggregation;
+
+    private int updatesSinceCheck;
+
     public GroupItem(String name) {
         this(name, null);
     }
@@ -102,7 +117,12 @@ public class GroupItem extends GenericItem implements StateChangeListener {
         if (item == null) {
             throw new IllegalArgumentException("Item must not be null!");
         }
-        members.add(item);
+        boolean added = members.add(item);
+        synchronized (aggregationLock) {
+            if (added && aggregation != null) {
+                aggregation.add(item);
+            }
+        }
         if (item instanceof GenericItem) {
             GenericItem genericItem = (GenericItem) item;
             genericItem.addStateChangeListener(this);
@@ -119,7 +139,13 @@ public class GroupItem extends GenericItem implements StateChangeListener {
         if (item == null) {
             throw new IllegalArgumentException("Item must not be null!");
         }
-        members.remove(item);
+        boolean removed = members.remove(item);
+        synchronized (aggregationLock) {
+            if (removed && aggregation != null && !aggregation.remove(item)) {
+                // an equal item has been removed, the aggregation is rebuilt on the next update
+                aggregation = null;
+            }
+        }
         if (item instanceof GenericItem) {
             GenericItem genericItem = (GenericItem) item;
             genericItem.removeStateChangeListener(this);
@@ -274,15 +300,89 @@ public class GroupItem extends GenericItem implements StateChangeListener {
      */
     @Override
     public void stateUpdated(Item item, State state) {
-        State oldState = this.state;
-        setState(function.calculate(members));
-        if (!oldState.equals(this.state)) {
-            sendGroupStateChangedEvent(item.getName(), this.state, oldState);
+        State calculatedState;
+        State oldState;
+        State newState;
+        synchronized (aggregationLock) {
+            if (function instanceof IncrementalGroupFunction) {
+                calculatedState = calculateIncrementally(item);
+            } else {
+                calculatedState = function.calculate(members);
+            }
+            oldState = applyState(calculatedState);
+            newState = this.state;
+        }
+        // the listeners, e.g. parent groups, and the event bus are notified without holding the lock
+        notifyListeners(oldState, calculatedState);
+        if (!oldState.equals(newState)) {
+            sendGroupStateChangedEvent(item.getName(), newState, oldState);
         }
     }
 
+    /**
+     * A group is notified inline about the updates of its members only if its function calculates the group state
+     * incrementally, as a full calculation iterates over all members.
+     *
+     * @return true if the function of this group is an {@link IncrementalGroupFunction}
+     */
+    @Override
+    public boolean isNotifiedInline() {
+        return function instanceof IncrementalGroupFunction;
+    }
+
+    /**
+     * Calculates the group state after an update of a member by exchanging the contribution of this member in the
+     * aggregation. From time to time, the result is checked against a full calculation.
+     *
+     * @param member the updated member
+     * @return the group state
+     */
+    private State calculateIncrementally(Item member) {
+        IncrementalGroupFunction incrementalFunction = (IncrementalGroupFunction) function;
+        if (aggregation == null || aggregation.function != incrementalFunction) {
+            aggregation = createAggregation(incrementalFunction, incrementalFunction.createAccumulator(), members);
+            updatesSinceCheck = 0;
+            return aggregation.getState();
+        }
+
+        aggregation.update(member);
+        State state = aggregation.getState();
+        if (++updatesSinceCheck >= CONSISTENCY_CHECK_INTERVAL) {
+            updatesSinceCheck = 0;
+            State calculatedState = function.calculate(members);
+            if (!calculatedState.equals(state)) {
+                logger.debug("Aggregated state '{}' of group '{}' differs from calculated state '{}', rebuilding it.",
+                        new Object[] { state, getName(), calculatedState });
+                aggregation = createAggregation(incrementalFunction, incrementalFunction.createAccumulator(),
+                        members);
+                state = calculatedState;
+            }
+        }
+        return state;
+    }
+
+    private static <C> Aggregation<C> createAggregation(IncrementalGroupFunction function,
+            Accumulator<C> accumulator, Set<Item> members) {
+        Aggregation<C> aggregation = new Aggregation<C>(function, accumulator);
+        for (Item member : members) {
+            aggregation.add(member);
+        }
+        return aggregation;
+    }
+
     @Override
     public void setState(State state) {
+        State oldState = applyState(state);
+        notifyListeners(oldState, state);
+    }
+
+    /**
+     * Sets the state of this group without notifying the listeners.
+     *
+     * @param state the new state
+     * @return the previous state
+     */
+    private State applyState(State state) {
         State oldState = this.state;
         if (baseItem != null) {
             baseItem.setState(state);
@@ -290,7 +390,7 @@ public class GroupItem extends GenericItem implements StateChangeListener {
         } else {
             this.state = state;
         }
-        notifyListeners(oldState, state);
+        return oldState;
     }
 
     private void sendGroupStateChangedEvent(String memberName, State newState, State oldState) {
@@ -300,4 +400,52 @@ public class GroupItem extends GenericItem implements StateChangeListener {
         }
     }
 
+    /**
+     * The contributions of all members to the group state, aggregated by an accumulator of an
+     * {@link IncrementalGroupFunction}.
+     * <p>
+     * The contributions are kept by the identity of the members, as the hash code of an item changes with its label,
+     * category and tags.
+     *
+     * @param <C> the type of the contribution of a single member
+     */
+    private static class Aggregation<C> {
+
+        private final IncrementalGroupFunction function;
+
+        private final Accumulator<C> accumulator;
+
+        private final Map<Item, C> contributions = new IdentityHashMap<Item, C>();
+
+        private Aggregation(IncrementalGroupFunction function, Accumulator<C> accumulator) {
+            this.function = function;
+            this.accumulator = accumulator;
+        }
+
+        private void add(Item member) {
+            if (!contributions.containsKey(member)) {
+                contributions.put(member, accumulator.add(member));
+            }
+        }
+
+        private boolean remove(Item member) {
+            if (contributions.containsKey(member)) {
+                accumulator.remove(contributions.remove(member));
+                return true;
+            }
+            return false;
+        }
+
+        private void update(Item member) {
+            if (contributions.containsKey(member)) {
+                accumulator.remove(contributions.get(member));
+                contributions.put(member, accumulator.add(member));
+            }
+        }
+
+        private State getState() {
+            return accumulator.getState();
+        }
+    }
+
 }
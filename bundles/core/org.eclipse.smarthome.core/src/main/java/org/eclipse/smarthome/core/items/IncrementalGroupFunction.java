@@ -0,0 +1,63 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.core.items;
+
+import org.eclipse.smarthome.core.types.State;
+
+/**
+ * A {@link GroupFunction} whose group state can be maintained incrementally. Instead of calculating the state over all
+ * members on every update, a {@link GroupItem} keeps an {@link Accumulator} which only takes the contribution of the
+ * updated member out and its new contribution in.
+ * <p>
+ * The state of an accumulator must always be equal to the result of {@link #calculate(java.util.Set)} for the same
+ * members, as the group item falls back to a full calculation from time to time to check this.
+ *
+ * @author agent - Initial contribution and API
+ *
+ */
+public interface IncrementalGroupFunction extends GroupFunction {
+
+    /**
+     * Creates a new accumulator without any members.
+     *
+     * @return the accumulator
+     */
+    public Accumulator<?> createAccumulator();
+
+    /**
+     * An accumulator holds the running aggregation of the contributions of all members. It does not need to be
+     * thread-safe, the group item synchronizes the access.
+     *
+     * @param <C> the type of the contribution of a single member
+     */
+    public interface Accumulator<C> {
+
+        /**
+         * Determines the contribution of the current state of the given member and adds it to the aggregation.
+         *
+         * @param member the member
+         * @return the contribution, which is passed to {@link #remove(Object)} when the member changes or leaves
+         */
+        public C add(Item member);
+
+        /**
+         * Removes a contribution which has been returned by {@link #add(Item)} from the aggregation.
+         *
+         * @param contribution the contribution
+         */
+        public void remove(C contribution);
+
+        /**
+         * Returns the group state for the current aggregation.
+         *
+         * @return the group state
+         */
+        public State getState();
+    }
+
+}
@@ -0,0 +1,30 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.core.items;
+
+/**
+ * A {@link StateChangeListener} which may be cheap enough to be notified directly by the thread that updates the state
+ * of an item, instead of being notified asynchronously through the thread pool of the items.
+ * <p>
+ * Implementations which are notified inline must be thread-safe, must not block and must return quickly, as they
+ * delay the update of the item.
+ *
+ * @author agent - Initial contribution and API
+ *
+ */
+public interface InlineStateChangeListener extends StateChangeListener {
+
+    /**
+     * Tells whether this listener is notified directly by the updating thread. It is asked once, when the listener is
+     * added to an item.
+     *
+     * @return true if the listener is notified inline, false if it is notified through the thread pool
+     */
+    boolean isNotifiedInline();
+
+}
@@ -28,7 +28,12 @@ public class GroupItemStateChangedEvent extends ItemStateChangedEvent {
 
     protected GroupItemStateChangedEvent(String topic, String payload, String itemName, String memberName,
             State newItemState, State oldItemState) {
-        super(topic, payload, itemName, newItemState, oldItemState);
+        this(topic, payload, null, itemName, memberName, newItemState, oldItemState);
+    }
+
+    protected GroupItemStateChangedEvent(String topic, String payload, Object payloadObject, String itemName,
+            String memberName, State newItemState, State oldItemState) {
+        super(topic, payload, payloadObject, itemName, newItemState, oldItemState);
         this.memberName = memberName;
     }
 
@@ -37,7 +37,22 @@ public class ItemCommandEvent extends AbstractEvent {
      * @param source the source, can be null
      */
     protected ItemCommandEvent(String topic, String payload, String itemName, Command command, String source) {
-        super(topic, payload, source);
+        this(topic, payload, null, itemName, command, source);
+    }
+
+    /**
+     * Constructs a new item command event object with a lazily serialized payload.
+     * 
+     * @param topic the topic
+     * @param payload the payload, can be null if a payload object is given
+     * @param payloadObject the object the payload is serialized from on demand, can be null
+     * @param itemName the item name
+     * @param command the command
+     * @param source the source, can be null
+     */
+    protected ItemCommandEvent(String topic, String payload, Object payloadObject, String itemName, Command command,
+            String source) {
+        super(topic, payload, payloadObject, source);
         this.itemName = itemName;
         this.command = command;
     }
@@ -7,9 +7,10 @@
  */
 package org.eclipse.smarthome.core.items.events;
 
-import java.lang.reflect.Method;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.eclipse.smarthome.core.events.AbstractEventFactory;
 import org.eclipse.smarthome.core.events.Event;
@@ -20,6 +21,7 @@ import org.eclipse.smarthome.core.types.Command;
 import org.eclipse.smarthome.core.types.RefreshType;
 import org.eclipse.smarthome.core.types.State;
 import org.eclipse.smarthome.core.types.Type;
+import org.eclipse.smarthome.core.types.TypeParser;
 import org.eclipse.smarthome.core.types.UnDefType;
 
 import com.google.common.base.Preconditions;
@@ -49,12 +51,17 @@ public class ItemEventFactory extends AbstractEventFactory {
 
     private static final String ITEM_UPDATED_EVENT_TOPIC = "smarthome/items/{itemName}/updated";
 
+    /** the types by their simple name, which are resolved once */
+    private final ConcurrentMap<String, Class<? extends Type>> types = new ConcurrentHashMap<>();
+
     /**
      * Constructs a new ItemEventFactory.
      */
     public ItemEventFactory() {
         super(Sets.newHashSet(ItemCommandEvent.TYPE, ItemStateEvent.TYPE, ItemStateChangedEvent.TYPE,
                 ItemAddedEvent.TYPE, ItemUpdatedEvent.TYPE, ItemRemovedEvent.TYPE, GroupItemStateChangedEvent.TYPE));
+        types.put(UnDefType.class.getSimpleName(), UnDefType.class);
+        types.put(RefreshType.class.getSimpleName(), RefreshType.class);
     }
 
     @Override
@@ -142,15 +149,16 @@ public class ItemEventFactory extends AbstractEventFactory {
     }
 
     private Object parse(String typeName, String valueToParse) throws Exception {
-        if (typeName.equals(UnDefType.class.getSimpleName())) {
-            return UnDefType.valueOf(valueToParse);
+        Class<? extends Type> type = types.get(typeName);
+        if (type == null) {
+            type = Class.forName(CORE_LIBRARY_PACKAGE + typeName).asSubclass(Type.class);
+            types.putIfAbsent(typeName, type);
         }
-        if (typeName.equals(RefreshType.class.getSimpleName())) {
-            return RefreshType.valueOf(valueToParse);
+        Type value = TypeParser.parseType(type, valueToParse);
+        if (value == null) {
+            throw new IllegalArgumentException("'" + valueToParse + "' is not a valid value of type " + typeName);
         }
-        Class<?> stateClass = Class.forName(CORE_LIBRARY_PACKAGE + typeName);
-        Method valueOfMethod = stateClass.getMethod("valueOf", String.class);
-        return valueOfMethod.invoke(stateClass, valueToParse);
+        return value;
     }
 
     private Event createAddedEvent(String topic, String payload) {
@@ -186,8 +194,7 @@ public class ItemEventFactory extends AbstractEventFactory {
         assertValidArguments(itemName, command, "command");
         String topic = buildTopic(ITEM_COMAND_EVENT_TOPIC, itemName);
         ItemEventPayloadBean bean = new ItemEventPayloadBean(command.getClass().getSimpleName(), command.toString());
-        String payload = serializePayload(bean);
-        return new ItemCommandEvent(topic, payload, itemName, command, source);
+        return new ItemCommandEvent(topic, null, bean, itemName, command, source);
     }
 
     /**
@@ -219,8 +226,7 @@ public class ItemEventFactory extends AbstractEventFactory {
         assertValidArguments(itemName, state, "state");
         String topic = buildTopic(ITEM_STATE_EVENT_TOPIC, itemName);
         ItemEventPayloadBean bean = new ItemEventPayloadBean(state.getClass().getSimpleName(), state.toString());
-        String payload = serializePayload(bean);
-        return new ItemStateEvent(topic, payload, itemName, state, source);
+        return new ItemStateEvent(topic, null, bean, itemName, state, source);
     }
 
     /**
@@ -254,8 +260,7 @@ public class ItemEventFactory extends AbstractEventFactory {
         ItemStateChangedEventPayloadBean bean = new ItemStateChangedEventPayloadBean(
                 newState.getClass().getSimpleName(), newState.toString(), oldState.getClass().getSimpleName(),
                 oldState.toString());
-        String payload = serializePayload(bean);
-        return new ItemStateChangedEvent(topic, payload, itemName, newState, oldState);
+        return new ItemStateChangedEvent(topic, null, bean, itemName, newState, oldState);
     }
 
     public static GroupItemStateChangedEvent createGroupStateChangedEvent(String itemName, String memberName,
@@ -265,8 +270,7 @@ public class ItemEventFactory extends AbstractEventFactory {
         ItemStateChangedEventPayloadBean bean = new ItemStateChangedEventPayloadBean(
                 newState.getClass().getSimpleName(), newState.toString(), oldState.getClass().getSimpleName(),
                 oldState.toString());
-        String payload = serializePayload(bean);
-        return new GroupItemStateChangedEvent(topic, payload, itemName, memberName, newState, oldState);
+        return new GroupItemStateChangedEvent(topic, null, bean, itemName, memberName, newState, oldState);
     }
 
     /**
@@ -41,7 +41,22 @@ public class ItemStateChangedEvent extends AbstractEvent {
      */
     protected ItemStateChangedEvent(String topic, String payload, String itemName, State newItemState,
             State oldItemState) {
-        super(topic, payload, null);
+        this(topic, payload, null, itemName, newItemState, oldItemState);
+    }
+
+    /**
+     * Constructs a new item state changed event with a lazily serialized payload.
+     *
+     * @param topic the topic
+     * @param payload the payload, can be null if a payload object is given
+     * @param payloadObject the object the payload is serialized from on demand, can be null
+     * @param itemName the item name
+     * @param newItemState the new item state
+     * @param oldItemState the old item state
+     */
+    protected ItemStateChangedEvent(String topic, String payload, Object payloadObject, String itemName,
+            State newItemState, State oldItemState) {
+        super(topic, payload, payloadObject, null);
         this.itemName = itemName;
         this.itemState = newItemState;
         this.oldItemState = oldItemState;
@@ -37,7 +37,22 @@ public class ItemStateEvent extends AbstractEvent {
      * @param source the source, can be null
      */
     protected ItemStateEvent(String topic, String payload, String itemName, State itemState, String source) {
-        super(topic, payload, source);
+        this(topic, payload, null, itemName, itemState, source);
+    }
+
+    /**
+     * Constructs a new item state event with a lazily serialized payload.
+     * 
+     * @param topic the topic
+     * @param payload the payload, can be null if a payload object is given
+     * @param payloadObject the object the payload is serialized from on demand, can be null
+     * @param itemName the item name
+     * @param itemState the item state
+     * @param source the source, can be null
+     */
+    protected ItemStateEvent(String topic, String payload, Object payloadObject, String itemName, State itemState,
+            String source) {
+        super(topic, payload, payloadObject, source);
         this.itemName = itemName;
         this.itemState = itemState;
     }
@@ -10,10 +10,13 @@ package org.eclipse.smarthome.core.library.types;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.regex.Pattern;
 import java.util.regex.Matcher;
 
 import org.eclipse.smarthome.core.items.GroupFunction;
+import org.eclipse.smarthome.core.items.IncrementalGroupFunction;
+import org.eclipse.smarthome.core.items.IncrementalGroupFunction.Accumulator;
 import org.eclipse.smarthome.core.items.Item;
 import org.eclipse.smarthome.core.types.State;
 import org.eclipse.smarthome.core.types.UnDefType;
@@ -37,7 +40,7 @@ public interface ArithmeticGroupFunction extends GroupFunction {
      * @author Kai Kreuzer - Initial contribution and API
      *
      */
-    static class And implements GroupFunction {
+    static class And implements IncrementalGroupFunction {
 
         protected final State activeState;
         protected final State passiveState;
@@ -101,6 +104,19 @@ public interface ArithmeticGroupFunction extends GroupFunction {
             return count;
 
         }
+
+        /**
+         * @{inheritDoc
+         */
+        @Override
+        public Accumulator<Boolean> createAccumulator() {
+            return new StateCountAccumulator(activeState) {
+                @Override
+                public State getState() {
+                    return memberCount > 0 && matchCount == memberCount ? activeState : passiveState;
+                }
+            };
+        }
     }
 
     /**
@@ -113,7 +129,7 @@ public interface ArithmeticGroupFunction extends GroupFunction {
      * @author Kai Kreuzer - Initial contribution and API
      *
      */
-    static class Or implements GroupFunction {
+    static class Or implements IncrementalGroupFunction {
 
         protected final State activeState;
         protected final State passiveState;
@@ -169,6 +185,19 @@ public interface ArithmeticGroupFunction extends GroupFunction {
             }
             return count;
         }
+
+        /**
+         * @{inheritDoc
+         */
+        @Override
+        public Accumulator<Boolean> createAccumulator() {
+            return new StateCountAccumulator(activeState) {
+                @Override
+                public State getState() {
+                    return matchCount > 0 ? activeState : passiveState;
+                }
+            };
+        }
     }
 
     /**
@@ -192,6 +221,16 @@ public interface ArithmeticGroupFunction extends GroupFunction {
             return notResult;
         }
 
+        @Override
+        public Accumulator<Boolean> createAccumulator() {
+            return new StateCountAccumulator(activeState) {
+                @Override
+                public State getState() {
+                    return memberCount > 0 && matchCount == memberCount ? passiveState : activeState;
+                }
+            };
+        }
+
     }
 
     /**
@@ -215,6 +254,16 @@ public interface ArithmeticGroupFunction extends GroupFunction {
             return notResult;
         }
 
+        @Override
+        public Accumulator<Boolean> createAccumulator() {
+            return new StateCountAccumulator(activeState) {
+                @Override
+                public State getState() {
+                    return matchCount > 0 ? passiveState : activeState;
+                }
+            };
+        }
+
     }
 
     /**
@@ -223,7 +272,7 @@ public interface ArithmeticGroupFunction extends GroupFunction {
      * @author Kai Kreuzer - Initial contribution and API
      *
      */
-    static class Avg implements GroupFunction {
+    static class Avg implements IncrementalGroupFunction {
 
         public Avg() {
         }
@@ -233,19 +282,19 @@ public interface ArithmeticGroupFunction extends GroupFunction {
          */
         @Override
         public State calculate(Set<Item> items) {
-            BigDecimal sum = BigDecimal.ZERO;
+            DecimalSum sum = new DecimalSum();
             int count = 0;
             if (items != null) {
                 for (Item item : items) {
                     DecimalType itemState = (DecimalType) item.getStateAs(DecimalType.class);
                     if (itemState != null) {
-                        sum = sum.add(itemState.toBigDecimal());
+                        sum.add(itemState);
                         count++;
                     }
                 }
             }
             if (count > 0) {
-                return new DecimalType(sum.divide(new BigDecimal(count), RoundingMode.HALF_UP));
+                return new DecimalType(sum.toBigDecimal().divide(new BigDecimal(count), RoundingMode.HALF_UP));
             } else {
                 return UnDefType.UNDEF;
             }
@@ -263,6 +312,23 @@ public interface ArithmeticGroupFunction extends GroupFunction {
                 return null;
             }
         }
+
+        /**
+         * @{inheritDoc
+         */
+        @Override
+        public Accumulator<DecimalType> createAccumulator() {
+            return new SumAccumulator() {
+                @Override
+                public State getState() {
+                    if (count > 0) {
+                        return new DecimalType(getSum().divide(new BigDecimal(count), RoundingMode.HALF_UP));
+                    } else {
+                        return UnDefType.UNDEF;
+                    }
+                }
+            };
+        }
     }
 
     /**
@@ -271,7 +337,7 @@ public interface ArithmeticGroupFunction extends GroupFunction {
      * @author Thomas.Eichstaedt-Engelen
      *
      */
-    static class Sum implements GroupFunction {
+    static class Sum implements IncrementalGroupFunction {
 
         public Sum() {
         }
@@ -281,16 +347,16 @@ public interface ArithmeticGroupFunction extends GroupFunction {
          */
         @Override
         public State calculate(Set<Item> items) {
-            BigDecimal sum = BigDecimal.ZERO;
+            DecimalSum sum = new DecimalSum();
             if (items != null) {
                 for (Item item : items) {
                     DecimalType itemState = (DecimalType) item.getStateAs(DecimalType.class);
                     if (itemState != null) {
-                        sum = sum.add(itemState.toBigDecimal());
+                        sum.add(itemState);
                     }
                 }
             }
-            return new DecimalType(sum);
+            return sum.toDecimalType();
         }
 
         /**
@@ -305,6 +371,14 @@ public interface ArithmeticGroupFunction extends GroupFunction {
                 return null;
             }
         }
+
+        /**
+         * @{inheritDoc
+         */
+        @Override
+        public Accumulator<DecimalType> createAccumulator() {
+            return new SumAccumulator();
+        }
     }
 
     /**
@@ -313,7 +387,7 @@ public interface ArithmeticGroupFunction extends GroupFunction {
      * @author Kai Kreuzer - Initial contribution and API
      *
      */
-    static class Min implements GroupFunction {
+    static class Min implements IncrementalGroupFunction {
 
         public Min() {
         }
@@ -352,6 +426,19 @@ public interface ArithmeticGroupFunction extends GroupFunction {
                 return null;
             }
         }
+
+        /**
+         * @{inheritDoc
+         */
+        @Override
+        public Accumulator<BigDecimal> createAccumulator() {
+            return new ValueSetAccumulator() {
+                @Override
+                public State getState() {
+                    return values.isEmpty() ? UnDefType.UNDEF : new DecimalType(values.firstKey());
+                }
+            };
+        }
     }
 
     /**
@@ -360,7 +447,7 @@ public interface ArithmeticGroupFunction extends GroupFunction {
      * @author Kai Kreuzer - Initial contribution and API
      *
      */
-    static class Max implements GroupFunction {
+    static class Max implements IncrementalGroupFunction {
 
         public Max() {
         }
@@ -399,6 +486,19 @@ public interface ArithmeticGroupFunction extends GroupFunction {
                 return null;
             }
         }
+
+        /**
+         * @{inheritDoc
+         */
+        @Override
+        public Accumulator<BigDecimal> createAccumulator() {
+            return new ValueSetAccumulator() {
+                @Override
+                public State getState() {
+                    return values.isEmpty() ? UnDefType.UNDEF : new DecimalType(values.lastKey());
+                }
+            };
+        }
     }
     
 	/**
@@ -411,7 +511,7 @@ public interface ArithmeticGroupFunction extends GroupFunction {
 	 * @author Gaël L'hopital
 	 *
 	 */
-	static class Count implements GroupFunction {
+	static class Count implements IncrementalGroupFunction {
 		
 		protected final Pattern pattern;
 		
@@ -450,7 +550,160 @@ public interface ArithmeticGroupFunction extends GroupFunction {
 				return null;
 			}
 		}
+
+		/**
+		 * @{inheritDoc
+		 */
+		@Override
+		public Accumulator<Boolean> createAccumulator() {
+			return new CountAccumulator() {
+				@Override
+				protected boolean matches(Item member) {
+					return pattern.matcher(member.getState().toString()).matches();
+				}
+
+				@Override
+				public State getState() {
+					return new DecimalType(matchCount);
+				}
+			};
+		}
 	}
 
+    /**
+     * Counts the members and the members matching a condition, for the incremental calculation of the group state.
+     */
+    static abstract class CountAccumulator implements Accumulator<Boolean> {
+
+        protected int memberCount;
+        protected int matchCount;
+
+        @Override
+        public Boolean add(Item member) {
+            boolean matches = matches(member);
+            memberCount++;
+            if (matches) {
+                matchCount++;
+            }
+            return matches;
+        }
+
+        @Override
+        public void remove(Boolean matches) {
+            memberCount--;
+            if (matches) {
+                matchCount--;
+            }
+        }
+
+        protected abstract boolean matches(Item member);
+    }
+
+    /**
+     * Counts the members and the members being in a given state.
+     */
+    static abstract class StateCountAccumulator extends CountAccumulator {
+
+        private final State state;
+
+        protected StateCountAccumulator(State state) {
+            this.state = state;
+        }
+
+        @Override
+        protected boolean matches(Item member) {
+            return state.equals(member.getStateAs(state.getClass()));
+        }
+    }
+
+    /**
+     * Keeps the running sum and count of all member states of decimal type.
+     */
+    static class SumAccumulator implements Accumulator<DecimalType> {
+
+        private final DecimalSum sum = new DecimalSum();
+        protected int count;
+
+        // the number of values per scale, as the sum must have the scale of the current values only
+        private final TreeMap<Integer, Integer> scales = new TreeMap<Integer, Integer>();
+
+        @Override
+        public DecimalType add(Item member) {
+            DecimalType value = (DecimalType) member.getStateAs(DecimalType.class);
+            if (value == null) {
+                return null;
+            }
+            sum.add(value);
+            count++;
+            Integer scaleCount = scales.get(value.scale());
+            scales.put(value.scale(), scaleCount == null ? 1 : scaleCount + 1);
+            return value;
+        }
+
+        @Override
+        public void remove(DecimalType value) {
+            if (value != null) {
+                sum.subtract(value);
+                count--;
+                Integer scaleCount = scales.get(value.scale());
+                if (scaleCount == null || scaleCount <= 1) {
+                    scales.remove(value.scale());
+                } else {
+                    scales.put(value.scale(), scaleCount - 1);
+                }
+            }
+        }
+
+        /**
+         * Returns the sum with the same scale as a sum calculated over the current values only.
+         *
+         * @return the sum
+         */
+        protected BigDecimal getSum() {
+            int scale = scales.isEmpty() ? 0 : Math.max(0, scales.lastKey());
+            // the sum is exact, so the digits beyond the scale of the current values are zero
+            return sum.toBigDecimal().setScale(scale, RoundingMode.UNNECESSARY);
+        }
+
+        @Override
+        public State getState() {
+            return new DecimalType(getSum());
+        }
+    }
+
+    /**
+     * Keeps all member states of decimal type in order, so that the minimum and maximum are available at any time.
+     */
+    static abstract class ValueSetAccumulator implements Accumulator<BigDecimal> {
+
+        // the number of members per value
+        protected final TreeMap<BigDecimal, Integer> values = new TreeMap<BigDecimal, Integer>();
+
+        @Override
+        public BigDecimal add(Item member) {
+            DecimalType itemState = (DecimalType) member.getStateAs(DecimalType.class);
+            if (itemState == null) {
+                return null;
+            }
+            BigDecimal value = itemState.toBigDecimal();
+            Integer count = values.get(value);
+            values.put(value, count == null ? 1 : count + 1);
+            return value;
+        }
+
+        @Override
+        public void remove(BigDecimal value) {
+            if (value == null) {
+                return;
+            }
+            // the values are compared by their numeric value, regardless of their scale
+            Integer count = values.get(value);
+            if (count == null || count <= 1) {
+                values.remove(value);
+            } else {
+                values.put(value, count - 1);
+            }
+        }
+    }
 
 }
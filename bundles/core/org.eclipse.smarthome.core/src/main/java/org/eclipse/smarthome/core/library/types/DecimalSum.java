@@ -0,0 +1,81 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.core.library.types;
+
+import java.math.BigDecimal;
+
+/**
+ * The {@link DecimalSum} sums up {@link DecimalType}s. As long as all values are integers held as a long and the sum
+ * does not overflow, it is calculated on a long; otherwise it switches to a BigDecimal. The result is the same as
+ * adding up the values with {@link BigDecimal#add(BigDecimal)}.
+ * <p>
+ * This class is not thread-safe. It is internal to the group functions, as it depends on the long representation of
+ * {@link DecimalType}.
+ *
+ * @author agent - Initial contribution and API
+ *
+ */
+class DecimalSum {
+
+    private long longSum;
+
+    /** the sum, once it can no longer be held as a long */
+    private BigDecimal bigSum;
+
+    /**
+     * Adds a value to the sum.
+     *
+     * @param value the value to add
+     */
+    void add(DecimalType value) {
+        if (bigSum == null && value.isLong()) {
+            long summand = value.longValue();
+            long result = longSum + summand;
+            // the sum overflows if both operands have a different sign than the result
+            if (((longSum ^ result) & (summand ^ result)) >= 0) {
+                longSum = result;
+                return;
+            }
+        }
+        bigSum = toBigDecimal().add(value.toBigDecimal());
+    }
+
+    /**
+     * Subtracts a value from the sum.
+     *
+     * @param value the value to subtract
+     */
+    void subtract(DecimalType value) {
+        if (bigSum == null && value.isLong()) {
+            long subtrahend = value.longValue();
+            long result = longSum - subtrahend;
+            // the difference overflows if the operands have different signs and the result has the sign of the
+            // subtrahend
+            if (((longSum ^ subtrahend) & (longSum ^ result)) >= 0) {
+                longSum = result;
+                return;
+            }
+        }
+        bigSum = toBigDecimal().subtract(value.toBigDecimal());
+    }
+
+    /**
+     * @return the sum
+     */
+    BigDecimal toBigDecimal() {
+        return bigSum != null ? bigSum : BigDecimal.valueOf(longSum);
+    }
+
+    /**
+     * @return the sum as a {@link DecimalType}
+     */
+    DecimalType toDecimalType() {
+        return bigSum != null ? new DecimalType(bigSum) : new DecimalType(longSum);
+    }
+
+}
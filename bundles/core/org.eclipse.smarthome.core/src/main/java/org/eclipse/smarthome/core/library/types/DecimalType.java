@@ -8,6 +8,7 @@
 package org.eclipse.smarthome.core.library.types;
 
 import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.util.IllegalFormatConversionException;
 
 import org.eclipse.smarthome.core.types.Command;
@@ -17,6 +18,9 @@ import org.eclipse.smarthome.core.types.State;
 /**
  * The decimal type uses a BigDecimal internally and thus can be used for
  * integers, longs and floating point numbers alike.
+ * <p>
+ * Integer values which fit into a long are additionally kept as a long, so that the common integer states are cheap to
+ * parse, compare, hash and print. The {@link #value} is always set, also for these values.
  *
  * @author Kai Kreuzer - Initial contribution and API
  *
@@ -25,12 +29,35 @@ public class DecimalType extends Number implements PrimitiveType, State, Command
 
     private static final long serialVersionUID = 4226845847123464690L;
 
+    /** integer strings up to this number of digits always fit into a long */
+    private static final int MAX_LONG_DIGITS = 18;
+
+    private static final int CACHE_SIZE = 256;
+
     final static public DecimalType ZERO = new DecimalType(0);
 
+    private static final DecimalType[] CACHE = new DecimalType[CACHE_SIZE];
+
+    static {
+        CACHE[0] = ZERO;
+        for (int i = 1; i < CACHE_SIZE; i++) {
+            CACHE[i] = new DecimalType(i);
+        }
+    }
+
     protected BigDecimal value;
 
+    /**
+     * the value as a long, which is valid as long as {@link #value} is still the instance set together with it; a
+     * subclass which assigns another value switches this instance back to the BigDecimal operations
+     */
+    private transient long longValue;
+
+    /** the instance of {@link #value} which has been created for {@link #longValue}, null if there is none */
+    private transient BigDecimal longBigDecimal;
+
     public DecimalType() {
-        this.value = BigDecimal.ZERO;
+        setLongValue(0);
     }
 
     public DecimalType(BigDecimal value) {
@@ -38,32 +65,98 @@ public class DecimalType extends Number implements PrimitiveType, State, Command
     }
 
     public DecimalType(long value) {
-        this.value = new BigDecimal(value);
+        setLongValue(value);
     }
 
     public DecimalType(double value) {
-        this.value = new BigDecimal(value);
+        if (value == Math.rint(value) && Math.abs(value) < Long.MAX_VALUE) {
+            setLongValue((long) value);
+        } else {
+            this.value = new BigDecimal(value);
+        }
     }
 
     public DecimalType(String value) {
-        this.value = new BigDecimal(value);
+        if (isLongLiteral(value)) {
+            setLongValue(Long.parseLong(value));
+        } else {
+            this.value = new BigDecimal(value);
+        }
+    }
+
+    private void setLongValue(long value) {
+        this.longValue = value;
+        this.value = BigDecimal.valueOf(value);
+        this.longBigDecimal = this.value;
     }
 
     @Override
     public String toString() {
-        return value.toPlainString();
+        return isLong() ? Long.toString(longValue) : value.toPlainString();
     }
 
     public static DecimalType valueOf(String value) {
+        if (isLongLiteral(value)) {
+            return valueOf(Long.parseLong(value));
+        }
+        return new DecimalType(value);
+    }
+
+    /**
+     * Returns a {@link DecimalType} for the given integer value. Small non-negative values are shared instances.
+     *
+     * @param value the value
+     * @return the decimal type
+     */
+    public static DecimalType valueOf(long value) {
+        if (value >= 0 && value < CACHE_SIZE) {
+            return CACHE[(int) value];
+        }
         return new DecimalType(value);
     }
 
+    /**
+     * Checks whether the given string is an integer which can be parsed into a long, with the same result as parsing
+     * it into a BigDecimal.
+     */
+    static boolean isLongLiteral(String value) {
+        if (value == null) {
+            return false;
+        }
+        int length = value.length();
+        int start = length > 0 && (value.charAt(0) == '-' || value.charAt(0) == '+') ? 1 : 0;
+        if (length == start || length - start > MAX_LONG_DIGITS) {
+            return false;
+        }
+        for (int i = start; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the value is held as a long, which then is returned by {@link #longValue()}
+     */
+    boolean isLong() {
+        return longBigDecimal != null && value == longBigDecimal;
+    }
+
+    /**
+     * @return the scale the BigDecimal of this value has
+     */
+    int scale() {
+        return isLong() ? 0 : value.scale();
+    }
+
     @Override
     public String format(String pattern) {
         // The value could be an integer value. Try to convert to BigInteger in
         // order to have access to more conversion formats.
         try {
-            return String.format(pattern, value.toBigIntegerExact());
+            return String.format(pattern, isLong() ? BigInteger.valueOf(longValue) : value.toBigIntegerExact());
         } catch (ArithmeticException ae) {
             // Could not convert to integer value without loss of
             // information. Fall through to default behavior.
@@ -73,7 +166,7 @@ public class DecimalType extends Number implements PrimitiveType, State, Command
             // integer. Fall through to default behavior.
         }
 
-        return String.format(pattern, value);
+        return String.format(pattern, toBigDecimal());
     }
 
     public BigDecimal toBigDecimal() {
@@ -82,10 +175,23 @@ public class DecimalType extends Number implements PrimitiveType, State, Command
 
     @Override
     public int hashCode() {
-        final int prime = 31;
-        int result = 1;
-        result = prime * result + ((value == null) ? 0 : value.hashCode());
-        return result;
+        // equal values must have the same hash code regardless of their scale and representation
+        if (isLong()) {
+            return hashCode(longValue);
+        }
+        if (value.signum() == 0) {
+            return hashCode(0);
+        }
+        BigDecimal stripped = value.stripTrailingZeros();
+        // every integer which fits into a long is hashed like a long value
+        if (stripped.scale() <= 0 && stripped.toBigInteger().bitLength() < 64) {
+            return hashCode(stripped.longValue());
+        }
+        return stripped.hashCode();
+    }
+
+    private static int hashCode(long value) {
+        return 31 + (int) (value ^ (value >>> 32));
     }
 
     @Override
@@ -97,36 +203,34 @@ public class DecimalType extends Number implements PrimitiveType, State, Command
         if (!(obj instanceof DecimalType))
             return false;
         DecimalType other = (DecimalType) obj;
-        if (value == null) {
-            if (other.value != null)
-                return false;
-        } else if (value.compareTo(other.value) != 0)
-            return false;
-        return true;
+        return compareTo(other) == 0;
     }
 
     @Override
     public int compareTo(DecimalType o) {
-        return value.compareTo(o.toBigDecimal());
+        if (isLong() && o.isLong()) {
+            return longValue < o.longValue ? -1 : (longValue == o.longValue ? 0 : 1);
+        }
+        return toBigDecimal().compareTo(o.toBigDecimal());
     }
 
     @Override
     public double doubleValue() {
-        return value.doubleValue();
+        return isLong() ? (double) longValue : value.doubleValue();
     }
 
     @Override
     public float floatValue() {
-        return value.floatValue();
+        return isLong() ? (float) longValue : value.floatValue();
     }
 
     @Override
     public int intValue() {
-        return value.intValue();
+        return isLong() ? (int) longValue : value.intValue();
     }
 
     @Override
     public long longValue() {
-        return value.longValue();
+        return isLong() ? longValue : value.longValue();
     }
 }
@@ -19,36 +19,71 @@ public class PercentType extends DecimalType {
 
     private static final long serialVersionUID = -9066279845951780879L;
 
+    private static final BigDecimal MAX_VALUE = BigDecimal.valueOf(100);
+
     final static public PercentType ZERO = new PercentType(0);
     final static public PercentType HUNDRED = new PercentType(100);
 
+    private static final PercentType[] CACHE = new PercentType[101];
+
+    static {
+        CACHE[0] = ZERO;
+        for (int i = 1; i < 100; i++) {
+            CACHE[i] = new PercentType(i);
+        }
+        CACHE[100] = HUNDRED;
+    }
+
     public PercentType() {
         super();
     }
 
     public PercentType(int value) {
         super(value);
-        validateValue(this.value);
+        validateValue();
     }
 
     public PercentType(String value) {
         super(value);
-        validateValue(this.value);
+        validateValue();
     }
 
     public PercentType(BigDecimal value) {
         super(value);
-        validateValue(this.value);
+        validateValue();
     }
 
-    private void validateValue(BigDecimal value) {
-        if (BigDecimal.ZERO.compareTo(value) > 0 || new BigDecimal(100).compareTo(value) < 0) {
+    private void validateValue() {
+        boolean valid;
+        if (isLong()) {
+            valid = longValue() >= 0 && longValue() <= 100;
+        } else {
+            valid = BigDecimal.ZERO.compareTo(toBigDecimal()) <= 0 && MAX_VALUE.compareTo(toBigDecimal()) >= 0;
+        }
+        if (!valid) {
             throw new IllegalArgumentException("Value must be between 0 and 100");
         }
     }
 
     public static PercentType valueOf(String value) {
+        if (isLongLiteral(value)) {
+            return valueOf(Long.parseLong(value));
+        }
         return new PercentType(value);
     }
 
+    /**
+     * Returns a {@link PercentType} for the given integer value. All valid integer values are shared instances.
+     *
+     * @param value the value between 0 and 100
+     * @return the percent type
+     * @throws IllegalArgumentException if the value is not between 0 and 100
+     */
+    public static PercentType valueOf(long value) {
+        if (value < 0 || value > 100) {
+            throw new IllegalArgumentException("Value must be between 0 and 100");
+        }
+        return CACHE[(int) value];
+    }
+
 }
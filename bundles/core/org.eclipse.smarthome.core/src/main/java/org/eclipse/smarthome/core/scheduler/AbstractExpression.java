@@ -38,6 +38,8 @@ public abstract class AbstractExpression<E extends AbstractExpressionPart> imple
 
     private boolean continueSearch;
     private ArrayList<Date> candidates = new ArrayList<Date>();
+    /** true if candidates have been dropped because of the maximum number of candidates */
+    private boolean candidatesTruncated;
     private Date startDate = null;
     private TimeZone timeZone = null;
 
@@ -138,6 +140,7 @@ public abstract class AbstractExpression<E extends AbstractExpressionPart> imple
 
         setExpressionParts(new ArrayList<E>());
         setCandidates(new ArrayList<Date>());
+        candidatesTruncated = false;
 
         while (expressionTokenizer.hasMoreTokens()) {
             String token = expressionTokenizer.nextToken().trim();
@@ -163,6 +166,9 @@ public abstract class AbstractExpression<E extends AbstractExpressionPart> imple
             continueSearch = false;
         }
 
+        // keep the candidates sorted, so that the next candidate can be looked up by a binary search
+        Collections.sort(getCandidates());
+
         for (Date aDate : getCandidates()) {
             logger.trace("Final candidate {} is {}", getCandidates().indexOf(aDate), aDate);
         }
@@ -202,28 +208,30 @@ public abstract class AbstractExpression<E extends AbstractExpressionPart> imple
             for (int i = maximumCandidates; i < size; i++) {
                 getCandidates().remove(getCandidates().size() - 1);
             }
+            candidatesTruncated = true;
         }
     }
 
     @Override
-    public Date getTimeAfter(Date afterTime) {
-        if (getCandidates().isEmpty()) {
+    public synchronized Date getTimeAfter(Date afterTime) {
+        // the candidates only have to be calculated again if there are none, or if all of them have passed while
+        // further ones have been dropped
+        if (getCandidates().isEmpty() || (candidatesTruncated
+                && !getCandidates().get(getCandidates().size() - 1).after(afterTime))) {
             try {
                 setStartDate(afterTime);
-                parseExpression(expression);
             } catch (ParseException e) {
                 logger.error("An exception occurred while parsing the expression : '{}'", e.getMessage());
             }
         }
 
-        if (!getCandidates().isEmpty()) {
-
-            Collections.sort(getCandidates());
-
-            for (Date candidate : getCandidates()) {
-                if (candidate.after(afterTime)) {
-                    return candidate;
-                }
+        ArrayList<Date> sortedCandidates = getCandidates();
+        int index = Collections.binarySearch(sortedCandidates, afterTime);
+        index = index < 0 ? -index - 1 : index;
+        for (; index < sortedCandidates.size(); index++) {
+            Date candidate = sortedCandidates.get(index);
+            if (candidate.after(afterTime)) {
+                return candidate;
             }
         }
 
@@ -7,13 +7,9 @@
  */
 package org.eclipse.smarthome.core.scheduler;
 
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Date;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.RejectedExecutionException;
@@ -67,14 +63,17 @@ public class ExpressionThreadPoolManager extends ThreadPoolManager {
         }
     }
 
+    /**
+     * A {@link ScheduledThreadPoolExecutor} which can additionally run tasks at the times defined by an
+     * {@link Expression}.
+     * <p>
+     * Only the next execution of each expression is scheduled, so the delay queue of the executor holds the next fire
+     * times of all expressions in order. When an expression fires, its following fire time is computed from the
+     * current one and scheduled, before the task is run.
+     */
     public static class ExpressionThreadPoolExecutor extends ScheduledThreadPoolExecutor {
 
-        private List<Runnable> running = Collections.synchronizedList(new ArrayList<Runnable>());
-        private Map<Expression, Runnable> scheduled = Collections.synchronizedMap(new HashMap<Expression, Runnable>());
-        private Map<Runnable, Future<?>> futures = Collections.synchronizedMap(new HashMap<Runnable, Future<?>>());
-        private Map<Future<?>, Date> timestamps = Collections.synchronizedMap(new HashMap<Future<?>, Date>());
-        private Thread monitor;
-        private NamedThreadFactory monitorThreadFactory;
+        private final ConcurrentMap<Expression, ScheduledExpression> scheduled = new ConcurrentHashMap<>();
 
         public ExpressionThreadPoolExecutor(final String poolName, int corePoolSize) {
             this(poolName, corePoolSize, new NamedThreadFactory(poolName), new ThreadPoolExecutor.DiscardPolicy() {
@@ -92,153 +91,113 @@ public class ExpressionThreadPoolManager extends ThreadPoolManager {
         public ExpressionThreadPoolExecutor(String threadPool, int corePoolSize, NamedThreadFactory threadFactory,
                 RejectedExecutionHandler rejectedHandler) {
             super(corePoolSize, threadFactory, rejectedHandler);
-            this.monitorThreadFactory = new NamedThreadFactory(threadFactory.getName() + "-" + "Monitor");
-        }
-
-        @Override
-        protected void beforeExecute(Thread thread, Runnable runnable) {
-            super.beforeExecute(thread, runnable);
-            running.add(runnable);
-        }
-
-        @Override
-        protected void afterExecute(Runnable runnable, Throwable throwable) {
-            super.afterExecute(runnable, throwable);
-            running.remove(runnable);
-            Future<?> future = futures.remove(runnable);
-            timestamps.remove(future);
-            if (throwable != null) {
-                Throwable cause = throwable.getCause();
-                if (cause instanceof InterruptedException) {
-                    // Ignore this, might happen when we shutdownNow() the executor. We can't
-                    // log at this point as the logging system might be stopped already.
-                    return;
-                }
-            }
         }
 
-        Runnable monitorTask = new Runnable() {
-
-            @Override
-            public void run() {
-                logger.trace("Starting the monitor thread '{}'", Thread.currentThread().getName());
-                while (true) {
-                    try {
-                        Date firstExecution = null;
-                        Date now = new Date();
-
-                        List<Expression> finishedExpressions = new ArrayList<Expression>();
-
-                        for (Expression e : scheduled.keySet()) {
-                            Date time = e.getTimeAfter(now);
-
-                            if (time != null) {
-                                logger.trace("Expression's '{}' next execution time is {}", e.toString(),
-                                        time.toString());
-
-                                Runnable task = scheduled.get(e);
-
-                                if (task != null) {
-                                    Future<?> future = futures.get(task);
-
-                                    boolean schedule = false;
-
-                                    if (future == null) {
-                                        schedule = true;
-                                    } else {
-                                        Date timestamp = timestamps.get(future);
-                                        if (time.after(timestamp)) {
-                                            schedule = true;
-                                        } else {
-                                            logger.trace("The task '{}' is already scheduled to execute in {} ms",
-                                                    task.toString(), time.getTime() - now.getTime());
-                                        }
-                                    }
-
-                                    if (schedule) {
-                                        logger.trace("Scheduling the task '{}' to execute in {} ms", task.toString(),
-                                                time.getTime() - now.getTime());
-                                        futures.put(task, ExpressionThreadPoolExecutor.this.schedule(task,
-                                                time.getTime() - now.getTime(), TimeUnit.MILLISECONDS));
-                                        timestamps.put(futures.get(task), time);
-                                    }
-                                } else {
-                                    logger.trace("Expressions without tasks are not valid");
-                                }
-
-                                if (firstExecution == null) {
-                                    firstExecution = time;
-                                } else {
-                                    if (time.before(firstExecution)) {
-                                        firstExecution = time;
-                                    }
-                                }
-
-                            } else {
-                                logger.info("Expression '{}' has no future executions anymore", e.toString());
-                                finishedExpressions.add(e);
-                            }
-                        }
-
-                        for (Expression e : finishedExpressions) {
-                            scheduled.remove(e);
-                        }
-
-                        if (firstExecution != null) {
-                            while (now.before(firstExecution)) {
-                                logger.trace("Putting the monitor thread '{}' to sleep for {} ms",
-                                        Thread.currentThread().getName(), firstExecution.getTime() - now.getTime());
-                                Thread.sleep(firstExecution.getTime() - now.getTime());
-                                now = new Date();
-                            }
-
-                        } else {
-                            logger.trace("Putting the monitor thread '{}' to sleep for {} ms",
-                                    Thread.currentThread().getName(), THREAD_MONITOR_SLEEP);
-                            Thread.sleep(THREAD_MONITOR_SLEEP);
-                        }
-                    } catch (RejectedExecutionException ex) {
-                        logger.error("The executor has already shutdown : '{}'", ex.getMessage());
-                    } catch (CancellationException ex) {
-                        logger.error("Non executed tasks are cancelled : '{}'", ex.getMessage());
-                    } catch (InterruptedException ex) {
-                        logger.trace("The monitor thread as interrupted : '{}'", ex.getMessage());
-                    }
-                }
-            }
-        };
-
         public void schedule(final Runnable task, final Expression expression) {
             if (task == null || expression == null) {
                 throw new NullPointerException();
             }
 
-            if (monitor == null) {
-                monitor = monitorThreadFactory.newThread(monitorTask);
-                monitor.start();
+            ScheduledExpression scheduledExpression = new ScheduledExpression(task, expression);
+            ScheduledExpression previous = scheduled.put(expression, scheduledExpression);
+            if (previous != null) {
+                previous.cancel();
             }
-
-            scheduled.put(expression, task);
-            monitor.interrupt();
+            scheduledExpression.scheduleAfter(new Date());
         }
 
         @Override
         public boolean remove(Runnable task) {
-            if (futures.get(task) != null && futures.get(task).cancel(false)) {
-                running.remove(task);
+            boolean removed = false;
+            for (ScheduledExpression scheduledExpression : scheduled.values()) {
+                if (scheduledExpression.task.equals(task)
+                        && scheduled.remove(scheduledExpression.expression, scheduledExpression)) {
+                    scheduledExpression.cancel();
+                    removed = true;
+                }
             }
-            futures.remove(task);
-            return super.remove(task);
+            return super.remove(task) || removed;
         }
 
         public boolean remove(Expression expression) {
-            Runnable task = scheduled.remove(expression);
+            ScheduledExpression scheduledExpression = scheduled.remove(expression);
 
-            if (task != null) {
-                return remove(task);
+            if (scheduledExpression != null) {
+                scheduledExpression.cancel();
+                return true;
             } else {
                 return false;
             }
         }
+
+        /**
+         * The task of an expression, scheduled for the next fire time of the expression.
+         */
+        private class ScheduledExpression implements Runnable {
+
+            private final Runnable task;
+            private final Expression expression;
+
+            /** guarded by this, as well as the future */
+            private Date fireTime;
+            private Future<?> future;
+            private boolean cancelled;
+
+            private ScheduledExpression(Runnable task, Expression expression) {
+                this.task = task;
+                this.expression = expression;
+            }
+
+            /**
+             * Schedules the task for the first fire time of the expression after the given time.
+             *
+             * @param afterTime the time after which the task should fire
+             */
+            private synchronized void scheduleAfter(Date afterTime) {
+                if (cancelled) {
+                    return;
+                }
+
+                Date time = expression.getTimeAfter(afterTime);
+                if (time == null) {
+                    logger.info("Expression '{}' has no future executions anymore", expression.toString());
+                    scheduled.remove(expression, this);
+                    return;
+                }
+
+                long delay = Math.max(0, time.getTime() - System.currentTimeMillis());
+                logger.trace("Scheduling the task '{}' to execute in {} ms", task.toString(), delay);
+                fireTime = time;
+                try {
+                    future = ExpressionThreadPoolExecutor.this.schedule(this, delay, TimeUnit.MILLISECONDS);
+                } catch (RejectedExecutionException ex) {
+                    logger.error("The executor has already shutdown : '{}'", ex.getMessage());
+                }
+            }
+
+            private synchronized void cancel() {
+                cancelled = true;
+                if (future != null) {
+                    future.cancel(false);
+                }
+            }
+
+            @Override
+            public void run() {
+                Date time;
+                synchronized (this) {
+                    if (cancelled) {
+                        return;
+                    }
+                    time = fireTime;
+                }
+
+                // fire times which have been missed while the pool was busy are skipped
+                Date now = new Date();
+                scheduleAfter(now.after(time) ? now : time);
+
+                task.run();
+            }
+        }
     }
 }
@@ -0,0 +1,44 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.core.storage;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * A {@link Storage} which is able to persist several changes together. Implementing this interface is optional, users
+ * of a storage have to check for it and fall back to the single operations of the {@link Storage} otherwise.
+ *
+ * @author agent - Initial contribution and API
+ */
+public interface BatchStorage<T> extends Storage<T> {
+
+    /**
+     * Puts all given key-value mappings into this Storage. They are persisted together, which is considerably cheaper
+     * than calling {@link #put(String, Object)} for every single mapping.
+     *
+     * @param entries the key-value mappings to add
+     */
+    void putAll(Map<String, T> entries);
+
+    /**
+     * Removes the mappings of all given keys from this Storage. The removal is persisted together, which is
+     * considerably cheaper than calling {@link #remove(String)} for every single key.
+     *
+     * @param keys the keys of the mappings to remove
+     * @return the removed mappings, keys without a mapping are not contained
+     */
+    Map<String, T> removeAll(Collection<String> keys);
+
+    /**
+     * Makes sure that all changes done so far are persisted. Storages which write every change immediately do not
+     * need to do anything here.
+     */
+    void flush();
+
+}
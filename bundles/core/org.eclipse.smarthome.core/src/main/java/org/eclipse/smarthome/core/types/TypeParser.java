@@ -9,16 +9,54 @@ package org.eclipse.smarthome.core.types;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * This is a helper class that helps parsing a string into an openHAB type (state or command).
+ * <p>
+ * The static <code>valueOf(String)</code> method of each type is looked up only once. Enum types are parsed by a
+ * lookup of the constant name, so that values which are not valid for them do not cause an exception.
  *
  * @author Kai Kreuzer - Initial contribution and API
  *
  */
 public class TypeParser {
 
+    private static final ValueParser NO_PARSER = new ValueParser() {
+        @Override
+        public Type parse(String s) {
+            return null;
+        }
+    };
+
+    private static final ClassValue<ValueParser> PARSERS = new ClassValue<ValueParser>() {
+        @Override
+        protected ValueParser computeValue(Class<?> type) {
+            if (type.isEnum()) {
+                return new EnumParser(type.getEnumConstants());
+            }
+            try {
+                return new ValueOfParser(type.getMethod("valueOf", String.class));
+            } catch (NoSuchMethodException e) {
+                return NO_PARSER;
+            }
+        }
+    };
+
+    /**
+     * Determines a value of the given type from a string.
+     *
+     * @param type the type of the value
+     * @param s the string to parse
+     * @return the corresponding instance of the type or <code>null</code>, if the string is not a valid value of the
+     *         type
+     */
+    public static Type parseType(Class<? extends Type> type, String s) {
+        return PARSERS.get(type).parse(s);
+    }
+
     /**
      * <p>
      * Determines a state from a string. Possible state types are passed as a parameter. Note that the order matters
@@ -35,16 +73,9 @@ public class TypeParser {
      */
     public static State parseState(List<Class<? extends State>> types, String s) {
         for (Class<? extends Type> type : types) {
-            try {
-                Method valueOf = type.getMethod("valueOf", String.class);
-                State state = (State) valueOf.invoke(type, s);
-                if (state != null)
-                    return state;
-            } catch (NoSuchMethodException e) {
-            } catch (IllegalArgumentException e) {
-            } catch (IllegalAccessException e) {
-            } catch (InvocationTargetException e) {
-            }
+            State state = (State) parseType(type, s);
+            if (state != null)
+                return state;
         }
         return null;
     }
@@ -65,17 +96,56 @@ public class TypeParser {
      */
     public static Command parseCommand(List<Class<? extends Command>> types, String s) {
         for (Class<? extends Command> type : types) {
+            Command value = (Command) parseType(type, s);
+            if (value != null)
+                return value;
+        }
+        return null;
+    }
+
+    private interface ValueParser {
+        Type parse(String s);
+    }
+
+    /**
+     * Parses the constant names of an enum type, which is what the <code>valueOf(String)</code> method of an enum does.
+     */
+    private static class EnumParser implements ValueParser {
+
+        private final Map<String, Type> constants = new HashMap<>();
+
+        private EnumParser(Object[] constants) {
+            for (Object constant : constants) {
+                if (constant instanceof Type) {
+                    this.constants.put(((Enum<?>) constant).name(), (Type) constant);
+                }
+            }
+        }
+
+        @Override
+        public Type parse(String s) {
+            return constants.get(s);
+        }
+    }
+
+    private static class ValueOfParser implements ValueParser {
+
+        private final Method valueOf;
+
+        private ValueOfParser(Method valueOf) {
+            this.valueOf = valueOf;
+        }
+
+        @Override
+        public Type parse(String s) {
             try {
-                Method valueOf = type.getMethod("valueOf", String.class);
-                Command value = (Command) valueOf.invoke(type, s);
-                if (value != null)
-                    return value;
-            } catch (NoSuchMethodException e) {
+                return (Type) valueOf.invoke(null, s);
             } catch (IllegalArgumentException e) {
             } catch (IllegalAccessException e) {
             } catch (InvocationTargetException e) {
+            } catch (ClassCastException e) {
             }
+            return null;
         }
-        return null;
     }
 }
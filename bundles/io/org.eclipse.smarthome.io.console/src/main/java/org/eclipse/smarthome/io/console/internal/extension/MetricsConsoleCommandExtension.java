@@ -0,0 +1,67 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.io.console.internal.extension;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.eclipse.smarthome.core.common.MetricsProvider;
+import org.eclipse.smarthome.io.console.Console;
+import org.eclipse.smarthome.io.console.extensions.AbstractConsoleCommandExtension;
+
+/**
+ * Console command extension to show the runtime statistics of all {@link MetricsProvider}s
+ *
+ * @author agent - Initial contribution
+ */
+public class MetricsConsoleCommandExtension extends AbstractConsoleCommandExtension {
+
+    private final List<MetricsProvider> metricsProviders = new CopyOnWriteArrayList<MetricsProvider>();
+
+    public MetricsConsoleCommandExtension() {
+        super("metrics", "Access the runtime statistics, e.g. of the event bus, the rules and the persistence.");
+    }
+
+    @Override
+    public List<String> getUsages() {
+        return Arrays.asList(buildCommandUsage("shows all available statistics"),
+                buildCommandUsage("<name>", "shows the statistics with the given name, e.g. 'events'"));
+    }
+
+    @Override
+    public void execute(String[] args, Console console) {
+        if (args.length > 1) {
+            printUsage(console);
+            return;
+        }
+        String name = args.length == 1 ? args[0] : null;
+        boolean found = false;
+        for (MetricsProvider metricsProvider : metricsProviders) {
+            if (name == null || name.equals(metricsProvider.getMetricsName())) {
+                found = true;
+                console.println(metricsProvider.getMetricsName() + ":");
+                for (String line : metricsProvider.getMetrics()) {
+                    console.println("  " + line);
+                }
+            }
+        }
+        if (!found) {
+            console.println(name == null ? "No statistics available." : "No statistics named '" + name + "' found.");
+        }
+    }
+
+    protected void addMetricsProvider(MetricsProvider metricsProvider) {
+        metricsProviders.add(metricsProvider);
+    }
+
+    protected void removeMetricsProvider(MetricsProvider metricsProvider) {
+        metricsProviders.remove(metricsProvider);
+    }
+
+}
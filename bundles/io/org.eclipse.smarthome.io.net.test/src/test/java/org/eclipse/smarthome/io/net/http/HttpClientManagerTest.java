@@ -0,0 +1,179 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.io.net.http;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.commons.httpclient.HttpMethod;
+import org.apache.commons.httpclient.methods.GetMethod;
+import org.eclipse.smarthome.io.net.http.HttpClientManager.AsyncRequest;
+import org.eclipse.smarthome.io.net.http.HttpClientManager.HostQueue;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the configuration of the clients of the {@link HttpClientManager} and the queueing of asynchronous requests per
+ * host.
+ *
+ * @author agent - Initial contribution
+ */
+public class HttpClientManagerTest {
+
+    private HttpClientManager manager;
+
+    /** the tasks which have been handed over to the executor and are run by the test */
+    private List<Runnable> tasks;
+
+    /** the number of tasks the executor accepts before it rejects all further tasks */
+    private int accepted;
+
+    private Executor executor;
+
+    private List<String> executed;
+
+    private List<Exception> failures;
+
+    @Before
+    public void setUp() {
+        manager = new HttpClientManager();
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("maxAsyncRequestsPerHost", "2");
+        properties.put("poolTimeout", "1234");
+        properties.put("idleTimeout", "0");
+        manager.activate(properties);
+
+        tasks = new ArrayList<>();
+        accepted = Integer.MAX_VALUE;
+        executor = new Executor() {
+            @Override
+            public void execute(Runnable task) {
+                if (accepted-- <= 0) {
+                    throw new RejectedExecutionException("The pool has been shut down.");
+                }
+                tasks.add(task);
+            }
+        };
+        executed = new ArrayList<>();
+        failures = new ArrayList<>();
+    }
+
+    @After
+    public void tearDown() {
+        manager.deactivate();
+    }
+
+    private AsyncRequest request(final String name) {
+        return new AsyncRequest(new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                executed.add(name);
+                return 200;
+            }
+        }, new GetMethod("http://localhost/" + name), new HttpCallback() {
+            @Override
+            public void onResponse(HttpMethod method, int statusCode) {
+            }
+
+            @Override
+            public void onFailure(HttpMethod method, Exception error) {
+                failures.add(error);
+            }
+        });
+    }
+
+    @Test
+    public void testClientsShareThePoolAndWaitForAConnectionOnlyUntilThePoolTimeout() {
+        assertSame(HttpClientManager.createClient().getHttpConnectionManager(),
+                HttpClientManager.createClient().getHttpConnectionManager());
+        assertEquals(1234L, HttpClientManager.createClient().getParams().getConnectionManagerTimeout());
+    }
+
+    @Test
+    public void testRequestsBeyondTheLimitOfAHostAreQueued() throws Exception {
+        HostQueue queue = new HostQueue("http://localhost:80", executor);
+        AsyncRequest first = request("first");
+        queue.submit(first);
+        queue.submit(request("second"));
+        queue.submit(request("third"));
+
+        assertEquals(2, tasks.size());
+        assertEquals(2, queue.getRunningCount());
+        assertEquals(1, queue.getPendingCount());
+
+        tasks.remove(0).run();
+        assertEquals(Integer.valueOf(200), first.get());
+        assertEquals(2, tasks.size());
+        assertEquals(0, queue.getPendingCount());
+
+        while (!tasks.isEmpty()) {
+            tasks.remove(0).run();
+        }
+        assertEquals(0, queue.getRunningCount());
+        assertEquals(3, executed.size());
+        assertTrue(executed.containsAll(Arrays.asList("first", "second", "third")));
+    }
+
+    @Test
+    public void testARejectedRequestFailsAndFreesItsPlace() throws Exception {
+        HostQueue queue = new HostQueue("http://localhost:80", executor);
+        accepted = 0;
+        AsyncRequest request = request("rejected");
+        queue.submit(request);
+
+        assertEquals(0, queue.getRunningCount());
+        assertEquals(1, failures.size());
+        assertTrue(failures.get(0) instanceof RejectedExecutionException);
+        try {
+            request.get();
+            fail("The rejected request has not failed.");
+        } catch (ExecutionException e) {
+            assertSame(failures.get(0), e.getCause());
+        }
+
+        accepted = Integer.MAX_VALUE;
+        queue.submit(request("accepted"));
+        assertEquals(1, tasks.size());
+        assertEquals(1, queue.getRunningCount());
+    }
+
+    @Test
+    public void testPendingRequestsFailWhenTheirDispatchIsRejected() throws Exception {
+        HostQueue queue = new HostQueue("http://localhost:80", executor);
+        accepted = 2;
+        queue.submit(request("first"));
+        queue.submit(request("second"));
+        AsyncRequest third = request("third");
+        queue.submit(third);
+        AsyncRequest fourth = request("fourth");
+        queue.submit(fourth);
+        assertEquals(2, queue.getPendingCount());
+
+        tasks.remove(0).run();
+        assertEquals(2, failures.size());
+        assertTrue(third.isDone());
+        assertTrue(fourth.isDone());
+        assertEquals(0, queue.getPendingCount());
+        assertEquals(1, queue.getRunningCount());
+
+        tasks.remove(0).run();
+        assertEquals(0, queue.getRunningCount());
+        assertEquals(2, executed.size());
+    }
+
+}
@@ -0,0 +1,39 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.io.net.http;
+
+import java.io.IOException;
+
+import org.apache.commons.httpclient.HttpMethod;
+
+/**
+ * Callback interface for being notified when a request, which has been executed asynchronously by the
+ * {@link HttpClientManager}, has completed. The callback is called by a thread of the pool which executes the requests
+ * and should return quickly.
+ *
+ * @author agent - Initial contribution and API
+ */
+public interface HttpCallback {
+
+    /**
+     * A response has been received.
+     *
+     * @param method the executed request, whose response body has already been read
+     * @param statusCode the status code of the response
+     */
+    public void onResponse(HttpMethod method, int statusCode);
+
+    /**
+     * The request has failed without a response.
+     *
+     * @param method the executed request
+     * @param error the cause of the failure, usually an {@link IOException}
+     */
+    public void onFailure(HttpMethod method, Exception error);
+
+}
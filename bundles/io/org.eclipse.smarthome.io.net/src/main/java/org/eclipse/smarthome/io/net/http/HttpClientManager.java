@@ -0,0 +1,407 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.io.net.http;
+
+import java.io.IOException;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.HttpMethod;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
+import org.apache.commons.httpclient.URI;
+import org.apache.commons.httpclient.URIException;
+import org.apache.commons.httpclient.params.HttpConnectionManagerParams;
+import org.apache.commons.httpclient.util.IdleConnectionTimeoutThread;
+import org.eclipse.smarthome.core.common.ThreadPoolManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>
+ * This class provides the HTTP connections which are shared by all HTTP clients of Eclipse SmartHome. Instead of
+ * creating a new {@link HttpClient} with its own connections for each request, code should get its client from
+ * {@link #createClient()}. The clients are cheap, all of them take their connections from a common pool, which keeps
+ * them alive between the requests, so that the TCP and TLS handshakes are done only once per connection.
+ * </p>
+ * <p>
+ * Requests can also be executed asynchronously through {@link #executeAsync(HttpClient, HttpMethod, HttpCallback)}.
+ * The number of asynchronous requests which run in parallel against the same host is limited, further requests are
+ * queued without blocking a thread until a request to the host completes. The limit should be lower than the size of
+ * the "http" thread pool, so that a slow host cannot hold all of its threads.
+ * </p>
+ * <p>
+ * The configuration can be done as
+ * <br/>
+ * {@code org.eclipse.smarthome.io.net.http:<key>=<value>}
+ * <br/>
+ * with the keys maxConnections, maxConnectionsPerHost, maxAsyncRequestsPerHost, connectTimeout, poolTimeout and
+ * idleTimeout.
+ * </p>
+ *
+ * @author agent - Initial contribution and API
+ */
+public class HttpClientManager {
+
+    private final static Logger logger = LoggerFactory.getLogger(HttpClientManager.class);
+
+    protected static final int DEFAULT_MAX_CONNECTIONS = 50;
+    protected static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 5;
+    protected static final int DEFAULT_MAX_ASYNC_REQUESTS_PER_HOST = 2;
+    protected static final int DEFAULT_CONNECT_TIMEOUT = 10000;
+    protected static final int DEFAULT_POOL_TIMEOUT = 15000;
+    protected static final int DEFAULT_IDLE_TIMEOUT = 60000;
+
+    private static final String CONFIG_MAX_CONNECTIONS = "maxConnections";
+    private static final String CONFIG_MAX_CONNECTIONS_PER_HOST = "maxConnectionsPerHost";
+    private static final String CONFIG_MAX_ASYNC_REQUESTS_PER_HOST = "maxAsyncRequestsPerHost";
+    private static final String CONFIG_CONNECT_TIMEOUT = "connectTimeout";
+    private static final String CONFIG_POOL_TIMEOUT = "poolTimeout";
+    private static final String CONFIG_IDLE_TIMEOUT = "idleTimeout";
+
+    private static final String THREAD_POOL_NAME = "http";
+
+    static private final MultiThreadedHttpConnectionManager connectionManager =
+            new MultiThreadedHttpConnectionManager();
+
+    static private final ConcurrentMap<String, HostQueue> hostQueues = new ConcurrentHashMap<>();
+
+    static private volatile int maxAsyncRequestsPerHost = DEFAULT_MAX_ASYNC_REQUESTS_PER_HOST;
+
+    static private volatile int poolTimeout = DEFAULT_POOL_TIMEOUT;
+
+    static private IdleConnectionTimeoutThread idleConnectionTimeoutThread;
+
+    static private final AtomicInteger activeRequests = new AtomicInteger();
+    static private final AtomicLong requestCount = new AtomicLong();
+    static private final AtomicLong failedRequestCount = new AtomicLong();
+
+    static {
+        applyConfig(DEFAULT_MAX_CONNECTIONS, DEFAULT_MAX_CONNECTIONS_PER_HOST, DEFAULT_CONNECT_TIMEOUT);
+    }
+
+    protected void activate(Map<String, Object> properties) {
+        modified(properties);
+    }
+
+    protected void modified(Map<String, Object> properties) {
+        int maxConnections = getConfig(properties, CONFIG_MAX_CONNECTIONS, DEFAULT_MAX_CONNECTIONS);
+        int maxPerHost = getConfig(properties, CONFIG_MAX_CONNECTIONS_PER_HOST, DEFAULT_MAX_CONNECTIONS_PER_HOST);
+        int connectTimeout = getConfig(properties, CONFIG_CONNECT_TIMEOUT, DEFAULT_CONNECT_TIMEOUT);
+        int idleTimeout = getConfig(properties, CONFIG_IDLE_TIMEOUT, DEFAULT_IDLE_TIMEOUT);
+        applyConfig(maxConnections, maxPerHost, connectTimeout);
+        maxAsyncRequestsPerHost = Math.max(1,
+                getConfig(properties, CONFIG_MAX_ASYNC_REQUESTS_PER_HOST, DEFAULT_MAX_ASYNC_REQUESTS_PER_HOST));
+        poolTimeout = Math.max(0, getConfig(properties, CONFIG_POOL_TIMEOUT, DEFAULT_POOL_TIMEOUT));
+
+        synchronized (HttpClientManager.class) {
+            stopIdleConnectionTimeoutThread();
+            if (idleTimeout > 0) {
+                idleConnectionTimeoutThread = new IdleConnectionTimeoutThread();
+                idleConnectionTimeoutThread.setName("ESH-http-idle");
+                idleConnectionTimeoutThread.setConnectionTimeout(idleTimeout);
+                idleConnectionTimeoutThread.setTimeoutInterval(Math.max(1000, idleTimeout / 2));
+                idleConnectionTimeoutThread.addConnectionManager(connectionManager);
+                idleConnectionTimeoutThread.start();
+            }
+        }
+        logger.debug("Configured HTTP connection pool with {} connections, {} per host and {} asynchronous requests "
+                + "per host", new Object[] { maxConnections, maxPerHost, maxAsyncRequestsPerHost });
+    }
+
+    protected void deactivate() {
+        synchronized (HttpClientManager.class) {
+            stopIdleConnectionTimeoutThread();
+        }
+        connectionManager.closeIdleConnections(0);
+    }
+
+    private static void stopIdleConnectionTimeoutThread() {
+        if (idleConnectionTimeoutThread != null) {
+            idleConnectionTimeoutThread.shutdown();
+            idleConnectionTimeoutThread = null;
+        }
+    }
+
+    private static void applyConfig(int maxConnections, int maxPerHost, int connectTimeout) {
+        HttpConnectionManagerParams params = connectionManager.getParams();
+        params.setMaxTotalConnections(Math.max(1, maxConnections));
+        params.setDefaultMaxConnectionsPerHost(Math.max(1, maxPerHost));
+        params.setConnectionTimeout(connectTimeout);
+    }
+
+    private static int getConfig(Map<String, Object> properties, String key, int defaultValue) {
+        Object value = properties != null ? properties.get(key) : null;
+        if (value != null) {
+            try {
+                return Integer.parseInt(value.toString().trim());
+            } catch (NumberFormatException e) {
+                logger.warn("Ignoring invalid configuration '{}' for '{}' - value must be an integer.", value, key);
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Creates a new HTTP client, which takes its connections from the shared pool. The host configuration, the state
+     * and the parameters of the client belong to the caller, so that proxies and credentials can be set on it without
+     * affecting other clients. If all connections to a host are in use, the client waits for a free one for the
+     * configured pool timeout at most and then fails the request.
+     *
+     * @return a new client
+     */
+    static public HttpClient createClient() {
+        HttpClient client = new HttpClient(connectionManager);
+        client.getParams().setConnectionManagerTimeout(poolTimeout);
+        return client;
+    }
+
+    /**
+     * Executes a request and keeps the statistics of the pool. The caller has to read the response and call
+     * {@link HttpMethod#releaseConnection()} to give the connection back to the pool.
+     *
+     * @param client the client to use, as returned by {@link #createClient()}
+     * @param method the request to execute
+     * @return the status code of the response
+     * @throws IOException if the request has failed
+     */
+    static public int executeMethod(HttpClient client, HttpMethod method) throws IOException {
+        activeRequests.incrementAndGet();
+        requestCount.incrementAndGet();
+        try {
+            return client.executeMethod(method);
+        } catch (IOException e) {
+            failedRequestCount.incrementAndGet();
+            throw e;
+        } catch (RuntimeException e) {
+            failedRequestCount.incrementAndGet();
+            throw e;
+        } finally {
+            activeRequests.decrementAndGet();
+        }
+    }
+
+    /**
+     * Executes a request asynchronously. The response body is read completely before the connection is given back to
+     * the pool, so that it is still available through the method, e.g. by {@link HttpMethod#getResponseBodyAsString()},
+     * when the callback is called or the future has completed.
+     *
+     * @param client the client to use, as returned by {@link #createClient()}
+     * @param method the request to execute
+     * @param callback the callback to notify when the request has completed, may be null
+     * @return the future status code of the response
+     */
+    static public Future<Integer> executeAsync(final HttpClient client, final HttpMethod method,
+            final HttpCallback callback) {
+        AsyncRequest request = new AsyncRequest(new Callable<Integer>() {
+            @Override
+            public Integer call() throws IOException {
+                int statusCode;
+                try {
+                    statusCode = executeMethod(client, method);
+                    method.getResponseBody();
+                } catch (IOException | RuntimeException e) {
+                    if (callback != null) {
+                        callback.onFailure(method, e);
+                    }
+                    throw e;
+                } finally {
+                    method.releaseConnection();
+                }
+                if (callback != null) {
+                    callback.onResponse(method, statusCode);
+                }
+                return statusCode;
+            }
+        }, method, callback);
+        getHostQueue(method).submit(request);
+        return request;
+    }
+
+    private static HostQueue getHostQueue(HttpMethod method) {
+        String key;
+        try {
+            URI uri = method.getURI();
+            key = uri.getScheme() + "://" + uri.getHost() + ":" + uri.getPort();
+        } catch (URIException e) {
+            // the request will fail anyway, so it does not matter which host it is queued for
+            key = "";
+        }
+        HostQueue queue = hostQueues.get(key);
+        if (queue == null) {
+            queue = new HostQueue(key, ThreadPoolManager.getPool(THREAD_POOL_NAME));
+            HostQueue existing = hostQueues.putIfAbsent(key, queue);
+            if (existing != null) {
+                queue = existing;
+            }
+        }
+        return queue;
+    }
+
+    /**
+     * @return the number of connections of the pool, which are either in use or kept alive
+     */
+    static public int getConnectionCount() {
+        return connectionManager.getConnectionsInPool();
+    }
+
+    /**
+     * @return the number of requests which are currently executed
+     */
+    static public int getActiveRequestCount() {
+        return activeRequests.get();
+    }
+
+    /**
+     * @return the number of asynchronous requests which are waiting because their host has too many requests running
+     */
+    static public int getPendingRequestCount() {
+        int count = 0;
+        for (HostQueue queue : hostQueues.values()) {
+            count += queue.getPendingCount();
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of requests which have been executed
+     */
+    static public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * @return the number of requests which have failed with an exception
+     */
+    static public long getFailedRequestCount() {
+        return failedRequestCount.get();
+    }
+
+    /**
+     * An asynchronous request, which fails with the given exception if it cannot be executed.
+     */
+    static class AsyncRequest extends FutureTask<Integer> {
+
+        private final HttpMethod method;
+
+        private final HttpCallback callback;
+
+        AsyncRequest(Callable<Integer> callable, HttpMethod method, HttpCallback callback) {
+            super(callable);
+            this.method = method;
+            this.callback = callback;
+        }
+
+        /**
+         * Fails the request without executing it and notifies the callback.
+         *
+         * @param error the reason why the request cannot be executed
+         */
+        void fail(Exception error) {
+            failedRequestCount.incrementAndGet();
+            setException(error);
+            if (callback != null) {
+                try {
+                    callback.onFailure(method, error);
+                } catch (RuntimeException e) {
+                    logger.warn("Notifying the callback of a failed request failed: {}", e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Limits the asynchronous requests which run in parallel against a single host and dispatches the queued ones when
+     * a running request completes.
+     */
+    static class HostQueue {
+
+        private final String host;
+
+        private final Executor executor;
+
+        /** guarded by this, as well as the pending queue */
+        private int running;
+
+        private final Queue<AsyncRequest> pending = new LinkedList<>();
+
+        HostQueue(String host, Executor executor) {
+            this.host = host;
+            this.executor = executor;
+        }
+
+        void submit(AsyncRequest request) {
+            synchronized (this) {
+                if (running >= maxAsyncRequestsPerHost) {
+                    pending.add(request);
+                    return;
+                }
+                running++;
+            }
+            dispatch(request);
+        }
+
+        /**
+         * Hands a request over to the executor. If the executor rejects it, the request fails and the next pending
+         * request is dispatched instead, so that no request is left behind in the queue.
+         */
+        private void dispatch(AsyncRequest request) {
+            while (request != null) {
+                final AsyncRequest task = request;
+                try {
+                    executor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                task.run();
+                            } finally {
+                                dispatch(next());
+                            }
+                        }
+                    });
+                    return;
+                } catch (RejectedExecutionException e) {
+                    logger.warn("Asynchronous request to '{}' has been rejected: {}", host, e.getMessage());
+                    task.fail(e);
+                    request = next();
+                }
+            }
+        }
+
+        /**
+         * Returns the next pending request, which takes over the place of a completed one. If there is none, the place
+         * is given up.
+         */
+        private synchronized AsyncRequest next() {
+            AsyncRequest next = pending.poll();
+            if (next == null) {
+                running--;
+            }
+            return next;
+        }
+
+        synchronized int getRunningCount() {
+            return running;
+        }
+
+        synchronized int getPendingCount() {
+            return pending.size();
+        }
+    }
+
+}
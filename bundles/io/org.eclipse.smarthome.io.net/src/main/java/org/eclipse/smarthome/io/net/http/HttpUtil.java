@@ -150,7 +150,7 @@ public class HttpUtil {
             String contentType, int timeout, String proxyHost, Integer proxyPort, String proxyUser,
             String proxyPassword, String nonProxyHosts) {
 
-        HttpClient client = new HttpClient();
+        HttpClient client = HttpClientManager.createClient();
 
         // only configure a proxy if a host is provided
         if (StringUtils.isNotBlank(proxyHost) && proxyPort != null && shouldUseProxy(url, nonProxyHosts)) {
@@ -192,7 +192,7 @@ public class HttpUtil {
 
         try {
 
-            int statusCode = client.executeMethod(method);
+            int statusCode = HttpClientManager.executeMethod(client, method);
             if (statusCode >= HttpStatus.SC_BAD_REQUEST) {
                 logger.debug("Method failed: " + method.getStatusLine());
             }
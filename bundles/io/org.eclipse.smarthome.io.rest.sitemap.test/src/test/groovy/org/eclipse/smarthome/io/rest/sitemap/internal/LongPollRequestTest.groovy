@@ -0,0 +1,147 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.io.rest.sitemap.internal
+
+import static org.hamcrest.CoreMatchers.*
+import static org.junit.Assert.*
+
+import java.util.concurrent.Executor
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+import javax.ws.rs.container.AsyncResponse
+import javax.ws.rs.container.TimeoutHandler
+
+import org.eclipse.smarthome.core.library.items.SwitchItem
+import org.eclipse.smarthome.core.library.types.OnOffType
+import org.junit.Before
+import org.junit.Test
+
+/**
+ * Tests that a {@link LongPollRequest} is suspended until its page changes or it times out, is answered exactly once
+ * and is not suspended beyond the limit of suspended requests.
+ *
+ * @author agent - Initial contribution
+ */
+class LongPollRequestTest {
+
+    SwitchItem item
+
+    PageChangeListener listener
+
+    AtomicInteger suspendedCount
+
+    /** the timeout handler and the timeout which the request has set on the response */
+    TimeoutHandler timeoutHandler
+
+    Long timeout
+
+    AsyncResponse asyncResponse
+
+    /** the number of times the request has been answered */
+    int answers
+
+    @Before
+    void setUp() {
+        item = new SwitchItem("Switch")
+        listener = new PageChangeListener("demo", "demo", [item] as Set, { Runnable task -> task.run() } as Executor)
+        suspendedCount = new AtomicInteger()
+        timeoutHandler = null
+        timeout = null
+        answers = 0
+        asyncResponse = [
+            setTimeoutHandler: { TimeoutHandler handler -> timeoutHandler = handler },
+            setTimeout: { long time, TimeUnit unit ->
+                timeout = unit.toMillis(time)
+                return true
+            }
+        ] as AsyncResponse
+    }
+
+    LongPollRequest newRequest() {
+        return new LongPollRequest(asyncResponse, suspendedCount) {
+                    @Override
+                    protected void answer(AsyncResponse response) {
+                        assertThat response, is(sameInstance(asyncResponse))
+                        answers++
+                    }
+                }
+    }
+
+    LongPollRequest suspend() {
+        def request = newRequest()
+        assertThat request.suspend(30000, 10), is(true)
+        listener.addCallback(request)
+        request.setListener(listener)
+        return request
+    }
+
+    @Test
+    void 'assert that a suspended request is answered once when the page changes'() {
+        def request = suspend()
+        assertThat timeoutHandler, is(sameInstance(request))
+        assertThat timeout, is(30000L)
+        assertThat suspendedCount.get(), is(1)
+        assertThat answers, is(0)
+
+        item.setState(OnOffType.ON)
+        assertThat answers, is(1)
+        assertThat suspendedCount.get(), is(0)
+        assertThat listener.isIdle(0), is(true)
+
+        item.setState(OnOffType.OFF)
+        timeoutHandler.handleTimeout(asyncResponse)
+        assertThat answers, is(1)
+        assertThat suspendedCount.get(), is(0)
+    }
+
+    @Test
+    void 'assert that a suspended request is answered when it times out'() {
+        suspend()
+
+        timeoutHandler.handleTimeout(asyncResponse)
+        assertThat answers, is(1)
+        assertThat suspendedCount.get(), is(0)
+        assertThat listener.isIdle(0), is(true)
+
+        item.setState(OnOffType.ON)
+        assertThat answers, is(1)
+    }
+
+    @Test
+    void 'assert that a request answered before it knows its listener is removed from the listener'() {
+        def request = newRequest()
+        assertThat request.suspend(30000, 10), is(true)
+        listener.addCallback(request)
+
+        request.resume()
+        assertThat answers, is(1)
+        assertThat listener.isIdle(0), is(false)
+
+        request.setListener(listener)
+        assertThat listener.isIdle(0), is(true)
+    }
+
+    @Test
+    void 'assert that a request beyond the limit is not suspended'() {
+        suspendedCount.set(10)
+
+        def request = newRequest()
+        assertThat request.suspend(30000, 10), is(false)
+        assertThat suspendedCount.get(), is(10)
+        assertThat timeoutHandler, is(nullValue())
+
+        // the caller rejects the request itself
+        request.resume()
+        assertThat answers, is(0)
+
+        suspendedCount.set(9)
+        assertThat newRequest().suspend(30000, 10), is(true)
+        assertThat suspendedCount.get(), is(10)
+    }
+}
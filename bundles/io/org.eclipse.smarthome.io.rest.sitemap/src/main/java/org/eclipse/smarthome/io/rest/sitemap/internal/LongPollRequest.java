@@ -0,0 +1,111 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.io.rest.sitemap.internal;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.TimeoutHandler;
+
+import org.eclipse.smarthome.core.items.Item;
+import org.eclipse.smarthome.io.rest.sitemap.internal.PageChangeListener.PageChangeCallback;
+
+/**
+ * A long-polling request which waits for a change of a sitemap page. It is answered as soon as the state of an item on
+ * the page changes or when the timeout is reached, whichever comes first.
+ * <p>
+ * If the HTTP service does not support asynchronous servlets, a suspended request still occupies a thread of the
+ * HTTP service until it is answered. The number of suspended requests is therefore limited; a request beyond the limit
+ * is not suspended and has to be rejected, so that the client retries it later instead of polling again right away.
+ *
+ * @author agent - Initial contribution
+ */
+abstract class LongPollRequest implements PageChangeCallback, TimeoutHandler {
+
+    private final AsyncResponse asyncResponse;
+
+    private final AtomicInteger suspendedCount;
+
+    private final AtomicBoolean answered = new AtomicBoolean();
+
+    private volatile PageChangeListener listener;
+
+    /**
+     * @param asyncResponse the response of the request
+     * @param suspendedCount the number of suspended requests, which is shared by all requests
+     */
+    LongPollRequest(AsyncResponse asyncResponse, AtomicInteger suspendedCount) {
+        this.asyncResponse = asyncResponse;
+        this.suspendedCount = suspendedCount;
+    }
+
+    /**
+     * Suspends the request until it is answered, if the limit of suspended requests has not been reached.
+     *
+     * @param timeout the time in milliseconds after which the request is answered anyway
+     * @param maxSuspendedCount the maximum number of suspended requests
+     * @return true if the request has been suspended, false if it has to be rejected
+     */
+    boolean suspend(long timeout, int maxSuspendedCount) {
+        if (suspendedCount.incrementAndGet() > maxSuspendedCount) {
+            suspendedCount.decrementAndGet();
+            answered.set(true);
+            return false;
+        }
+        asyncResponse.setTimeoutHandler(this);
+        asyncResponse.setTimeout(timeout, TimeUnit.MILLISECONDS);
+        return true;
+    }
+
+    /**
+     * Sets the listener to which the request has been added as a callback, so that it can be removed once the request
+     * is answered.
+     *
+     * @param listener the listener of the page
+     */
+    void setListener(PageChangeListener listener) {
+        this.listener = listener;
+        if (answered.get()) {
+            listener.removeCallback(this);
+        }
+    }
+
+    /**
+     * Answers the suspended request, unless it has already been answered.
+     */
+    void resume() {
+        if (answered.compareAndSet(false, true)) {
+            suspendedCount.decrementAndGet();
+            PageChangeListener listener = this.listener;
+            if (listener != null) {
+                listener.removeCallback(this);
+            }
+            answer(asyncResponse);
+        }
+    }
+
+    @Override
+    public void pageChanged(Item item) {
+        resume();
+    }
+
+    @Override
+    public void handleTimeout(AsyncResponse asyncResponse) {
+        resume();
+    }
+
+    /**
+     * Answers the request with the current page.
+     *
+     * @param asyncResponse the response of the request
+     */
+    protected abstract void answer(AsyncResponse asyncResponse);
+
+}
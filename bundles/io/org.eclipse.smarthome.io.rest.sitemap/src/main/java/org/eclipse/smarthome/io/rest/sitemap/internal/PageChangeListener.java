@@ -0,0 +1,161 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.io.rest.sitemap.internal;
+
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.eclipse.smarthome.core.items.GenericItem;
+import org.eclipse.smarthome.core.items.InlineStateChangeListener;
+import org.eclipse.smarthome.core.items.Item;
+import org.eclipse.smarthome.core.types.State;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link PageChangeListener} observes the items of a single sitemap page on behalf of all clients which wait for
+ * changes of this page. It is registered once on the items and shared by the clients, which only add and remove their
+ * {@link PageChangeCallback}.
+ * <p>
+ * The listener is notified directly by the thread that updates an item and hands the notification of the callbacks
+ * over to the executor.
+ *
+ * @author Kai Kreuzer - Initial contribution and API
+ * @author agent - Callbacks for suspended requests
+ */
+class PageChangeListener implements InlineStateChangeListener {
+
+    /**
+     * A client which waits for changes of a page.
+     */
+    interface PageChangeCallback {
+
+        /**
+         * Called when the state of an item of the page has changed or the page itself has been changed.
+         *
+         * @param item the item whose state has changed, null if the page has been changed
+         */
+        void pageChanged(Item item);
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(PageChangeListener.class);
+
+    private final String sitemapName;
+
+    private final String pageId;
+
+    private final Set<GenericItem> items;
+
+    private final Executor executor;
+
+    private final Set<PageChangeCallback> callbacks = new CopyOnWriteArraySet<>();
+
+    private volatile long idleSince = System.currentTimeMillis();
+
+    /**
+     * Creates the listener and registers it on the given items.
+     *
+     * @param sitemapName the name of the sitemap
+     * @param pageId the id of the page
+     * @param items the items which are represented by the widgets of the page
+     * @param executor the executor which notifies the callbacks
+     */
+    PageChangeListener(String sitemapName, String pageId, Set<GenericItem> items, Executor executor) {
+        this.sitemapName = sitemapName;
+        this.pageId = pageId;
+        this.items = items;
+        this.executor = executor;
+        for (GenericItem item : items) {
+            item.addStateChangeListener(this);
+        }
+    }
+
+    /**
+     * Checks whether the listener is registered on exactly the given items. This is not the case anymore if the page or
+     * its items have been changed since the listener has been created.
+     *
+     * @param items the items which are currently represented by the widgets of the page
+     * @return true if the listener observes the given items
+     */
+    boolean observes(Set<GenericItem> items) {
+        return this.items.equals(items);
+    }
+
+    void addCallback(PageChangeCallback callback) {
+        callbacks.add(callback);
+    }
+
+    void removeCallback(PageChangeCallback callback) {
+        callbacks.remove(callback);
+        if (callbacks.isEmpty()) {
+            idleSince = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Checks whether no client has been waiting for changes of the page for some time.
+     *
+     * @param maxIdleTime the time in milliseconds
+     * @return true if there has been no callback for at least the given time
+     */
+    boolean isIdle(long maxIdleTime) {
+        return callbacks.isEmpty() && System.currentTimeMillis() - idleSince >= maxIdleTime;
+    }
+
+    /**
+     * Unregisters the listener from the items and notifies the remaining callbacks that the page has changed.
+     */
+    void dispose() {
+        for (GenericItem item : items) {
+            item.removeStateChangeListener(this);
+        }
+        notifyCallbacks(null);
+    }
+
+    @Override
+    public void stateChanged(Item item, State oldState, State newState) {
+        notifyCallbacks(item);
+    }
+
+    @Override
+    public void stateUpdated(Item item, State state) {
+        // ignore if the state did not change
+    }
+
+    @Override
+    public boolean isNotifiedInline() {
+        return true;
+    }
+
+    private void notifyCallbacks(final Item item) {
+        if (callbacks.isEmpty()) {
+            return;
+        }
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    for (PageChangeCallback callback : callbacks) {
+                        try {
+                            callback.pageChanged(item);
+                        } catch (RuntimeException e) {
+                            logger.warn("Notifying a client about a change of page '{}' of sitemap '{}' failed: {}",
+                                    new Object[] { pageId, sitemapName, e.getMessage() }, e);
+                        }
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.warn("Notifying the clients about a change of page '{}' of sitemap '{}' has been rejected: {}",
+                    new Object[] { pageId, sitemapName, e.getMessage() });
+        }
+    }
+
+}
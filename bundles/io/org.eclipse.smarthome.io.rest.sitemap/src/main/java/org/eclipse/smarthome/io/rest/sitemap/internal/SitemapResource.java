@@ -7,14 +7,22 @@
  */
 package org.eclipse.smarthome.io.rest.sitemap.internal;
 
+import java.io.IOException;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Date;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
@@ -24,6 +32,8 @@ import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
@@ -33,14 +43,14 @@ import javax.ws.rs.core.UriInfo;
 
 import org.eclipse.emf.common.util.EList;
 import org.eclipse.emf.ecore.EObject;
+import org.eclipse.smarthome.core.common.ThreadPoolManager;
 import org.eclipse.smarthome.core.items.GenericItem;
 import org.eclipse.smarthome.core.items.Item;
 import org.eclipse.smarthome.core.items.ItemNotFoundException;
-import org.eclipse.smarthome.core.items.StateChangeListener;
-import org.eclipse.smarthome.core.types.State;
 import org.eclipse.smarthome.io.rest.LocaleUtil;
 import org.eclipse.smarthome.io.rest.RESTResource;
 import org.eclipse.smarthome.io.rest.core.item.EnrichedItemDTOMapper;
+import org.eclipse.smarthome.io.rest.sitemap.internal.PageChangeListener.PageChangeCallback;
 import org.eclipse.smarthome.model.sitemap.Chart;
 import org.eclipse.smarthome.model.sitemap.Frame;
 import org.eclipse.smarthome.model.sitemap.Image;
@@ -58,9 +68,13 @@ import org.eclipse.smarthome.model.sitemap.Video;
 import org.eclipse.smarthome.model.sitemap.Webview;
 import org.eclipse.smarthome.model.sitemap.Widget;
 import org.eclipse.smarthome.ui.items.ItemUIRegistry;
+import org.glassfish.jersey.media.sse.EventOutput;
+import org.glassfish.jersey.media.sse.OutboundEvent;
+import org.glassfish.jersey.media.sse.SseFeature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.gson.Gson;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
@@ -72,6 +86,15 @@ import io.swagger.annotations.ApiResponses;
  * This class acts as a REST resource for sitemaps and provides different methods to interact with them, like retrieving
  * a list of all available sitemaps or just getting the widgets of a single page.
  * </p>
+ * <p>
+ * Clients which wait for changes of a page, either by long-polling or through server-sent events, are suspended
+ * without blocking a thread. A single {@link PageChangeListener} per page observes the items of the page for all of
+ * them and wakes them up as soon as a state changes. As a suspended request still occupies a thread of the HTTP service
+ * if it does not support asynchronous servlets, only a limited number of long-polling requests is suspended; further
+ * requests are rejected with a "Retry-After" header. The events of a server-sent event stream are written by a task of
+ * the stream itself, so that a slow client does not delay the other clients, and a client whose write has been blocked
+ * for longer than the write timeout is disconnected.
+ * </p>
  *
  * @author Kai Kreuzer - Initial contribution and API
  * @author Chris Jackson
@@ -87,6 +110,29 @@ public class SitemapResource implements RESTResource {
 
     private static final long TIMEOUT_IN_MS = 30000;
 
+    /**
+     * The listener of a page is disposed once no client has been waiting for changes of the page for this time.
+     */
+    private static final long IDLE_TIMEOUT_IN_MS = 2 * TIMEOUT_IN_MS;
+
+    /**
+     * Long-polling requests beyond this number are rejected instead of being suspended.
+     */
+    private static final int MAX_SUSPENDED_REQUESTS = 100;
+
+    /**
+     * The time in seconds after which a client should retry a rejected long-polling request.
+     */
+    private static final int RETRY_AFTER_IN_S = 5;
+
+    /**
+     * The time in milliseconds after which a blocked write to an event stream disconnects the client, which is the same
+     * as the default write timeout of the event bus stream.
+     */
+    private static final long WRITE_TIMEOUT_IN_MS = 10000;
+
+    private static final String THREAD_POOL_NAME = "sitemap";
+
     @Context
     UriInfo uriInfo;
 
@@ -94,6 +140,24 @@ public class SitemapResource implements RESTResource {
 
     private java.util.List<SitemapProvider> sitemapProviders = new ArrayList<>();
 
+    /** the listeners by sitemap and page, guarded by the map itself */
+    private final Map<String, PageChangeListener> pageChangeListeners = new HashMap<>();
+
+    private final AtomicInteger suspendedRequests = new AtomicInteger();
+
+    private final ExecutorService executor = ThreadPoolManager.getPool(THREAD_POOL_NAME);
+
+    private final Gson gson = new Gson();
+
+    protected void deactivate() {
+        synchronized (pageChangeListeners) {
+            for (PageChangeListener listener : pageChangeListeners.values()) {
+                listener.dispose();
+            }
+            pageChangeListeners.clear();
+        }
+    }
+
     public void setItemUIRegistry(ItemUIRegistry itemUIRegistry) {
         this.itemUIRegistry = itemUIRegistry;
     }
@@ -141,22 +205,73 @@ public class SitemapResource implements RESTResource {
     @Produces(MediaType.APPLICATION_JSON)
     @ApiOperation(value = "Polls the data for a sitemap.", response = PageDTO.class)
     @ApiResponses(value = { @ApiResponse(code = 200, message = "OK"),
-            @ApiResponse(code = 404, message = "Sitemap with requested name does not exist or page does not exist, or page refers to a non-linkable widget") })
-    public Response getPageData(@Context HttpHeaders headers,
+            @ApiResponse(code = 404, message = "Sitemap with requested name does not exist or page does not exist, or page refers to a non-linkable widget"),
+            @ApiResponse(code = 503, message = "Too many clients are waiting for changes, the request should be retried later") })
+    public void getPageData(@Context HttpHeaders headers,
             @HeaderParam(HttpHeaders.ACCEPT_LANGUAGE) @ApiParam(value = "language") String language,
-            @PathParam("sitemapname") @ApiParam(value = "sitemap name") String sitemapname,
-            @PathParam("pageid") @ApiParam(value = "page id") String pageId) {
+            @PathParam("sitemapname") @ApiParam(value = "sitemap name") final String sitemapname,
+            @PathParam("pageid") @ApiParam(value = "page id") final String pageId,
+            @Suspended final AsyncResponse asyncResponse) {
         final Locale locale = LocaleUtil.getLocale(language);
+        final URI uri = uriInfo.getBaseUriBuilder().build();
         logger.debug("Received HTTP GET request at '{}'", uriInfo.getPath());
 
         if (headers.getRequestHeader("X-Atmosphere-Transport") != null) {
             // Make the REST-API pseudo-compatible with openHAB 1.x
             // The client asks Atmosphere for server push functionality,
-            // so we do a simply listening for changes on the appropriate items
-            blockUnlessChangeOccurs(sitemapname, pageId);
+            // so we keep the response suspended until a change occurs on the appropriate items
+            LongPollRequest request = new LongPollRequest(asyncResponse, suspendedRequests) {
+                @Override
+                protected void answer(AsyncResponse asyncResponse) {
+                    resumeWithPage(asyncResponse, sitemapname, pageId, uri, locale);
+                }
+            };
+            if (request.suspend(TIMEOUT_IN_MS, MAX_SUSPENDED_REQUESTS)) {
+                PageChangeListener listener = addPageChangeCallback(sitemapname, pageId, request);
+                if (listener != null) {
+                    request.setListener(listener);
+                } else {
+                    request.resume();
+                }
+                return;
+            }
+            // answering with the page would make the client poll again right away
+            logger.debug("Rejecting the request, as {} requests are suspended already.", MAX_SUSPENDED_REQUESTS);
+            asyncResponse.resume(Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_IN_S).build());
+            return;
+        }
+        resumeWithPage(asyncResponse, sitemapname, pageId, uri, locale);
+    }
+
+    @GET
+    @Path("/{sitemapname: [a-zA-Z_0-9]*}/{pageid: [a-zA-Z_0-9]*}/events")
+    @Produces(SseFeature.SERVER_SENT_EVENTS)
+    @ApiOperation(value = "Subscribes to the changes of the widgets of a page.", response = EventOutput.class)
+    @ApiResponses(value = { @ApiResponse(code = 200, message = "OK"),
+            @ApiResponse(code = 404, message = "Sitemap with requested name does not exist or page does not exist, or page refers to a non-linkable widget") })
+    public Object getPageEvents(
+            @HeaderParam(HttpHeaders.ACCEPT_LANGUAGE) @ApiParam(value = "language") String language,
+            @PathParam("sitemapname") @ApiParam(value = "sitemap name") String sitemapname,
+            @PathParam("pageid") @ApiParam(value = "page id") String pageId) {
+        final Locale locale = LocaleUtil.getLocale(language);
+        logger.debug("Received HTTP GET request at '{}'", uriInfo.getPath());
+
+        PageEventOutput eventOutput = new PageEventOutput(sitemapname, pageId, uriInfo.getBaseUriBuilder().build(),
+                locale);
+        if (!eventOutput.subscribe()) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+        return eventOutput;
+    }
+
+    private void resumeWithPage(AsyncResponse asyncResponse, String sitemapName, String pageId, URI uri,
+            Locale locale) {
+        try {
+            asyncResponse.resume(Response.ok(getPageBean(sitemapName, pageId, uri, locale)).build());
+        } catch (WebApplicationException e) {
+            asyncResponse.resume(e);
         }
-        Object responseObject = getPageBean(sitemapname, pageId, uriInfo.getBaseUriBuilder().build(), locale);
-        return Response.ok(responseObject).build();
     }
 
     private PageDTO getPageBean(String sitemapName, String pageId, URI uri, Locale locale) {
@@ -428,50 +543,65 @@ public class SitemapResource implements RESTResource {
         return null;
     }
 
-    private void blockUnlessChangeOccurs(String sitemapname, String pageId) {
-        Sitemap sitemap = getSitemap(sitemapname);
+    /**
+     * Returns the widgets of a page.
+     *
+     * @param sitemapName the name of the sitemap
+     * @param pageId the id of the page
+     * @return the widgets or null, if there is no such page
+     */
+    private EList<Widget> getPageWidgets(String sitemapName, String pageId) {
+        Sitemap sitemap = getSitemap(sitemapName);
         if (sitemap != null) {
             if (pageId.equals(sitemap.getName())) {
-                waitForChanges(sitemap.getChildren());
+                return sitemap.getChildren();
             } else {
                 Widget pageWidget = itemUIRegistry.getWidget(sitemap, pageId);
                 if (pageWidget instanceof LinkableWidget) {
-                    EList<Widget> children = itemUIRegistry.getChildren((LinkableWidget) pageWidget);
-                    waitForChanges(children);
+                    return itemUIRegistry.getChildren((LinkableWidget) pageWidget);
                 }
             }
         }
+        return null;
     }
 
     /**
-     * This method only returns when a change has occurred to any item on the
-     * page to display or if the timeout is reached
+     * Adds a callback to the listener which observes the items of a page. The listener is shared by all clients and
+     * replaced if the items of the page have changed. Listeners of pages which nobody has been waiting for recently
+     * are disposed. The callback is added under the same lock, so that it is never added to a disposed listener.
      *
-     * @param widgets
-     *            the widgets of the page to observe
+     * @param sitemapName the name of the sitemap
+     * @param pageId the id of the page
+     * @param callback the callback of the client
+     * @return the listener to which the callback has been added or null, if there is no such page
      */
-    private boolean waitForChanges(EList<Widget> widgets) {
-        long startTime = (new Date()).getTime();
-        boolean timeout = false;
-        BlockingStateChangeListener listener = new BlockingStateChangeListener();
-        // let's get all items for these widgets
-        Set<GenericItem> items = getAllItems(widgets);
-        for (GenericItem item : items) {
-            item.addStateChangeListener(listener);
+    private PageChangeListener addPageChangeCallback(String sitemapName, String pageId, PageChangeCallback callback) {
+        EList<Widget> widgets = getPageWidgets(sitemapName, pageId);
+        if (widgets == null) {
+            return null;
         }
-        while (!listener.hasChangeOccurred() && !timeout) {
-            timeout = (new Date()).getTime() - startTime > TIMEOUT_IN_MS;
-            try {
-                Thread.sleep(300);
-            } catch (InterruptedException e) {
-                timeout = true;
-                break;
+        Set<GenericItem> items = getAllItems(widgets);
+        String key = sitemapName + "/" + pageId;
+        synchronized (pageChangeListeners) {
+            for (Iterator<PageChangeListener> it = pageChangeListeners.values().iterator(); it.hasNext();) {
+                PageChangeListener listener = it.next();
+                if (listener.isIdle(IDLE_TIMEOUT_IN_MS)) {
+                    it.remove();
+                    listener.dispose();
+                }
             }
+
+            PageChangeListener listener = pageChangeListeners.get(key);
+            if (listener == null || !listener.observes(items)) {
+                if (listener != null) {
+                    listener.dispose();
+                }
+                listener = new PageChangeListener(sitemapName, pageId, items, executor);
+                pageChangeListeners.put(key, listener);
+            }
+            listener.addCallback(callback);
+            return listener;
         }
-        for (GenericItem item : items) {
-            item.removeStateChangeListener(listener);
-        }
-        return !timeout;
     }
 
     /**
@@ -482,7 +612,8 @@ public class SitemapResource implements RESTResource {
      * @return all items that are represented by the list of widgets
      */
     private Set<GenericItem> getAllItems(EList<Widget> widgets) {
-        Set<GenericItem> items = new HashSet<GenericItem>();
+        // the items are compared by identity, so that a page is observed again when its items have been replaced
+        Set<GenericItem> items = Collections.newSetFromMap(new IdentityHashMap<GenericItem, Boolean>());
         if (itemUIRegistry != null) {
             for (Widget widget : widgets) {
                 String itemName = widget.getItem();
@@ -507,39 +638,209 @@ public class SitemapResource implements RESTResource {
     }
 
     /**
-     * This is a state change listener, which is merely used to determine, if a
-     * state change has occurred on one of a list of items.
-     *
-     * @author Kai Kreuzer - Initial contribution and API
-     *
+     * A server-sent event stream of a page. Whenever the state of an item on the page changes, only the widgets of this
+     * item are sent as "widget" events. If the page itself has changed, the whole page is sent as a "page" event.
+     * <p>
+     * The changes are collected by the stream and written by a task of its own on the thread pool, so that the listener
+     * of the page never waits for a client. If a write has been blocked for longer than the write timeout when the next
+     * change arrives, the client is disconnected, which also releases the thread that writes to it.
      */
-    private static class BlockingStateChangeListener implements StateChangeListener {
+    private class PageEventOutput extends EventOutput implements PageChangeCallback, Runnable {
 
-        private boolean changed = false;
+        private final String sitemapName;
+        private final String pageId;
+        private final URI uri;
+        private final Locale locale;
 
-        /**
-         * {@inheritDoc}
-         */
-        @Override
-        public void stateChanged(Item item, State oldState, State newState) {
-            changed = true;
+        private volatile PageChangeListener listener;
+
+        /** the names of the items whose widgets have to be sent, guarded by this, as well as the flags */
+        private final Set<String> changedItems = new LinkedHashSet<>();
+
+        private boolean pageReplaced;
+
+        private boolean scheduled;
+
+        private boolean evicted;
+
+        /** the time when the write of the current event has started, 0 if no event is being written */
+        private volatile long writeStartTime;
+
+        private PageEventOutput(String sitemapName, String pageId, URI uri, Locale locale) {
+            this.sitemapName = sitemapName;
+            this.pageId = pageId;
+            this.uri = uri;
+            this.locale = locale;
         }
 
         /**
-         * determines, whether a state change has occurred since its creation
+         * Adds the stream as a callback to the current listener of the page.
          *
-         * @return true, if a state has changed
+         * @return false if there is no such page
          */
-        public boolean hasChangeOccurred() {
-            return changed;
+        private boolean subscribe() {
+            PageChangeListener current = addPageChangeCallback(sitemapName, pageId, this);
+            if (current == null) {
+                return false;
+            }
+            PageChangeListener previous = listener;
+            listener = current;
+            if (previous != null && previous != current) {
+                previous.removeCallback(this);
+            }
+            if (isClosed()) {
+                // the stream has been closed meanwhile and must not stay registered
+                current.removeCallback(this);
+            }
+            return true;
+        }
+
+        @Override
+        public void pageChanged(Item item) {
+            if (isClosed()) {
+                // the connection might have been closed without closing the stream, which unregisters it
+                closeQuietly();
+                return;
+            }
+            boolean evict;
+            synchronized (this) {
+                if (evicted) {
+                    return;
+                }
+                evict = isWriteBlocked();
+                if (evict) {
+                    changedItems.clear();
+                    evicted = true;
+                } else {
+                    if (item == null) {
+                        pageReplaced = true;
+                    } else {
+                        changedItems.add(item.getName());
+                    }
+                    if (scheduled) {
+                        return;
+                    }
+                    scheduled = true;
+                }
+            }
+            if (evict) {
+                logger.debug("Closing the event stream of page '{}' of sitemap '{}', as the client does not keep up.",
+                        pageId, sitemapName);
+                closeQuietly();
+                return;
+            }
+            schedule();
         }
 
-        /**
-         * {@inheritDoc}
-         */
         @Override
-        public void stateUpdated(Item item, State state) {
-            // ignore if the state did not change
+        public void run() {
+            boolean replaced;
+            java.util.List<String> itemNames;
+            synchronized (this) {
+                if (evicted || (!pageReplaced && changedItems.isEmpty())) {
+                    scheduled = false;
+                    return;
+                }
+                replaced = pageReplaced;
+                itemNames = new ArrayList<>(changedItems);
+                pageReplaced = false;
+                changedItems.clear();
+            }
+            try {
+                PageDTO page = getPageBean(sitemapName, pageId, uri, locale);
+                if (replaced) {
+                    // the listener has been replaced, so the client has to follow the new one
+                    subscribe();
+                    page.parent = null;
+                    send("page", page);
+                } else {
+                    for (String itemName : itemNames) {
+                        for (WidgetDTO widget : getWidgetBeans(page.widgets, itemName, new ArrayList<WidgetDTO>())) {
+                            send("widget", widget);
+                        }
+                    }
+                }
+            } catch (WebApplicationException e) {
+                logger.debug("Closing the event stream of page '{}' of sitemap '{}', as the page does not exist "
+                        + "anymore.", pageId, sitemapName);
+                closeQuietly();
+                return;
+            } catch (IOException e) {
+                logger.debug("Closing the event stream of page '{}' of sitemap '{}': {}",
+                        new Object[] { pageId, sitemapName, e.getMessage() });
+                closeQuietly();
+                return;
+            }
+            // changes which arrived meanwhile are written by a new task, so that a client does not occupy a thread
+            synchronized (this) {
+                if (evicted || (!pageReplaced && changedItems.isEmpty())) {
+                    scheduled = false;
+                    return;
+                }
+            }
+            schedule();
+        }
+
+        @Override
+        public void close() throws IOException {
+            synchronized (this) {
+                changedItems.clear();
+                evicted = true;
+            }
+            PageChangeListener listener = this.listener;
+            if (listener != null) {
+                listener.removeCallback(this);
+            }
+            super.close();
+        }
+
+        private java.util.List<WidgetDTO> getWidgetBeans(java.util.List<WidgetDTO> widgets, String itemName,
+                java.util.List<WidgetDTO> result) {
+            if (widgets != null) {
+                for (WidgetDTO widget : widgets) {
+                    if (widget.item != null && itemName.equals(widget.item.name)) {
+                        result.add(widget);
+                    }
+                    getWidgetBeans(widget.widgets, itemName, result);
+                }
+            }
+            return result;
+        }
+
+        private void send(String name, Object data) throws IOException {
+            OutboundEvent event = new OutboundEvent.Builder().name(name).mediaType(MediaType.APPLICATION_JSON_TYPE)
+                    .data(String.class, gson.toJson(data)).build();
+            writeStartTime = System.currentTimeMillis();
+            try {
+                write(event);
+            } finally {
+                writeStartTime = 0;
+            }
+        }
+
+        private boolean isWriteBlocked() {
+            long startTime = writeStartTime;
+            return startTime != 0 && System.currentTimeMillis() - startTime > WRITE_TIMEOUT_IN_MS;
+        }
+
+        private void schedule() {
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                synchronized (this) {
+                    scheduled = false;
+                }
+                logger.debug("Sending the changes of page '{}' of sitemap '{}' has been rejected: {}",
+                        new Object[] { pageId, sitemapName, e.getMessage() });
+            }
+        }
+
+        private void closeQuietly() {
+            try {
+                close();
+            } catch (IOException e) {
+                // the connection is closed anyway
+            }
         }
     }
 
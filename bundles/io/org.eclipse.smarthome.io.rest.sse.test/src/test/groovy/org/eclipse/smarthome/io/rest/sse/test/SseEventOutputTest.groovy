@@ -0,0 +1,150 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.io.rest.sse.test
+
+import static org.hamcrest.CoreMatchers.*
+import static org.junit.Assert.*
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executor
+import java.util.concurrent.TimeUnit
+
+import org.eclipse.smarthome.io.rest.sse.internal.SseEventOutput
+import org.glassfish.jersey.media.sse.OutboundEvent
+import org.junit.Before
+import org.junit.Test
+
+/**
+ * Tests that the {@link SseEventOutput} writes the events of a client in bounded tasks and evicts a client which
+ * cannot keep up.
+ *
+ * @author agent - Initial contribution
+ */
+class SseEventOutputTest {
+
+    static final String TOPIC = "smarthome/items/item/state"
+
+    /** the tasks handed to the thread pool, which are run by the test */
+    List<Runnable> tasks
+
+    Executor executor
+
+    @Before
+    void setUp() {
+        tasks = []
+        executor = { Runnable task -> tasks.add(task) } as Executor
+    }
+
+    OutboundEvent event(int value) {
+        return new OutboundEvent.Builder().data(String, String.valueOf(value)).build()
+    }
+
+    @Test
+    void 'assert that a task writes a limited number of events and schedules the rest'() {
+        def output = new RecordingEventOutput("smarthome/items", executor, 1000, 10000)
+        def events = (1..2 * SseEventOutput.MAX_EVENTS_PER_TASK + 1).collect { event(it) }
+
+        events.each { assertThat output.send(TOPIC, it), is(true) }
+        assertThat tasks.size(), is(1)
+
+        tasks.remove(0).run()
+        assertThat output.written, is(events[0..<SseEventOutput.MAX_EVENTS_PER_TASK])
+        assertThat tasks.size(), is(1)
+
+        while (!tasks.isEmpty()) {
+            tasks.remove(0).run()
+        }
+        assertThat output.written, is(events)
+        assertThat output.isClosed(), is(false)
+    }
+
+    @Test
+    void 'assert that events of other topics are not queued'() {
+        def output = new RecordingEventOutput("smarthome/items", executor, 1, 10000)
+
+        assertThat output.send("smarthome/things/thing/updated", event(1)), is(true)
+        assertThat output.send("smarthome/things/thing/updated", event(2)), is(true)
+        assertThat tasks.size(), is(0)
+    }
+
+    @Test
+    void 'assert that a client whose queue is full is evicted'() {
+        def output = new RecordingEventOutput("smarthome/items", executor, 2, 10000)
+
+        assertThat output.send(TOPIC, event(1)), is(true)
+        assertThat output.send(TOPIC, event(2)), is(true)
+        assertThat output.send(TOPIC, event(3)), is(false)
+        assertThat output.isClosed(), is(true)
+        assertThat output.send(TOPIC, event(4)), is(false)
+
+        // the queued events are discarded
+        tasks.each { it.run() }
+        assertThat output.written, is([])
+    }
+
+    @Test
+    void 'assert that a client whose write is blocked is evicted and the writing thread is released'() {
+        def writing = new CountDownLatch(1)
+        def output = new RecordingEventOutput("smarthome/items", { Runnable task -> new Thread(task).start() } as
+                Executor, 1000, 200)
+        output.blocked = new CountDownLatch(1)
+        output.writing = writing
+
+        assertThat output.send(TOPIC, event(1)), is(true)
+        assertThat writing.await(5, TimeUnit.SECONDS), is(true)
+        // a client which is just slower than the timeout is not evicted
+        assertThat output.send(TOPIC, event(2)), is(true)
+
+        Thread.sleep(500)
+
+        assertThat output.send(TOPIC, event(3)), is(false)
+        assertThat output.isClosed(), is(true)
+        assertThat output.blocked.getCount(), is(0L)
+    }
+
+    /**
+     * An {@link SseEventOutput} which records the written events instead of sending them to a client.
+     */
+    static class RecordingEventOutput extends SseEventOutput {
+
+        final List<OutboundEvent> written = Collections.synchronizedList([])
+
+        /** if set, a write waits until the output is closed */
+        CountDownLatch blocked
+
+        /** if set, counted down when a write starts */
+        CountDownLatch writing
+
+        volatile boolean closed
+
+        RecordingEventOutput(String topicFilter, Executor executor, int queueSize, long writeTimeout) {
+            super(topicFilter, executor, queueSize, writeTimeout)
+        }
+
+        @Override
+        void write(OutboundEvent event) throws IOException {
+            writing?.countDown()
+            blocked?.await()
+            if (closed) {
+                throw new IOException("The connection has been closed.")
+            }
+            written.add(event)
+        }
+
+        @Override
+        void close() throws IOException {
+            closed = true
+            blocked?.countDown()
+        }
+
+        @Override
+        boolean isClosed() {
+            return closed
+        }
+    }
+}
@@ -12,6 +12,7 @@ import static org.junit.Assert.*
 import static org.junit.matchers.JUnitMatchers.*
 
 import org.eclipse.smarthome.io.rest.sse.internal.util.SseUtil
+import org.eclipse.smarthome.io.rest.sse.internal.util.TopicFilter
 import org.eclipse.smarthome.test.OSGiTest
 import org.junit.Test
 
@@ -99,4 +100,47 @@ class SseResourceOSGiTest extends OSGiTest {
         assertThat "smarthome/items/anyitem/added".matches(regexes[0]), is(true);
         assertThat "smarthome/items/anyitem/removed".matches(regexes[0]), is(false);
     }
+
+    @Test
+    public void testTopicFilterMatchesLikeRegexes() {
+        def filters = [
+            "",
+            "smarthome/*/test/test/test/test,    smarthome/test/*/test/test/test, smarthome,qivicon",
+            ",    *, smarthome/items/*/added, smarthome/items",
+            "*/added",
+            "*added",
+            "smarthome/items/*/state*changed"
+        ]
+        def topics = [
+            "smarthome/test/test/test/test/test",
+            "smarthome/asdf/test/test/test/test",
+            "smarthome/asdf/ASDF/test/test/test",
+            "qivicon/asdf/ASDF/test/test/test",
+            "smarthome/items/anyitem/added",
+            "smarthome/items/anyitem/removed",
+            "smarthome/items/anyitem/statechanged",
+            "smarthome/items/anyitem/state",
+            "smarthome/things/anything/updated"
+        ]
+
+        filters.each { filter ->
+            def topicFilter = TopicFilter.parse(filter)
+            def regexes = SseUtil.convertToRegex(filter)
+            topics.each { topic ->
+                def expected = regexes.any { topic.matches(it) }
+                assertThat "'" + filter + "' for '" + topic + "'", topicFilter.matches(topic), is(expected)
+            }
+        }
+    }
+
+    @Test
+    public void testTopicFilter() {
+        def topicFilter = TopicFilter.parse("smarthome/items/*/state*changed")
+
+        assertThat topicFilter.matches("smarthome/items/anyitem/statechanged"), is(true)
+        assertThat topicFilter.matches("smarthome/items/anyitem/state/changed/more"), is(true)
+        assertThat topicFilter.matches("smarthome/items/anyitem/state"), is(false)
+        assertThat topicFilter.matches("smarthome/things/anything/statechanged"), is(false)
+        assertThat topicFilter.matches(null), is(false)
+    }
 }
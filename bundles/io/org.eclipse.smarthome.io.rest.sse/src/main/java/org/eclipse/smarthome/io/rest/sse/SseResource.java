@@ -8,8 +8,11 @@
 package org.eclipse.smarthome.io.rest.sse;
 
 import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.inject.Singleton;
 import javax.servlet.http.HttpServletRequest;
@@ -24,12 +27,15 @@ import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
 import javax.ws.rs.core.UriInfo;
 
+import org.eclipse.smarthome.core.common.ThreadPoolManager;
 import org.eclipse.smarthome.core.events.Event;
 import org.eclipse.smarthome.io.rest.sse.internal.SseEventOutput;
 import org.eclipse.smarthome.io.rest.sse.internal.util.SseUtil;
 import org.glassfish.jersey.media.sse.EventOutput;
-import org.glassfish.jersey.media.sse.SseBroadcaster;
+import org.glassfish.jersey.media.sse.OutboundEvent;
 import org.glassfish.jersey.media.sse.SseFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
@@ -39,6 +45,9 @@ import io.swagger.annotations.ApiResponses;
 
 /**
  * SSE Resource for pushing events to currently listening clients.
+ * <p>
+ * Each event is serialized once and then queued for every client whose topic filter matches. The clients are written
+ * to independently on a thread pool, a client whose queue is full or whose write is blocked is evicted.
  *
  * @author Ivan Iliev - Initial Contribution and API
  * @author Yordan Zhelev - Added Swagger annotations
@@ -51,10 +60,33 @@ public class SseResource {
 
     public final static String PATH_EVENTS = "events";
 
-    private final SseBroadcaster broadcaster;
+    private static final String THREAD_POOL_NAME = "sse";
+
+    private static final String CONFIG_QUEUE_SIZE = "queueSize";
+
+    private static final String CONFIG_WRITE_TIMEOUT = "writeTimeout";
+
+    private static final int DEFAULT_QUEUE_SIZE = 1000;
+
+    private static final int DEFAULT_WRITE_TIMEOUT = 10000;
+
+    /**
+     * Evicted clients are logged for the first one and then for every n-th one.
+     */
+    private static final int EVICT_LOG_INTERVAL = 100;
+
+    private final Logger logger = LoggerFactory.getLogger(SseResource.class);
+
+    private final Set<SseEventOutput> eventOutputs = new CopyOnWriteArraySet<>();
 
     private final ExecutorService executorService;
 
+    private volatile int queueSize = DEFAULT_QUEUE_SIZE;
+
+    private volatile int writeTimeout = DEFAULT_WRITE_TIMEOUT;
+
+    private final AtomicLong evictedCount = new AtomicLong();
+
     @Context
     private UriInfo uriInfo;
 
@@ -65,8 +97,41 @@ public class SseResource {
     private HttpServletRequest request;
 
     public SseResource() {
-        this.executorService = Executors.newSingleThreadExecutor();
-        this.broadcaster = new SseBroadcaster();
+        this.executorService = ThreadPoolManager.getPool(THREAD_POOL_NAME);
+    }
+
+    protected void activate(Map<String, Object> config) {
+        modified(config);
+    }
+
+    protected void modified(Map<String, Object> config) {
+        // applies to new connections only
+        queueSize = getIntConfig(config, CONFIG_QUEUE_SIZE, DEFAULT_QUEUE_SIZE);
+        writeTimeout = getIntConfig(config, CONFIG_WRITE_TIMEOUT, DEFAULT_WRITE_TIMEOUT);
+    }
+
+    private int getIntConfig(Map<String, Object> config, String key, int defaultValue) {
+        Object value = config != null ? config.get(key) : null;
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.toString().trim());
+        } catch (NumberFormatException e) {
+            logger.warn("Ignoring invalid configuration '{}' for '{}' - value must be an integer.", value, key);
+            return defaultValue;
+        }
+    }
+
+    protected void deactivate() {
+        for (SseEventOutput eventOutput : eventOutputs) {
+            try {
+                eventOutput.close();
+            } catch (IOException e) {
+                logger.debug("Closing SSE connection failed: {}", e.getMessage());
+            }
+        }
+        eventOutputs.clear();
     }
 
     /**
@@ -93,8 +158,9 @@ public class SseResource {
 
         // construct an EventOutput that will only write out events that match
         // the given filter
-        final EventOutput eventOutput = new SseEventOutput(eventFilter);
-        broadcaster.add(eventOutput);
+        final SseEventOutput eventOutput = new SseEventOutput(eventFilter, executorService, queueSize,
+                writeTimeout);
+        eventOutputs.add(eventOutput);
 
         if (!SseUtil.SERVLET3_SUPPORT) {
             // if we don't have sevlet 3.0 async support, we want to make sure
@@ -125,11 +191,26 @@ public class SseResource {
      *            the event
      */
     public void broadcastEvent(final Event event) {
-        executorService.execute(new Runnable() {
-            @Override
-            public void run() {
-                broadcaster.broadcast(SseUtil.buildEvent(event));
+        if (eventOutputs.isEmpty()) {
+            return;
+        }
+        OutboundEvent outboundEvent = SseUtil.buildEvent(event);
+        String topic = event.getTopic();
+        for (SseEventOutput eventOutput : eventOutputs) {
+            if (eventOutput.isClosed()) {
+                eventOutputs.remove(eventOutput);
+            } else if (!eventOutput.send(topic, outboundEvent)) {
+                eventOutputs.remove(eventOutput);
+                evicted();
             }
-        });
+        }
+    }
+
+    private void evicted() {
+        long evicted = evictedCount.incrementAndGet();
+        if (evicted == 1 || evicted % EVICT_LOG_INTERVAL == 0) {
+            logger.warn("SSE client has been disconnected as it could not keep up with the events"
+                    + " ({} clients disconnected so far).", evicted);
+        }
     }
 }
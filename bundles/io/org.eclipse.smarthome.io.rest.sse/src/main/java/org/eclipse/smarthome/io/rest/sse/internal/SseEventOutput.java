@@ -8,40 +8,165 @@
 package org.eclipse.smarthome.io.rest.sse.internal;
 
 import java.io.IOException;
-import java.util.List;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
-import org.eclipse.smarthome.io.rest.sse.beans.EventBean;
-import org.eclipse.smarthome.io.rest.sse.internal.util.SseUtil;
+import org.eclipse.smarthome.io.rest.sse.internal.util.TopicFilter;
 import org.glassfish.jersey.media.sse.EventOutput;
 import org.glassfish.jersey.media.sse.OutboundEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
- * {@link EventOutput} implementation that takes a filter parameter and only writes out events that match this filter.
- * Should only be used when the {@link OutboundEvent}s sent through this {@link EventOutput} contain a data object of
- * type {@link EventBean}
- * 
+ * {@link EventOutput} implementation that takes a filter parameter and only sends out events that match this filter.
+ * <p>
+ * The filter is parsed once into a {@link TopicFilter}. The events are not written by the caller of
+ * {@link #send(String, OutboundEvent)}, but queued in a bounded queue of the connection and written by a task on the
+ * thread pool, so that a slow client does not delay the events of the other clients. A task writes a limited number
+ * of events only, so that the clients share the threads of the pool. A client which cannot keep up, i.e. whose queue
+ * is full or whose current write has been blocked for longer than the write timeout, is evicted by closing its
+ * connection, which also releases the thread that writes to it.
+ *
  * @author Ivan Iliev - Initial contribution and API
- * 
  */
-public class SseEventOutput extends EventOutput {
+public class SseEventOutput extends EventOutput implements Runnable {
 
-    private List<String> regexFilters;
+    /**
+     * The maximum number of events written by a single task.
+     */
+    static final int MAX_EVENTS_PER_TASK = 50;
 
-    public SseEventOutput(String topicFilter) {
+    private final Logger logger = LoggerFactory.getLogger(SseEventOutput.class);
+
+    private final TopicFilter topicFilter;
+
+    private final Executor executor;
+
+    private final int queueSize;
+
+    private final long writeTimeout;
+
+    /** guarded by this, as well as the scheduled and evicted flags */
+    private final Deque<OutboundEvent> queue = new ArrayDeque<>();
+
+    private boolean scheduled;
+
+    private boolean evicted;
+
+    /** the time when the write of the current event has started, 0 if no event is being written */
+    private volatile long writeStartTime;
+
+    /**
+     * @param topicFilter the topic filter of the client, which must be valid
+     * @param executor the executor which writes the events to the client
+     * @param queueSize the maximum number of events which may wait to be written, at least 1
+     * @param writeTimeout the time in milliseconds after which a blocked write evicts the client
+     */
+    public SseEventOutput(String topicFilter, Executor executor, int queueSize, long writeTimeout) {
         super();
-        this.regexFilters = SseUtil.convertToRegex(topicFilter);
+        this.topicFilter = TopicFilter.parse(topicFilter);
+        this.executor = executor;
+        this.queueSize = Math.max(1, queueSize);
+        this.writeTimeout = writeTimeout;
     }
 
-    @Override
-    public void write(OutboundEvent chunk) throws IOException {
-        EventBean event = (EventBean) chunk.getData();
+    /**
+     * Queues an event for the client, if its topic matches the filter of the client.
+     *
+     * @param topic the topic of the event
+     * @param event the event to send
+     * @return false if the client has been evicted because it cannot keep up with the events, true otherwise
+     */
+    public boolean send(String topic, OutboundEvent event) {
+        if (!topicFilter.matches(topic)) {
+            return true;
+        }
+        boolean evict;
+        synchronized (this) {
+            if (evicted) {
+                return false;
+            }
+            evict = queue.size() >= queueSize || isWriteBlocked();
+            if (evict) {
+                queue.clear();
+                evicted = true;
+            } else {
+                queue.add(event);
+                if (scheduled) {
+                    return true;
+                }
+                scheduled = true;
+            }
+        }
+        if (evict) {
+            // the writing task may still be blocked by the client, closing the connection releases it
+            closeQuietly();
+            return false;
+        }
+        schedule();
+        return true;
+    }
 
-        for (String filter : regexFilters) {
-            if (event.topic.matches(filter)) {
-                super.write(chunk);
+    @Override
+    public void run() {
+        for (int i = 0; i < MAX_EVENTS_PER_TASK; i++) {
+            OutboundEvent event;
+            synchronized (this) {
+                event = evicted ? null : queue.poll();
+                if (event == null) {
+                    scheduled = false;
+                    return;
+                }
+            }
+            writeStartTime = System.currentTimeMillis();
+            try {
+                write(event);
+            } catch (IOException e) {
+                logger.debug("Closing SSE connection as an event could not be written: {}", e.getMessage());
+                synchronized (this) {
+                    queue.clear();
+                    scheduled = false;
+                }
+                closeQuietly();
+                return;
+            } finally {
+                writeStartTime = 0;
+            }
+        }
+        // the remaining events are written by a new task, so that a busy client does not occupy a thread of the pool
+        synchronized (this) {
+            if (evicted || queue.isEmpty()) {
+                scheduled = false;
                 return;
             }
         }
+        schedule();
+    }
+
+    private boolean isWriteBlocked() {
+        long startTime = writeStartTime;
+        return startTime != 0 && System.currentTimeMillis() - startTime > writeTimeout;
+    }
+
+    private void schedule() {
+        try {
+            executor.execute(this);
+        } catch (RejectedExecutionException e) {
+            synchronized (this) {
+                scheduled = false;
+            }
+            logger.debug("Sending events to SSE client has been rejected: {}", e.getMessage());
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (IOException e) {
+            logger.debug("Closing SSE connection failed: {}", e.getMessage());
+        }
     }
 
 }
@@ -19,6 +19,8 @@ import org.eclipse.smarthome.core.events.Event;
 import org.eclipse.smarthome.io.rest.sse.beans.EventBean;
 import org.glassfish.jersey.media.sse.OutboundEvent;
 
+import com.google.gson.Gson;
+
 /**
  * Utility class containing helper methods for the SSE implementation.
  * 
@@ -44,9 +46,12 @@ public class SseUtil {
      */
     public static final boolean SERVLET3_SUPPORT;
 
+    private static final Gson gson = new Gson();
+
     /**
-     * Creates a new {@link OutboundEvent} object containing an {@link EventBean} created for the given Eclipse
-     * SmartHome {@link Event}.
+     * Creates a new {@link OutboundEvent} object containing the JSON of an {@link EventBean} created for the given
+     * Eclipse SmartHome {@link Event}. The event is serialized here once, so that the same {@link OutboundEvent} can
+     * be written to all clients without serializing it for each of them.
      * 
      * @param event the event
      * 
@@ -60,7 +65,7 @@ public class SseUtil {
 
         OutboundEvent.Builder eventBuilder = new OutboundEvent.Builder();
         OutboundEvent outboundEvent = eventBuilder.name("message").mediaType(MediaType.APPLICATION_JSON_TYPE)
-                .data(eventBean).build();
+                .data(String.class, gson.toJson(eventBean)).build();
 
         return outboundEvent;
     }
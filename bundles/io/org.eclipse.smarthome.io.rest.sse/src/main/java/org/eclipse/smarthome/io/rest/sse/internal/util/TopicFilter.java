@@ -0,0 +1,110 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.io.rest.sse.internal.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringTokenizer;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * A precompiled topic filter of an SSE client. It matches the same topics as the regular expressions of
+ * {@link SseUtil#convertToRegex(String)}, but it is parsed only once and matches a topic without any regular
+ * expression.
+ * <p>
+ * A valid filter consists of literal parts and wildcards (*) only, and each expression of the filter implicitly ends
+ * with a wildcard. Thus a topic matches an expression if it starts with the first part and contains the following
+ * parts in order, which can be checked by searching for the leftmost occurrence of each part.
+ *
+ * @author agent - Initial contribution and API
+ */
+public class TopicFilter {
+
+    private final String[][] expressions;
+
+    private final boolean matchAll;
+
+    private TopicFilter(String[][] expressions, boolean matchAll) {
+        this.expressions = expressions;
+        this.matchAll = matchAll;
+    }
+
+    /**
+     * Parses a topic filter, which has to be valid in terms of {@link SseUtil#isValidTopicFilter(String)}.
+     *
+     * @param topicFilter the comma separated topic filter, empty or null to match all topics
+     * @return the topic filter
+     */
+    public static TopicFilter parse(String topicFilter) {
+        if (StringUtils.isEmpty(topicFilter)) {
+            return new TopicFilter(new String[0][], true);
+        }
+        boolean matchAll = false;
+        List<String[]> expressions = new ArrayList<>();
+        StringTokenizer tokenizer = new StringTokenizer(topicFilter, ",");
+        while (tokenizer.hasMoreTokens()) {
+            String expression = tokenizer.nextToken().trim();
+            String[] parts = StringUtils.splitPreserveAllTokens(expression, '*');
+            if (isWildcardOnly(parts)) {
+                matchAll = true;
+            }
+            expressions.add(parts);
+        }
+        return new TopicFilter(expressions.toArray(new String[expressions.size()][]), matchAll);
+    }
+
+    /**
+     * Checks whether a topic matches the filter.
+     *
+     * @param topic the topic of an event
+     * @return true if the topic matches any expression of the filter
+     */
+    public boolean matches(String topic) {
+        if (matchAll) {
+            return true;
+        }
+        if (topic == null) {
+            return false;
+        }
+        for (String[] parts : expressions) {
+            if (matches(topic, parts)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean matches(String topic, String[] parts) {
+        if (parts.length == 0) {
+            return true;
+        }
+        if (!topic.startsWith(parts[0])) {
+            return false;
+        }
+        int position = parts[0].length();
+        for (int i = 1; i < parts.length; i++) {
+            int index = topic.indexOf(parts[i], position);
+            if (index < 0) {
+                return false;
+            }
+            position = index + parts[i].length();
+        }
+        return true;
+    }
+
+    private static boolean isWildcardOnly(String[] parts) {
+        for (String part : parts) {
+            if (!part.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
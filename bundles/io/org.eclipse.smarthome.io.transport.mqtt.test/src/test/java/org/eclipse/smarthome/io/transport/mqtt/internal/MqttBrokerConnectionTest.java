@@ -0,0 +1,97 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.io.transport.mqtt.internal;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.eclipse.smarthome.core.events.EventPublisher;
+import org.eclipse.smarthome.io.transport.mqtt.MqttMessageConsumer;
+import org.junit.Test;
+
+/**
+ * Tests the dispatching of received messages to the consumers of a connection which has not been started.
+ *
+ * @author agent - Initial contribution and API
+ */
+public class MqttBrokerConnectionTest {
+
+    private final MqttBrokerConnection connection = new MqttBrokerConnection("test");
+
+    private final TestConsumer consumer = new TestConsumer("home/+/temperature");
+
+    @Test
+    public void testConsumerIsAddedOnce() throws Exception {
+        connection.addConsumer(consumer);
+        connection.addConsumer(consumer);
+
+        receive("home/kitchen/temperature");
+        assertEquals(Arrays.asList("home/kitchen/temperature"), consumer.received);
+    }
+
+    @Test
+    public void testConsumerAddedAgainIsMovedToItsNewTopic() throws Exception {
+        connection.addConsumer(consumer);
+        consumer.setTopic("garden/#");
+        connection.addConsumer(consumer);
+
+        receive("home/kitchen/temperature");
+        receive("garden/temperature");
+        assertEquals(Arrays.asList("garden/temperature"), consumer.received);
+    }
+
+    @Test
+    public void testConsumerIsRemovedWithItsSubscribedTopic() throws Exception {
+        connection.addConsumer(consumer);
+        consumer.setTopic("garden/#");
+        connection.removeConsumer(consumer);
+
+        receive("home/kitchen/temperature");
+        receive("garden/temperature");
+        assertEquals(0, consumer.received.size());
+    }
+
+    private void receive(String topic) throws Exception {
+        connection.messageArrived(topic, new MqttMessage(new byte[0]));
+    }
+
+    private static class TestConsumer implements MqttMessageConsumer {
+
+        private final List<String> received = new ArrayList<>();
+
+        private String topic;
+
+        private TestConsumer(String topic) {
+            this.topic = topic;
+        }
+
+        @Override
+        public void processMessage(String topic, byte[] payload) {
+            received.add(topic);
+        }
+
+        @Override
+        public String getTopic() {
+            return topic;
+        }
+
+        @Override
+        public void setTopic(String topic) {
+            this.topic = topic;
+        }
+
+        @Override
+        public void setEventPublisher(EventPublisher eventPublisher) {
+        }
+    }
+
+}
@@ -0,0 +1,112 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.io.transport.mqtt.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.smarthome.io.transport.mqtt.internal.MqttPublishWindow.Ticket;
+import org.junit.Test;
+
+/**
+ * @author agent - Initial contribution and API
+ */
+public class MqttPublishWindowTest {
+
+    @Test
+    public void testWindowLimitsMessagesInFlight() throws InterruptedException {
+        MqttPublishWindow window = new MqttPublishWindow(2);
+
+        Ticket first = window.acquire(0);
+        Ticket second = window.acquire(0);
+        assertNotNull(first);
+        assertNotNull(second);
+        assertEquals(2, window.getInFlightCount());
+        assertNull(window.acquire(10));
+
+        window.complete(first, true);
+        assertEquals(1, window.getInFlightCount());
+        assertNotNull(window.acquire(0));
+    }
+
+    @Test
+    public void testCompletionWakesUpWaitingPublisher() throws InterruptedException {
+        final MqttPublishWindow window = new MqttPublishWindow(1);
+        Ticket first = window.acquire(0);
+
+        final AtomicReference<Ticket> second = new AtomicReference<>();
+        final CountDownLatch done = new CountDownLatch(1);
+        new Thread() {
+            @Override
+            public void run() {
+                try {
+                    second.set(window.acquire(5000));
+                } catch (InterruptedException e) {
+                    // fails below
+                }
+                done.countDown();
+            }
+        }.start();
+
+        while (window.getWaitingCount() == 0) {
+            Thread.sleep(1);
+        }
+        window.complete(first, true);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertNotNull(second.get());
+        assertEquals(0, window.getWaitingCount());
+        assertEquals(1, window.getInFlightCount());
+    }
+
+    @Test
+    public void testStatistics() throws InterruptedException {
+        MqttPublishWindow window = new MqttPublishWindow(10);
+
+        Ticket delivered = window.acquire(0);
+        Ticket failed = window.acquire(0);
+        Thread.sleep(20);
+        window.complete(delivered, true);
+        window.complete(failed, false);
+        // completing twice does not count
+        window.complete(delivered, true);
+
+        assertEquals(1, window.getPublishedCount());
+        assertEquals(1, window.getFailedCount());
+        assertEquals(0, window.getInFlightCount());
+        assertTrue(window.getLastLatency() >= 20);
+        assertEquals(window.getLastLatency(), window.getMaxLatency());
+        assertEquals(window.getLastLatency(), window.getAverageLatency(), 0.001);
+    }
+
+    @Test
+    public void testResetForgetsMessagesInFlight() throws InterruptedException {
+        MqttPublishWindow window = new MqttPublishWindow(1);
+
+        Ticket lost = window.acquire(0);
+        window.reset();
+        assertEquals(0, window.getInFlightCount());
+
+        Ticket next = window.acquire(0);
+        assertNotNull(next);
+        // the completion of a message from before the reset must not free the place of a new one
+        window.complete(lost, true);
+        assertEquals(1, window.getInFlightCount());
+        assertEquals(0, window.getPublishedCount());
+
+        window.complete(next, true);
+        assertEquals(0, window.getInFlightCount());
+        assertEquals(1, window.getPublishedCount());
+    }
+
+}
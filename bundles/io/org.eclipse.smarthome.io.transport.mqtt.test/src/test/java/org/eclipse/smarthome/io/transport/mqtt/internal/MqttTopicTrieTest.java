@@ -0,0 +1,93 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.io.transport.mqtt.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author agent - Initial contribution and API
+ */
+public class MqttTopicTrieTest {
+
+    private MqttTopicTrie<String> trie;
+
+    @Before
+    public void setUp() {
+        trie = new MqttTopicTrie<>();
+        for (String filter : new String[] { "home/kitchen/temperature", "home/+/temperature", "home/#", "home/+",
+                "+/+/humidity", "#", "home//light", "$SYS/broker/uptime" }) {
+            trie.add(filter, filter);
+        }
+    }
+
+    @Test
+    public void testExactAndSingleLevelWildcard() {
+        assertMatches("home/kitchen/temperature", "home/kitchen/temperature", "home/+/temperature", "home/#", "#");
+        assertMatches("home/garden/temperature", "home/+/temperature", "home/#", "#");
+        assertMatches("home/kitchen/humidity", "+/+/humidity", "home/#", "#");
+        assertMatches("office/kitchen/humidity", "+/+/humidity", "#");
+    }
+
+    @Test
+    public void testMultiLevelWildcardMatchesParentLevel() {
+        assertMatches("home", "home/#", "#");
+        assertMatches("home/kitchen", "home/+", "home/#", "#");
+        assertMatches("home/kitchen/light/1/state", "home/#", "#");
+    }
+
+    @Test
+    public void testEmptyLevels() {
+        assertMatches("home//light", "home//light", "home/#", "#");
+        assertMatches("home/", "home/+", "home/#", "#");
+        assertMatches("home/kitchen/", "home/#", "#");
+    }
+
+    @Test
+    public void testWildcardsDoNotMatchSystemTopics() {
+        assertMatches("$SYS/broker/uptime", "$SYS/broker/uptime");
+        assertMatches("$SYS/broker/load");
+    }
+
+    @Test
+    public void testRemove() {
+        assertTrue(trie.remove("home/#", "home/#"));
+        assertFalse(trie.remove("home/#", "home/#"));
+        assertFalse(trie.remove("home/kitchen/#", "home/kitchen/#"));
+        assertMatches("home", "#");
+
+        assertTrue(trie.remove("#", "#"));
+        assertMatches("home");
+        assertMatches("home/garden/temperature", "home/+/temperature");
+    }
+
+    @Test
+    public void testSeveralSubscribersOfTheSameFilter() {
+        trie.add("home/kitchen/temperature", "other");
+        assertEquals(5, trie.match("home/kitchen/temperature").size());
+
+        trie.remove("home/kitchen/temperature", "home/kitchen/temperature");
+        assertMatches("home/kitchen/temperature", "other", "home/+/temperature", "home/#", "#");
+    }
+
+    private void assertMatches(String topic, String... filters) {
+        Set<String> expected = new HashSet<>(Arrays.asList(filters));
+        Set<String> actual = new HashSet<>(trie.match(topic));
+        assertEquals("Subscribers of '" + topic + "'", expected, actual);
+        assertEquals("Duplicate subscribers of '" + topic + "'", actual.size(), trie.match(topic).size());
+    }
+
+}
@@ -0,0 +1,30 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.io.transport.mqtt;
+
+/**
+ * A {@link MqttSenderChannel} which notifies the sender about the delivery of its messages. The channels which the
+ * MqttBrokerConnection passes to its producers implement this interface.
+ *
+ * @author agent - Initial contribution and API
+ */
+public interface MqttAsyncSenderChannel extends MqttSenderChannel {
+
+    /**
+     * Send a message to the MQTT broker and get notified when it has been delivered. In asynchronous mode the message
+     * is only handed over to the client, which delivers it while further messages can be sent. Only if too many
+     * messages are in flight, the method waits until one of them has been delivered.
+     *
+     * @param topic Topic to publish the message to.
+     * @param message message payload.
+     * @param callback callback which is notified about the delivery of the message, may be null.
+     * @throws Exception if an error occurs during sending.
+     */
+    public void publish(String topic, byte[] message, MqttPublishCallback callback) throws Exception;
+
+}
@@ -32,6 +32,9 @@ public interface MqttMessageConsumer {
 
     /**
      * Set Topic to subscribe to. May contain + or # wildcards
+     * <p>
+     * A connection keeps a consumer subscribed with the topic it had when it was added. To change the topic of a
+     * registered consumer, add it to the connection again after the change, which moves it to the new topic.
      *
      * @param topic to subscribe to.
      */
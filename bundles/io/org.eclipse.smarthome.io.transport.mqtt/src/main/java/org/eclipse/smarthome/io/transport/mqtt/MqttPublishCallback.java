@@ -0,0 +1,36 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.io.transport.mqtt;
+
+/**
+ * Callback interface for being notified when a message which has been sent through a {@link MqttAsyncSenderChannel}
+ * has been delivered to the MQTT broker or has failed. The callback is called by a thread of the MQTT client and must
+ * return quickly.
+ *
+ * @author agent - Initial contribution and API
+ */
+public interface MqttPublishCallback {
+
+    /**
+     * The message has been delivered to the broker with the quality of service of the connection.
+     *
+     * @param topic topic the message has been published to.
+     * @param message message payload.
+     */
+    public void onSuccess(String topic, byte[] message);
+
+    /**
+     * The message could not be delivered to the broker.
+     *
+     * @param topic topic the message should have been published to.
+     * @param message message payload.
+     * @param error the cause of the failure.
+     */
+    public void onFailure(String topic, byte[] message, Throwable error);
+
+}
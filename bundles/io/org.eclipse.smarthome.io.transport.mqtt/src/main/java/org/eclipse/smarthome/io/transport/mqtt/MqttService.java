@@ -87,6 +87,8 @@ public class MqttService implements ManagedService {
                 conn.setRetain(Boolean.parseBoolean(value));
             } else if (property.equals("async")) {
                 conn.setAsync(Boolean.parseBoolean(value));
+            } else if (property.equals("maxInFlight")) {
+                conn.setMaxInFlight(Integer.parseInt(value));
             } else if (property.equals("clientId")) {
                 conn.setClientId(value);
             } else if (property.equals("lwt")) {
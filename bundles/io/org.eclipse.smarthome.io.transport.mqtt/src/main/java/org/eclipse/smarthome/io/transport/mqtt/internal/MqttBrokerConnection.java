@@ -8,7 +8,10 @@
 package org.eclipse.smarthome.io.transport.mqtt.internal;
 
 import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Timer;
 import java.util.concurrent.CopyOnWriteArrayList;
@@ -19,19 +22,21 @@ import javax.net.ssl.TrustManager;
 import javax.net.ssl.X509TrustManager;
 
 import org.apache.commons.lang.StringUtils;
+import org.eclipse.paho.client.mqttv3.IMqttActionListener;
 import org.eclipse.paho.client.mqttv3.IMqttDeliveryToken;
+import org.eclipse.paho.client.mqttv3.IMqttToken;
+import org.eclipse.paho.client.mqttv3.MqttAsyncClient;
 import org.eclipse.paho.client.mqttv3.MqttCallback;
 import org.eclipse.paho.client.mqttv3.MqttClient;
 import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
-import org.eclipse.paho.client.mqttv3.MqttDeliveryToken;
 import org.eclipse.paho.client.mqttv3.MqttException;
 import org.eclipse.paho.client.mqttv3.MqttMessage;
-import org.eclipse.paho.client.mqttv3.MqttTopic;
 import org.eclipse.paho.client.mqttv3.persist.MqttDefaultFilePersistence;
+import org.eclipse.smarthome.io.transport.mqtt.MqttAsyncSenderChannel;
 import org.eclipse.smarthome.io.transport.mqtt.MqttConnectionObserver;
 import org.eclipse.smarthome.io.transport.mqtt.MqttMessageConsumer;
 import org.eclipse.smarthome.io.transport.mqtt.MqttMessageProducer;
-import org.eclipse.smarthome.io.transport.mqtt.MqttSenderChannel;
+import org.eclipse.smarthome.io.transport.mqtt.MqttPublishCallback;
 import org.eclipse.smarthome.io.transport.mqtt.MqttWillAndTestament;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -42,6 +47,11 @@ import org.slf4j.LoggerFactory;
  *
  * When a connection to an MQTT broker is lost, it will try to reconnect every 60 seconds.
  *
+ * Messages are published without waiting for each other. The number of messages in flight is limited by a
+ * {@link MqttPublishWindow}, which also keeps the latency statistics. Received messages are dispatched to the consumers
+ * through a {@link MqttTopicTrie} of their topics. A consumer stays subscribed with the topic it had when it was added,
+ * until it is added again or the connection is restarted.
+ *
  * @author Davy Vanherbergen
  * @author Markus Rathgeb - added connection state callback
  */
@@ -51,6 +61,22 @@ public class MqttBrokerConnection implements MqttCallback {
 
     private static final int RECONNECT_FREQUENCY = 60000;
 
+    /**
+     * The maximum time in milliseconds to wait for the completion of a message in synchronous mode, as well as for a
+     * place in the publish window.
+     */
+    private static final int PUBLISH_TIMEOUT = 10000;
+
+    /**
+     * The default maximum number of messages in flight, which is the maximum the MQTT client supports.
+     */
+    public static final int DEFAULT_MAX_IN_FLIGHT = 10;
+
+    /**
+     * Failed messages are logged for the first one and then for every n-th one.
+     */
+    private static final int FAILURE_LOG_INTERVAL = 100;
+
     private String name;
 
     private String url;
@@ -69,7 +95,7 @@ public class MqttBrokerConnection implements MqttCallback {
 
     private String clientId;
 
-    private MqttClient client;
+    private MqttAsyncClient client;
 
     private boolean started;
 
@@ -77,7 +103,12 @@ public class MqttBrokerConnection implements MqttCallback {
 
     private List<MqttConnectionObserver> connectionObservers = new CopyOnWriteArrayList<>();
 
-    private List<MqttMessageConsumer> consumers = new CopyOnWriteArrayList<MqttMessageConsumer>();
+    /** the consumers and the topics they have been subscribed with, guarded by this */
+    private final Map<MqttMessageConsumer, String> consumers = new IdentityHashMap<>();
+
+    private final MqttTopicTrie<MqttMessageConsumer> consumerTrie = new MqttTopicTrie<>();
+
+    private final MqttPublishWindow publishWindow = new MqttPublishWindow(DEFAULT_MAX_IN_FLIGHT);
 
     private List<MqttMessageProducer> producers = new CopyOnWriteArrayList<MqttMessageProducer>();
 
@@ -133,13 +164,14 @@ public class MqttBrokerConnection implements MqttCallback {
             if (!this.url.equals(client.getServerURI()) || !this.clientId.equals(client.getClientId())) {
                 if (client.isConnected()) {
                     logger.info("MQTT broker server URI or client ID changed. Removing previous connection.");
-                    client.disconnect();
+                    client.disconnect().waitForCompletion();
                 }
                 client = null;
             }
         }
 
         openConnection();
+        publishWindow.reset();
 
         if (reconnectTimer != null) {
             // we are active, so stop trying to reconnect
@@ -147,8 +179,8 @@ public class MqttBrokerConnection implements MqttCallback {
         }
 
         // start all consumers
-        for (MqttMessageConsumer c : consumers) {
-            startConsumer(c);
+        for (MqttMessageConsumer c : new ArrayList<>(consumers.keySet())) {
+            startConsumer(c, updateTopic(c));
         }
 
         // start all producers
@@ -270,8 +302,8 @@ public class MqttBrokerConnection implements MqttCallback {
     /**
      * Set whether messages should be sent synchronously (the message is sent and the thread waits until delivery to the
      * broker has completed) or asynchronously (the message is sent and the sendign thread does not wait for delivery
-     * completion). In the case of async, the sending thread currently does not receive any feedback when delivery is
-     * completed.
+     * completion). In the case of async, the sending thread only waits if too many messages are in flight, and it can
+     * pass an {@link MqttPublishCallback} to get notified when the delivery is completed.
      *
      * @param async
      */
@@ -279,6 +311,73 @@ public class MqttBrokerConnection implements MqttCallback {
         this.async = async;
     }
 
+    /**
+     * @return the maximum number of messages which are published but not yet completed.
+     */
+    public int getMaxInFlight() {
+        return publishWindow.getSize();
+    }
+
+    /**
+     * Set the maximum number of messages which are published but not yet completed. A message which is published
+     * while this number of messages are in flight waits until one of them has been completed. Values above the default
+     * of 10 only have an effect if the MQTT client supports them.
+     *
+     * @param maxInFlight the maximum number of messages in flight, at least 1.
+     */
+    public void setMaxInFlight(int maxInFlight) {
+        publishWindow.setSize(maxInFlight);
+    }
+
+    /**
+     * @return the number of messages which are published but not yet completed.
+     */
+    public int getInFlightCount() {
+        return publishWindow.getInFlightCount();
+    }
+
+    /**
+     * @return the number of messages which wait to be published because too many messages are in flight.
+     */
+    public int getWaitingCount() {
+        return publishWindow.getWaitingCount();
+    }
+
+    /**
+     * @return the number of messages which have been delivered to the broker.
+     */
+    public long getPublishedCount() {
+        return publishWindow.getPublishedCount();
+    }
+
+    /**
+     * @return the number of messages which could not be delivered to the broker.
+     */
+    public long getFailedCount() {
+        return publishWindow.getFailedCount();
+    }
+
+    /**
+     * @return the time in milliseconds between publishing the last delivered message and its completion.
+     */
+    public long getLastPublishLatency() {
+        return publishWindow.getLastLatency();
+    }
+
+    /**
+     * @return the average time in milliseconds between publishing a message and its completion.
+     */
+    public double getAveragePublishLatency() {
+        return publishWindow.getAverageLatency();
+    }
+
+    /**
+     * @return the maximum time in milliseconds between publishing a message and its completion.
+     */
+    public long getMaxPublishLatency() {
+        return publishWindow.getMaxLatency();
+    }
+
     /**
      * Set client id to use when connecting to the broker. If none is specified, a default is generated.
      *
@@ -319,7 +418,7 @@ public class MqttBrokerConnection implements MqttCallback {
             String tmpDir = System.getProperty("java.io.tmpdir") + "/" + name;
             MqttDefaultFilePersistence dataStore = new MqttDefaultFilePersistence(tmpDir);
             logger.debug("Creating new client for '{}' using id '{}' and file store '{}'", url, clientId, tmpDir);
-            client = new MqttClient(url, clientId, dataStore);
+            client = new MqttAsyncClient(url, clientId, dataStore);
             client.setCallback(this);
         }
 
@@ -373,7 +472,7 @@ public class MqttBrokerConnection implements MqttCallback {
 
         options.setKeepAliveInterval(keepAliveInterval);
 
-        client.connect(options);
+        client.connect(options).waitForCompletion();
     }
 
     /**
@@ -440,39 +539,96 @@ public class MqttBrokerConnection implements MqttCallback {
 
         logger.trace("Starting message producer for broker '{}'", name);
 
-        publisher.setSenderChannel(new MqttSenderChannel() {
+        publisher.setSenderChannel(new MqttAsyncSenderChannel() {
 
             @Override
             public void publish(String topic, byte[] payload) throws Exception {
+                publish(topic, payload, null);
+            }
 
-                if (!started) {
-                    logger.warn("Broker connection not started. Cannot publish message to topic '{}'", topic);
-                    return;
+            @Override
+            public void publish(String topic, byte[] payload, MqttPublishCallback callback) throws Exception {
+                MqttBrokerConnection.this.publish(topic, payload, callback);
+            }
+        });
+
+    }
+
+    /**
+     * Publish a message. It waits for a place in the publish window and, in synchronous mode, for the completion of
+     * the message.
+     *
+     * @param topic topic to publish the message to.
+     * @param payload message payload.
+     * @param callback callback to notify about the completion of the message, may be null.
+     * @throws Exception if the message could not be published.
+     */
+    private void publish(final String topic, final byte[] payload, final MqttPublishCallback callback)
+            throws Exception {
+
+        if (!started) {
+            logger.warn("Broker connection not started. Cannot publish message to topic '{}'", topic);
+            return;
+        }
+
+        // Create and configure a message
+        MqttMessage message = new MqttMessage(payload);
+        message.setQos(qos);
+        message.setRetained(retain);
+
+        final MqttPublishWindow.Ticket ticket = publishWindow.acquire(PUBLISH_TIMEOUT);
+        if (ticket == null) {
+            logger.error("Too many messages are in flight whilst publishing to topic '{}'", topic);
+            throw new MqttException(MqttException.REASON_CODE_MAX_INFLIGHT);
+        }
+
+        // publish message asynchronously
+        IMqttDeliveryToken deliveryToken;
+        try {
+            deliveryToken = client.publish(topic, message, null, new IMqttActionListener() {
+
+                @Override
+                public void onSuccess(IMqttToken token) {
+                    publishWindow.complete(ticket, true);
+                    if (callback != null) {
+                        callback.onSuccess(topic, payload);
+                    }
                 }
 
-                // Create and configure a message
-                MqttMessage message = new MqttMessage(payload);
-                message.setQos(qos);
-                message.setRetained(retain);
-
-                // publish message asynchronously
-                MqttTopic mqttTopic = client.getTopic(topic);
-                MqttDeliveryToken deliveryToken = mqttTopic.publish(message);
-
-                logger.debug("Publishing message {} to topic '{}'", deliveryToken.getMessageId(), topic);
-                if (!async) {
-                    // wait for publish confirmation
-                    deliveryToken.waitForCompletion(10000);
-                    if (!deliveryToken.isComplete()) {
-                        logger.error(
-                                "Did not receive completion message within timeout limit whilst publishing to topic '{}'",
-                                topic);
+                @Override
+                public void onFailure(IMqttToken token, Throwable error) {
+                    publishWindow.complete(ticket, false);
+                    publishFailed(topic, error);
+                    if (callback != null) {
+                        callback.onFailure(topic, payload, error);
                     }
                 }
+            });
+        } catch (Exception e) {
+            publishWindow.complete(ticket, false);
+            throw e;
+        }
 
+        logger.debug("Publishing message {} to topic '{}'", deliveryToken.getMessageId(), topic);
+        if (!async) {
+            // wait for publish confirmation
+            deliveryToken.waitForCompletion(PUBLISH_TIMEOUT);
+            if (!deliveryToken.isComplete()) {
+                logger.error("Did not receive completion message within timeout limit whilst publishing to topic '{}'",
+                        topic);
             }
-        });
+        }
+    }
 
+    private void publishFailed(String topic, Throwable error) {
+        long failed = publishWindow.getFailedCount();
+        if (failed == 1 || failed % FAILURE_LOG_INTERVAL == 0) {
+            logger.warn("Publishing message to topic '{}' on broker '{}' failed: {} ({} messages failed so far)",
+                    new Object[] { topic, name, error != null ? error.getMessage() : "unknown error", failed });
+        } else {
+            logger.debug("Publishing message to topic '{}' on broker '{}' failed: {}",
+                    new Object[] { topic, name, error != null ? error.getMessage() : "unknown error" });
+        }
     }
 
     /**
@@ -481,24 +637,55 @@ public class MqttBrokerConnection implements MqttCallback {
      * @param consumer to add.
      */
     public synchronized void addConsumer(MqttMessageConsumer subscriber) {
-        consumers.add(subscriber);
+        String topic;
+        if (consumers.containsKey(subscriber)) {
+            String previousTopic = consumers.get(subscriber);
+            topic = updateTopic(subscriber);
+            if (topic.equals(previousTopic)) {
+                return;
+            }
+            unsubscribe(previousTopic);
+        } else {
+            topic = subscriber.getTopic();
+            consumers.put(subscriber, topic);
+            consumerTrie.add(topic, subscriber);
+        }
         if (started) {
-            startConsumer(subscriber);
+            startConsumer(subscriber, topic);
         }
     }
 
+    /**
+     * Moves a registered consumer to its current topic, if it has been changed since the consumer has been subscribed.
+     *
+     * @param subscriber the registered consumer.
+     * @return the current topic of the consumer.
+     */
+    private String updateTopic(MqttMessageConsumer subscriber) {
+        String previousTopic = consumers.get(subscriber);
+        String topic = subscriber.getTopic();
+        if (!topic.equals(previousTopic)) {
+            logger.debug("Message consumer on broker '{}' has changed its topic from '{}' to '{}'",
+                    new Object[] { name, previousTopic, topic });
+            consumerTrie.remove(previousTopic, subscriber);
+            consumerTrie.add(topic, subscriber);
+            consumers.put(subscriber, topic);
+        }
+        return topic;
+    }
+
     /**
      * Start a registered consumer, so that it can start receiving messages.
      *
      * @param subscriber to start.
+     * @param topic the topic the consumer has been registered with.
      */
-    private void startConsumer(MqttMessageConsumer subscriber) {
+    private void startConsumer(MqttMessageConsumer subscriber, String topic) {
 
-        String topic = subscriber.getTopic();
         logger.debug("Starting message consumer for broker '{}' on topic '{}'", name, topic);
 
         try {
-            client.subscribe(topic, qos);
+            client.subscribe(topic, qos).waitForCompletion();
         } catch (Exception e) {
             logger.error("Error starting consumer", e);
         }
@@ -530,17 +717,24 @@ public class MqttBrokerConnection implements MqttCallback {
      * @param subscriber to remove.
      */
     public synchronized void removeConsumer(MqttMessageConsumer subscriber) {
-        logger.debug("Unsubscribing message consumer for topic '{}' from broker '{}'", subscriber.getTopic(), name);
+        // the consumer is removed with the topic it has been subscribed with, even if it has changed it since
+        String topic = consumers.remove(subscriber);
+        if (topic == null) {
+            return;
+        }
+        logger.debug("Unsubscribing message consumer for topic '{}' from broker '{}'", topic, name);
+        unsubscribe(topic);
+        consumerTrie.remove(topic, subscriber);
+    }
 
+    private void unsubscribe(String topic) {
         try {
             if (started) {
-                client.unsubscribe(subscriber.getTopic());
+                client.unsubscribe(topic).waitForCompletion();
             }
         } catch (Exception e) {
             logger.error("Error unsubscribing topic from broker", e);
         }
-        consumers.remove(subscriber);
-
     }
 
     /**
@@ -550,12 +744,13 @@ public class MqttBrokerConnection implements MqttCallback {
         logger.debug("Closing connection to broker '{}'", name);
         try {
             if (started) {
-                client.disconnect();
+                client.disconnect().waitForCompletion();
             }
         } catch (MqttException e) {
             logger.error("Error closing connection to broker", e);
         }
         setStarted(false);
+        publishWindow.reset();
     }
 
     @Override
@@ -573,6 +768,8 @@ public class MqttBrokerConnection implements MqttCallback {
         }
 
         setStarted(false);
+        // the messages in flight are failed or redelivered by the client, publishers must not wait for them anymore
+        publishWindow.reset();
         logger.info("Starting connection helper to periodically try restore connection to broker '{}'", name);
 
         MqttBrokerConnectionHelper helper = new MqttBrokerConnectionHelper(this);
@@ -589,43 +786,12 @@ public class MqttBrokerConnection implements MqttCallback {
     @Override
     public void messageArrived(String topic, MqttMessage message) throws Exception {
 
-        logger.trace("Received message on topic '{}' : {}", topic, new String(message.getPayload()));
-        for (MqttMessageConsumer consumer : consumers) {
-            if (isTopicMatch(topic, consumer.getTopic())) {
-                consumer.processMessage(topic, message.getPayload());
-            }
-        }
-    }
-
-    /**
-     * Check if the topic on which a message was received matches provided target topic. The matching will take into
-     * account the + and # wildcards.
-     *
-     * @param source topic from received message
-     * @param target topic as defined with possible wildcards.
-     * @return true if both topics match.
-     */
-    private boolean isTopicMatch(String source, String target) {
-        if (source.equals(target)) {
-            return true;
+        if (logger.isTraceEnabled()) {
+            logger.trace("Received message on topic '{}' : {}", topic, new String(message.getPayload()));
         }
-        if (target.indexOf('+') == -1 && target.indexOf('#') == -1) {
-            return false;
-        } else {
-
-            String regex = target;
-            regex = StringUtils.replace(regex, "+", "[^/]*");
-            regex = StringUtils.replace(regex, "#", ".*");
-            boolean result = source.matches(regex);
-            if (result) {
-                logger.trace("Topic match for '{}' and '{}' using regex {}", source, target, regex);
-                return true;
-            } else {
-                logger.trace("No topic match for '{}' and '{}' using regex {}", source, target, regex);
-                return false;
-            }
+        for (MqttMessageConsumer consumer : consumerTrie.match(topic)) {
+            consumer.processMessage(topic, message.getPayload());
         }
-
     }
 
     /**
@@ -0,0 +1,178 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.io.transport.mqtt.internal;
+
+/**
+ * The {@link MqttPublishWindow} limits the number of messages of a broker connection which are published but not yet
+ * completed, so that messages can be published one after the other without waiting for each round trip, while the
+ * client library is not overrun. A publisher which finds the window full waits until a message completes.
+ * <p>
+ * The window also keeps the statistics of the publishing. Messages which are still in flight when the window is reset,
+ * e.g. because the connection has been lost, do not count anymore, even if they complete later.
+ *
+ * @author agent - Initial contribution and API
+ */
+class MqttPublishWindow {
+
+    /** guarded by this, as well as all other fields */
+    private int size;
+
+    private int inFlight;
+
+    private int waiting;
+
+    private long generation;
+
+    private long publishedCount;
+
+    private long failedCount;
+
+    private long totalLatency;
+
+    private long lastLatency;
+
+    private long maxLatency;
+
+    MqttPublishWindow(int size) {
+        this.size = Math.max(1, size);
+    }
+
+    /**
+     * Changes the maximum number of messages in flight.
+     *
+     * @param size the maximum number, at least 1
+     */
+    synchronized void setSize(int size) {
+        this.size = Math.max(1, size);
+        notifyAll();
+    }
+
+    synchronized int getSize() {
+        return size;
+    }
+
+    /**
+     * Takes a place in the window for a new message, waiting until there is one.
+     *
+     * @param timeout the maximum time to wait in milliseconds
+     * @return the ticket of the message, which has to be passed to {@link #complete(Ticket, boolean)}, or null if the
+     *         window has stayed full until the timeout
+     * @throws InterruptedException if the thread has been interrupted while waiting
+     */
+    synchronized Ticket acquire(long timeout) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeout;
+        waiting++;
+        try {
+            while (inFlight >= size) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return null;
+                }
+                wait(remaining);
+            }
+        } finally {
+            waiting--;
+        }
+        inFlight++;
+        return new Ticket(generation);
+    }
+
+    /**
+     * Frees the place of a message in the window and records its latency.
+     *
+     * @param ticket the ticket of the message
+     * @param success true if the message has been published successfully
+     */
+    synchronized void complete(Ticket ticket, boolean success) {
+        if (ticket.completed || ticket.generation != generation) {
+            return;
+        }
+        ticket.completed = true;
+        inFlight--;
+        notifyAll();
+        if (success) {
+            long latency = System.currentTimeMillis() - ticket.startTime;
+            publishedCount++;
+            totalLatency += latency;
+            lastLatency = latency;
+            maxLatency = Math.max(maxLatency, latency);
+        } else {
+            failedCount++;
+        }
+    }
+
+    /**
+     * Frees all places of the window. The messages which are currently in flight are not waited for anymore.
+     */
+    synchronized void reset() {
+        generation++;
+        inFlight = 0;
+        notifyAll();
+    }
+
+    /**
+     * @return the number of messages which are published but not yet completed
+     */
+    synchronized int getInFlightCount() {
+        return inFlight;
+    }
+
+    /**
+     * @return the number of publishers which are waiting for a place in the window
+     */
+    synchronized int getWaitingCount() {
+        return waiting;
+    }
+
+    synchronized long getPublishedCount() {
+        return publishedCount;
+    }
+
+    synchronized long getFailedCount() {
+        return failedCount;
+    }
+
+    /**
+     * @return the time in milliseconds between publishing the last successful message and its completion
+     */
+    synchronized long getLastLatency() {
+        return lastLatency;
+    }
+
+    /**
+     * @return the maximum latency in milliseconds of all successful messages
+     */
+    synchronized long getMaxLatency() {
+        return maxLatency;
+    }
+
+    /**
+     * @return the average latency in milliseconds of all successful messages
+     */
+    synchronized double getAverageLatency() {
+        return publishedCount == 0 ? 0 : (double) totalLatency / publishedCount;
+    }
+
+    /**
+     * The place of a single message in the window.
+     */
+    static class Ticket {
+
+        private final long generation;
+
+        private final long startTime = System.currentTimeMillis();
+
+        /** guarded by the window */
+        private boolean completed;
+
+        private Ticket(long generation) {
+            this.generation = generation;
+        }
+    }
+
+}
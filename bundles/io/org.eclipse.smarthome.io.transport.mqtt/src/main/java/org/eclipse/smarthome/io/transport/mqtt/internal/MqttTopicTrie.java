@@ -0,0 +1,149 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.io.transport.mqtt.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A trie of MQTT topic filters, which finds the subscribers of a topic without comparing the topic with every single
+ * filter. Each level of a filter is a node of the trie, the wildcards '+' and '#' are nodes of their own.
+ * <p>
+ * The matching follows the MQTT specification: '+' matches exactly one level, '#' matches any number of levels
+ * including the parent level, and wildcards at the first level do not match topics starting with '$'.
+ * <p>
+ * Subscribers are added and removed under a lock, while topics are matched without any locking.
+ *
+ * @author agent - Initial contribution and API
+ *
+ * @param <T> the type of the subscribers
+ */
+class MqttTopicTrie<T> {
+
+    private static final String SINGLE_LEVEL_WILDCARD = "+";
+
+    private static final String MULTI_LEVEL_WILDCARD = "#";
+
+    private final Node<T> root = new Node<>();
+
+    /**
+     * Adds a subscriber for a topic filter.
+     *
+     * @param filter the topic filter, which may contain wildcards, null is ignored
+     * @param subscriber the subscriber
+     */
+    synchronized void add(String filter, T subscriber) {
+        if (filter == null) {
+            return;
+        }
+        Node<T> node = root;
+        for (String level : splitLevels(filter)) {
+            Node<T> child = node.children.get(level);
+            if (child == null) {
+                child = new Node<>();
+                node.children.put(level, child);
+            }
+            node = child;
+        }
+        node.subscribers.add(subscriber);
+    }
+
+    /**
+     * Removes a subscriber of a topic filter.
+     *
+     * @param filter the topic filter the subscriber has been added with
+     * @param subscriber the subscriber
+     * @return true if the subscriber has been removed, false if it has not been found
+     */
+    synchronized boolean remove(String filter, T subscriber) {
+        if (filter == null) {
+            return false;
+        }
+        return remove(root, splitLevels(filter), 0, subscriber);
+    }
+
+    /**
+     * Returns the subscribers whose topic filter matches a topic.
+     *
+     * @param topic the topic of a message, which must not contain wildcards
+     * @return the matching subscribers
+     */
+    List<T> match(String topic) {
+        List<T> result = new ArrayList<>();
+        collect(root, topic, 0, result);
+        return result;
+    }
+
+    private void collect(Node<T> node, String topic, int start, List<T> result) {
+        boolean wildcardsAllowed = start > 0 || !topic.startsWith("$");
+        if (wildcardsAllowed) {
+            Node<T> multiLevel = node.children.get(MULTI_LEVEL_WILDCARD);
+            if (multiLevel != null) {
+                result.addAll(multiLevel.subscribers);
+            }
+        }
+        if (start > topic.length()) {
+            result.addAll(node.subscribers);
+            return;
+        }
+        if (node.children.isEmpty()) {
+            return;
+        }
+        int end = topic.indexOf('/', start);
+        if (end < 0) {
+            end = topic.length();
+        }
+        Node<T> child = node.children.get(topic.substring(start, end));
+        if (child != null) {
+            collect(child, topic, end + 1, result);
+        }
+        if (wildcardsAllowed) {
+            Node<T> singleLevel = node.children.get(SINGLE_LEVEL_WILDCARD);
+            if (singleLevel != null) {
+                collect(singleLevel, topic, end + 1, result);
+            }
+        }
+    }
+
+    private boolean remove(Node<T> node, List<String> levels, int index, T subscriber) {
+        if (index == levels.size()) {
+            return node.subscribers.remove(subscriber);
+        }
+        Node<T> child = node.children.get(levels.get(index));
+        if (child == null || !remove(child, levels, index + 1, subscriber)) {
+            return false;
+        }
+        if (child.subscribers.isEmpty() && child.children.isEmpty()) {
+            node.children.remove(levels.get(index));
+        }
+        return true;
+    }
+
+    private static List<String> splitLevels(String filter) {
+        List<String> levels = new ArrayList<>();
+        int start = 0;
+        int end;
+        while ((end = filter.indexOf('/', start)) >= 0) {
+            levels.add(filter.substring(start, end));
+            start = end + 1;
+        }
+        levels.add(filter.substring(start));
+        return levels;
+    }
+
+    private static class Node<T> {
+
+        private final ConcurrentMap<String, Node<T>> children = new ConcurrentHashMap<>();
+
+        private final List<T> subscribers = new CopyOnWriteArrayList<>();
+    }
+
+}
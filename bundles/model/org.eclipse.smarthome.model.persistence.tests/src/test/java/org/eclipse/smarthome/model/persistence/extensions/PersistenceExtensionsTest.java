@@ -18,6 +18,7 @@ import org.eclipse.smarthome.core.persistence.HistoricItem;
 import org.eclipse.smarthome.core.persistence.PersistenceService;
 import org.eclipse.smarthome.core.types.Command;
 import org.eclipse.smarthome.core.types.State;
+import org.eclipse.smarthome.model.persistence.tests.TestAggregatePersistenceService;
 import org.eclipse.smarthome.model.persistence.tests.TestPersistenceService;
 import org.joda.time.DateMidnight;
 import org.junit.After;
@@ -32,6 +33,7 @@ import org.junit.Test;
 public class PersistenceExtensionsTest {
 
     private PersistenceService testPersistenceService = new TestPersistenceService();
+    private TestAggregatePersistenceService aggregatePersistenceService = new TestAggregatePersistenceService();
     private PersistenceExtensions ext;
     private GenericItem item;
 
@@ -39,6 +41,7 @@ public class PersistenceExtensionsTest {
     public void setUp() {
         ext = new PersistenceExtensions();
         ext.addPersistenceService(testPersistenceService);
+        ext.addPersistenceService(aggregatePersistenceService);
         item = new GenericItem("Test", "Test") {
             @Override
             public List<Class<? extends State>> getAcceptedDataTypes() {
@@ -55,6 +58,7 @@ public class PersistenceExtensionsTest {
     @After
     public void tearDown() {
         ext.removePersistenceService(testPersistenceService);
+        ext.removePersistenceService(aggregatePersistenceService);
     }
 
     @Test
@@ -102,6 +106,38 @@ public class PersistenceExtensionsTest {
         DecimalType average = PersistenceExtensions.averageSince(item, new DateMidnight(2003, 1, 1), "test");
         assertEquals("2100", average.toString());
     }
+
+    @Test
+    public void testSumSince() {
+        DecimalType sum = PersistenceExtensions.sumSince(item, new DateMidnight(2010, 1, 1), "test");
+        assertEquals("6033", sum.toString());
+
+        sum = PersistenceExtensions.sumSince(item, new DateMidnight(2012, 1, 1), "test");
+        assertEquals("0", sum.toString());
+    }
+
+    @Test
+    public void testAggregationByService() {
+        item.setState(new DecimalType(3025));
+        DecimalType average = PersistenceExtensions.averageSince(item, new DateMidnight(2003, 1, 1), "aggregate");
+        assertEquals("2100", average.toString());
+
+        DecimalType sum = PersistenceExtensions.sumSince(item, new DateMidnight(2010, 1, 1), "aggregate");
+        assertEquals("6033", sum.toString());
+
+        item.setState(new DecimalType(2008));
+        HistoricItem historicItem = PersistenceExtensions.minimumSince(item, new DateMidnight(2005, 1, 1),
+                "aggregate");
+        assertEquals("2005", historicItem.getState().toString());
+        assertEquals(new DateMidnight(2005, 1, 1).toDate(), historicItem.getTimestamp());
+
+        historicItem = PersistenceExtensions.maximumSince(item, new DateMidnight(2005, 1, 1), "aggregate");
+        assertEquals("2012", historicItem.getState().toString());
+        assertEquals(new DateMidnight(2012, 1, 1).toDate(), historicItem.getTimestamp());
+
+        assertEquals(5, aggregatePersistenceService.aggregations);
+        assertEquals(0, aggregatePersistenceService.queries);
+    }
     
     @Test
     public void testPreviousStateNoSkip() {
@@ -0,0 +1,274 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.model.persistence.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.eclipse.smarthome.core.items.GenericItem;
+import org.eclipse.smarthome.core.items.Item;
+import org.eclipse.smarthome.core.library.items.SwitchItem;
+import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.core.library.types.OnOffType;
+import org.eclipse.smarthome.core.library.types.PercentType;
+import org.eclipse.smarthome.core.persistence.BatchPersistenceService;
+import org.eclipse.smarthome.core.persistence.PersistenceEntry;
+import org.eclipse.smarthome.core.types.Command;
+import org.eclipse.smarthome.core.types.State;
+import org.eclipse.smarthome.model.persistence.tests.TestPersistenceService;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author agent - Initial contribution and API
+ */
+public class PersistenceWriterTest {
+
+    private final ManualExecutor executor = new ManualExecutor();
+    private GenericItem item;
+
+    @Before
+    public void setUp() {
+        item = new GenericItem("Test", "Test") {
+            @Override
+            public List<Class<? extends State>> getAcceptedDataTypes() {
+                return null;
+            }
+
+            @Override
+            public List<Class<? extends Command>> getAcceptedCommandTypes() {
+                return null;
+            }
+        };
+    }
+
+    @Test
+    public void testBatchServiceGetsQueuedStatesInBatches() {
+        TestBatchPersistenceService service = new TestBatchPersistenceService();
+        PersistenceWriter writer = new PersistenceWriter(service, executor);
+        writer.configure(100, 2, PersistenceWriter.QueueFullPolicy.DROP_OLDEST);
+
+        store(writer, 1, 2, 3);
+        assertEquals(1, executor.tasks.size());
+        assertEquals(3, writer.getQueuedCount());
+
+        executor.runAll();
+        assertEquals(Arrays.asList(Arrays.asList(1, 2), Arrays.asList(3)), service.batches);
+        assertEquals(3, writer.getStoredCount());
+        assertEquals(0, writer.getQueuedCount());
+    }
+
+    @Test
+    public void testDropOldest() {
+        TestBatchPersistenceService service = new TestBatchPersistenceService();
+        PersistenceWriter writer = new PersistenceWriter(service, executor);
+        writer.configure(2, 10, PersistenceWriter.QueueFullPolicy.DROP_OLDEST);
+
+        store(writer, 1, 2, 3, 4);
+        executor.runAll();
+        assertEquals(Arrays.asList(Arrays.asList(3, 4)), service.batches);
+        assertEquals(2, writer.getDroppedCount());
+    }
+
+    @Test
+    public void testDropNewest() {
+        TestBatchPersistenceService service = new TestBatchPersistenceService();
+        PersistenceWriter writer = new PersistenceWriter(service, executor);
+        writer.configure(2, 10, PersistenceWriter.QueueFullPolicy.DROP_NEWEST);
+
+        store(writer, 1, 2, 3, 4);
+        executor.runAll();
+        assertEquals(Arrays.asList(Arrays.asList(1, 2)), service.batches);
+        assertEquals(2, writer.getDroppedCount());
+    }
+
+    @Test
+    public void testServiceWithoutBatchSupportGetsItems() {
+        final List<String> stored = new ArrayList<String>();
+        PersistenceWriter writer = new PersistenceWriter(new TestPersistenceService() {
+            @Override
+            public void store(Item item, String alias) {
+                stored.add(item.getName() + ":" + alias);
+            }
+        }, executor);
+
+        item.setState(new DecimalType(1));
+        writer.store(item, "alias");
+        writer.store(item, null);
+        executor.runAll();
+        assertEquals(Arrays.asList("Test:alias", "Test:null"), stored);
+    }
+
+    @Test
+    public void testServiceWithoutBatchSupportGetsTheItemItself() {
+        final List<Item> stored = new ArrayList<Item>();
+        PersistenceWriter writer = new PersistenceWriter(new TestPersistenceService() {
+            @Override
+            public void store(Item item, String alias) {
+                stored.add(item);
+            }
+        }, executor);
+        SwitchItem switchItem = new SwitchItem("Switch");
+
+        switchItem.setState(OnOffType.ON);
+        writer.store(switchItem, null);
+        executor.runAll();
+        assertEquals(1, stored.size());
+        assertSame(switchItem, stored.get(0));
+        assertEquals(PercentType.HUNDRED, stored.get(0).getStateAs(PercentType.class));
+    }
+
+    @Test
+    public void testServiceWithoutBatchSupportGetsTheItemWithItsLatestState() {
+        final List<Item> stored = new ArrayList<Item>();
+        final List<State> storedStates = new ArrayList<State>();
+        PersistenceWriter writer = new PersistenceWriter(new TestPersistenceService() {
+            @Override
+            public void store(Item item, String alias) {
+                stored.add(item);
+                storedStates.add(item.getState());
+            }
+        }, executor);
+        SwitchItem switchItem = new SwitchItem("Switch");
+
+        switchItem.setState(OnOffType.ON);
+        writer.store(switchItem, null);
+        switchItem.setState(OnOffType.OFF);
+        writer.store(switchItem, null);
+        executor.runAll();
+        assertEquals(Arrays.<Item> asList(switchItem, switchItem), stored);
+        assertEquals(Arrays.<State> asList(OnOffType.OFF, OnOffType.OFF), storedStates);
+    }
+
+    @Test
+    public void testFailingStoreDoesNotDiscardTheRestOfTheBatch() {
+        final List<String> stored = new ArrayList<String>();
+        PersistenceWriter writer = new PersistenceWriter(new TestPersistenceService() {
+            @Override
+            public void store(Item item, String alias) {
+                if ("fail".equals(alias)) {
+                    throw new IllegalStateException("The database is not available.");
+                }
+                stored.add(alias);
+            }
+        }, executor);
+
+        writer.store(item, "first");
+        writer.store(item, "fail");
+        writer.store(item, "third");
+        executor.runAll();
+        assertEquals(Arrays.asList("first", "third"), stored);
+        assertEquals(2, writer.getStoredCount());
+        assertEquals(1, writer.getFailedCount());
+    }
+
+    @Test
+    public void testFailingBatchIsCountedAsFailed() {
+        PersistenceWriter writer = new PersistenceWriter(new TestBatchPersistenceService() {
+            @Override
+            public void store(Collection<PersistenceEntry> entries) {
+                throw new IllegalStateException("The database is not available.");
+            }
+        }, executor);
+
+        store(writer, 1, 2);
+        executor.runAll();
+        assertEquals(0, writer.getStoredCount());
+        assertEquals(2, writer.getFailedCount());
+    }
+
+    @Test
+    public void testMetrics() {
+        TestBatchPersistenceService service = new TestBatchPersistenceService();
+        PersistenceWriter writer = new PersistenceWriter(service, executor);
+        writer.configure(2, 10, PersistenceWriter.QueueFullPolicy.DROP_OLDEST);
+
+        store(writer, 1, 2, 3);
+        PersistenceServiceMetrics metrics = writer.getMetrics();
+        assertEquals(service.getName(), metrics.getServiceName());
+        assertEquals(2, metrics.getQueueDepth());
+        assertEquals(2, metrics.getQueueCapacity());
+        assertEquals(1, metrics.getDroppedCount());
+
+        executor.runAll();
+        metrics = writer.getMetrics();
+        assertEquals(0, metrics.getQueueDepth());
+        assertEquals(2, metrics.getStoredCount());
+        assertEquals(0, metrics.getFailedCount());
+        assertEquals(0, metrics.getLag());
+    }
+
+    @Test
+    public void testFullQueueNeverBlocks() {
+        TestBatchPersistenceService service = new TestBatchPersistenceService();
+        PersistenceWriter writer = new PersistenceWriter(service, executor);
+        writer.configure(1, 10, PersistenceWriter.QueueFullPolicy.DROP_NEWEST);
+
+        store(writer, 1, 2, 3);
+        assertEquals(1, writer.getQueuedCount());
+        assertEquals(2, writer.getDroppedCount());
+    }
+
+    @Test
+    public void testClosedWriterDiscardsStates() {
+        TestBatchPersistenceService service = new TestBatchPersistenceService();
+        PersistenceWriter writer = new PersistenceWriter(service, executor);
+
+        store(writer, 1);
+        writer.close();
+        store(writer, 2);
+        executor.runAll();
+        assertEquals(0, service.batches.size());
+        assertEquals(0, writer.getQueuedCount());
+    }
+
+    private void store(PersistenceWriter writer, int... values) {
+        for (int value : values) {
+            item.setState(new DecimalType(value));
+            writer.store(item, null);
+        }
+    }
+
+    private static class ManualExecutor implements Executor {
+
+        private final LinkedList<Runnable> tasks = new LinkedList<Runnable>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        private void runAll() {
+            while (!tasks.isEmpty()) {
+                tasks.poll().run();
+            }
+        }
+    }
+
+    private static class TestBatchPersistenceService extends TestPersistenceService
+            implements BatchPersistenceService {
+
+        private final List<List<Integer>> batches = new ArrayList<List<Integer>>();
+
+        @Override
+        public void store(Collection<PersistenceEntry> entries) {
+            List<Integer> batch = new ArrayList<Integer>();
+            for (PersistenceEntry entry : entries) {
+                batch.add(((DecimalType) entry.getState()).intValue());
+            }
+            batches.add(batch);
+        }
+    }
+}
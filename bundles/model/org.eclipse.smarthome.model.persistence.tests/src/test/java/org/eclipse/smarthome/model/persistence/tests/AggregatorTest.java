@@ -0,0 +1,104 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.model.persistence.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Date;
+import java.util.List;
+
+import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.core.library.types.OnOffType;
+import org.eclipse.smarthome.core.persistence.AggregateFunction;
+import org.eclipse.smarthome.core.persistence.Aggregator;
+import org.eclipse.smarthome.core.persistence.FilterCriteria;
+import org.eclipse.smarthome.core.persistence.FilterCriteria.Ordering;
+import org.eclipse.smarthome.core.persistence.HistoricItem;
+import org.eclipse.smarthome.core.types.State;
+import org.junit.Test;
+
+/**
+ * @author agent - Initial contribution and API
+ */
+public class AggregatorTest {
+
+    private static final long HOUR = 60 * 60 * 1000;
+
+    @Test
+    public void testSingleInterval() {
+        Iterable<HistoricItem> items = new TestPersistenceService()
+                .query(new FilterCriteria().setBeginDate(year(2000)).setOrdering(Ordering.ASCENDING));
+
+        assertResult("2000", year(2000), Aggregator.aggregate(items, AggregateFunction.MINIMUM, 0));
+        assertResult("2012", year(2012), Aggregator.aggregate(items, AggregateFunction.MAXIMUM, 0));
+        assertResult("2006", year(2000), Aggregator.aggregate(items, AggregateFunction.AVERAGE, 0));
+        assertResult("26078", year(2000), Aggregator.aggregate(items, AggregateFunction.SUM, 0));
+        assertResult("13", year(2000), Aggregator.aggregate(items, AggregateFunction.COUNT, 0));
+    }
+
+    @Test
+    public void testIntervals() {
+        Aggregator aggregator = new Aggregator(AggregateFunction.AVERAGE, HOUR);
+        aggregator.add(item(10, 0));
+        aggregator.add(item(11, 3));
+        aggregator.add(item(12, 4));
+        aggregator.add(item(13, OnOffType.ON));
+        aggregator.add(item(14, 4.5));
+        aggregator.add(item(72, 7));
+        List<HistoricItem> results = aggregator.getResults();
+
+        assertEquals(2, results.size());
+        assertEquals("2.875", results.get(0).getState().toString());
+        assertEquals(new Date(0), results.get(0).getTimestamp());
+        assertEquals("7", results.get(1).getState().toString());
+        assertEquals(new Date(HOUR), results.get(1).getTimestamp());
+    }
+
+    @Test
+    public void testNoNumericStates() {
+        Aggregator aggregator = new Aggregator(AggregateFunction.COUNT, 0);
+        aggregator.add(item(1, OnOffType.OFF));
+        assertTrue(aggregator.getResults().isEmpty());
+    }
+
+    private void assertResult(String state, Date timestamp, List<HistoricItem> results) {
+        assertEquals(1, results.size());
+        assertEquals(state, results.get(0).getState().toString());
+        assertEquals(timestamp, results.get(0).getTimestamp());
+    }
+
+    @SuppressWarnings("deprecation")
+    private static Date year(int year) {
+        return new Date(year - 1900, 0, 1);
+    }
+
+    private static HistoricItem item(int minute, double value) {
+        return item(minute, new DecimalType(value));
+    }
+
+    private static HistoricItem item(final int minute, final State state) {
+        return new HistoricItem() {
+            @Override
+            public Date getTimestamp() {
+                return new Date(minute * 60 * 1000L);
+            }
+
+            @Override
+            public State getState() {
+                return state;
+            }
+
+            @Override
+            public String getName() {
+                return "Test";
+            }
+        };
+    }
+
+}
@@ -0,0 +1,50 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.model.persistence.tests;
+
+import org.eclipse.smarthome.core.persistence.AggregateFunction;
+import org.eclipse.smarthome.core.persistence.AggregatePersistenceService;
+import org.eclipse.smarthome.core.persistence.Aggregator;
+import org.eclipse.smarthome.core.persistence.FilterCriteria;
+import org.eclipse.smarthome.core.persistence.FilterCriteria.Ordering;
+import org.eclipse.smarthome.core.persistence.HistoricItem;
+
+/**
+ * A persistence service for unit tests which aggregates all functions except the average itself and counts the
+ * queries and aggregations.
+ *
+ * @author agent - Initial contribution and API
+ */
+public class TestAggregatePersistenceService extends TestPersistenceService implements AggregatePersistenceService {
+
+    public int queries;
+
+    public int aggregations;
+
+    @Override
+    public String getName() {
+        return "aggregate";
+    }
+
+    @Override
+    public Iterable<HistoricItem> query(FilterCriteria filter) {
+        queries++;
+        return super.query(filter);
+    }
+
+    @Override
+    public Iterable<HistoricItem> aggregate(FilterCriteria filter, AggregateFunction function, long interval) {
+        if (function == AggregateFunction.AVERAGE) {
+            return null;
+        }
+        aggregations++;
+        filter.setOrdering(Ordering.ASCENDING);
+        return Aggregator.aggregate(super.query(filter), function, interval);
+    }
+
+}
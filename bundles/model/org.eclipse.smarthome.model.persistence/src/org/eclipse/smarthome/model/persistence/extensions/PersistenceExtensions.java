@@ -15,10 +15,14 @@ import java.util.Date;
 import java.util.Dictionary;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 import org.eclipse.smarthome.core.items.Item;
 import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.core.persistence.AggregateFunction;
+import org.eclipse.smarthome.core.persistence.AggregatePersistenceService;
+import org.eclipse.smarthome.core.persistence.Aggregator;
 import org.eclipse.smarthome.core.persistence.FilterCriteria;
 import org.eclipse.smarthome.core.persistence.FilterCriteria.Ordering;
 import org.eclipse.smarthome.core.persistence.HistoricItem;
@@ -259,20 +263,11 @@ public class PersistenceExtensions implements ManagedService {
      *         {@link QueryablePersistenceService}
      */
     public static HistoricItem maximumSince(final Item item, AbstractInstant timestamp, String serviceName) {
-        Iterable<HistoricItem> result = getAllStatesSince(item, timestamp, serviceName);
-        Iterator<HistoricItem> it = result.iterator();
-        HistoricItem maximumHistoricItem = null;
+        HistoricItem maximumHistoricItem = aggregateSince(item, timestamp, serviceName, AggregateFunction.MAXIMUM)[0];
         DecimalType maximum = (DecimalType) item.getStateAs(DecimalType.class);
-        while (it.hasNext()) {
-            HistoricItem historicItem = it.next();
-            State state = historicItem.getState();
-            if (state instanceof DecimalType) {
-                DecimalType value = (DecimalType) state;
-                if (maximum == null || value.compareTo(maximum) > 0) {
-                    maximum = value;
-                    maximumHistoricItem = historicItem;
-                }
-            }
+        if (maximumHistoricItem != null && maximum != null
+                && ((DecimalType) maximumHistoricItem.getState()).compareTo(maximum) <= 0) {
+            maximumHistoricItem = null;
         }
         if (maximumHistoricItem == null && maximum != null) {
             // the maximum state is the current one, so construct a historic item on the fly
@@ -330,20 +325,11 @@ public class PersistenceExtensions implements ManagedService {
      *         the given <code>serviceName</code> does not refer to an available {@link QueryablePersistenceService}
      */
     public static HistoricItem minimumSince(final Item item, AbstractInstant timestamp, String serviceName) {
-        Iterable<HistoricItem> result = getAllStatesSince(item, timestamp, serviceName);
-        Iterator<HistoricItem> it = result.iterator();
-        HistoricItem minimumHistoricItem = null;
+        HistoricItem minimumHistoricItem = aggregateSince(item, timestamp, serviceName, AggregateFunction.MINIMUM)[0];
         DecimalType minimum = (DecimalType) item.getStateAs(DecimalType.class);
-        while (it.hasNext()) {
-            HistoricItem historicItem = it.next();
-            State state = historicItem.getState();
-            if (state instanceof DecimalType) {
-                DecimalType value = (DecimalType) state;
-                if (minimum == null || value.compareTo(minimum) < 0) {
-                    minimum = value;
-                    minimumHistoricItem = historicItem;
-                }
-            }
+        if (minimumHistoricItem != null && minimum != null
+                && ((DecimalType) minimumHistoricItem.getState()).compareTo(minimum) >= 0) {
+            minimumHistoricItem = null;
         }
         if (minimumHistoricItem == null && minimum != null) {
             // the minimal state is the current one, so construct a historic item on the fly
@@ -401,8 +387,9 @@ public class PersistenceExtensions implements ManagedService {
      *         refer to an available {@link QueryablePersistenceService}
      */
     public static DecimalType averageSince(Item item, AbstractInstant timestamp, String serviceName) {
-        Iterable<HistoricItem> result = getAllStatesSince(item, timestamp, serviceName);
-        Iterator<HistoricItem> it = result.iterator();
+        // the current state is part of the average, so the sum and the count of the historic states are needed
+        HistoricItem[] result = aggregateSince(item, timestamp, serviceName, AggregateFunction.SUM,
+                AggregateFunction.COUNT);
 
         DecimalType value = (DecimalType) item.getStateAs(DecimalType.class);
         if (value == null) {
@@ -410,16 +397,12 @@ public class PersistenceExtensions implements ManagedService {
         }
 
         BigDecimal total = value.toBigDecimal();
-        int quantity = 1;
-        while (it.hasNext()) {
-            State state = it.next().getState();
-            if (state instanceof DecimalType) {
-                value = (DecimalType) state;
-                total = total.add(value.toBigDecimal());
-                quantity++;
-            }
+        BigDecimal quantity = BigDecimal.ONE;
+        if (result[0] != null && result[1] != null) {
+            total = total.add(((DecimalType) result[0].getState()).toBigDecimal());
+            quantity = quantity.add(((DecimalType) result[1].getState()).toBigDecimal());
         }
-        BigDecimal average = total.divide(BigDecimal.valueOf(quantity), MathContext.DECIMAL64);
+        BigDecimal average = total.divide(quantity, MathContext.DECIMAL64);
 
         return new DecimalType(average);
     }
@@ -454,29 +437,19 @@ public class PersistenceExtensions implements ManagedService {
      *         {@link QueryablePersistenceService}
      */
     public static DecimalType sumSince(Item item, AbstractInstant timestamp, String serviceName) {
-        Iterable<HistoricItem> result = getAllStatesSince(item, timestamp, serviceName);
-        Iterator<HistoricItem> it = result.iterator();
-
-        BigDecimal sum = BigDecimal.ZERO;
-        while (it.hasNext()) {
-            State state = it.next().getState();
-            if (state instanceof DecimalType) {
-                sum = sum.add(((DecimalType) state).toBigDecimal());
-            }
+        HistoricItem sum = aggregateSince(item, timestamp, serviceName, AggregateFunction.SUM)[0];
+        if (sum != null) {
+            return (DecimalType) sum.getState();
+        } else {
+            return DecimalType.ZERO;
         }
-
-        return new DecimalType(sum);
     }
 
     private static Iterable<HistoricItem> getAllStatesSince(Item item, AbstractInstant timestamp, String serviceName) {
         PersistenceService service = services.get(serviceName);
         if (service instanceof QueryablePersistenceService) {
             QueryablePersistenceService qService = (QueryablePersistenceService) service;
-            FilterCriteria filter = new FilterCriteria();
-            filter.setBeginDate(timestamp.toDate());
-            filter.setItemName(item.getName());
-            filter.setOrdering(Ordering.ASCENDING);
-            return qService.query(filter);
+            return qService.query(createFilterSince(item, timestamp));
         } else {
             LoggerFactory.getLogger(PersistenceExtensions.class)
                     .warn("There is no queryable persistence service registered with the name '{}'", serviceName);
@@ -484,6 +457,63 @@ public class PersistenceExtensions implements ManagedService {
         }
     }
 
+    /**
+     * Aggregates the numeric states of a given <code>item</code> since a certain point in time. If the service is an
+     * {@link AggregatePersistenceService}, the aggregation is done by the service, otherwise all states are queried
+     * and aggregated in a single pass.
+     *
+     * @param item the item whose states are aggregated
+     * @param timestamp the point in time from which the states are aggregated
+     * @param serviceName the name of the {@link PersistenceService} to use
+     * @param functions the aggregate functions
+     * @return the result of each function, or <code>null</code> for a function if there are no numeric states
+     */
+    private static HistoricItem[] aggregateSince(Item item, AbstractInstant timestamp, String serviceName,
+            AggregateFunction... functions) {
+        HistoricItem[] results = new HistoricItem[functions.length];
+        Aggregator[] aggregators = new Aggregator[functions.length];
+        boolean streaming = false;
+        PersistenceService service = services.get(serviceName);
+        for (int i = 0; i < functions.length; i++) {
+            Iterable<HistoricItem> result = null;
+            if (service instanceof AggregatePersistenceService) {
+                result = ((AggregatePersistenceService) service).aggregate(createFilterSince(item, timestamp),
+                        functions[i], 0);
+            }
+            if (result != null) {
+                Iterator<HistoricItem> it = result.iterator();
+                results[i] = it.hasNext() ? it.next() : null;
+            } else {
+                aggregators[i] = new Aggregator(functions[i], 0);
+                streaming = true;
+            }
+        }
+        if (streaming) {
+            for (HistoricItem historicItem : getAllStatesSince(item, timestamp, serviceName)) {
+                for (Aggregator aggregator : aggregators) {
+                    if (aggregator != null) {
+                        aggregator.add(historicItem);
+                    }
+                }
+            }
+            for (int i = 0; i < functions.length; i++) {
+                if (aggregators[i] != null) {
+                    List<HistoricItem> result = aggregators[i].getResults();
+                    results[i] = result.isEmpty() ? null : result.get(0);
+                }
+            }
+        }
+        return results;
+    }
+
+    private static FilterCriteria createFilterSince(Item item, AbstractInstant timestamp) {
+        FilterCriteria filter = new FilterCriteria();
+        filter.setBeginDate(timestamp.toDate());
+        filter.setItemName(item.getName());
+        filter.setOrdering(Ordering.ASCENDING);
+        return filter;
+    }
+
     /**
      * Query the last update time of a given <code>item</code>. The default persistence service is used.
      *
@@ -11,6 +11,7 @@ import static org.quartz.JobBuilder.newJob;
 import static org.quartz.TriggerBuilder.newTrigger;
 
 import java.text.DateFormat;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -21,8 +22,12 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.emf.ecore.EObject;
+import org.eclipse.smarthome.core.common.MetricsProvider;
+import org.eclipse.smarthome.core.common.ThreadPoolManager;
 import org.eclipse.smarthome.core.items.GenericItem;
 import org.eclipse.smarthome.core.items.GroupItem;
 import org.eclipse.smarthome.core.items.Item;
@@ -62,12 +67,26 @@ import org.slf4j.LoggerFactory;
 /**
  * This class is the central part of the persistence management and delegation. It reads the persistence
  * models, schedules timers and manages the invocation of {@link PersistenceService}s upon events.
+ * <p>
+ * The item states which are persisted on updates and changes are handed over to a {@link PersistenceWriter} per
+ * service, which stores them asynchronously. The services and aliases an item is persisted with are determined once
+ * per item and kept until the persistence models, the services or the items change.
  *
  * @author Kai Kreuzer - Initial contribution and API
  *
  */
-public class PersistenceManager
-        implements ModelRepositoryChangeListener, ItemRegistryChangeListener, StateChangeListener {
+public class PersistenceManager implements ModelRepositoryChangeListener, ItemRegistryChangeListener,
+        StateChangeListener, MetricsProvider {
+
+    private static final String THREAD_POOL_NAME = "persistence";
+
+    private static final String METRICS_NAME = "persistence";
+
+    private static final String CONFIG_QUEUE_SIZE = "queueSize";
+
+    private static final String CONFIG_BATCH_SIZE = "batchSize";
+
+    private static final String CONFIG_QUEUE_FULL_POLICY = "queueFullPolicy";
 
     private final Logger logger = LoggerFactory.getLogger(PersistenceManager.class);
 
@@ -80,7 +99,24 @@ public class PersistenceManager
 
     private ItemRegistry itemRegistry;
 
-    /* default */Map<String, PersistenceService> persistenceServices = new HashMap<String, PersistenceService>();
+    /* default */Map<String, PersistenceService> persistenceServices =
+            new ConcurrentHashMap<String, PersistenceService>();
+
+    /** the asynchronous writers for the persistence services */
+    private final Map<String, PersistenceWriter> writers = new ConcurrentHashMap<String, PersistenceWriter>();
+
+    /** the services and aliases each item is persisted with on updates and changes, determined on demand */
+    private final ConcurrentMap<String, List<PersistenceTarget>> itemTargets =
+            new ConcurrentHashMap<String, List<PersistenceTarget>>();
+
+    /** incremented whenever the item targets are invalidated */
+    private final AtomicInteger itemTargetsVersion = new AtomicInteger();
+
+    private volatile int queueSize = PersistenceWriter.DEFAULT_QUEUE_SIZE;
+
+    private volatile int batchSize = PersistenceWriter.DEFAULT_BATCH_SIZE;
+
+    private volatile PersistenceWriter.QueueFullPolicy queueFullPolicy = PersistenceWriter.DEFAULT_QUEUE_FULL_POLICY;
 
     /** keeps a list of configurations for each persistence service */
     protected Map<String, List<PersistenceConfiguration>> persistenceConfigurations = new ConcurrentHashMap<String, List<PersistenceConfiguration>>();
@@ -102,10 +138,55 @@ public class PersistenceManager
         return instance;
     }
 
-    public void activate() {
+    public void activate(Map<String, Object> config) {
+        applyConfig(config);
+    }
+
+    public void modified(Map<String, Object> config) {
+        applyConfig(config);
     }
 
     public void deactivate() {
+        for (PersistenceWriter writer : writers.values()) {
+            writer.close();
+        }
+        writers.clear();
+    }
+
+    /**
+     * Handle the initial or a changed configuration of the write queues of the services.
+     *
+     * @param config the configuration
+     */
+    private void applyConfig(Map<String, Object> config) {
+        if (config == null) {
+            return;
+        }
+        queueSize = getIntConfig(config, CONFIG_QUEUE_SIZE, PersistenceWriter.DEFAULT_QUEUE_SIZE);
+        batchSize = getIntConfig(config, CONFIG_BATCH_SIZE, PersistenceWriter.DEFAULT_BATCH_SIZE);
+        Object policy = config.get(CONFIG_QUEUE_FULL_POLICY);
+        PersistenceWriter.QueueFullPolicy parsedPolicy = policy != null
+                ? PersistenceWriter.QueueFullPolicy.parse(policy.toString()) : null;
+        if (policy != null && parsedPolicy == null) {
+            logger.warn("Ignoring invalid configuration '{}' for '{}'.", policy, CONFIG_QUEUE_FULL_POLICY);
+        }
+        queueFullPolicy = parsedPolicy != null ? parsedPolicy : PersistenceWriter.DEFAULT_QUEUE_FULL_POLICY;
+        for (PersistenceWriter writer : writers.values()) {
+            writer.configure(queueSize, batchSize, queueFullPolicy);
+        }
+    }
+
+    private int getIntConfig(Map<String, Object> config, String key, int defaultValue) {
+        Object value = config.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.toString().trim());
+        } catch (NumberFormatException e) {
+            logger.warn("Ignoring invalid configuration '{}' for '{}' - value must be an integer.", value, key);
+            return defaultValue;
+        }
     }
 
     public void setModelRepository(ModelRepository modelRepository) {
@@ -139,6 +220,13 @@ public class PersistenceManager
 
     public void addPersistenceService(PersistenceService persistenceService) {
         logger.debug("Initializing {} persistence service.", persistenceService.getName());
+        PersistenceWriter writer = new PersistenceWriter(persistenceService,
+                ThreadPoolManager.getPool(THREAD_POOL_NAME));
+        writer.configure(queueSize, batchSize, queueFullPolicy);
+        PersistenceWriter oldWriter = writers.put(persistenceService.getName(), writer);
+        if (oldWriter != null) {
+            oldWriter.close();
+        }
         persistenceServices.put(persistenceService.getName(), persistenceService);
         stopEventHandling(persistenceService.getName());
         startEventHandling(persistenceService.getName());
@@ -147,6 +235,35 @@ public class PersistenceManager
     public void removePersistenceService(PersistenceService persistenceService) {
         stopEventHandling(persistenceService.getName());
         persistenceServices.remove(persistenceService.getName());
+        PersistenceWriter writer = writers.remove(persistenceService.getName());
+        if (writer != null) {
+            writer.close();
+        }
+        invalidateItemTargets();
+    }
+
+    /**
+     * Returns the writer which stores the item states for a persistence service.
+     *
+     * @param serviceName the name of the persistence service
+     * @return the writer or null, if there is no such service
+     */
+    /* default */PersistenceWriter getWriter(String serviceName) {
+        return writers.get(serviceName);
+    }
+
+    @Override
+    public String getMetricsName() {
+        return METRICS_NAME;
+    }
+
+    @Override
+    public List<String> getMetrics() {
+        List<String> metrics = new ArrayList<String>();
+        for (PersistenceWriter writer : writers.values()) {
+            metrics.add(writer.getMetrics().toString());
+        }
+        return metrics;
     }
 
     @Override
@@ -176,6 +293,7 @@ public class PersistenceManager
             if (model != null) {
                 persistenceConfigurations.put(modelName, model.getConfigs());
                 defaultStrategies.put(modelName, model.getDefaults());
+                invalidateItemTargets();
                 if (itemRegistry != null) {
                     for (PersistenceConfiguration config : model.getConfigs()) {
                         if (hasStrategy(modelName, config, GlobalStrategies.RESTORE)) {
@@ -198,6 +316,7 @@ public class PersistenceManager
     private void stopEventHandling(String modelName) {
         persistenceConfigurations.remove(modelName);
         defaultStrategies.remove(modelName);
+        invalidateItemTargets();
         removeTimers(modelName);
     }
 
@@ -218,21 +337,62 @@ public class PersistenceManager
      * @param onlyChanges true, if it has the change strategy, false otherwise
      */
     private void handleStateEvent(Item item, boolean onlyChanges) {
+        for (PersistenceTarget target : getItemTargets(item)) {
+            if (onlyChanges ? target.onChange : target.onUpdate) {
+                PersistenceWriter writer = writers.get(target.serviceName);
+                if (writer != null) {
+                    writer.store(item, target.alias);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the services and aliases the given item is persisted with on updates and changes.
+     *
+     * @param item the item
+     * @return the persistence targets of the item
+     */
+    private List<PersistenceTarget> getItemTargets(Item item) {
+        List<PersistenceTarget> targets = itemTargets.get(item.getName());
+        if (targets == null) {
+            int version = itemTargetsVersion.get();
+            targets = calculateItemTargets(item);
+            itemTargets.put(item.getName(), targets);
+            // the targets might have been calculated from an outdated configuration
+            if (itemTargetsVersion.get() != version) {
+                itemTargets.remove(item.getName(), targets);
+            }
+        }
+        return targets;
+    }
+
+    private List<PersistenceTarget> calculateItemTargets(Item item) {
+        List<PersistenceTarget> targets = new ArrayList<PersistenceTarget>();
         synchronized (persistenceConfigurations) {
             for (Entry<String, List<PersistenceConfiguration>> entry : persistenceConfigurations.entrySet()) {
                 String serviceName = entry.getKey();
-                if (persistenceServices.containsKey(serviceName)) {
+                if (persistenceServices.containsKey(serviceName) && defaultStrategies.containsKey(serviceName)) {
                     for (PersistenceConfiguration config : entry.getValue()) {
-                        if (hasStrategy(serviceName, config,
-                                onlyChanges ? GlobalStrategies.CHANGE : GlobalStrategies.UPDATE)) {
-                            if (appliesToItem(config, item)) {
-                                persistenceServices.get(serviceName).store(item, config.getAlias());
-                            }
+                        boolean onUpdate = hasStrategy(serviceName, config, GlobalStrategies.UPDATE);
+                        boolean onChange = hasStrategy(serviceName, config, GlobalStrategies.CHANGE);
+                        if ((onUpdate || onChange) && appliesToItem(config, item)) {
+                            targets.add(new PersistenceTarget(serviceName, config.getAlias(), onUpdate, onChange));
                         }
                     }
                 }
             }
         }
+        return targets.isEmpty() ? Collections.<PersistenceTarget> emptyList() : targets;
+    }
+
+    /**
+     * Discards the persistence targets of all items, which have to be calculated again after a change of the
+     * configurations, the services or the items and their groups.
+     */
+    private void invalidateItemTargets() {
+        itemTargetsVersion.incrementAndGet();
+        itemTargets.clear();
     }
 
     /**
@@ -337,6 +497,7 @@ public class PersistenceManager
 
     @Override
     public void allItemsChanged(Collection<String> oldItemNames) {
+        invalidateItemTargets();
         for (Item item : itemRegistry.getItems()) {
             added(item);
         }
@@ -344,6 +505,7 @@ public class PersistenceManager
 
     @Override
     public void added(Item item) {
+        invalidateItemTargets();
         initialize(item);
         if (item instanceof GenericItem) {
             GenericItem genericItem = (GenericItem) item;
@@ -400,6 +562,7 @@ public class PersistenceManager
 
     @Override
     public void removed(Item item) {
+        invalidateItemTargets();
         if (item instanceof GenericItem) {
             GenericItem genericItem = (GenericItem) item;
             genericItem.removeStateChangeListener(this);
@@ -472,7 +635,29 @@ public class PersistenceManager
 
     @Override
     public void updated(Item oldItem, Item item) {
-        // not needed here
+        // the groups of the item might have changed
+        invalidateItemTargets();
+    }
+
+    /**
+     * A persistence service and alias an item is persisted with, together with the strategies that apply.
+     */
+    private static class PersistenceTarget {
+
+        private final String serviceName;
+
+        private final String alias;
+
+        private final boolean onUpdate;
+
+        private final boolean onChange;
+
+        private PersistenceTarget(String serviceName, String alias, boolean onUpdate, boolean onChange) {
+            this.serviceName = serviceName;
+            this.alias = alias;
+            this.onUpdate = onUpdate;
+            this.onChange = onChange;
+        }
     }
 
 }
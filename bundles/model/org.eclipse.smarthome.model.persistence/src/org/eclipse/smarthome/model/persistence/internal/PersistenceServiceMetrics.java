@@ -0,0 +1,114 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.model.persistence.internal;
+
+/**
+ * The {@link PersistenceServiceMetrics} is an immutable snapshot of the storage statistics of a single persistence
+ * service, as kept by its {@link PersistenceWriter}.
+ *
+ * @author agent - Initial contribution
+ */
+public class PersistenceServiceMetrics {
+
+    private final String serviceName;
+    private final int queueDepth;
+    private final int queueCapacity;
+    private final long storedCount;
+    private final long failedCount;
+    private final long droppedCount;
+    private final long lag;
+    private final long lastLag;
+
+    /**
+     * Creates a new snapshot of the storage statistics.
+     *
+     * @param serviceName the name of the persistence service
+     * @param queueDepth the number of states waiting to be stored
+     * @param queueCapacity the maximum number of states waiting to be stored
+     * @param storedCount the number of states the service has stored
+     * @param failedCount the number of states the service has failed to store
+     * @param droppedCount the number of states dropped because the queue was full
+     * @param lag the time in milliseconds the oldest queued state has been waiting
+     * @param lastLag the time in milliseconds the oldest state of the last batch waited until it was stored
+     */
+    PersistenceServiceMetrics(String serviceName, int queueDepth, int queueCapacity, long storedCount,
+            long failedCount, long droppedCount, long lag, long lastLag) {
+        this.serviceName = serviceName;
+        this.queueDepth = queueDepth;
+        this.queueCapacity = queueCapacity;
+        this.storedCount = storedCount;
+        this.failedCount = failedCount;
+        this.droppedCount = droppedCount;
+        this.lag = lag;
+        this.lastLag = lastLag;
+    }
+
+    /**
+     * @return the name of the persistence service
+     */
+    public String getServiceName() {
+        return serviceName;
+    }
+
+    /**
+     * @return the number of states waiting to be stored
+     */
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    /**
+     * @return the maximum number of states waiting to be stored
+     */
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * @return the number of states the service has stored
+     */
+    public long getStoredCount() {
+        return storedCount;
+    }
+
+    /**
+     * @return the number of states the service has failed to store
+     */
+    public long getFailedCount() {
+        return failedCount;
+    }
+
+    /**
+     * @return the number of states dropped because the queue was full
+     */
+    public long getDroppedCount() {
+        return droppedCount;
+    }
+
+    /**
+     * @return the time in milliseconds the oldest queued state has been waiting, 0 if there is none
+     */
+    public long getLag() {
+        return lag;
+    }
+
+    /**
+     * @return the time in milliseconds the oldest state of the last batch waited until it was stored
+     */
+    public long getLastLag() {
+        return lastLag;
+    }
+
+    @Override
+    public String toString() {
+        return serviceName + " [queueDepth=" + queueDepth + "/" + queueCapacity + ", stored=" + storedCount
+                + ", failed=" + failedCount + ", dropped=" + droppedCount + ", lag=" + lag + "ms, lastLag=" + lastLag
+                + "ms]";
+    }
+
+}
@@ -0,0 +1,287 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.model.persistence.internal;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.smarthome.core.items.Item;
+import org.eclipse.smarthome.core.persistence.BatchPersistenceService;
+import org.eclipse.smarthome.core.persistence.PersistenceEntry;
+import org.eclipse.smarthome.core.persistence.PersistenceService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link PersistenceWriter} stores the item states for a single {@link PersistenceService} asynchronously, so that
+ * a slow service neither delays the item updates nor the other services.
+ * <p>
+ * The states are queued in a bounded queue and stored in batches by a single task on the thread pool. A
+ * {@link BatchPersistenceService} gets each batch at once, with the states the items had when they were queued. All
+ * other services get the items themselves one by one, as before, and thus store the state an item has when it is
+ * handed over, which may be newer than the queued one.
+ * If the queue is full, the {@link QueueFullPolicy} decides which state is discarded; the caller never waits, as it is
+ * the thread which notifies all item listeners.
+ *
+ * @author agent - Initial contribution and API
+ */
+class PersistenceWriter implements Runnable {
+
+    /**
+     * Defines what happens to a new state if the queue of a service is full.
+     */
+    enum QueueFullPolicy {
+        /** the oldest queued state is discarded in favor of the new one */
+        DROP_OLDEST,
+        /** the new state is discarded */
+        DROP_NEWEST;
+
+        /**
+         * Parses a policy from its name, ignoring case and accepting '-' instead of '_'.
+         *
+         * @param value the name of the policy
+         * @return the policy or null, if the value is not a valid policy
+         */
+        static QueueFullPolicy parse(String value) {
+            if (value == null) {
+                return null;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase().replace('-', '_'));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+
+    static final int DEFAULT_QUEUE_SIZE = 10000;
+
+    static final int DEFAULT_BATCH_SIZE = 100;
+
+    static final QueueFullPolicy DEFAULT_QUEUE_FULL_POLICY = QueueFullPolicy.DROP_OLDEST;
+
+    /**
+     * Dropped states are logged for the first one and then for every n-th one.
+     */
+    private static final int DROP_LOG_INTERVAL = 100;
+
+    private final Logger logger = LoggerFactory.getLogger(PersistenceWriter.class);
+
+    private final PersistenceService service;
+
+    private final Executor executor;
+
+    /** guarded by this, as well as all other mutable fields except the counters */
+    private final Deque<PersistenceEntry> queue = new ArrayDeque<>();
+
+    private boolean scheduled;
+
+    private boolean closed;
+
+    private int queueSize = DEFAULT_QUEUE_SIZE;
+
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    private QueueFullPolicy queueFullPolicy = DEFAULT_QUEUE_FULL_POLICY;
+
+    private final AtomicLong storedCount = new AtomicLong();
+
+    private final AtomicLong failedCount = new AtomicLong();
+
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    private volatile long lastLag;
+
+    PersistenceWriter(PersistenceService service, Executor executor) {
+        this.service = service;
+        this.executor = executor;
+    }
+
+    /**
+     * Changes the queue settings. States which are already queued are kept.
+     *
+     * @param queueSize the maximum number of queued states, at least 1
+     * @param batchSize the maximum number of states stored at once, at least 1
+     * @param queueFullPolicy what happens if the queue is full
+     */
+    synchronized void configure(int queueSize, int batchSize, QueueFullPolicy queueFullPolicy) {
+        this.queueSize = Math.max(1, queueSize);
+        this.batchSize = Math.max(1, batchSize);
+        this.queueFullPolicy = queueFullPolicy != null ? queueFullPolicy : DEFAULT_QUEUE_FULL_POLICY;
+    }
+
+    /**
+     * Queues the current state of an item for storage.
+     *
+     * @param item the item to store
+     * @param alias the alias under which the item should be stored
+     */
+    void store(Item item, String alias) {
+        PersistenceEntry entry = new PersistenceEntry(item, alias, item.getState(), new Date());
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            while (queue.size() >= queueSize) {
+                if (queueFullPolicy == QueueFullPolicy.DROP_NEWEST) {
+                    dropped(entry);
+                    return;
+                }
+                dropped(queue.poll());
+            }
+            queue.add(entry);
+            if (scheduled) {
+                return;
+            }
+            scheduled = true;
+        }
+        schedule();
+    }
+
+    /**
+     * Discards all queued states and stops the storage.
+     */
+    synchronized void close() {
+        closed = true;
+        if (!queue.isEmpty()) {
+            logger.debug("Discarding {} queued states of persistence service '{}'.", queue.size(), service.getName());
+            queue.clear();
+        }
+    }
+
+    /**
+     * @return the number of states which are waiting to be stored
+     */
+    synchronized int getQueuedCount() {
+        return queue.size();
+    }
+
+    /**
+     * @return the time in milliseconds the oldest queued state has been waiting, 0 if there is none
+     */
+    synchronized long getLag() {
+        PersistenceEntry oldest = queue.peek();
+        return oldest == null ? 0 : System.currentTimeMillis() - oldest.getTimestamp().getTime();
+    }
+
+    /**
+     * @return the time in milliseconds the oldest state of the last batch has been waiting until it was stored
+     */
+    long getLastLag() {
+        return lastLag;
+    }
+
+    /**
+     * @return the number of states which the service has stored
+     */
+    long getStoredCount() {
+        return storedCount.get();
+    }
+
+    /**
+     * @return the number of states which have been discarded because the queue was full
+     */
+    long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * @return the number of states which the service has failed to store
+     */
+    long getFailedCount() {
+        return failedCount.get();
+    }
+
+    /**
+     * @return a snapshot of the storage statistics
+     */
+    synchronized PersistenceServiceMetrics getMetrics() {
+        return new PersistenceServiceMetrics(service.getName(), queue.size(), queueSize, storedCount.get(),
+                failedCount.get(), droppedCount.get(), getLag(), lastLag);
+    }
+
+    @Override
+    public void run() {
+        List<PersistenceEntry> batch;
+        synchronized (this) {
+            batch = new ArrayList<>(Math.min(batchSize, queue.size()));
+            while (batch.size() < batchSize && !queue.isEmpty()) {
+                batch.add(queue.poll());
+            }
+            if (batch.isEmpty()) {
+                scheduled = false;
+                return;
+            }
+        }
+        store(batch);
+        // the next batch is a new task, so that a busy service does not occupy a thread of the pool
+        synchronized (this) {
+            if (queue.isEmpty()) {
+                scheduled = false;
+                return;
+            }
+        }
+        schedule();
+    }
+
+    private void store(List<PersistenceEntry> batch) {
+        long startTime = System.currentTimeMillis();
+        if (service instanceof BatchPersistenceService) {
+            try {
+                ((BatchPersistenceService) service).store(batch);
+                storedCount.addAndGet(batch.size());
+            } catch (Exception e) {
+                failedCount.addAndGet(batch.size());
+                logger.error("Persistence service '{}' failed to store {} item states: {}",
+                        new Object[] { service.getName(), batch.size(), e.getMessage() }, e);
+            }
+        } else {
+            for (PersistenceEntry entry : batch) {
+                try {
+                    service.store(entry.getItem(), entry.getAlias());
+                    storedCount.incrementAndGet();
+                } catch (Exception e) {
+                    failedCount.incrementAndGet();
+                    logger.error("Persistence service '{}' failed to store the state of item '{}': {}",
+                            new Object[] { service.getName(), entry.getName(), e.getMessage() }, e);
+                }
+            }
+        }
+        lastLag = startTime - batch.get(0).getTimestamp().getTime();
+        logger.trace("Storing {} item states with persistence service '{}' took {}ms (lag {}ms)", new Object[] {
+                batch.size(), service.getName(), System.currentTimeMillis() - startTime, lastLag });
+    }
+
+    private void schedule() {
+        try {
+            executor.execute(this);
+        } catch (RejectedExecutionException e) {
+            synchronized (this) {
+                scheduled = false;
+            }
+            logger.warn("Storing item states with persistence service '{}' has been rejected: {}", service.getName(),
+                    e.getMessage());
+        }
+    }
+
+    private void dropped(PersistenceEntry entry) {
+        long dropped = droppedCount.incrementAndGet();
+        if (dropped == 1 || dropped % DROP_LOG_INTERVAL == 0) {
+            logger.warn("State of item '{}' has not been stored by persistence service '{}' as too many states are "
+                    + "pending ({} states discarded so far).",
+                    new Object[] { entry.getName(), service.getName(), dropped });
+        }
+    }
+
+}
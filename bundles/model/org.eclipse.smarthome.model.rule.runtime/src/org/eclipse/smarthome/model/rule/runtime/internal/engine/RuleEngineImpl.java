@@ -11,13 +11,17 @@ import static org.eclipse.smarthome.model.rule.runtime.internal.engine.RuleTrigg
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 import org.eclipse.emf.ecore.EObject;
+import org.eclipse.smarthome.core.common.MetricsProvider;
+import org.eclipse.smarthome.core.common.ThreadPoolManager;
 import org.eclipse.smarthome.core.items.GenericItem;
 import org.eclipse.smarthome.core.items.Item;
 import org.eclipse.smarthome.core.items.ItemNotFoundException;
@@ -38,7 +42,6 @@ import org.eclipse.smarthome.model.rule.runtime.RuleEngine;
 import org.eclipse.smarthome.model.script.engine.Script;
 import org.eclipse.smarthome.model.script.engine.ScriptEngine;
 import org.eclipse.smarthome.model.script.engine.ScriptExecutionException;
-import org.eclipse.smarthome.model.script.engine.ScriptExecutionThread;
 import org.eclipse.xtext.naming.QualifiedName;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -57,7 +60,18 @@ import com.google.inject.Injector;
  */
 @SuppressWarnings("restriction")
 public class RuleEngineImpl extends AbstractItemEventSubscriber
-        implements ItemRegistryChangeListener, StateChangeListener, ModelRepositoryChangeListener, RuleEngine {
+        implements ItemRegistryChangeListener, StateChangeListener, ModelRepositoryChangeListener, RuleEngine,
+        MetricsProvider {
+
+    /** the name of the thread pool which runs the rules */
+    public static final String THREAD_POOL_NAME = "rules";
+
+    /** the name under which the counters of the rule executor are provided as {@link MetricsProvider} */
+    private static final String METRICS_NAME = "rules";
+
+    private static final String CONFIG_MAX_CONCURRENT_EXECUTIONS = "maxConcurrentExecutions";
+    private static final String CONFIG_QUEUE_SIZE = "queueSize";
+    private static final String CONFIG_QUEUE_FULL_POLICY = "queueFullPolicy";
 
     private final Logger logger = LoggerFactory.getLogger(RuleEngineImpl.class);
 
@@ -65,7 +79,7 @@ public class RuleEngineImpl extends AbstractItemEventSubscriber
 
     private ItemRegistry itemRegistry;
     private ModelRepository modelRepository;
-    private ScriptEngine scriptEngine;
+    private final RuleExecutor ruleExecutor = new RuleExecutor(ThreadPoolManager.getPool(THREAD_POOL_NAME));
 
     private RuleTriggerManager triggerManager;
 
@@ -84,7 +98,8 @@ public class RuleEngineImpl extends AbstractItemEventSubscriber
         }
     };
 
-    public void activate() {
+    public void activate(Map<String, Object> config) {
+        applyConfig(config);
         injector = RulesStandaloneSetup.getInjector();
         triggerManager = injector.getInstance(RuleTriggerManager.class);
 
@@ -113,6 +128,44 @@ public class RuleEngineImpl extends AbstractItemEventSubscriber
         scheduleStartupRules();
     }
 
+    public void modified(Map<String, Object> config) {
+        applyConfig(config);
+    }
+
+    /**
+     * Handle the initial or a changed configuration of the rule execution.
+     *
+     * @param config the configuration
+     */
+    private void applyConfig(Map<String, Object> config) {
+        if (config == null) {
+            return;
+        }
+        ruleExecutor.setMaxConcurrentExecutions(getIntConfig(config, CONFIG_MAX_CONCURRENT_EXECUTIONS,
+                RuleExecutor.DEFAULT_MAX_CONCURRENT_EXECUTIONS));
+        ruleExecutor.setQueueSize(getIntConfig(config, CONFIG_QUEUE_SIZE, RuleExecutor.DEFAULT_QUEUE_SIZE));
+        Object policy = config.get(CONFIG_QUEUE_FULL_POLICY);
+        RuleExecutor.QueueFullPolicy queueFullPolicy = policy != null
+                ? RuleExecutor.QueueFullPolicy.parse(policy.toString()) : null;
+        if (policy != null && queueFullPolicy == null) {
+            logger.warn("Ignoring invalid configuration '{}' for '{}'.", policy, CONFIG_QUEUE_FULL_POLICY);
+        }
+        ruleExecutor.setQueueFullPolicy(queueFullPolicy);
+    }
+
+    private int getIntConfig(Map<String, Object> config, String key, int defaultValue) {
+        Object value = config.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.toString().trim());
+        } catch (NumberFormatException e) {
+            logger.warn("Ignoring invalid configuration '{}' for '{}' - value must be an integer.", value, key);
+            return defaultValue;
+        }
+    }
+
     public void deactivate() {
         // execute all scripts that were registered for system shutdown
         executeRules(triggerManager.getRules(SHUTDOWN));
@@ -141,11 +194,22 @@ public class RuleEngineImpl extends AbstractItemEventSubscriber
     }
 
     public void setScriptEngine(ScriptEngine scriptEngine) {
-        this.scriptEngine = scriptEngine;
+        ruleExecutor.setScriptEngine(scriptEngine);
     }
 
     public void unsetScriptEngine(ScriptEngine scriptEngine) {
-        this.scriptEngine = null;
+        ruleExecutor.setScriptEngine(null);
+    }
+
+    @Override
+    public String getMetricsName() {
+        return METRICS_NAME;
+    }
+
+    @Override
+    public List<String> getMetrics() {
+        return Collections.singletonList("queued=" + ruleExecutor.getQueuedCount() + ", running="
+                + ruleExecutor.getRunningCount() + ", rejected=" + ruleExecutor.getRejectedCount());
     }
 
     /**
@@ -233,6 +297,9 @@ public class RuleEngineImpl extends AbstractItemEventSubscriber
             if (isEnabled() && modelName.endsWith("rules")) {
                 RuleModel model = (RuleModel) modelRepository.getModel(modelName);
 
+                // the scripts of the changed rules have to be created again
+                ruleExecutor.clearScripts();
+
                 // remove the rules from the trigger sets
                 if (type == org.eclipse.smarthome.model.core.EventType.REMOVED
                         || type == org.eclipse.smarthome.model.core.EventType.MODIFIED) {
@@ -264,7 +331,7 @@ public class RuleEngineImpl extends AbstractItemEventSubscriber
 
             for (Rule rule : startupRules) {
                 try {
-                    Script script = scriptEngine.newScriptFromXExpression(rule.getScript());
+                    Script script = ruleExecutor.getScript(rule);
                     logger.debug("Executing startup rule '{}'", rule.getName());
                     RuleEvaluationContext context = new RuleEvaluationContext();
                     context.setGlobalContext(RuleContextHelper.getContext(rule, injector));
@@ -289,25 +356,20 @@ public class RuleEngineImpl extends AbstractItemEventSubscriber
         }
     }
 
-    protected synchronized void executeRule(Rule rule, RuleEvaluationContext context) {
-        Script script = scriptEngine.newScriptFromXExpression(rule.getScript());
-
-        logger.debug("Executing rule '{}'", rule.getName());
-
+    protected void executeRule(Rule rule, RuleEvaluationContext context) {
         context.setGlobalContext(RuleContextHelper.getContext(rule, injector));
 
-        ScriptExecutionThread thread = new ScriptExecutionThread(rule.getName(), script, context);
-        thread.start();
+        ruleExecutor.execute(rule, context);
     }
 
-    protected synchronized void executeRules(Iterable<Rule> rules) {
+    protected void executeRules(Iterable<Rule> rules) {
         for (Rule rule : rules) {
             RuleEvaluationContext context = new RuleEvaluationContext();
             executeRule(rule, context);
         }
     }
 
-    protected synchronized void executeRules(Iterable<Rule> rules, Command command) {
+    protected void executeRules(Iterable<Rule> rules, Command command) {
         for (Rule rule : rules) {
             RuleEvaluationContext context = new RuleEvaluationContext();
             context.newValue(QualifiedName.create(RulesJvmModelInferrer.VAR_RECEIVED_COMMAND), command);
@@ -315,7 +377,7 @@ public class RuleEngineImpl extends AbstractItemEventSubscriber
         }
     }
 
-    protected synchronized void executeRules(Iterable<Rule> rules, State oldState) {
+    protected void executeRules(Iterable<Rule> rules, State oldState) {
         for (Rule rule : rules) {
             RuleEvaluationContext context = new RuleEvaluationContext();
             context.newValue(QualifiedName.create(RulesJvmModelInferrer.VAR_PREVIOUS_STATE), oldState);
@@ -0,0 +1,342 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.model.rule.runtime.internal.engine;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.smarthome.model.rule.rules.Rule;
+import org.eclipse.smarthome.model.script.engine.Script;
+import org.eclipse.smarthome.model.script.engine.ScriptEngine;
+import org.eclipse.xtext.xbase.interpreter.IEvaluationContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link RuleExecutor} runs the triggered rules on a bounded thread pool.
+ * <p>
+ * The number of concurrent executions of a single rule is limited. Further executions of the rule wait in a bounded
+ * queue of the rule; if this queue is full, the {@link QueueFullPolicy} decides which execution is discarded.
+ * <p>
+ * The scripts of the rules are created once and kept until {@link #clearScripts()} is called, which has to happen
+ * whenever the rule models change. The queue of a rule only exists while executions of the rule are running or
+ * waiting.
+ *
+ * @author agent - Initial contribution and API
+ */
+public class RuleExecutor {
+
+    /**
+     * Defines what happens to an execution of a rule if its queue is full.
+     */
+    public enum QueueFullPolicy {
+        /** the new execution is discarded */
+        REJECT,
+        /** the oldest waiting execution is discarded in favor of the new one */
+        DROP_OLDEST;
+
+        /**
+         * Parses a policy from its name, ignoring case and accepting '-' instead of '_'.
+         *
+         * @param value the name of the policy
+         * @return the policy or null, if the value is not a valid policy
+         */
+        public static QueueFullPolicy parse(String value) {
+            if (value == null) {
+                return null;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase().replace('-', '_'));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+
+    public static final int DEFAULT_MAX_CONCURRENT_EXECUTIONS = 2;
+
+    public static final int DEFAULT_QUEUE_SIZE = 100;
+
+    public static final QueueFullPolicy DEFAULT_QUEUE_FULL_POLICY = QueueFullPolicy.REJECT;
+
+    /**
+     * Rejected executions are logged for the first one and then for every n-th one.
+     */
+    private static final int REJECT_LOG_INTERVAL = 100;
+
+    private final Logger logger = LoggerFactory.getLogger(RuleExecutor.class);
+
+    private final Executor executor;
+
+    private volatile ScriptEngine scriptEngine;
+
+    private final ConcurrentMap<Rule, Script> scripts = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<Rule, RuleQueue> queues = new ConcurrentHashMap<>();
+
+    private volatile int maxConcurrentExecutions = DEFAULT_MAX_CONCURRENT_EXECUTIONS;
+
+    private volatile int queueSize = DEFAULT_QUEUE_SIZE;
+
+    private volatile QueueFullPolicy queueFullPolicy = DEFAULT_QUEUE_FULL_POLICY;
+
+    private final AtomicInteger queuedCount = new AtomicInteger();
+
+    private final AtomicInteger runningCount = new AtomicInteger();
+
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    public RuleExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    public void setScriptEngine(ScriptEngine scriptEngine) {
+        this.scriptEngine = scriptEngine;
+        clearScripts();
+    }
+
+    /**
+     * Sets the maximum number of executions of a single rule which may run at the same time.
+     *
+     * @param maxConcurrentExecutions the limit, at least 1
+     */
+    public void setMaxConcurrentExecutions(int maxConcurrentExecutions) {
+        this.maxConcurrentExecutions = Math.max(1, maxConcurrentExecutions);
+    }
+
+    /**
+     * Sets the maximum number of executions of a single rule which may wait for their execution.
+     *
+     * @param queueSize the size of the queue of each rule, 0 to not queue any execution
+     */
+    public void setQueueSize(int queueSize) {
+        this.queueSize = Math.max(0, queueSize);
+    }
+
+    public void setQueueFullPolicy(QueueFullPolicy queueFullPolicy) {
+        this.queueFullPolicy = queueFullPolicy != null ? queueFullPolicy : DEFAULT_QUEUE_FULL_POLICY;
+    }
+
+    /**
+     * Returns the script of a rule, which is created on the first request and then reused.
+     *
+     * @param rule the rule
+     * @return the script of the rule
+     */
+    public Script getScript(Rule rule) {
+        Script script = scripts.get(rule);
+        if (script == null) {
+            script = scriptEngine.newScriptFromXExpression(rule.getScript());
+            Script existing = scripts.putIfAbsent(rule, script);
+            if (existing != null) {
+                script = existing;
+            }
+        }
+        return script;
+    }
+
+    /**
+     * Discards the cached scripts of the rules. Executions which are already queued are still run with their script,
+     * the limits of the running and waiting executions of the rules still apply.
+     */
+    public void clearScripts() {
+        scripts.clear();
+    }
+
+    /**
+     * Schedules an execution of a rule.
+     *
+     * @param rule the rule to execute
+     * @param context the evaluation context of the execution
+     * @return true if the execution has been started or queued, false if it has been rejected
+     */
+    public boolean execute(Rule rule, IEvaluationContext context) {
+        RuleExecution execution = new RuleExecution(getScript(rule), context);
+        while (true) {
+            RuleQueue queue = queues.get(rule);
+            if (queue == null) {
+                queue = new RuleQueue(rule);
+                RuleQueue existing = queues.putIfAbsent(rule, queue);
+                if (existing != null) {
+                    queue = existing;
+                }
+            }
+            Boolean submitted = queue.submit(execution);
+            if (submitted != null) {
+                return submitted;
+            }
+        }
+    }
+
+    /**
+     * @return the number of executions which are waiting in the queues of the rules
+     */
+    public int getQueuedCount() {
+        return queuedCount.get();
+    }
+
+    /**
+     * @return the number of executions which are currently running
+     */
+    public int getRunningCount() {
+        return runningCount.get();
+    }
+
+    /**
+     * @return the number of executions which have been discarded since the start
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    private void rejected(String ruleName) {
+        long rejected = rejectedCount.incrementAndGet();
+        if (rejected == 1 || rejected % REJECT_LOG_INTERVAL == 0) {
+            logger.warn("Execution of rule '{}' has been discarded as too many executions are pending"
+                    + " ({} executions discarded so far).", ruleName, rejected);
+        }
+    }
+
+    private static class RuleExecution {
+        private final Script script;
+        private final IEvaluationContext context;
+
+        private RuleExecution(Script script, IEvaluationContext context) {
+            this.script = script;
+            this.context = context;
+        }
+    }
+
+    /**
+     * The executions of a single rule. Up to the maximum number of concurrent executions are handed to the thread pool,
+     * the others wait in the queue. A worker takes the next waiting execution when it has finished.
+     * <p>
+     * When the last worker has finished, the queue is removed from the executor and does not accept any execution
+     * anymore.
+     */
+    private class RuleQueue {
+
+        private final Rule rule;
+
+        private final String ruleName;
+
+        /** guarded by this, as well as the number of active workers and the removed flag */
+        private final Deque<RuleExecution> waiting = new ArrayDeque<>();
+
+        private int workers;
+
+        private boolean removed;
+
+        private RuleQueue(Rule rule) {
+            this.rule = rule;
+            this.ruleName = rule.getName();
+        }
+
+        /**
+         * Starts or queues an execution.
+         *
+         * @param execution the execution
+         * @return true if the execution has been started or queued, false if it has been rejected, null if the queue
+         *         has been removed and the execution has to be submitted to a new queue of the rule
+         */
+        private Boolean submit(RuleExecution execution) {
+            synchronized (this) {
+                if (removed) {
+                    return null;
+                }
+                if (workers >= maxConcurrentExecutions) {
+                    if (waiting.size() < queueSize) {
+                        waiting.add(execution);
+                        queuedCount.incrementAndGet();
+                        return true;
+                    }
+                    rejected(ruleName);
+                    if (queueFullPolicy == QueueFullPolicy.DROP_OLDEST && !waiting.isEmpty()) {
+                        waiting.poll();
+                        waiting.add(execution);
+                        return true;
+                    }
+                    return false;
+                }
+                workers++;
+            }
+            try {
+                executor.execute(new Worker(execution));
+                return true;
+            } catch (RejectedExecutionException e) {
+                synchronized (this) {
+                    workers--;
+                    removeIfIdle();
+                }
+                rejected(ruleName);
+                return false;
+            }
+        }
+
+        private synchronized RuleExecution next() {
+            RuleExecution execution = waiting.poll();
+            if (execution == null) {
+                workers--;
+                removeIfIdle();
+            } else {
+                queuedCount.decrementAndGet();
+            }
+            return execution;
+        }
+
+        /** has to be called while holding the lock of this queue */
+        private void removeIfIdle() {
+            if (workers == 0 && waiting.isEmpty()) {
+                removed = true;
+                queues.remove(rule, this);
+            }
+        }
+
+        private class Worker implements Runnable {
+
+            private final RuleExecution first;
+
+            private Worker(RuleExecution first) {
+                this.first = first;
+            }
+
+            @Override
+            public void run() {
+                RuleExecution execution = first;
+                while (execution != null) {
+                    run(execution);
+                    execution = next();
+                }
+            }
+
+            private void run(RuleExecution execution) {
+                runningCount.incrementAndGet();
+                try {
+                    logger.debug("Executing rule '{}'", ruleName);
+                    execution.script.execute(execution.context);
+                } catch (Exception e) {
+                    String msg = e.getMessage();
+                    if (msg == null) {
+                        logger.error("Rule '{}'", ruleName, e.getCause());
+                    } else {
+                        logger.error("Rule '{}': {}", ruleName, msg);
+                    }
+                } finally {
+                    runningCount.decrementAndGet();
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,150 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.model.rule.runtime.internal.engine
+
+import static org.hamcrest.CoreMatchers.*
+import static org.junit.Assert.*
+
+import java.util.concurrent.Executor
+import java.util.concurrent.RejectedExecutionException
+
+import org.eclipse.smarthome.model.rule.rules.Rule
+import org.eclipse.smarthome.model.rule.runtime.internal.engine.RuleExecutor.QueueFullPolicy
+import org.eclipse.smarthome.model.script.engine.Script
+import org.eclipse.smarthome.model.script.engine.ScriptEngine
+import org.eclipse.xtext.xbase.interpreter.IEvaluationContext
+import org.junit.Before
+import org.junit.Test
+
+/**
+ * Tests that the {@link RuleExecutor} limits the running and waiting executions of a rule and keeps these limits when
+ * the scripts of the rules are discarded.
+ *
+ * @author agent - Initial contribution
+ */
+class RuleExecutorTest {
+
+    /** the workers handed to the thread pool, which are run by the test */
+    List<Runnable> workers
+
+    /** the contexts of the executed scripts in the order of their execution */
+    List<IEvaluationContext> executed
+
+    int createdScripts
+
+    RuleExecutor ruleExecutor
+
+    Rule rule
+
+    @Before
+    void setUp() {
+        workers = []
+        executed = []
+        createdScripts = 0
+        ruleExecutor = new RuleExecutor({ Runnable worker -> workers.add(worker) } as Executor)
+        ruleExecutor.setScriptEngine([
+            newScriptFromXExpression: { expression ->
+                createdScripts++
+                [execute: { IEvaluationContext context -> executed.add(context) }] as Script
+            }
+        ] as ScriptEngine)
+        ruleExecutor.setMaxConcurrentExecutions(1)
+        ruleExecutor.setQueueSize(2)
+        rule = [getName: { "rule" }, getScript: { null }] as Rule
+    }
+
+    IEvaluationContext context() {
+        return [:] as IEvaluationContext
+    }
+
+    @Test
+    void 'assert that executions wait in the queue of the rule and are rejected if the queue is full'() {
+        def contexts = (1..4).collect { context() }
+
+        assertThat contexts.collect { ruleExecutor.execute(rule, it) }, is([true, true, true, false])
+        assertThat workers.size(), is(1)
+        assertThat ruleExecutor.getQueuedCount(), is(2)
+        assertThat ruleExecutor.getRejectedCount(), is(1L)
+
+        workers[0].run()
+
+        assertThat executed, is(contexts[0..2])
+        assertThat ruleExecutor.getQueuedCount(), is(0)
+        assertThat ruleExecutor.getRunningCount(), is(0)
+        assertThat createdScripts, is(1)
+    }
+
+    @Test
+    void 'assert that the oldest waiting execution is dropped if the policy says so'() {
+        ruleExecutor.setQueueFullPolicy(QueueFullPolicy.DROP_OLDEST)
+        def contexts = (1..4).collect { context() }
+
+        assertThat contexts.collect { ruleExecutor.execute(rule, it) }, is([true, true, true, true])
+        workers[0].run()
+
+        assertThat executed, is([contexts[0], contexts[2], contexts[3]])
+        assertThat ruleExecutor.getRejectedCount(), is(1L)
+    }
+
+    @Test
+    void 'assert that clearing the scripts keeps the running and waiting executions of the rule'() {
+        def contexts = (1..4).collect { context() }
+        ruleExecutor.execute(rule, contexts[0])
+        ruleExecutor.execute(rule, contexts[1])
+
+        ruleExecutor.clearScripts()
+
+        // the running execution still counts, so further executions are queued and the queue is still bounded
+        assertThat ruleExecutor.execute(rule, contexts[2]), is(true)
+        assertThat ruleExecutor.execute(rule, contexts[3]), is(false)
+        assertThat workers.size(), is(1)
+        assertThat createdScripts, is(2)
+
+        workers[0].run()
+
+        assertThat executed, is(contexts[0..2])
+    }
+
+    @Test
+    void 'assert that a rule can be executed again after its queue has been drained'() {
+        def first = context()
+        def second = context()
+        ruleExecutor.execute(rule, first)
+        workers[0].run()
+
+        assertThat ruleExecutor.execute(rule, second), is(true)
+        assertThat workers.size(), is(2)
+
+        workers[1].run()
+
+        assertThat executed, is([first, second])
+    }
+
+    @Test
+    void 'assert that a rejected worker does not block the rule'() {
+        def rejecting = true
+        ruleExecutor = new RuleExecutor({ Runnable worker ->
+            if (rejecting) {
+                throw new RejectedExecutionException()
+            }
+            workers.add(worker)
+        } as Executor)
+        ruleExecutor.setScriptEngine([
+            newScriptFromXExpression: { expression -> [execute: { context -> }] as Script }
+        ] as ScriptEngine)
+        ruleExecutor.setMaxConcurrentExecutions(1)
+
+        assertThat ruleExecutor.execute(rule, context()), is(false)
+        assertThat ruleExecutor.getRejectedCount(), is(1L)
+
+        rejecting = false
+
+        assertThat ruleExecutor.execute(rule, context()), is(true)
+        assertThat workers.size(), is(1)
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.persistence.memory.internal
+
+import static org.hamcrest.CoreMatchers.*
+import static org.junit.Assert.*
+
+import org.eclipse.smarthome.persistence.memory.internal.ChunkRing.PointVisitor
+import org.junit.Test
+
+/**
+ * Tests that a {@link ChunkRing} discards its oldest chunks and scans the points of a range.
+ *
+ * @author agent - Initial contribution
+ */
+class ChunkRingTest {
+
+    static final int CHUNK_SIZE = ChunkRing.CHUNK_SIZE
+
+    ChunkRing ring(int capacity, int points) {
+        def ring = new ChunkRing(capacity)
+        points.times { ring.append(it * 10L, it) }
+        return ring
+    }
+
+    List<Long> scan(ChunkRing ring, long begin, long end, boolean descending, int limit = Integer.MAX_VALUE) {
+        def times = []
+        ring.scan(begin, end, descending, { long time, long value ->
+            assertThat value, is(time.intdiv(10))
+            times.add(time)
+            return times.size() < limit
+        } as PointVisitor)
+        return times
+    }
+
+    @Test
+    void 'assert that the oldest chunk is discarded as a whole once it is not needed for the capacity'() {
+        def ring = ring(2 * CHUNK_SIZE, 3 * CHUNK_SIZE - 1)
+        assertThat ring.size(), is(3 * CHUNK_SIZE - 1)
+        assertThat ring.getFirstTime(), is(0L)
+
+        ring.append((3 * CHUNK_SIZE - 1) * 10L, 3 * CHUNK_SIZE - 1)
+
+        assertThat ring.size(), is(2 * CHUNK_SIZE)
+        assertThat ring.getFirstTime(), is(CHUNK_SIZE * 10L)
+        assertThat ring.getLastTime(), is((3 * CHUNK_SIZE - 1) * 10L)
+        assertThat scan(ring, Long.MIN_VALUE, Long.MAX_VALUE, false), is((CHUNK_SIZE..<3 * CHUNK_SIZE).collect {
+            it * 10L
+        })
+    }
+
+    @Test
+    void 'assert that a smaller capacity discards the oldest chunks and 0 keeps nothing'() {
+        def ring = ring(4 * CHUNK_SIZE, 3 * CHUNK_SIZE + 5)
+
+        ring.setCapacity(CHUNK_SIZE)
+        assertThat ring.size(), is(CHUNK_SIZE + 5)
+        assertThat ring.getFirstTime(), is(2 * CHUNK_SIZE * 10L)
+
+        ring.setCapacity(0)
+        ring.append(100000L, 10000L)
+        assertThat ring.size(), is(0)
+        assertThat ring.getFirstTime(), is(Long.MAX_VALUE)
+        assertThat ring.getLastTime(), is(Long.MIN_VALUE)
+        assertThat scan(ring, Long.MIN_VALUE, Long.MAX_VALUE, false), is([])
+    }
+
+    @Test
+    void 'assert that a range across chunks is scanned in both directions including its bounds'() {
+        def ring = ring(3 * CHUNK_SIZE, 3 * CHUNK_SIZE)
+        def begin = (CHUNK_SIZE - 2) * 10L
+        def end = (2 * CHUNK_SIZE + 2) * 10L
+        def expected = (CHUNK_SIZE - 2..2 * CHUNK_SIZE + 2).collect { it * 10L }
+
+        assertThat scan(ring, begin, end, false), is(expected)
+        assertThat scan(ring, begin, end, true), is(expected.reverse())
+        assertThat scan(ring, begin + 1, end - 1, false), is(expected[1..-2])
+    }
+
+    @Test
+    void 'assert that a range outside of the points or between two points is empty'() {
+        def ring = ring(CHUNK_SIZE, 10)
+
+        assertThat scan(ring, -100L, -1L, false), is([])
+        assertThat scan(ring, 91L, 1000L, true), is([])
+        assertThat scan(ring, 11L, 19L, false), is([])
+    }
+
+    @Test
+    void 'assert that the visitor stops the scan'() {
+        def ring = ring(3 * CHUNK_SIZE, 3 * CHUNK_SIZE)
+
+        assertThat scan(ring, Long.MIN_VALUE, Long.MAX_VALUE, true, 3), is([
+            (3 * CHUNK_SIZE - 1) * 10L,
+            (3 * CHUNK_SIZE - 2) * 10L,
+            (3 * CHUNK_SIZE - 3) * 10L
+        ])
+        assertThat scan(ring, Long.MIN_VALUE, Long.MAX_VALUE, false, 2), is([0L, 10L])
+    }
+
+    @Test
+    void 'assert that the chunks are restored with all their points'() {
+        def ring = ring(2 * CHUNK_SIZE, CHUNK_SIZE + 7)
+        def bytes = new ByteArrayOutputStream()
+        ring.write(new DataOutputStream(bytes))
+
+        def restored = new ChunkRing(2 * CHUNK_SIZE)
+        restored.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())))
+        restored.append((CHUNK_SIZE + 7) * 10L, CHUNK_SIZE + 7)
+
+        assertThat restored.size(), is(CHUNK_SIZE + 8)
+        assertThat scan(restored, Long.MIN_VALUE, Long.MAX_VALUE, false), is((0..CHUNK_SIZE + 7).collect { it * 10L })
+    }
+}
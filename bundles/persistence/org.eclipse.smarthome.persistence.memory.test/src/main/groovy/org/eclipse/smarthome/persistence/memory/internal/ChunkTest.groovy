@@ -0,0 +1,108 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.persistence.memory.internal
+
+import static org.hamcrest.CoreMatchers.*
+import static org.junit.Assert.*
+
+import org.junit.Test
+
+/**
+ * Tests that the points of a {@link Chunk} are decoded exactly as they were appended.
+ *
+ * @author agent - Initial contribution
+ */
+class ChunkTest {
+
+    void assertRoundTrip(List<Long> times, List<Long> values) {
+        def chunk = new Chunk(times.size())
+        times.eachWithIndex { time, i -> chunk.append(time, values[i]) }
+
+        assertDecodes(chunk, times, values)
+        chunk.seal()
+        assertDecodes(chunk, times, values)
+        assertDecodes(copy(chunk), times, values)
+    }
+
+    void assertDecodes(Chunk chunk, List<Long> times, List<Long> values) {
+        long[] decodedTimes = new long[ChunkRing.CHUNK_SIZE]
+        long[] decodedValues = new long[ChunkRing.CHUNK_SIZE]
+
+        assertThat chunk.decode(decodedTimes, decodedValues), is(times.size())
+        assertThat decodedTimes[0..<times.size()], is(times)
+        assertThat decodedValues[0..<values.size()], is(values)
+        assertThat chunk.getFirstTime(), is(times[0])
+        assertThat chunk.getLastTime(), is(times[-1])
+    }
+
+    Chunk copy(Chunk chunk) {
+        def bytes = new ByteArrayOutputStream()
+        chunk.write(new DataOutputStream(bytes))
+        return Chunk.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())))
+    }
+
+    long bits(double value) {
+        return Double.doubleToLongBits(value)
+    }
+
+    @Test
+    void 'assert that regular intervals and constant values are decoded'() {
+        def times = (0..<128).collect { 1450000000000L + it * 60000L }
+        def values = (0..<128).collect { bits(21.5d) }
+
+        assertRoundTrip(times, values)
+    }
+
+    @Test
+    void 'assert that irregular intervals of every size are decoded'() {
+        def deltas = [0L, 1L, 63L, -64L, 200L, -255L, 2000L, -2047L, 100000L, -3000000000L, 5000000000L,
+            Long.MAX_VALUE.intdiv(4)]
+        def times = [1000L]
+        deltas.each { times.add(times[-1] + 1000L + it) }
+        def values = times.collect { bits(1d) }
+
+        assertRoundTrip(times, values)
+    }
+
+    @Test
+    void 'assert that changing values of every kind are decoded'() {
+        def values = [0d, 1d, -1d, 0.1d, 1e300d, -1e-300d, Double.MAX_VALUE, Double.MIN_VALUE, 21.5d, 21.25d, 21.5d,
+            Double.NaN, Double.NEGATIVE_INFINITY].collect { bits(it) }
+        values.addAll([0x7ff8000000000001L, 0x7ff8000000000002L, -1L, Long.MIN_VALUE, 1L, 0L])
+        def times = (0..<values.size()).collect { it * 1000L }
+
+        assertRoundTrip(times, values)
+    }
+
+    @Test
+    void 'assert that random points are decoded'() {
+        def random = new Random(42)
+        def times = [random.nextLong() >> 20]
+        127.times { times.add(times[-1] + random.nextInt(100000)) }
+        def values = (0..<128).collect { random.nextBoolean() ? random.nextLong() : bits(random.nextInt(100) / 4d) }
+
+        assertRoundTrip(times, values)
+    }
+
+    @Test(expected = IllegalStateException)
+    void 'assert that a full chunk rejects further points'() {
+        def chunk = new Chunk(1)
+        chunk.append(0, 0)
+
+        chunk.append(1, 1)
+    }
+
+    @Test(expected = IllegalStateException)
+    void 'assert that a sealed chunk rejects further points'() {
+        def chunk = new Chunk(2)
+        chunk.append(0, 0)
+        chunk.seal()
+
+        chunk.append(1, 1)
+    }
+}
@@ -0,0 +1,106 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.persistence.memory.internal
+
+import static org.hamcrest.CoreMatchers.*
+import static org.junit.Assert.*
+
+import org.eclipse.smarthome.core.items.Item
+import org.eclipse.smarthome.core.library.types.DecimalType
+import org.eclipse.smarthome.core.library.types.OnOffType
+import org.eclipse.smarthome.core.persistence.FilterCriteria
+import org.eclipse.smarthome.core.persistence.PersistenceEntry
+import org.eclipse.smarthome.core.persistence.FilterCriteria.Ordering
+import org.eclipse.smarthome.core.types.UnDefType
+import org.junit.Before
+import org.junit.Test
+
+/**
+ * Tests the queries of the {@link MemoryPersistenceService} for ranges within the raw states and across the tiers.
+ *
+ * @author agent - Initial contribution
+ */
+class MemoryPersistenceServiceTest {
+
+    /** the start of an hour */
+    static final long START = 1450000800000L
+
+    MemoryPersistenceService service
+
+    Item item
+
+    @Before
+    void setUp() {
+        service = new MemoryPersistenceService()
+        service.activate([rawSize: '10', minuteSize: '1000', hourSize: '1000'])
+        item = [getName: { "Temperature" }] as Item
+    }
+
+    void store(long time, def state) {
+        service.store([
+            new PersistenceEntry(item, null, state, new Date(time))
+        ])
+    }
+
+    List query(Long begin, Long end, Ordering ordering, int pageNumber = 0, int pageSize = Integer.MAX_VALUE) {
+        def filter = new FilterCriteria().setItemName("Temperature").setOrdering(ordering).setPageNumber(pageNumber)
+                .setPageSize(pageSize)
+        filter.setBeginDate(begin != null ? new Date(begin) : null).setEndDate(end != null ? new Date(end) : null)
+        return service.query(filter).collect { [it.getTimestamp().getTime() - START, it.getState()] }
+    }
+
+    @Test
+    void 'assert that the raw states of a range are returned in both orders including the bounds'() {
+        (0..<10).each { store(START + it * 1000L, new DecimalType(it)) }
+
+        def expected = (2..5).collect { [it * 1000L, new DecimalType(it)] }
+        assertThat query(START + 2000L, START + 5000L, Ordering.ASCENDING), is(expected)
+        assertThat query(START + 2000L, START + 5000L, Ordering.DESCENDING), is(expected.reverse())
+        assertThat query(START + 2001L, START + 4999L, Ordering.ASCENDING), is(expected[1..2])
+        assertThat query(START + 10000L, null, Ordering.ASCENDING), is([])
+        assertThat query(null, START - 1L, Ordering.ASCENDING), is([])
+    }
+
+    @Test
+    void 'assert that the pages are taken from the ordered states'() {
+        (0..<10).each { store(START + it * 1000L, new DecimalType(it)) }
+
+        assertThat query(null, null, Ordering.DESCENDING, 1, 3), is((6..4).collect {
+            [it * 1000L, new DecimalType(it)]
+        })
+        assertThat query(null, null, Ordering.ASCENDING, 3, 3), is([[9000L, new DecimalType(9)]])
+        assertThat query(null, null, Ordering.ASCENDING, 4, 3), is([])
+    }
+
+    @Test
+    void 'assert that the minutes answer the part of a range which the raw states do not reach back to'() {
+        // two states per minute whose average is the minute, the raw states keep the last 10 of them
+        (0..<120).each { store(START + it * 30000L, new DecimalType(it.intdiv(2) + (it % 2 == 0 ? -0.25 : 0.25))) }
+
+        def minutes = (0..<55).collect { [it * 60000L, new DecimalType(it)] }
+        def raw = (110..<120).collect { [it * 30000L, new DecimalType(it.intdiv(2) + (it % 2 == 0 ? -0.25 : 0.25))] }
+        assertThat query(null, null, Ordering.ASCENDING), is(minutes + raw)
+        assertThat query(null, null, Ordering.DESCENDING), is((minutes + raw).reverse())
+        assertThat query(START + 10 * 60000L, START + 20 * 60000L, Ordering.ASCENDING), is(minutes[10..20])
+        assertThat query(START + 54 * 60000L, START + 56 * 60000L, Ordering.ASCENDING), is([minutes[54]] + raw[0..2])
+    }
+
+    @Test
+    void 'assert that non-numeric states are returned as they were stored and undefined ones are skipped'() {
+        store(START, OnOffType.ON)
+        store(START + 1000L, UnDefType.UNDEF)
+        store(START + 2000L, OnOffType.OFF)
+        store(START + 3000L, new DecimalType(1.5))
+
+        assertThat query(null, null, Ordering.ASCENDING), is([
+            [0L, OnOffType.ON],
+            [2000L, OnOffType.OFF],
+            [3000L, new DecimalType(1.5)]
+        ])
+    }
+}
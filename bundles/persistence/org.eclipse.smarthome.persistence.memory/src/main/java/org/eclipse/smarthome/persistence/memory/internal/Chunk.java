@@ -0,0 +1,311 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.persistence.memory.internal;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A {@link Chunk} holds up to a fixed number of points of a time series in compressed form. Each point consists of a
+ * timestamp and the 64 bits of a value.
+ * <p>
+ * The timestamps are stored as the difference of their delta to the previous delta and the values as the XOR with
+ * the previous value, both with variable length. Regular intervals and unchanged or slowly changing values therefore
+ * only take a few bits per point.
+ * </p>
+ * <p>
+ * While points are appended, the bits are held in an array which grows as needed. Once the chunk is full, it is
+ * sealed, which trims the array to the bits actually used.
+ * </p>
+ * <p>
+ * A chunk is not thread-safe, the {@link TimeSeries} synchronizes the access.
+ * </p>
+ *
+ * @author agent - Initial contribution and API
+ */
+class Chunk {
+
+    private final int capacity;
+
+    /** the bits, with spare words at the end while the chunk is open */
+    private long[] words = new long[4];
+
+    private boolean sealed;
+
+    private int bitCount;
+
+    private int size;
+
+    private long firstTime;
+
+    private long lastTime;
+
+    private long previousDelta;
+
+    private long previousValue;
+
+    private int previousLeading = -1;
+
+    private int previousTrailing;
+
+    Chunk(int capacity) {
+        this.capacity = capacity;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isFull() {
+        return size >= capacity;
+    }
+
+    long getFirstTime() {
+        return firstTime;
+    }
+
+    long getLastTime() {
+        return lastTime;
+    }
+
+    /**
+     * Appends a point.
+     *
+     * @param time the timestamp, which must not be smaller than the one of the previous point
+     * @param value the value
+     */
+    void append(long time, long value) {
+        if (sealed || size >= capacity) {
+            throw new IllegalStateException("The chunk is full.");
+        }
+        if (size == 0) {
+            firstTime = time;
+            writeBits(time, 64);
+            writeBits(value, 64);
+        } else {
+            appendTime(time);
+            appendValue(value);
+        }
+        lastTime = time;
+        previousValue = value;
+        size++;
+    }
+
+    private void appendTime(long time) {
+        long delta = time - lastTime;
+        long deltaOfDelta = delta - previousDelta;
+        previousDelta = delta;
+        if (deltaOfDelta == 0) {
+            writeBits(0, 1);
+        } else if (deltaOfDelta >= -64 && deltaOfDelta < 64) {
+            writeBits(0x2, 2);
+            writeBits(deltaOfDelta, 7);
+        } else if (deltaOfDelta >= -256 && deltaOfDelta < 256) {
+            writeBits(0x6, 3);
+            writeBits(deltaOfDelta, 9);
+        } else if (deltaOfDelta >= -2048 && deltaOfDelta < 2048) {
+            writeBits(0xE, 4);
+            writeBits(deltaOfDelta, 12);
+        } else if (deltaOfDelta >= Integer.MIN_VALUE && deltaOfDelta <= Integer.MAX_VALUE) {
+            writeBits(0x1E, 5);
+            writeBits(deltaOfDelta, 32);
+        } else {
+            writeBits(0x1F, 5);
+            writeBits(deltaOfDelta, 64);
+        }
+    }
+
+    private void appendValue(long value) {
+        long xor = value ^ previousValue;
+        if (xor == 0) {
+            writeBits(0, 1);
+            return;
+        }
+        int leading = Math.min(31, Long.numberOfLeadingZeros(xor));
+        int trailing = Long.numberOfTrailingZeros(xor);
+        if (previousLeading >= 0 && leading >= previousLeading && trailing >= previousTrailing) {
+            // the meaningful bits fit into the window of the previous value
+            writeBits(0x2, 2);
+            writeBits(xor >>> previousTrailing, 64 - previousLeading - previousTrailing);
+        } else {
+            int length = 64 - leading - trailing;
+            writeBits(0x3, 2);
+            writeBits(leading, 5);
+            writeBits(length == 64 ? 0 : length, 6);
+            writeBits(xor >>> trailing, length);
+            previousLeading = leading;
+            previousTrailing = trailing;
+        }
+    }
+
+    /**
+     * Releases the spare words. No more points can be appended afterwards.
+     */
+    void seal() {
+        if (sealed) {
+            return;
+        }
+        words = Arrays.copyOf(words, (bitCount + 63) >>> 6);
+        sealed = true;
+    }
+
+    /**
+     * Decodes all points of the chunk.
+     *
+     * @param times the array which receives the timestamps, at least as long as the chunk
+     * @param values the array which receives the values, at least as long as the chunk
+     * @return the number of points
+     */
+    int decode(long[] times, long[] values) {
+        if (size == 0) {
+            return 0;
+        }
+        Reader reader = new Reader();
+        long time = reader.read(64);
+        long value = reader.read(64);
+        times[0] = time;
+        values[0] = value;
+        long delta = 0;
+        int leading = 0;
+        int trailing = 0;
+        for (int i = 1; i < size; i++) {
+            if (reader.read(1) != 0) {
+                if (reader.read(1) == 0) {
+                    delta += reader.readSigned(7);
+                } else if (reader.read(1) == 0) {
+                    delta += reader.readSigned(9);
+                } else if (reader.read(1) == 0) {
+                    delta += reader.readSigned(12);
+                } else if (reader.read(1) == 0) {
+                    delta += reader.readSigned(32);
+                } else {
+                    delta += reader.read(64);
+                }
+            }
+            time += delta;
+            if (reader.read(1) != 0) {
+                if (reader.read(1) != 0) {
+                    leading = (int) reader.read(5);
+                    int length = (int) reader.read(6);
+                    if (length == 0) {
+                        length = 64;
+                    }
+                    trailing = 64 - leading - length;
+                }
+                value ^= reader.read(64 - leading - trailing) << trailing;
+            }
+            times[i] = time;
+            values[i] = value;
+        }
+        return size;
+    }
+
+    /**
+     * Writes the chunk including its compressed points.
+     *
+     * @param out the output
+     * @throws IOException if the chunk could not be written
+     */
+    void write(DataOutput out) throws IOException {
+        out.writeInt(capacity);
+        out.writeInt(size);
+        out.writeInt(bitCount);
+        out.writeLong(firstTime);
+        out.writeLong(lastTime);
+        out.writeLong(previousDelta);
+        out.writeLong(previousValue);
+        out.writeInt(previousLeading);
+        out.writeInt(previousTrailing);
+        out.writeBoolean(sealed);
+        int length = (bitCount + 63) >>> 6;
+        for (int i = 0; i < length; i++) {
+            out.writeLong(words[i]);
+        }
+    }
+
+    /**
+     * Reads a chunk which has been written by {@link #write(DataOutput)}.
+     *
+     * @param in the input
+     * @return the chunk
+     * @throws IOException if the chunk could not be read
+     */
+    static Chunk read(DataInput in) throws IOException {
+        int capacity = in.readInt();
+        if (capacity <= 0 || capacity > ChunkRing.CHUNK_SIZE) {
+            throw new IOException("Invalid chunk capacity " + capacity);
+        }
+        Chunk chunk = new Chunk(capacity);
+        chunk.size = in.readInt();
+        chunk.bitCount = in.readInt();
+        if (chunk.size < 0 || chunk.size > capacity || chunk.bitCount < 0 || chunk.bitCount > capacity * 256) {
+            throw new IOException("Invalid chunk size " + chunk.size);
+        }
+        chunk.firstTime = in.readLong();
+        chunk.lastTime = in.readLong();
+        chunk.previousDelta = in.readLong();
+        chunk.previousValue = in.readLong();
+        chunk.previousLeading = in.readInt();
+        chunk.previousTrailing = in.readInt();
+        boolean sealed = in.readBoolean();
+        int length = (chunk.bitCount + 63) >>> 6;
+        chunk.words = new long[Math.max(chunk.words.length, length + 1)];
+        for (int i = 0; i < length; i++) {
+            chunk.words[i] = in.readLong();
+        }
+        if (sealed) {
+            chunk.seal();
+        }
+        return chunk;
+    }
+
+    private void writeBits(long bits, int count) {
+        int index = bitCount >>> 6;
+        if (index + 1 >= words.length) {
+            words = Arrays.copyOf(words, words.length * 2);
+        }
+        if (count < 64) {
+            bits &= (1L << count) - 1;
+        }
+        int free = 64 - (bitCount & 63);
+        if (count <= free) {
+            words[index] |= bits << (free - count);
+        } else {
+            words[index] |= bits >>> (count - free);
+            words[index + 1] |= bits << (64 - count + free);
+        }
+        bitCount += count;
+    }
+
+    /**
+     * Reads the bits of the chunk from the beginning.
+     */
+    private class Reader {
+
+        private int position;
+
+        private long read(int count) {
+            int index = position >>> 6;
+            int offset = position & 63;
+            int free = 64 - offset;
+            long bits = (words[index] << offset) >>> (64 - count);
+            if (count > free) {
+                bits |= words[index + 1] >>> (64 - count + free);
+            }
+            position += count;
+            return bits;
+        }
+
+        private long readSigned(int count) {
+            return (read(count) << (64 - count)) >> (64 - count);
+        }
+    }
+
+}
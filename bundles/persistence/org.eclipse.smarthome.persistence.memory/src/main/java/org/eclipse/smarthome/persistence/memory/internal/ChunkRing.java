@@ -0,0 +1,187 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.persistence.memory.internal;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+
+/**
+ * A {@link ChunkRing} keeps the most recent points of a time series in a sequence of {@link Chunk}s. When the number
+ * of points exceeds the capacity, the oldest chunk is discarded as a whole, so the ring holds between the capacity and
+ * the capacity plus the size of a chunk points.
+ * <p>
+ * A ring is not thread-safe, the {@link TimeSeries} synchronizes the access.
+ * </p>
+ *
+ * @author agent - Initial contribution and API
+ */
+class ChunkRing {
+
+    /**
+     * The maximum number of points per chunk.
+     */
+    static final int CHUNK_SIZE = 128;
+
+    /**
+     * Receives the points of a scan.
+     */
+    interface PointVisitor {
+
+        /**
+         * @param time the timestamp of the point
+         * @param value the value of the point
+         * @return true to continue the scan, false to stop it
+         */
+        boolean visit(long time, long value);
+    }
+
+    private final Deque<Chunk> chunks = new ArrayDeque<>();
+
+    private int capacity;
+
+    private int size;
+
+    ChunkRing(int capacity) {
+        setCapacity(capacity);
+    }
+
+    /**
+     * Changes the capacity and discards the oldest points if necessary.
+     *
+     * @param capacity the number of points to keep, 0 to keep none
+     */
+    void setCapacity(int capacity) {
+        this.capacity = Math.max(0, capacity);
+        trim();
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return the timestamp of the oldest point, or {@link Long#MAX_VALUE} if the ring is empty
+     */
+    long getFirstTime() {
+        Chunk first = chunks.peekFirst();
+        return first == null ? Long.MAX_VALUE : first.getFirstTime();
+    }
+
+    /**
+     * @return the timestamp of the newest point, or {@link Long#MIN_VALUE} if the ring is empty
+     */
+    long getLastTime() {
+        Chunk last = chunks.peekLast();
+        return last == null ? Long.MIN_VALUE : last.getLastTime();
+    }
+
+    /**
+     * Appends a point.
+     *
+     * @param time the timestamp, which must not be smaller than the one of the previous point
+     * @param value the value
+     */
+    void append(long time, long value) {
+        if (capacity == 0) {
+            return;
+        }
+        Chunk last = chunks.peekLast();
+        if (last == null || last.isFull()) {
+            if (last != null) {
+                last.seal();
+            }
+            last = new Chunk(Math.min(CHUNK_SIZE, capacity));
+            chunks.add(last);
+        }
+        last.append(time, value);
+        size++;
+        trim();
+    }
+
+    /**
+     * Visits all points whose timestamp is within the given range.
+     *
+     * @param begin the smallest timestamp to visit
+     * @param end the largest timestamp to visit
+     * @param descending true to visit the newest point first, false to visit the oldest point first
+     * @param visitor the visitor
+     * @return false if the visitor has stopped the scan, true otherwise
+     */
+    boolean scan(long begin, long end, boolean descending, PointVisitor visitor) {
+        if (size == 0) {
+            return true;
+        }
+        long[] times = new long[CHUNK_SIZE];
+        long[] values = new long[CHUNK_SIZE];
+        Iterator<Chunk> it = descending ? chunks.descendingIterator() : chunks.iterator();
+        while (it.hasNext()) {
+            Chunk chunk = it.next();
+            if (chunk.getLastTime() < begin) {
+                if (descending) {
+                    return true;
+                }
+                continue;
+            }
+            if (chunk.getFirstTime() > end) {
+                if (descending) {
+                    continue;
+                }
+                return true;
+            }
+            int count = chunk.decode(times, values);
+            for (int i = 0; i < count; i++) {
+                int index = descending ? count - 1 - i : i;
+                long time = times[index];
+                if (time >= begin && time <= end && !visitor.visit(time, values[index])) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes all chunks of the ring.
+     *
+     * @param out the output
+     * @throws IOException if the chunks could not be written
+     */
+    void write(DataOutput out) throws IOException {
+        out.writeInt(chunks.size());
+        for (Chunk chunk : chunks) {
+            chunk.write(out);
+        }
+    }
+
+    /**
+     * Adds the chunks which have been written by {@link #write(DataOutput)} to the empty ring.
+     *
+     * @param in the input
+     * @throws IOException if the chunks could not be read
+     */
+    void read(DataInput in) throws IOException {
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            Chunk chunk = Chunk.read(in);
+            chunks.add(chunk);
+            size += chunk.size();
+        }
+        trim();
+    }
+
+    private void trim() {
+        while (!chunks.isEmpty() && (capacity == 0 || size - chunks.peekFirst().size() >= capacity)) {
+            size -= chunks.pollFirst().size();
+        }
+    }
+
+}
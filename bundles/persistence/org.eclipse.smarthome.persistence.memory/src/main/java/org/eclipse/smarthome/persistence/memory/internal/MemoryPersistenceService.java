@@ -0,0 +1,381 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.persistence.memory.internal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.smarthome.config.core.ConfigConstants;
+import org.eclipse.smarthome.core.items.Item;
+import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.core.persistence.AggregateFunction;
+import org.eclipse.smarthome.core.persistence.AggregatePersistenceService;
+import org.eclipse.smarthome.core.persistence.Aggregator;
+import org.eclipse.smarthome.core.persistence.BatchPersistenceService;
+import org.eclipse.smarthome.core.persistence.FilterCriteria;
+import org.eclipse.smarthome.core.persistence.FilterCriteria.Operator;
+import org.eclipse.smarthome.core.persistence.FilterCriteria.Ordering;
+import org.eclipse.smarthome.core.persistence.HistoricItem;
+import org.eclipse.smarthome.core.persistence.PersistenceEntry;
+import org.eclipse.smarthome.persistence.memory.internal.ChunkRing.PointVisitor;
+import org.eclipse.smarthome.core.types.State;
+import org.eclipse.smarthome.core.types.UnDefType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link MemoryPersistenceService} keeps the recent history of the items in memory, so that queries can be
+ * answered without any I/O. Every item has a {@link TimeSeries} of compressed points with three tiers: the raw states,
+ * one state per minute and one state per hour. The number of points of every tier is limited by the configuration,
+ * so that the memory usage per item is bounded.
+ * <p>
+ * Numeric states are kept as doubles, so they are returned as {@link DecimalType}s with at most 17 significant digits.
+ * All other states are returned as they were stored, but only a limited number of distinct states is kept per item.
+ * States which are undefined are not stored.
+ * </p>
+ * <p>
+ * If the snapshot is enabled, the compressed points are written to a file when the service is stopped and read again
+ * when it is started.
+ * </p>
+ *
+ * @author agent - Initial contribution and API
+ */
+public class MemoryPersistenceService implements BatchPersistenceService, AggregatePersistenceService {
+
+    private static final String SERVICE_NAME = "memory";
+
+    private static final String CONFIG_RAW_SIZE = "rawSize";
+    private static final String CONFIG_MINUTE_SIZE = "minuteSize";
+    private static final String CONFIG_HOUR_SIZE = "hourSize";
+    private static final String CONFIG_SNAPSHOT = "snapshot";
+
+    /** by default the raw states of about a day are kept for an item which is updated once a minute */
+    static final int DEFAULT_RAW_SIZE = 1440;
+
+    /** by default the minutes of a week are kept */
+    static final int DEFAULT_MINUTE_SIZE = 7 * 24 * 60;
+
+    /** by default the hours of a year are kept */
+    static final int DEFAULT_HOUR_SIZE = 365 * 24;
+
+    /** the name of the snapshot file in the persistence folder of the user data */
+    private static final String SNAPSHOT_FILE_NAME = "memory.snapshot";
+
+    private static final int SNAPSHOT_MAGIC = 0x45534d50;
+
+    private static final int SNAPSHOT_VERSION = 1;
+
+    private static final int SNAPSHOT_BUFFER_SIZE = 64 * 1024;
+
+    private static final Comparator<HistoricItem> TIMESTAMP_COMPARATOR = new Comparator<HistoricItem>() {
+        @Override
+        public int compare(HistoricItem item1, HistoricItem item2) {
+            return item1.getTimestamp().compareTo(item2.getTimestamp());
+        }
+    };
+
+    private final Logger logger = LoggerFactory.getLogger(MemoryPersistenceService.class);
+
+    private final ConcurrentMap<String, TimeSeries> series = new ConcurrentHashMap<>();
+
+    private volatile int rawSize = DEFAULT_RAW_SIZE;
+
+    private volatile int minuteSize = DEFAULT_MINUTE_SIZE;
+
+    private volatile int hourSize = DEFAULT_HOUR_SIZE;
+
+    private File snapshotFile;
+
+    public void activate(Map<String, Object> config) {
+        applyConfig(config);
+        if (snapshotFile != null && snapshotFile.exists()) {
+            try {
+                readSnapshot();
+                logger.debug("Restored the history of {} items from '{}'.", series.size(),
+                        snapshotFile.getAbsolutePath());
+            } catch (IOException e) {
+                logger.warn("Could not read the snapshot '{}': {}", snapshotFile.getAbsolutePath(), e.getMessage());
+            }
+        }
+    }
+
+    public void modified(Map<String, Object> config) {
+        applyConfig(config);
+        for (TimeSeries timeSeries : series.values()) {
+            timeSeries.configure(rawSize, minuteSize, hourSize);
+        }
+    }
+
+    public void deactivate() {
+        if (snapshotFile != null) {
+            try {
+                writeSnapshot();
+                logger.debug("Saved the history of {} items to '{}'.", series.size(), snapshotFile.getAbsolutePath());
+            } catch (IOException e) {
+                logger.warn("Could not write the snapshot '{}': {}", snapshotFile.getAbsolutePath(), e.getMessage());
+            }
+        }
+        series.clear();
+    }
+
+    private void applyConfig(Map<String, Object> config) {
+        if (config == null) {
+            return;
+        }
+        rawSize = getIntConfig(config, CONFIG_RAW_SIZE, DEFAULT_RAW_SIZE);
+        minuteSize = getIntConfig(config, CONFIG_MINUTE_SIZE, DEFAULT_MINUTE_SIZE);
+        hourSize = getIntConfig(config, CONFIG_HOUR_SIZE, DEFAULT_HOUR_SIZE);
+        Object snapshot = config.get(CONFIG_SNAPSHOT);
+        if (snapshot != null && Boolean.parseBoolean(snapshot.toString().trim())) {
+            snapshotFile = new File(ConfigConstants.getUserDataFolder() + File.separator + "persistence",
+                    SNAPSHOT_FILE_NAME);
+        } else {
+            snapshotFile = null;
+        }
+    }
+
+    private void readSnapshot() throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(snapshotFile), SNAPSHOT_BUFFER_SIZE))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                throw new IOException("Unknown file format");
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                TimeSeries timeSeries = TimeSeries.read(in, rawSize, minuteSize, hourSize);
+                series.put(timeSeries.getName(), timeSeries);
+            }
+        }
+    }
+
+    private void writeSnapshot() throws IOException {
+        // the snapshot replaces the previous one only once it is complete
+        File tempFile = new File(snapshotFile.getPath() + ".tmp");
+        tempFile.getParentFile().mkdirs();
+        List<TimeSeries> allSeries = new ArrayList<>(series.values());
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tempFile), SNAPSHOT_BUFFER_SIZE))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeInt(allSeries.size());
+            for (TimeSeries timeSeries : allSeries) {
+                timeSeries.write(out);
+            }
+        }
+        if (snapshotFile.exists() && !snapshotFile.delete() || !tempFile.renameTo(snapshotFile)) {
+            throw new IOException("Could not replace the snapshot by " + tempFile.getName());
+        }
+    }
+
+    private int getIntConfig(Map<String, Object> config, String key, int defaultValue) {
+        Object value = config.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.toString().trim());
+        } catch (NumberFormatException e) {
+            logger.warn("Ignoring invalid configuration '{}' for '{}' - value must be an integer.", value, key);
+            return defaultValue;
+        }
+    }
+
+    @Override
+    public String getName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void store(Item item) {
+        store(item, null);
+    }
+
+    @Override
+    public void store(Item item, String alias) {
+        store(alias != null ? alias : item.getName(), item.getState(), System.currentTimeMillis());
+    }
+
+    @Override
+    public void store(Collection<PersistenceEntry> entries) {
+        for (PersistenceEntry entry : entries) {
+            String name = entry.getAlias() != null ? entry.getAlias() : entry.getName();
+            store(name, entry.getState(), entry.getTimestamp().getTime());
+        }
+    }
+
+    private void store(String name, State state, long time) {
+        if (state == null || state instanceof UnDefType) {
+            return;
+        }
+        TimeSeries timeSeries = series.get(name);
+        if (timeSeries == null) {
+            timeSeries = new TimeSeries(name, rawSize, minuteSize, hourSize);
+            TimeSeries existing = series.putIfAbsent(name, timeSeries);
+            if (existing != null) {
+                timeSeries = existing;
+            }
+        }
+        if (!timeSeries.add(state, time)) {
+            logger.debug("Not storing state '{}' of item '{}' as it has too many distinct states.", state, name);
+        }
+    }
+
+    @Override
+    public Iterable<HistoricItem> query(FilterCriteria filter) {
+        long limit = (long) filter.getPageNumber() * filter.getPageSize() + filter.getPageSize();
+        boolean descending = filter.getOrdering() == Ordering.DESCENDING;
+        List<HistoricItem> results = new ArrayList<>();
+        if (filter.getItemName() != null) {
+            TimeSeries timeSeries = series.get(filter.getItemName());
+            if (timeSeries != null) {
+                collect(timeSeries, filter, descending, limit, results);
+            }
+        } else {
+            // the limit can only be applied after the results of all items are ordered
+            for (TimeSeries timeSeries : series.values()) {
+                collect(timeSeries, filter, false, Long.MAX_VALUE, results);
+            }
+            Collections.sort(results, descending ? Collections.reverseOrder(TIMESTAMP_COMPARATOR)
+                    : TIMESTAMP_COMPARATOR);
+        }
+        int from = (int) Math.min(results.size(), (long) filter.getPageNumber() * filter.getPageSize());
+        int to = (int) Math.min(results.size(), limit);
+        return from == 0 && to == results.size() ? results : new ArrayList<>(results.subList(from, to));
+    }
+
+    @Override
+    public Iterable<HistoricItem> aggregate(FilterCriteria filter, AggregateFunction function, long interval) {
+        if (filter.getItemName() == null || filter.getState() != null) {
+            return null;
+        }
+        final Aggregator aggregator = new Aggregator(function, interval);
+        final TimeSeries timeSeries = series.get(filter.getItemName());
+        if (timeSeries != null) {
+            timeSeries.scan(getBegin(filter), getEnd(filter), false, new PointVisitor() {
+                @Override
+                public boolean visit(long time, long value) {
+                    State state = timeSeries.toState(value);
+                    if (state != null) {
+                        aggregator.add(new MemoryHistoricItem(timeSeries.getName(), state, time));
+                    }
+                    return true;
+                }
+            });
+        }
+        return aggregator.getResults();
+    }
+
+    private void collect(final TimeSeries timeSeries, final FilterCriteria filter, boolean descending,
+            final long limit, final List<HistoricItem> results) {
+        final long initialSize = results.size();
+        timeSeries.scan(getBegin(filter), getEnd(filter), descending, new PointVisitor() {
+            @Override
+            public boolean visit(long time, long value) {
+                State state = timeSeries.toState(value);
+                if (state != null && matches(state, filter)) {
+                    results.add(new MemoryHistoricItem(timeSeries.getName(), state, time));
+                }
+                return results.size() - initialSize < limit;
+            }
+        });
+    }
+
+    private static long getBegin(FilterCriteria filter) {
+        return filter.getBeginDate() != null ? filter.getBeginDate().getTime() : Long.MIN_VALUE;
+    }
+
+    private static long getEnd(FilterCriteria filter) {
+        return filter.getEndDate() != null ? filter.getEndDate().getTime() : Long.MAX_VALUE;
+    }
+
+    private static boolean matches(State state, FilterCriteria filter) {
+        State expected = filter.getState();
+        if (expected == null) {
+            return true;
+        }
+        Operator operator = filter.getOperator();
+        if (state instanceof DecimalType && expected instanceof DecimalType) {
+            BigDecimal value = ((DecimalType) state).toBigDecimal();
+            int comparison = value.compareTo(((DecimalType) expected).toBigDecimal());
+            switch (operator) {
+                case EQ:
+                    return comparison == 0;
+                case NEQ:
+                    return comparison != 0;
+                case GT:
+                    return comparison > 0;
+                case LT:
+                    return comparison < 0;
+                case GTE:
+                    return comparison >= 0;
+                case LTE:
+                    return comparison <= 0;
+            }
+        }
+        switch (operator) {
+            case EQ:
+                return state.equals(expected);
+            case NEQ:
+                return !state.equals(expected);
+            default:
+                return false;
+        }
+    }
+
+    private static class MemoryHistoricItem implements HistoricItem {
+
+        private final String name;
+
+        private final State state;
+
+        private final long timestamp;
+
+        private MemoryHistoricItem(String name, State state, long timestamp) {
+            this.name = name;
+            this.state = state;
+            this.timestamp = timestamp;
+        }
+
+        @Override
+        public Date getTimestamp() {
+            return new Date(timestamp);
+        }
+
+        @Override
+        public State getState() {
+            return state;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String toString() {
+            return name + ": " + state + " (" + getTimestamp() + ")";
+        }
+    }
+
+}
@@ -0,0 +1,331 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.persistence.memory.internal;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.persistence.memory.internal.ChunkRing.PointVisitor;
+import org.eclipse.smarthome.core.types.State;
+import org.eclipse.smarthome.core.types.Type;
+import org.eclipse.smarthome.core.types.TypeParser;
+
+/**
+ * A {@link TimeSeries} holds the history of the states of a single item in three tiers: the raw states, the states
+ * per minute and the states per hour. Every tier is a {@link ChunkRing} of its own capacity. A minute or hour is added
+ * to its tier once a state of the next minute or hour arrives. It holds the average of the numeric states within the
+ * minute or hour or, if there are none, the last other state.
+ * <p>
+ * The value of a point is the bit pattern of a double for a state which is a plain {@link DecimalType}. All other
+ * states are kept in a dictionary and the value of a point is a NaN pattern with the index of the state. As the states
+ * of most items only have a few distinct values, the dictionary is limited in size; further states are not stored.
+ * </p>
+ * <p>
+ * A query is answered from the raw states as far as they reach back. Older points are taken from the minutes and then
+ * from the hours.
+ * </p>
+ *
+ * @author agent - Initial contribution and API
+ */
+class TimeSeries {
+
+    static final long MINUTE = 60 * 1000L;
+
+    static final long HOUR = 60 * MINUTE;
+
+    /**
+     * The maximum number of distinct non-numeric states per item.
+     */
+    static final int MAX_DICTIONARY_SIZE = 1024;
+
+    /**
+     * The maximum length of a non-numeric state which is written to a snapshot.
+     */
+    private static final int MAX_STATE_LENGTH = 8192;
+
+    private static final long STATE_TAG = 0x7ff8000000000000L;
+
+    private static final long STATE_TAG_MASK = 0xfff8000000000000L;
+
+    /**
+     * The doubles up to which all integers are exact.
+     */
+    private static final double MAX_EXACT_INTEGER = 1L << 53;
+
+    private final String name;
+
+    private final List<State> states = new ArrayList<>();
+
+    private final Map<State, Integer> stateIndices = new HashMap<>();
+
+    private final ChunkRing raw;
+
+    private final ChunkRing minutes;
+
+    private final ChunkRing hours;
+
+    private final Rollup hourRollup;
+
+    private final Rollup minuteRollup;
+
+    private long lastTime = Long.MIN_VALUE;
+
+    TimeSeries(String name, int rawSize, int minuteSize, int hourSize) {
+        this.name = name;
+        this.raw = new ChunkRing(rawSize);
+        this.minutes = new ChunkRing(minuteSize);
+        this.hours = new ChunkRing(hourSize);
+        this.hourRollup = new Rollup(HOUR, hours, null);
+        this.minuteRollup = new Rollup(MINUTE, minutes, hourRollup);
+    }
+
+    String getName() {
+        return name;
+    }
+
+    /**
+     * Changes the capacities of the tiers.
+     *
+     * @param rawSize the number of raw states to keep
+     * @param minuteSize the number of minutes to keep
+     * @param hourSize the number of hours to keep
+     */
+    synchronized void configure(int rawSize, int minuteSize, int hourSize) {
+        raw.setCapacity(rawSize);
+        minutes.setCapacity(minuteSize);
+        hours.setCapacity(hourSize);
+    }
+
+    /**
+     * Adds a state.
+     *
+     * @param state the state
+     * @param time the timestamp of the state; if it is older than the one of the previous state, the timestamp of the
+     *            previous state is used instead
+     * @return true if the state has been added, false if there is no space left in the dictionary of the states
+     */
+    synchronized boolean add(State state, long time) {
+        Long value = toValue(state);
+        if (value == null) {
+            return false;
+        }
+        time = Math.max(time, lastTime);
+        lastTime = time;
+        raw.append(time, value);
+        if (isState(value)) {
+            minuteRollup.add(time, 0, 0, value);
+        } else {
+            minuteRollup.add(time, Double.longBitsToDouble(value), 1, 0);
+        }
+        return true;
+    }
+
+    /**
+     * Visits the points within the given range, taking the oldest ones from the minutes and hours.
+     *
+     * @param begin the smallest timestamp to visit
+     * @param end the largest timestamp to visit
+     * @param descending true to visit the newest point first, false to visit the oldest point first
+     * @param visitor the visitor, which gets the values that {@link #toState(long)} turns into states
+     */
+    synchronized void scan(long begin, long end, boolean descending, PointVisitor visitor) {
+        long rawStart = raw.getFirstTime();
+        long minuteStart = Math.min(minutes.getFirstTime(), rawStart);
+        if (descending) {
+            if (raw.scan(begin, end, true, visitor)
+                    && minutes.scan(begin, Math.min(end, rawStart - 1), true, visitor)) {
+                hours.scan(begin, Math.min(end, minuteStart - 1), true, visitor);
+            }
+        } else {
+            if (hours.scan(begin, Math.min(end, minuteStart - 1), false, visitor)
+                    && minutes.scan(begin, Math.min(end, rawStart - 1), false, visitor)) {
+                raw.scan(begin, end, false, visitor);
+            }
+        }
+    }
+
+    /**
+     * Converts the value of a point back to a state.
+     *
+     * @param value the value of a point
+     * @return the state or null, if the state is not known
+     */
+    synchronized State toState(long value) {
+        if (isState(value)) {
+            int index = (int) (value & ~STATE_TAG_MASK) - 1;
+            return index < states.size() ? states.get(index) : null;
+        }
+        double number = Double.longBitsToDouble(value);
+        if (number == Math.rint(number) && Math.abs(number) < MAX_EXACT_INTEGER) {
+            return DecimalType.valueOf((long) number);
+        }
+        return new DecimalType(BigDecimal.valueOf(number));
+    }
+
+    /**
+     * Writes the name, the dictionary and the tiers of the series. The minute and hour which are not completed yet
+     * are not written.
+     *
+     * @param out the output
+     * @throws IOException if the series could not be written
+     */
+    synchronized void write(DataOutput out) throws IOException {
+        out.writeUTF(name);
+        out.writeInt(states.size());
+        for (State state : states) {
+            String value = state != null ? state.toString() : null;
+            if (value == null || value.length() > MAX_STATE_LENGTH) {
+                // the state cannot be restored, but its index has to be kept
+                out.writeUTF("");
+            } else {
+                out.writeUTF(state.getClass().getName());
+                out.writeUTF(value);
+            }
+        }
+        raw.write(out);
+        minutes.write(out);
+        hours.write(out);
+    }
+
+    /**
+     * Reads a series which has been written by {@link #write(DataOutput)}.
+     *
+     * @param in the input
+     * @param rawSize the number of raw states to keep
+     * @param minuteSize the number of minutes to keep
+     * @param hourSize the number of hours to keep
+     * @return the series
+     * @throws IOException if the series could not be read
+     */
+    static TimeSeries read(DataInput in, int rawSize, int minuteSize, int hourSize) throws IOException {
+        TimeSeries timeSeries = new TimeSeries(in.readUTF(), rawSize, minuteSize, hourSize);
+        int count = in.readInt();
+        if (count < 0 || count > MAX_DICTIONARY_SIZE) {
+            throw new IOException("Invalid number of states " + count);
+        }
+        for (int i = 0; i < count; i++) {
+            String type = in.readUTF();
+            State state = type.isEmpty() ? null : parseState(type, in.readUTF());
+            timeSeries.states.add(state);
+            if (state != null) {
+                timeSeries.stateIndices.put(state, i);
+            }
+        }
+        timeSeries.raw.read(in);
+        timeSeries.minutes.read(in);
+        timeSeries.hours.read(in);
+        timeSeries.lastTime = timeSeries.raw.getLastTime();
+        return timeSeries;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static State parseState(String type, String value) {
+        try {
+            Class<?> stateClass = Class.forName(type);
+            if (State.class.isAssignableFrom(stateClass)) {
+                Type state = TypeParser.parseType((Class<? extends Type>) stateClass, value);
+                if (state instanceof State) {
+                    return (State) state;
+                }
+            }
+        } catch (ClassNotFoundException e) {
+            // the state cannot be restored
+        }
+        return null;
+    }
+
+    private Long toValue(State state) {
+        if (state != null && state.getClass() == DecimalType.class) {
+            return Double.doubleToLongBits(((DecimalType) state).doubleValue());
+        }
+        Integer index = stateIndices.get(state);
+        if (index == null) {
+            if (states.size() >= MAX_DICTIONARY_SIZE) {
+                return null;
+            }
+            index = states.size();
+            states.add(state);
+            stateIndices.put(state, index);
+        }
+        // the index is shifted by one, as the tag alone is the pattern of Double.NaN
+        return STATE_TAG | (index + 1);
+    }
+
+    private static boolean isState(long value) {
+        return (value & STATE_TAG_MASK) == STATE_TAG && value != STATE_TAG;
+    }
+
+    /**
+     * Aggregates the points of one minute or hour for its tier.
+     */
+    private static class Rollup {
+
+        private final long interval;
+
+        private final ChunkRing tier;
+
+        private final Rollup next;
+
+        private long start = Long.MIN_VALUE;
+
+        private double sum;
+
+        private long count;
+
+        private long lastState;
+
+        private Rollup(long interval, ChunkRing tier, Rollup next) {
+            this.interval = interval;
+            this.tier = tier;
+            this.next = next;
+        }
+
+        /**
+         * @param time the timestamp
+         * @param sum the sum of the numeric values
+         * @param count the number of numeric values
+         * @param state the value of the last non-numeric state, or 0 if there is none
+         */
+        private void add(long time, double sum, long count, long state) {
+            long intervalStart = time - (time % interval + interval) % interval;
+            if (intervalStart != start) {
+                complete();
+                start = intervalStart;
+            }
+            this.sum += sum;
+            this.count += count;
+            if (state != 0) {
+                lastState = state;
+            }
+        }
+
+        private void complete() {
+            if (count > 0) {
+                tier.append(start, Double.doubleToLongBits(sum / count));
+            } else if (lastState != 0) {
+                tier.append(start, lastState);
+            } else {
+                return;
+            }
+            if (next != null) {
+                next.add(start, sum, count, lastState);
+            }
+            sum = 0;
+            count = 0;
+            lastState = 0;
+        }
+    }
+
+}
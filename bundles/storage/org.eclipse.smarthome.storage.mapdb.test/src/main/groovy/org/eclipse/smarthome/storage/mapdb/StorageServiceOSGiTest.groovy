@@ -84,6 +84,35 @@ class StorageServiceOSGiTest extends OSGiTest {
 		assertThat storage.getKeys().size(), is(0)
 	}
     
+    @Test
+    void 'assert elements are put and removed in batches'() {
+        assertThat storage.getKeys().size(), is(0)
+
+        storage.putAll(['Key1': new PersistedItem('String', ['LIGHT']),
+            'Key2': new PersistedItem('Number', ['TEMPERATURE'])])
+        storage.flush()
+        assertThat storage.getKeys().size(), is(2)
+        assertThat storage.get('Key2').itemType, is('Number')
+        assertThat storage.get('Key2'), is(not(sameInstance(storage.get('Key2'))))
+        assertThat storage.get('Key2'), is(not(sameInstance(storage.getValues().find { it.itemType == 'Number' })))
+
+        // a modified value does not change the stored one, also not the one returned by the next call
+        storage.get('Key2').groupNames.add('OUTSIDE')
+        assertThat storage.get('Key2').groupNames, is(['TEMPERATURE'])
+        storage.getValues().find { it.itemType == 'Number' }.groupNames.add('OUTSIDE')
+        assertThat storage.get('Key2').groupNames, is(['TEMPERATURE'])
+
+        // a stored value replaces the cached one
+        storage.put('Key2', new PersistedItem('Number', ['TEMPERATURE', 'OUTSIDE']))
+        assertThat storage.get('Key2').groupNames, is(['TEMPERATURE', 'OUTSIDE'])
+
+        def removed = storage.removeAll(['Key1', 'Key2', 'Key3'])
+        assertThat removed.size(), is(2)
+        assertThat removed.get('Key1').itemType, is('String')
+        assertThat storage.getKeys().size(), is(0)
+        assertThat storage.get('Key2'), is(nullValue())
+    }
+
     @Test
     void 'assert storage works without classloader'() {
         def storageWithoutClassloader = storageService.getStorage("storageWithoutClassloader")
@@ -0,0 +1,121 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.storage.mapdb;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.mapdb.DB;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link MapDbCommitter} decides when the changes to the MapDB database are committed. It is shared by all
+ * {@link MapDbStorage}s of a database, as a commit always covers the whole database.
+ * <p>
+ * With a commit interval of 0 every change is committed immediately. Otherwise the changes are committed as a group
+ * (write-behind) as soon as the number of pending changes reaches the batch size or when the commit interval has
+ * elapsed since the first pending change, whichever happens first. If a group commit fails, it is retried after the
+ * commit interval, but at least after {@link #RETRY_DELAY} milliseconds. If an immediate commit fails, the exception
+ * is passed on to the caller of the change, as it would be without the committer.
+ *
+ * @author agent - Initial contribution
+ */
+class MapDbCommitter {
+
+    /** the minimum time in milliseconds after which a failed commit is retried */
+    static final long RETRY_DELAY = 1000;
+
+    private final Logger logger = LoggerFactory.getLogger(MapDbCommitter.class);
+
+    private final DB db;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final Runnable commitTask = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    /** guarded by this, as well as all other mutable fields */
+    private int pendingChanges;
+
+    private ScheduledFuture<?> commitJob;
+
+    private int batchSize;
+
+    private long commitInterval;
+
+    MapDbCommitter(DB db, ScheduledExecutorService scheduler, int batchSize, long commitInterval) {
+        this.db = db;
+        this.scheduler = scheduler;
+        this.batchSize = batchSize;
+        this.commitInterval = commitInterval;
+    }
+
+    /**
+     * Changes the group commit settings. Pending changes are committed.
+     *
+     * @param batchSize the number of changes after which a commit is done
+     * @param commitInterval the maximum time in milliseconds a change stays uncommitted, 0 to commit immediately
+     */
+    synchronized void configure(int batchSize, long commitInterval) {
+        flush();
+        this.batchSize = batchSize;
+        this.commitInterval = commitInterval;
+    }
+
+    /**
+     * Notifies about changes that have been done to the database.
+     *
+     * @param changes the number of changes
+     */
+    synchronized void changed(int changes) {
+        if (changes <= 0 || db.isClosed()) {
+            return;
+        }
+        pendingChanges += changes;
+        if (commitInterval <= 0 || pendingChanges >= batchSize) {
+            flush();
+        } else if (commitJob == null) {
+            commitJob = scheduler.schedule(commitTask, commitInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Commits all pending changes.
+     *
+     * @throws RuntimeException if the changes are committed immediately and the commit fails
+     */
+    synchronized void flush() {
+        if (commitJob != null) {
+            commitJob.cancel(false);
+            commitJob = null;
+        }
+        if (pendingChanges == 0 || db.isClosed()) {
+            return;
+        }
+        try {
+            db.commit();
+            logger.trace("Committed {} changes to MapDB.", pendingChanges);
+            pendingChanges = 0;
+        } catch (RuntimeException e) {
+            if (commitInterval <= 0) {
+                // the pending changes are committed with the next change
+                throw e;
+            }
+            logger.error("Committing {} changes to MapDB failed, retrying later: {}", new Object[] {
+                    pendingChanges, e.getMessage(), e });
+            commitJob = scheduler.schedule(commitTask, Math.max(commitInterval, RETRY_DELAY), TimeUnit.MILLISECONDS);
+        }
+    }
+
+}
@@ -9,8 +9,13 @@ package org.eclipse.smarthome.storage.mapdb;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+import org.eclipse.smarthome.core.storage.BatchStorage;
 import org.eclipse.smarthome.core.storage.Storage;
 import org.mapdb.DB;
 import org.slf4j.Logger;
@@ -25,24 +30,31 @@ import com.google.gson.GsonBuilder;
  * the given values using their JSON representation (generated by {@code Gson}.
  * This transformation should help maintaining version compatibility of the stored
  * data.
+ * <p>
+ * The changes are committed by the {@link MapDbCommitter}, which may group several changes into one commit.
+ * The loaded type of each value is cached as long as the stored JSON representation does not change. Each call still
+ * deserializes a new instance, so callers may modify the returned values.
  *
  * @author Thomas.Eichstaedt-Engelen - Initial Contribution and API
  * @author Alex Tugarev - Loading with Class.forName() if classLoader is null
  */
-public class MapDbStorage<T> implements Storage<T> {
+public class MapDbStorage<T> implements BatchStorage<T> {
 
     private static final String TYPE_SEPARATOR = "@@@";
 
     private final Logger logger = LoggerFactory.getLogger(MapDbStorage.class);
 
-    private DB db;
+    private MapDbCommitter committer;
     private ClassLoader classLoader;
     private Map<String, String> map;
 
+    /** the loaded value types by key, together with the JSON they have been loaded for */
+    private final ConcurrentMap<String, CachedValue<T>> cache = new ConcurrentHashMap<String, CachedValue<T>>();
+
     private transient Gson mapper;
 
-    public MapDbStorage(DB db, String name, ClassLoader classLoader) {
-        this.db = db;
+    public MapDbStorage(DB db, MapDbCommitter committer, String name, ClassLoader classLoader) {
+        this.committer = committer;
         this.classLoader = classLoader;
         this.map = db.createTreeMap(name).makeOrGet();
         this.mapper = new GsonBuilder().registerTypeAdapterFactory(new PropertiesTypeAdapterFactory()).create();
@@ -54,8 +66,21 @@ public class MapDbStorage<T> implements Storage<T> {
     @Override
     public T put(String key, T value) {
         String previousValue = map.put(key, serialize(value));
-        db.commit();
-        return deserialize(previousValue);
+        committer.changed(1);
+        return deserialize(key, previousValue);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void putAll(Map<String, T> entries) {
+        Map<String, String> serializedEntries = new HashMap<String, String>(entries.size() * 4 / 3 + 1);
+        for (Entry<String, T> entry : entries.entrySet()) {
+            serializedEntries.put(entry.getKey(), serialize(entry.getValue()));
+        }
+        map.putAll(serializedEntries);
+        committer.changed(serializedEntries.size());
     }
 
     /**
@@ -64,8 +89,40 @@ public class MapDbStorage<T> implements Storage<T> {
     @Override
     public T remove(String key) {
         String removedElement = map.remove(key);
-        db.commit();
-        return deserialize(removedElement);
+        if (removedElement == null) {
+            return null;
+        }
+        committer.changed(1);
+        return deserialize(key, removedElement);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, T> removeAll(Collection<String> keys) {
+        Map<String, T> removedElements = new HashMap<String, T>();
+        int changes = 0;
+        for (String key : keys) {
+            String removedElement = map.remove(key);
+            if (removedElement != null) {
+                changes++;
+                T value = deserialize(key, removedElement);
+                if (value != null) {
+                    removedElements.put(key, value);
+                }
+            }
+        }
+        committer.changed(changes);
+        return removedElements;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void flush() {
+        committer.flush();
     }
 
     /**
@@ -73,7 +130,7 @@ public class MapDbStorage<T> implements Storage<T> {
      */
     @Override
     public T get(String key) {
-        return deserialize(map.get(key));
+        return getCached(key, map.get(key));
     }
 
     /**
@@ -89,13 +146,51 @@ public class MapDbStorage<T> implements Storage<T> {
      */
     @Override
     public Collection<T> getValues() {
-        Collection<T> values = new ArrayList<T>();
-        for (String key : getKeys()) {
-            values.add(get(key));
+        Collection<T> values = new ArrayList<T>(map.size());
+        for (Entry<String, String> entry : map.entrySet()) {
+            values.add(getCached(entry.getKey(), entry.getValue()));
         }
         return values;
     }
 
+    /**
+     * Returns a new instance of the value of the given JSON, reusing the cached type of the key if it has been loaded
+     * for the same JSON.
+     *
+     * @param key the key of the value
+     * @param json the stored JSON representation of the value, may be null
+     * @return the deserialized value or null, if there is none
+     */
+    private T getCached(String key, String json) {
+        if (json == null) {
+            cache.remove(key);
+            return null;
+        }
+        CachedValue<T> cached = cache.get(key);
+        if (cached == null || !cached.json.equals(json)) {
+            cached = parse(json);
+            if (cached == null) {
+                return null;
+            }
+            cache.put(key, cached);
+        }
+        return toValue(cached);
+    }
+
+    /**
+     * Deserializes a value which has been replaced or removed and drops it from the cache.
+     */
+    private T deserialize(String key, String json) {
+        CachedValue<T> cached = cache.remove(key);
+        if (json == null) {
+            return null;
+        }
+        if (cached != null && cached.json.equals(json)) {
+            return toValue(cached);
+        }
+        return deserialize(json);
+    }
+
     /**
      * Transforms the given {@code value} into its JSON representation using {@code Gson}. Since we do not know the type
      * of {@code value} while
@@ -128,7 +223,6 @@ public class MapDbStorage<T> implements Storage<T> {
      * @param json
      * @return
      */
-    @SuppressWarnings("unchecked")
     public T deserialize(String json) {
 
         if (json == null) {
@@ -136,11 +230,25 @@ public class MapDbStorage<T> implements Storage<T> {
             return null;
         }
 
-        String[] concatValue = json.split(TYPE_SEPARATOR);
-        String valueTypeName = concatValue[0];
-        String valueAsString = concatValue[1];
+        CachedValue<T> cached = parse(json);
+        return cached != null ? toValue(cached) : null;
+    }
+
+    /**
+     * Loads the type of the value, with which new instances of the value are created by {@link #toValue(CachedValue)}.
+     *
+     * @param json the JSON String prepended with the qualified type name of the value
+     * @return the loaded type or null, if the value cannot be deserialized
+     */
+    @SuppressWarnings("unchecked")
+    private CachedValue<T> parse(String json) {
+        int separatorIndex = json.indexOf(TYPE_SEPARATOR);
+        if (separatorIndex == -1) {
+            logger.warn("Couldn't deserialize value '{}'. Root cause is: missing type information", json);
+            return null;
+        }
+        String valueTypeName = json.substring(0, separatorIndex);
 
-        T value = null;
         try {
             // load required class within the given bundle context
             Class<T> loadedValueType = null;
@@ -150,13 +258,34 @@ public class MapDbStorage<T> implements Storage<T> {
                 loadedValueType = (Class<T>) classLoader.loadClass(valueTypeName);
             }
 
-            value = mapper.fromJson(valueAsString, loadedValueType);
-            logger.trace("deserialized value '{}' from MapDB", value);
+            return new CachedValue<T>(json, separatorIndex + TYPE_SEPARATOR.length(), loadedValueType);
         } catch (Exception e) {
             logger.warn("Couldn't deserialize value '{}'. Root cause is: {}", json, e.getMessage());
+            return null;
         }
+    }
 
-        return value;
+    private T toValue(CachedValue<T> cached) {
+        try {
+            T value = mapper.fromJson(cached.json.substring(cached.valueIndex), cached.type);
+            logger.trace("deserialized value '{}' from MapDB", value);
+            return value;
+        } catch (Exception e) {
+            logger.warn("Couldn't deserialize value '{}'. Root cause is: {}", cached.json, e.getMessage());
+            return null;
+        }
+    }
+
+    private static class CachedValue<T> {
+        private final String json;
+        private final int valueIndex;
+        private final Class<T> type;
+
+        private CachedValue(String json, int valueIndex, Class<T> type) {
+            this.json = json;
+            this.valueIndex = valueIndex;
+            this.type = type;
+        }
     }
 
 }
@@ -8,8 +8,10 @@
 package org.eclipse.smarthome.storage.mapdb;
 
 import java.io.File;
+import java.util.Map;
 
 import org.eclipse.smarthome.config.core.ConfigConstants;
+import org.eclipse.smarthome.core.common.ThreadPoolManager;
 import org.eclipse.smarthome.core.storage.Storage;
 import org.eclipse.smarthome.core.storage.StorageService;
 import org.mapdb.DB;
@@ -34,10 +36,24 @@ public class MapDbStorageService implements StorageService {
     /** holds the local instance of the MapDB database */
     private DB db;
 
+    /** the name of the thread pool which runs the delayed commits */
+    private static final String THREAD_POOL_NAME = "storage";
+
+    private static final String CONFIG_COMMIT_BATCH_SIZE = "commitBatchSize";
+    private static final String CONFIG_COMMIT_INTERVAL = "commitInterval";
+
+    private static final int DEFAULT_COMMIT_BATCH_SIZE = 100;
+
+    /** by default every change is committed immediately */
+    private static final long DEFAULT_COMMIT_INTERVAL = 0;
+
+    /** holds the committer shared by all storages of the database */
+    private MapDbCommitter committer;
+
     /** the folder name to store mapdb databases ({@code mapdb} by default) */
     private String dbFolderName = "mapdb";
 
-    public void activate() {
+    public void activate(Map<String, Object> config) {
         dbFolderName = ConfigConstants.getUserDataFolder() + File.separator + dbFolderName;
         File folder = new File(dbFolderName);
         if (!folder.exists()) {
@@ -46,18 +62,51 @@ public class MapDbStorageService implements StorageService {
 
         File dbFile = new File(dbFolderName, DB_FILE_NAME);
         db = DBMaker.newFileDB(dbFile).closeOnJvmShutdown().make();
+        committer = new MapDbCommitter(db, ThreadPoolManager.getScheduledPool(THREAD_POOL_NAME),
+                DEFAULT_COMMIT_BATCH_SIZE, DEFAULT_COMMIT_INTERVAL);
+        modified(config);
 
         logger.debug("Opened MapDB file at '{}'.", dbFile.getAbsolutePath());
     }
 
+    public void modified(Map<String, Object> config) {
+        if (config == null) {
+            return;
+        }
+        int batchSize = (int) getLongConfig(config, CONFIG_COMMIT_BATCH_SIZE, DEFAULT_COMMIT_BATCH_SIZE);
+        long commitInterval = getLongConfig(config, CONFIG_COMMIT_INTERVAL, DEFAULT_COMMIT_INTERVAL);
+        committer.configure(batchSize, commitInterval);
+        if (commitInterval > 0) {
+            logger.debug("Committing MapDB changes after {} changes or {}ms.", batchSize, commitInterval);
+        }
+    }
+
+    private long getLongConfig(Map<String, Object> config, String key, long defaultValue) {
+        Object value = config.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.toString().trim());
+        } catch (NumberFormatException e) {
+            logger.warn("Ignoring invalid configuration '{}' for '{}' - value must be an integer.", value, key);
+            return defaultValue;
+        }
+    }
+
     public void deactivate() {
-        db.close();
+        try {
+            // in immediate mode a failed commit is thrown, the database is closed nevertheless
+            committer.flush();
+        } finally {
+            db.close();
+        }
         logger.debug("Deactivated MapDB Storage Service.");
     }
 
     @Override
     public <T> Storage<T> getStorage(String name, ClassLoader classLoader) {
-        return new MapDbStorage<T>(db, name, classLoader);
+        return new MapDbStorage<T>(db, committer, name, classLoader);
     }
 
     @Override
@@ -8,9 +8,11 @@
 package org.eclipse.smarthome.test.storage;
 
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
+import org.eclipse.smarthome.core.storage.BatchStorage;
 import org.eclipse.smarthome.core.storage.Storage;
 
 /**
@@ -19,7 +21,7 @@ import org.eclipse.smarthome.core.storage.Storage;
  * @author Thomas.Eichstaedt-Engelen - Initial Contribution and API
  * @author Kai Kreuzer - improved return values
  */
-public class VolatileStorage<T> implements Storage<T> {
+public class VolatileStorage<T> implements BatchStorage<T> {
 
     Map<String, T> storage = new ConcurrentHashMap<String, T>();
 
@@ -39,6 +41,37 @@ public class VolatileStorage<T> implements Storage<T> {
         return storage.remove(key);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void putAll(Map<String, T> entries) {
+        storage.putAll(entries);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, T> removeAll(Collection<String> keys) {
+        Map<String, T> removed = new HashMap<String, T>();
+        for (String key : keys) {
+            T value = storage.remove(key);
+            if (value != null) {
+                removed.put(key, value);
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void flush() {
+        // nothing to do, all data is kept in memory
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -0,0 +1,126 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.ui.internal.chart;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * @author agent - Initial contribution and API
+ */
+public class ChartCacheTest {
+
+    private final AtomicInteger renderings = new AtomicInteger();
+
+    private Callable<byte[]> renderer(final byte value) {
+        return new Callable<byte[]>() {
+            @Override
+            public byte[] call() {
+                renderings.incrementAndGet();
+                return new byte[] { value };
+            }
+        };
+    }
+
+    @Test
+    public void testReusesChartOfSameVersion() throws Exception {
+        ChartCache cache = new ChartCache(10);
+        byte[] chart = cache.get("chart", "1", renderer((byte) 1));
+        assertSame(chart, cache.get("chart", "1", renderer((byte) 2)));
+        assertEquals(1, renderings.get());
+
+        assertArrayEquals(new byte[] { 2 }, cache.get("chart", "2", renderer((byte) 2)));
+        assertEquals(2, renderings.get());
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsedChart() throws Exception {
+        ChartCache cache = new ChartCache(2);
+        cache.get("a", "1", renderer((byte) 1));
+        cache.get("b", "1", renderer((byte) 1));
+        cache.get("a", "1", renderer((byte) 1));
+        cache.get("c", "1", renderer((byte) 1));
+        assertEquals(3, renderings.get());
+
+        cache.get("a", "1", renderer((byte) 1));
+        assertEquals(3, renderings.get());
+        cache.get("b", "1", renderer((byte) 1));
+        assertEquals(4, renderings.get());
+    }
+
+    @Test
+    public void testDoesNotCacheFailures() throws Exception {
+        ChartCache cache = new ChartCache(10);
+        try {
+            cache.get("chart", "1", new Callable<byte[]>() {
+                @Override
+                public byte[] call() {
+                    throw new IllegalArgumentException("test");
+                }
+            });
+            fail();
+        } catch (ExecutionException e) {
+            assertEquals(IllegalArgumentException.class, e.getCause().getClass());
+        }
+        cache.get("chart", "1", renderer((byte) 1));
+        assertEquals(1, renderings.get());
+    }
+
+    @Test
+    public void testConcurrentRequestsShareRendering() throws Exception {
+        final ChartCache cache = new ChartCache(10);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        Thread first = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    cache.get("chart", "1", new Callable<byte[]>() {
+                        @Override
+                        public byte[] call() throws Exception {
+                            renderings.incrementAndGet();
+                            started.countDown();
+                            release.await();
+                            return new byte[] { 1 };
+                        }
+                    });
+                } catch (Exception e) {
+                    // the result is checked by the second request
+                }
+            }
+        };
+        first.start();
+        started.await(5, TimeUnit.SECONDS);
+        Thread releaser = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                }
+                release.countDown();
+            }
+        };
+        releaser.start();
+
+        assertArrayEquals(new byte[] { 1 }, cache.get("chart", "1", renderer((byte) 2)));
+        assertEquals(1, renderings.get());
+        first.join(5000);
+    }
+
+}
@@ -0,0 +1,60 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.ui.internal.chart;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import org.junit.Test;
+
+/**
+ * @author agent - Initial contribution and API
+ */
+public class SeriesDownsamplerTest {
+
+    @Test
+    public void testKeepsFirstMinMaxAndLastPerColumn() {
+        SeriesDownsampler downsampler = new SeriesDownsampler(new Date(0), new Date(1000), 10);
+        // column 0
+        downsampler.add(new Date(0), 5);
+        downsampler.add(new Date(10), 9);
+        downsampler.add(new Date(20), 7);
+        downsampler.add(new Date(30), 1);
+        downsampler.add(new Date(40), 4);
+        downsampler.add(new Date(50), 6);
+        // column 5
+        downsampler.add(new Date(550), 3);
+
+        assertEquals(Arrays.<Number> asList(5, 9, 1, 6, 3), downsampler.getYData());
+        assertEquals(Arrays.asList(new Date(0), new Date(10), new Date(30), new Date(50), new Date(550)),
+                downsampler.getXData());
+    }
+
+    @Test
+    public void testMinimumBeforeMaximum() {
+        SeriesDownsampler downsampler = new SeriesDownsampler(new Date(0), new Date(1000), 1);
+        downsampler.add(new Date(100), 5);
+        downsampler.add(new Date(200), 1);
+        downsampler.add(new Date(300), 9);
+
+        assertEquals(Arrays.<Number> asList(5, 1, 9), downsampler.getYData());
+    }
+
+    @Test
+    public void testLimitsPointsToWidth() {
+        SeriesDownsampler downsampler = new SeriesDownsampler(new Date(0), new Date(100000), 100);
+        for (int i = 0; i < 100000; i++) {
+            downsampler.add(new Date(i), Math.sin(i / 100.0));
+        }
+
+        assertEquals(400, downsampler.getXData().size());
+    }
+
+}
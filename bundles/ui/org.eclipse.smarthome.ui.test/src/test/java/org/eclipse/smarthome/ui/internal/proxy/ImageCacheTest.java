@@ -0,0 +1,165 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.ui.internal.proxy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.concurrent.TimeoutException;
+
+import org.eclipse.smarthome.ui.internal.proxy.ImageCache.CachedImage;
+import org.eclipse.smarthome.ui.internal.proxy.ImageCache.ImageCallback;
+import org.junit.Test;
+
+/**
+ * @author agent - Initial contribution and API
+ */
+public class ImageCacheTest {
+
+    private static class Receiver implements ImageCallback {
+
+        private CachedImage image;
+
+        private Exception error;
+
+        @Override
+        public void imageReceived(CachedImage image) {
+            this.image = image;
+        }
+
+        @Override
+        public void imageFailed(Exception error) {
+            this.error = error;
+        }
+    }
+
+    private static CachedImage image(int statusCode, int size) {
+        return new CachedImage(statusCode, null, new byte[size]);
+    }
+
+    @Test
+    public void testWaitingRequestsShareOneFetch() {
+        ImageCache cache = new ImageCache(10, 60000, 60000);
+        Receiver first = new Receiver();
+        Receiver second = new Receiver();
+
+        assertTrue(cache.get("url", first));
+        assertFalse(cache.get("url", second));
+        assertNull(first.image);
+
+        CachedImage image = image(200, 10);
+        cache.put("url", image);
+        assertSame(image, first.image);
+        assertSame(image, second.image);
+
+        Receiver third = new Receiver();
+        assertFalse(cache.get("url", third));
+        assertSame(image, third.image);
+    }
+
+    @Test
+    public void testImageExpires() throws InterruptedException {
+        ImageCache cache = new ImageCache(10, 20, 60000);
+        cache.get("url", new Receiver());
+        cache.put("url", image(200, 10));
+
+        Thread.sleep(40);
+        assertTrue(cache.get("url", new Receiver()));
+    }
+
+    @Test
+    public void testFailureIsPassedToAllWaitingRequests() {
+        ImageCache cache = new ImageCache(10, 60000, 60000);
+        Receiver first = new Receiver();
+        Receiver second = new Receiver();
+        cache.get("url", first);
+        cache.get("url", second);
+
+        IOException error = new IOException("unreachable");
+        cache.fail("url", error);
+        assertSame(error, first.error);
+        assertSame(error, second.error);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testOnlySmallSuccessfulImagesAreCached() {
+        ImageCache cache = new ImageCache(10, 60000, 60000);
+        cache.get("error", new Receiver());
+        cache.put("error", image(404, 10));
+        assertTrue(cache.get("error", new Receiver()));
+
+        cache.get("large", new Receiver());
+        cache.put("large", image(200, ImageCache.MAX_IMAGE_SIZE + 1));
+        assertTrue(cache.get("large", new Receiver()));
+    }
+
+    @Test
+    public void testNothingIsCachedWithoutTimeToLive() {
+        ImageCache cache = new ImageCache(10, 0, 60000);
+        Receiver first = new Receiver();
+        Receiver second = new Receiver();
+        cache.get("url", first);
+        cache.get("url", second);
+
+        cache.put("url", image(200, 10));
+        assertSame(first.image, second.image);
+        assertTrue(cache.get("url", new Receiver()));
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsedImage() {
+        ImageCache cache = new ImageCache(2, 60000, 60000);
+        for (String url : new String[] { "a", "b" }) {
+            cache.get(url, new Receiver());
+            cache.put(url, image(200, 10));
+        }
+        cache.get("a", new Receiver());
+        cache.get("c", new Receiver());
+        cache.put("c", image(200, 10));
+
+        assertFalse(cache.get("a", new Receiver()));
+        assertTrue(cache.get("b", new Receiver()));
+    }
+
+    @Test
+    public void testTimedOutFetchIsStartedAgain() throws InterruptedException {
+        ImageCache cache = new ImageCache(10, 60000, 20);
+        Receiver first = new Receiver();
+        Receiver second = new Receiver();
+        assertTrue(cache.get("url", first));
+        assertFalse(cache.get("url", new Receiver()));
+
+        Thread.sleep(40);
+        assertTrue(cache.get("url", second));
+        assertTrue(first.error instanceof TimeoutException);
+
+        CachedImage image = image(200, 10);
+        cache.put("url", image);
+        assertSame(image, second.image);
+        assertNull(first.image);
+    }
+
+    @Test
+    public void testTimedOutFetchIsEvicted() throws InterruptedException {
+        ImageCache cache = new ImageCache(1, 60000, 20);
+        cache.get("a", new Receiver());
+        cache.get("b", new Receiver());
+        assertEquals(2, cache.size());
+
+        Thread.sleep(40);
+        cache.get("c", new Receiver());
+        assertEquals(2, cache.size());
+        assertTrue(cache.get("a", new Receiver()));
+    }
+
+}
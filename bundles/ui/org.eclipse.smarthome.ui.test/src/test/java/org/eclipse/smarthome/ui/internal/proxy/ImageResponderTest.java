@@ -0,0 +1,89 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.ui.internal.proxy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.smarthome.ui.internal.proxy.ImageCache.CachedImage;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author agent - Initial contribution
+ */
+public class ImageResponderTest {
+
+    /** the calls of the response, e.g. "sendError [504, ...]" */
+    private List<String> calls;
+
+    private ImageResponder responder;
+
+    @Before
+    public void setUp() {
+        calls = Collections.synchronizedList(new ArrayList<String>());
+        HttpServletResponse response = (HttpServletResponse) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { HttpServletResponse.class }, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        calls.add(method.getName() + (args != null ? " " + Arrays.asList(args) : ""));
+                        if (method.getName().equals("getOutputStream")) {
+                            throw new IOException("The client has gone.");
+                        }
+                        return null;
+                    }
+                });
+        responder = new ImageResponder(response);
+    }
+
+    @Test
+    public void testRequestIsAnsweredWithGatewayTimeoutIfTheImageDoesNotArrive() throws InterruptedException {
+        long start = System.currentTimeMillis();
+        responder.awaitCompletion(50);
+        assertTrue(System.currentTimeMillis() - start >= 50);
+        assertEquals(1, calls.size());
+        assertTrue(calls.get(0).startsWith("sendError [" + HttpServletResponse.SC_GATEWAY_TIMEOUT));
+
+        // an image arriving later is not written to the answered response
+        responder.imageReceived(new CachedImage(200, null, new byte[10]));
+        responder.imageFailed(new IOException("unreachable"));
+        assertEquals(1, calls.size());
+    }
+
+    @Test
+    public void testRequestIsAnsweredOnceWhenTheFetchCompletes() throws InterruptedException {
+        responder.imageFailed(new IOException("unreachable"));
+        responder.imageReceived(new CachedImage(200, null, new byte[10]));
+
+        long start = System.currentTimeMillis();
+        responder.awaitCompletion(60000);
+        assertTrue(System.currentTimeMillis() - start < 1000);
+        assertEquals(1, calls.size());
+        assertTrue(calls.get(0).startsWith("sendError [" + HttpServletResponse.SC_BAD_GATEWAY));
+    }
+
+    @Test
+    public void testImageIsWritten() throws InterruptedException {
+        responder.imageReceived(new CachedImage(200, null, new byte[10]));
+        responder.awaitCompletion(60000);
+
+        assertEquals(Arrays.asList("setStatus [200]", "setContentLength [10]", "getOutputStream"), calls);
+    }
+
+}
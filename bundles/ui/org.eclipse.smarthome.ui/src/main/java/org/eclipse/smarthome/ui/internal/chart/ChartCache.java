@@ -0,0 +1,111 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.ui.internal.chart;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * The {@link ChartCache} keeps the most recently rendered charts. A chart is identified by a key, which describes
+ * what is shown, and a version, which changes whenever the chart would look different, e.g. because there is new
+ * data. If several requests ask for a chart which is not rendered yet, it is rendered by the first one and the others
+ * wait for its result.
+ *
+ * @author agent - Initial contribution and API
+ */
+class ChartCache {
+
+    private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > maxSize;
+        }
+    };
+
+    /** guarded by entries */
+    private int maxSize;
+
+    /**
+     * @param maxSize the maximum number of cached charts, 0 to not cache any chart
+     */
+    ChartCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Changes the maximum number of cached charts and discards all cached charts.
+     *
+     * @param maxSize the maximum number of cached charts, 0 to not cache any chart
+     */
+    void setMaxSize(int maxSize) {
+        synchronized (entries) {
+            this.maxSize = maxSize;
+            entries.clear();
+        }
+    }
+
+    /**
+     * Returns the chart for the given key and version, rendering it if it is not cached.
+     *
+     * @param key the key of the chart
+     * @param version the version of the chart
+     * @param renderer renders the chart
+     * @return the rendered chart
+     * @throws ExecutionException if the chart could not be rendered; the cause is the exception of the renderer
+     * @throws InterruptedException if the thread has been interrupted while waiting for another rendering
+     */
+    byte[] get(String key, String version, Callable<byte[]> renderer) throws ExecutionException, InterruptedException {
+        FutureTask<byte[]> task;
+        boolean render = false;
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null || !entry.version.equals(version)) {
+                entry = new Entry(version, new FutureTask<byte[]>(renderer));
+                if (maxSize > 0) {
+                    entries.put(key, entry);
+                }
+                render = true;
+            }
+            task = entry.task;
+        }
+        if (render) {
+            task.run();
+        }
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            synchronized (entries) {
+                Entry entry = entries.get(key);
+                if (entry != null && entry.task == task) {
+                    // a failed rendering is not cached
+                    entries.remove(key);
+                }
+            }
+            throw e;
+        }
+    }
+
+    private static class Entry {
+
+        private final String version;
+
+        private final FutureTask<byte[]> task;
+
+        private Entry(String version, FutureTask<byte[]> task) {
+            this.version = version;
+            this.task = task;
+        }
+    }
+
+}
@@ -9,11 +9,14 @@ package org.eclipse.smarthome.ui.internal.chart;
 
 import java.awt.Color;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 
 import javax.imageio.ImageIO;
 import javax.servlet.ServletConfig;
@@ -22,7 +25,10 @@ import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.eclipse.smarthome.core.items.GroupItem;
+import org.eclipse.smarthome.core.items.Item;
 import org.eclipse.smarthome.core.items.ItemNotFoundException;
+import org.eclipse.smarthome.core.types.State;
 import org.eclipse.smarthome.ui.chart.ChartProvider;
 import org.eclipse.smarthome.ui.items.ItemUIRegistry;
 import org.osgi.service.http.HttpContext;
@@ -42,6 +48,8 @@ import org.slf4j.LoggerFactory;
  * <li>groups: A comma separated list of group names, whose members should be displayed</li>
  * <li>service: The persistence service name. If not supplied the first service found will be used.</li>
  * </ul>
+ * The rendered charts are cached until the time axis has moved by a pixel or the state of an item has changed, so
+ * that concurrent viewers of the same chart share a single rendering.
  *
  * @author Chris Jackson
  *
@@ -65,6 +73,14 @@ public class ChartServlet extends HttpServlet {
             new Color(0, 255, 255, 30), new Color(255, 0, 128, 30), new Color(255, 128, 128, 30),
             new Color(255, 255, 0, 30) };
 
+    private static final String CONFIG_CACHE_SIZE = "cacheSize";
+
+    /** the number of rendered charts which are kept by default */
+    private static final int DEFAULT_CACHE_SIZE = 50;
+
+    /** the minimum time in milliseconds until a rendered chart is outdated even if its time axis has not moved */
+    private static final long MIN_RESOLUTION = 1000;
+
     protected static final Map<String, Long> PERIODS = new HashMap<String, Long>();
 
     static {
@@ -86,6 +102,8 @@ public class ChartServlet extends HttpServlet {
     protected ItemUIRegistry itemUIRegistry;
     static protected Map<String, ChartProvider> chartProviders = new HashMap<String, ChartProvider>();
 
+    private final ChartCache cache = new ChartCache(DEFAULT_CACHE_SIZE);
+
     public void setHttpService(HttpService httpService) {
         this.httpService = httpService;
     }
@@ -152,6 +170,18 @@ public class ChartServlet extends HttpServlet {
         if (value instanceof String) {
             providerName = (String) value;
         }
+
+        int cacheSize = DEFAULT_CACHE_SIZE;
+        final Object size = config.get(CONFIG_CACHE_SIZE);
+        if (size != null) {
+            try {
+                cacheSize = Integer.parseInt(size.toString().trim());
+            } catch (NumberFormatException e) {
+                logger.warn("Ignoring invalid configuration '{}' for '{}' - value must be an integer.", size,
+                        CONFIG_CACHE_SIZE);
+            }
+        }
+        cache.setMaxSize(cacheSize);
     }
 
     @Override
@@ -184,16 +214,117 @@ public class ChartServlet extends HttpServlet {
         if (provider == null)
             throw new ServletException("Could not get chart provider.");
 
+        String items = req.getParameter("items");
+        String groups = req.getParameter("groups");
+        Callable<byte[]> renderer = new ChartRenderer(provider, serviceName, timeBegin, timeEnd, height, width, items,
+                groups);
+
         // Set the content type to that provided by the chart provider
         res.setContentType("image/" + provider.getChartType());
         try {
-            BufferedImage chart = provider.createChart(serviceName, null, timeBegin, timeEnd, height, width,
-                    req.getParameter("items"), req.getParameter("groups"));
-            ImageIO.write(chart, provider.getChartType().toString(), res.getOutputStream());
-        } catch (ItemNotFoundException e) {
+            byte[] chart;
+            String version = getVersion(items, groups, period, width, timeEnd.getTime());
+            if (version != null) {
+                String key = providerName + "|" + serviceName + "|" + period + "|" + width + "x" + height + "|"
+                        + items + "|" + groups;
+                chart = cache.get(key, version, renderer);
+            } else {
+                chart = renderer.call();
+            }
+            res.setContentLength(chart.length);
+            res.getOutputStream().write(chart);
+        } catch (ExecutionException e) {
+            handleRenderingException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            handleRenderingException(e);
+        }
+    }
+
+    private void handleRenderingException(Throwable e) throws IOException {
+        if (e instanceof ItemNotFoundException) {
             logger.debug("Item not found error while generating chart.");
-        } catch (IllegalArgumentException e) {
+        } else if (e instanceof IllegalArgumentException) {
             logger.warn("Illegal argument in chart: {}", e.getMessage());
+        } else if (e instanceof IOException) {
+            throw (IOException) e;
+        } else if (e instanceof RuntimeException) {
+            throw (RuntimeException) e;
+        } else {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Determines the version of a chart, which changes whenever the chart would look different: if the time axis
+     * has moved by a pixel or if the state of an item has changed, which usually means that there is new data.
+     *
+     * @return the version or null, if an item could not be found
+     */
+    private String getVersion(String items, String groups, long period, int width, long now) {
+        long resolution = Math.max(MIN_RESOLUTION, period / Math.max(1, width));
+        int hash = 1;
+        try {
+            if (items != null) {
+                for (String itemName : items.split(",")) {
+                    hash = 31 * hash + getStateHash(itemUIRegistry.getItem(itemName));
+                }
+            }
+            if (groups != null) {
+                for (String groupName : groups.split(",")) {
+                    Item item = itemUIRegistry.getItem(groupName);
+                    if (item instanceof GroupItem) {
+                        for (Item member : ((GroupItem) item).getMembers()) {
+                            hash = 31 * hash + getStateHash(member);
+                        }
+                    }
+                }
+            }
+        } catch (ItemNotFoundException e) {
+            return null;
+        }
+        return (now / resolution) + "-" + Integer.toHexString(hash);
+    }
+
+    private int getStateHash(Item item) {
+        State state = item.getState();
+        return 31 * item.getName().hashCode() + (state != null ? state.hashCode() : 0);
+    }
+
+    /**
+     * Renders a chart and encodes it as an image.
+     */
+    private static class ChartRenderer implements Callable<byte[]> {
+
+        private final ChartProvider provider;
+        private final String serviceName;
+        private final Date timeBegin;
+        private final Date timeEnd;
+        private final int height;
+        private final int width;
+        private final String items;
+        private final String groups;
+
+        private ChartRenderer(ChartProvider provider, String serviceName, Date timeBegin, Date timeEnd, int height,
+                int width, String items, String groups) {
+            this.provider = provider;
+            this.serviceName = serviceName;
+            this.timeBegin = timeBegin;
+            this.timeEnd = timeEnd;
+            this.height = height;
+            this.width = width;
+            this.items = items;
+            this.groups = groups;
+        }
+
+        @Override
+        public byte[] call() throws Exception {
+            BufferedImage chart = provider.createChart(serviceName, null, timeBegin, timeEnd, height, width, items,
+                    groups);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ImageIO.write(chart, provider.getChartType().toString(), out);
+            return out.toByteArray();
         }
     }
 
@@ -251,19 +251,17 @@ public class DefaultChartProvider implements ChartProvider {
         Iterable<HistoricItem> result = service.query(filter);
         Iterator<HistoricItem> it = result.iterator();
 
-        // Generate data collections
-        Collection<Date> xData = new ArrayList<Date>();
-        Collection<Number> yData = new ArrayList<Number>();
-
-        // Iterate through the data
+        // Iterate through the data, keeping only the points which are visible at the width of the chart
+        SeriesDownsampler downsampler = new SeriesDownsampler(timeBegin, timeEnd, chart.getWidth());
         while (it.hasNext()) {
             HistoricItem historicItem = it.next();
             org.eclipse.smarthome.core.types.State state = historicItem.getState();
             if (state instanceof DecimalType) {
-                xData.add(historicItem.getTimestamp());
-                yData.add((DecimalType) state);
+                downsampler.add(historicItem.getTimestamp(), (DecimalType) state);
             }
         }
+        Collection<Date> xData = downsampler.getXData();
+        Collection<Number> yData = downsampler.getYData();
 
         // Add the new series to the chart - only if there's data elements to display
         if (xData.size() == 0) {
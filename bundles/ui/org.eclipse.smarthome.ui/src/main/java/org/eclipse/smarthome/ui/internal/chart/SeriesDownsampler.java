@@ -0,0 +1,138 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.ui.internal.chart;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * The {@link SeriesDownsampler} reduces the points of a series to the resolution of the chart. The time axis is split
+ * into one column per pixel, and of the points within a column only the first, the smallest, the largest and the last
+ * one are kept. A line through these points covers the same pixels as a line through all points, so the chart looks
+ * the same, but the number of points is limited by the width instead of the number of stored states.
+ * <p>
+ * The points have to be added in ascending order of time.
+ * </p>
+ *
+ * @author agent - Initial contribution and API
+ */
+class SeriesDownsampler {
+
+    private static final int FIRST = 0;
+    private static final int MIN = 1;
+    private static final int MAX = 2;
+    private static final int LAST = 3;
+
+    private final long begin;
+
+    private final long duration;
+
+    private final int columns;
+
+    private final List<Date> xData = new ArrayList<Date>();
+
+    private final List<Number> yData = new ArrayList<Number>();
+
+    private int column = -1;
+
+    /** the points of the current column, indexed by FIRST, MIN, MAX and LAST */
+    private final Date[] times = new Date[4];
+
+    private final Number[] values = new Number[4];
+
+    /** the order in which the points of the current column have been added */
+    private final long[] sequences = new long[4];
+
+    private long sequence;
+
+    /**
+     * @param begin the start of the time axis
+     * @param end the end of the time axis
+     * @param columns the number of pixel columns of the time axis
+     */
+    SeriesDownsampler(Date begin, Date end, int columns) {
+        this.begin = begin.getTime();
+        this.duration = Math.max(1, end.getTime() - this.begin);
+        this.columns = Math.max(1, columns);
+    }
+
+    /**
+     * Adds a point of the series.
+     *
+     * @param time the timestamp of the point
+     * @param value the value of the point
+     */
+    void add(Date time, Number value) {
+        long offset = Math.min(Math.max(time.getTime() - begin, 0), duration);
+        int pointColumn = (int) Math.min(columns - 1, offset * columns / duration);
+        if (pointColumn != column) {
+            flush();
+            column = pointColumn;
+            for (int i = FIRST; i <= LAST; i++) {
+                set(i, time, value);
+            }
+        } else {
+            double doubleValue = value.doubleValue();
+            if (doubleValue < values[MIN].doubleValue()) {
+                set(MIN, time, value);
+            }
+            if (doubleValue > values[MAX].doubleValue()) {
+                set(MAX, time, value);
+            }
+            set(LAST, time, value);
+        }
+        sequence++;
+    }
+
+    /**
+     * @return the timestamps of the kept points
+     */
+    List<Date> getXData() {
+        flush();
+        return xData;
+    }
+
+    /**
+     * @return the values of the kept points
+     */
+    List<Number> getYData() {
+        flush();
+        return yData;
+    }
+
+    private void set(int index, Date time, Number value) {
+        times[index] = time;
+        values[index] = value;
+        sequences[index] = sequence;
+    }
+
+    private void flush() {
+        if (column < 0) {
+            return;
+        }
+        // add the distinct points of the column in the order of their occurrence
+        long previous = -1;
+        for (int n = 0; n < 4; n++) {
+            int next = -1;
+            for (int i = FIRST; i <= LAST; i++) {
+                if (sequences[i] > previous && (next < 0 || sequences[i] < sequences[next])) {
+                    next = i;
+                }
+            }
+            if (next < 0) {
+                break;
+            }
+            xData.add(times[next]);
+            yData.add(values[next]);
+            previous = sequences[next];
+        }
+        column = -1;
+    }
+
+}
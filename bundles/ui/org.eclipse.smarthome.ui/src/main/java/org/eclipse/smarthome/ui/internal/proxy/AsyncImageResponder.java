@@ -0,0 +1,57 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.ui.internal.proxy;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * An {@link ImageResponder} for a request which has been put into asynchronous mode, so that the request thread is
+ * returned to the container instead of waiting for the image. It must only be used with Servlet 3 containers, which
+ * is why the proxy servlet does not refer to the Servlet 3 API itself.
+ *
+ * @author agent - Initial contribution and API
+ */
+class AsyncImageResponder extends ImageResponder {
+
+    private final AsyncContext asyncContext;
+
+    /**
+     * Puts the request into asynchronous mode.
+     *
+     * @param request the request, which must support asynchronous mode
+     * @param timeout the time in milliseconds after which the container completes the request if no image has been
+     *            written
+     */
+    AsyncImageResponder(HttpServletRequest request, long timeout) {
+        this(request.startAsync(), timeout);
+    }
+
+    private AsyncImageResponder(AsyncContext asyncContext, long timeout) {
+        super((HttpServletResponse) asyncContext.getResponse());
+        this.asyncContext = asyncContext;
+        asyncContext.setTimeout(timeout);
+    }
+
+    @Override
+    protected void complete() {
+        super.complete();
+        try {
+            asyncContext.complete();
+        } catch (IllegalStateException e) {
+            // the request has already timed out
+        }
+    }
+
+    @Override
+    void awaitCompletion(long timeout) {
+        // the container completes the request when the image has been written or the request has timed out
+    }
+
+}
@@ -0,0 +1,235 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.ui.internal.proxy;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.commons.httpclient.Header;
+import org.apache.commons.httpclient.HttpStatus;
+
+/**
+ * The {@link ImageCache} keeps the images which have recently been fetched by the proxy servlet for a short time, so
+ * that all viewers of a sitemap, whose image widgets are refreshed at the same time, are served by a single request to
+ * the device. If an image is requested while it is being fetched, the request waits for the running fetch instead of
+ * starting another one. A fetch which has not completed within the fetch timeout is given up, so that the next request
+ * starts a new one.
+ * <p>
+ * The requests are not blocked while waiting, they are notified through an {@link ImageCallback}.
+ *
+ * @author agent - Initial contribution and API
+ */
+class ImageCache {
+
+    /** images which are larger are passed to the waiting requests, but not cached */
+    static final int MAX_IMAGE_SIZE = 2 * 1024 * 1024;
+
+    private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > maxSize && eldest.getValue().isRemovable(System.currentTimeMillis());
+        }
+    };
+
+    /** guarded by entries */
+    private int maxSize;
+
+    /** guarded by entries */
+    private long timeToLive;
+
+    private final long fetchTimeout;
+
+    /**
+     * @param maxSize the maximum number of cached images
+     * @param timeToLive the time in milliseconds an image is served from the cache, 0 to not cache any image
+     * @param fetchTimeout the time in milliseconds after which a fetch, which has not completed, is given up
+     */
+    ImageCache(int maxSize, long timeToLive, long fetchTimeout) {
+        this.maxSize = maxSize;
+        this.timeToLive = timeToLive;
+        this.fetchTimeout = fetchTimeout;
+    }
+
+    /**
+     * Changes the limits of the cache and discards all cached images and given up fetches. Running fetches are not
+     * affected.
+     *
+     * @param maxSize the maximum number of cached images
+     * @param timeToLive the time in milliseconds an image is served from the cache, 0 to not cache any image
+     */
+    void configure(int maxSize, long timeToLive) {
+        synchronized (entries) {
+            this.maxSize = maxSize;
+            this.timeToLive = timeToLive;
+            long now = System.currentTimeMillis();
+            for (Map.Entry<String, Entry> entry : new ArrayList<>(entries.entrySet())) {
+                if (entry.getValue().isRemovable(now)) {
+                    entries.remove(entry.getKey());
+                }
+            }
+        }
+    }
+
+    /**
+     * Requests an image. If it is cached, the callback is notified immediately. Otherwise it is notified when the
+     * image has been fetched, which the caller has to do if this method returns true. If a running fetch has timed
+     * out, the requests waiting for it are failed and a new fetch is started.
+     *
+     * @param url the url of the image
+     * @param callback the callback to notify with the image
+     * @return true if the caller has to fetch the image and pass it to {@link #put(String, CachedImage)} or
+     *         {@link #fail(String, Exception)}, false if it is cached or fetched by another request
+     */
+    boolean get(String url, ImageCallback callback) {
+        CachedImage image = null;
+        List<ImageCallback> givenUp = null;
+        synchronized (entries) {
+            long now = System.currentTimeMillis();
+            Entry entry = entries.get(url);
+            if (entry != null && entry.expiry > now) {
+                if (entry.waiting != null) {
+                    entry.waiting.add(callback);
+                    return false;
+                }
+                image = entry.image;
+            } else {
+                if (entry != null) {
+                    givenUp = entry.waiting;
+                }
+                entry = new Entry();
+                entry.waiting = new ArrayList<>();
+                entry.waiting.add(callback);
+                entry.expiry = now + fetchTimeout;
+                entries.put(url, entry);
+            }
+        }
+        if (image == null) {
+            if (givenUp != null) {
+                TimeoutException error = new TimeoutException("Image has not been fetched within " + fetchTimeout
+                        + " ms");
+                for (ImageCallback waiting : givenUp) {
+                    waiting.imageFailed(error);
+                }
+            }
+            return true;
+        }
+        callback.imageReceived(image);
+        return false;
+    }
+
+    /**
+     * Completes the fetch of an image and notifies all requests which are waiting for it.
+     *
+     * @param url the url of the image
+     * @param image the fetched image
+     */
+    void put(String url, CachedImage image) {
+        List<ImageCallback> waiting;
+        synchronized (entries) {
+            Entry entry = entries.get(url);
+            if (entry == null || entry.waiting == null) {
+                return;
+            }
+            waiting = entry.waiting;
+            if (timeToLive > 0 && image.isCacheable()) {
+                entry.image = image;
+                entry.expiry = System.currentTimeMillis() + timeToLive;
+                entry.waiting = null;
+            } else {
+                entries.remove(url);
+            }
+        }
+        for (ImageCallback callback : waiting) {
+            callback.imageReceived(image);
+        }
+    }
+
+    /**
+     * Completes the failed fetch of an image and notifies all requests which are waiting for it.
+     *
+     * @param url the url of the image
+     * @param error the cause of the failure
+     */
+    void fail(String url, Exception error) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.remove(url);
+        }
+        if (entry != null && entry.waiting != null) {
+            for (ImageCallback callback : entry.waiting) {
+                callback.imageFailed(error);
+            }
+        }
+    }
+
+    /**
+     * @return the number of images which are cached or being fetched
+     */
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Callback interface for being notified when a requested image is available.
+     */
+    interface ImageCallback {
+
+        void imageReceived(CachedImage image);
+
+        void imageFailed(Exception error);
+    }
+
+    /**
+     * A response of the device, which may be passed to several requests.
+     */
+    static class CachedImage {
+
+        final int statusCode;
+
+        final Header[] headers;
+
+        final byte[] content;
+
+        CachedImage(int statusCode, Header[] headers, byte[] content) {
+            this.statusCode = statusCode;
+            this.headers = headers != null ? headers : new Header[0];
+            this.content = content != null ? content : new byte[0];
+        }
+
+        private boolean isCacheable() {
+            return statusCode == HttpStatus.SC_OK && content.length <= MAX_IMAGE_SIZE;
+        }
+    }
+
+    private static class Entry {
+
+        /** the requests waiting for the image, null when it has been fetched */
+        private List<ImageCallback> waiting;
+
+        private CachedImage image;
+
+        /** the time until which the image is served or the fetch is waited for */
+        private long expiry;
+
+        /**
+         * An entry may be removed unless its image is still being fetched, i.e. the fetch has not timed out yet.
+         */
+        private boolean isRemovable(long now) {
+            return waiting == null || expiry <= now;
+        }
+    }
+
+}
@@ -0,0 +1,121 @@
+/**
+ * Copyright (c) 2014-2015 openHAB UG (haftungsbeschraenkt) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.eclipse.smarthome.ui.internal.proxy;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.httpclient.Header;
+import org.eclipse.smarthome.ui.internal.proxy.ImageCache.CachedImage;
+import org.eclipse.smarthome.ui.internal.proxy.ImageCache.ImageCallback;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes an image, which has been requested from the {@link ImageCache}, to the response of a single request.
+ * The request thread waits in {@link #awaitCompletion(long)} until the image has been written or the timeout has been
+ * reached, in which case the request is answered with 504 Gateway Timeout instead.
+ *
+ * @author agent - Initial contribution and API
+ */
+class ImageResponder implements ImageCallback {
+
+    /** headers which only apply to the connection to the device and must not be copied to the response */
+    private static final Set<String> HOP_BY_HOP_HEADERS = new HashSet<>(Arrays.asList("connection", "keep-alive",
+            "transfer-encoding", "content-length", "te", "trailer", "upgrade", "proxy-authenticate"));
+
+    private final Logger logger = LoggerFactory.getLogger(ImageResponder.class);
+
+    protected final HttpServletResponse response;
+
+    private final CountDownLatch completed = new CountDownLatch(1);
+
+    /** set by whoever writes the response, which is either the image, the failure or the timeout */
+    private final AtomicBoolean responding = new AtomicBoolean();
+
+    ImageResponder(HttpServletResponse response) {
+        this.response = response;
+    }
+
+    @Override
+    public void imageReceived(CachedImage image) {
+        if (!responding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            response.setStatus(image.statusCode);
+            for (Header header : image.headers) {
+                if (!HOP_BY_HOP_HEADERS.contains(header.getName().toLowerCase())) {
+                    response.setHeader(header.getName(), header.getValue());
+                }
+            }
+            response.setContentLength(image.content.length);
+            response.getOutputStream().write(image.content);
+        } catch (IOException | IllegalStateException e) {
+            logger.debug("Image could not be sent to the client: {}", e.getMessage());
+        } finally {
+            complete();
+        }
+    }
+
+    @Override
+    public void imageFailed(Exception error) {
+        if (!responding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            logger.debug("Image could not be fetched: {}", error.getMessage());
+            response.sendError(HttpServletResponse.SC_BAD_GATEWAY, "Image could not be fetched");
+        } catch (IOException | IllegalStateException e) {
+            logger.debug("Error could not be sent to the client: {}", e.getMessage());
+        } finally {
+            complete();
+        }
+    }
+
+    /**
+     * Called after the response has been written.
+     */
+    protected void complete() {
+        completed.countDown();
+    }
+
+    /**
+     * Waits until the response has been written. If the image has not arrived within the timeout, the request is
+     * answered with 504 Gateway Timeout and the image is ignored when it arrives later.
+     *
+     * @param timeout the time in milliseconds to wait for the image
+     * @throws InterruptedException if the thread has been interrupted while waiting
+     */
+    void awaitCompletion(long timeout) throws InterruptedException {
+        if (completed.await(timeout, TimeUnit.MILLISECONDS)) {
+            return;
+        }
+        if (responding.compareAndSet(false, true)) {
+            try {
+                logger.debug("Image could not be fetched within {} ms", timeout);
+                response.sendError(HttpServletResponse.SC_GATEWAY_TIMEOUT, "Image could not be fetched in time");
+            } catch (IOException | IllegalStateException e) {
+                logger.debug("Error could not be sent to the client: {}", e.getMessage());
+            } finally {
+                complete();
+            }
+        } else {
+            // the image arrived just in time and is being written
+            completed.await(timeout, TimeUnit.MILLISECONDS);
+        }
+    }
+
+}
@@ -8,10 +8,16 @@
 package org.eclipse.smarthome.ui.internal.proxy;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
 import java.util.Hashtable;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -19,15 +25,18 @@ import javax.servlet.http.HttpServletResponse;
 import org.apache.commons.httpclient.Credentials;
 import org.apache.commons.httpclient.Header;
 import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.HttpMethod;
 import org.apache.commons.httpclient.UsernamePasswordCredentials;
 import org.apache.commons.httpclient.auth.AuthScope;
 import org.apache.commons.httpclient.methods.GetMethod;
-import org.apache.commons.io.IOUtils;
+import org.eclipse.smarthome.io.net.http.HttpCallback;
+import org.eclipse.smarthome.io.net.http.HttpClientManager;
 import org.eclipse.smarthome.model.core.ModelRepository;
 import org.eclipse.smarthome.model.sitemap.Image;
 import org.eclipse.smarthome.model.sitemap.Sitemap;
 import org.eclipse.smarthome.model.sitemap.Video;
 import org.eclipse.smarthome.model.sitemap.Widget;
+import org.eclipse.smarthome.ui.internal.proxy.ImageCache.CachedImage;
 import org.eclipse.smarthome.ui.items.ItemUIRegistry;
 import org.osgi.service.http.HttpContext;
 import org.osgi.service.http.HttpService;
@@ -50,6 +59,10 @@ import org.slf4j.LoggerFactory;
  *
  * This servlet also supports data streams, such as a webcam video stream etc.
  *
+ * The content of image widgets is cached for a short time, so that the viewers of a sitemap cause a single request
+ * to the device per refresh interval. Images are fetched asynchronously, and the request does not hold a container
+ * thread while waiting if the container supports Servlet 3. Streams are passed through without caching.
+ *
  * @author Kai Kreuzer - Initial contribution and API
  */
 public class ProxyServlet extends HttpServlet {
@@ -61,6 +74,41 @@ public class ProxyServlet extends HttpServlet {
 
     private static final long serialVersionUID = -4716754591953017793L;
 
+    private static final String CONFIG_CACHE_SIZE = "cacheSize";
+
+    private static final String CONFIG_CACHE_TIME = "cacheTime";
+
+    private static final int DEFAULT_CACHE_SIZE = 50;
+
+    private static final int DEFAULT_CACHE_TIME = 1000;
+
+    /** the timeout in milliseconds for getting a connection and for reading an image from the device */
+    private static final int TIMEOUT = 15000;
+
+    /** the timeout in milliseconds for a request waiting for an image, which may have to wait for a connection first */
+    private static final int IMAGE_TIMEOUT = 2 * TIMEOUT;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final int MAX_POOLED_BUFFERS = 16;
+
+    private static final boolean SERVLET3_SUPPORT;
+
+    static {
+        boolean servlet3 = false;
+        try {
+            servlet3 = ServletRequest.class.getMethod("startAsync") != null;
+        } catch (Exception e) {
+        } finally {
+            SERVLET3_SUPPORT = servlet3;
+        }
+    }
+
+    private final ImageCache imageCache = new ImageCache(DEFAULT_CACHE_SIZE, DEFAULT_CACHE_TIME,
+            IMAGE_TIMEOUT);
+
+    private final BlockingQueue<byte[]> buffers = new ArrayBlockingQueue<>(MAX_POOLED_BUFFERS);
+
     protected HttpService httpService;
     protected ItemUIRegistry itemUIRegistry;
     protected ModelRepository modelRepository;
@@ -89,7 +137,8 @@ public class ProxyServlet extends HttpServlet {
         this.httpService = null;
     }
 
-    protected void activate() {
+    protected void activate(Map<String, Object> config) {
+        modified(config);
         try {
             logger.debug("Starting up proxy servlet at /" + PROXY_ALIAS);
 
@@ -106,6 +155,24 @@ public class ProxyServlet extends HttpServlet {
         httpService.unregister("/" + PROXY_ALIAS);
     }
 
+    protected void modified(Map<String, Object> config) {
+        int cacheSize = getConfig(config, CONFIG_CACHE_SIZE, DEFAULT_CACHE_SIZE);
+        int cacheTime = getConfig(config, CONFIG_CACHE_TIME, DEFAULT_CACHE_TIME);
+        imageCache.configure(cacheSize, cacheTime);
+    }
+
+    private int getConfig(Map<String, Object> config, String key, int defaultValue) {
+        Object value = config != null ? config.get(key) : null;
+        if (value != null) {
+            try {
+                return Integer.parseInt(value.toString().trim());
+            } catch (NumberFormatException e) {
+                logger.warn("Ignoring invalid configuration '{}' for '{}' - value must be an integer.", value, key);
+            }
+        }
+        return defaultValue;
+    }
+
     /**
      * Creates a {@link HttpContext}
      * 
@@ -134,6 +201,7 @@ public class ProxyServlet extends HttpServlet {
         }
 
         String uriString = null;
+        boolean isImage = false;
 
         Sitemap sitemap = (Sitemap) modelRepository.getModel(sitemapName);
         if (sitemap != null) {
@@ -141,6 +209,7 @@ public class ProxyServlet extends HttpServlet {
             if (widget instanceof Image) {
                 Image image = (Image) widget;
                 uriString = image.getUrl();
+                isImage = true;
             } else if (widget instanceof Video) {
                 Video video = (Video) widget;
                 uriString = video.getUrl();
@@ -155,7 +224,16 @@ public class ProxyServlet extends HttpServlet {
             throw new ServletException("Sitemap '" + sitemapName + "' could not be found!");
         }
 
-        HttpClient httpClient = new HttpClient();
+        HttpClient httpClient = createClient(uriString);
+        if (isImage) {
+            serveImage(request, response, httpClient, uriString);
+        } else {
+            streamContent(response, httpClient, uriString);
+        }
+    }
+
+    private HttpClient createClient(String uriString) throws ServletException {
+        HttpClient httpClient = HttpClientManager.createClient();
 
         try {
             // check if the uri uses credentials and configure the http client accordingly
@@ -171,18 +249,90 @@ public class ProxyServlet extends HttpServlet {
         } catch (IllegalArgumentException e) {
             throw new ServletException("URI '" + uriString + "' is not valid: " + e.getMessage());
         }
+        return httpClient;
+    }
+
+    /**
+     * Serves an image from the cache or fetches it asynchronously. If the container supports it, the request is put
+     * into asynchronous mode, so that no container thread waits for the device.
+     */
+    private void serveImage(HttpServletRequest request, HttpServletResponse response, HttpClient httpClient,
+            final String uriString) throws ServletException {
+        ImageResponder responder;
+        if (SERVLET3_SUPPORT && request.isAsyncSupported()) {
+            responder = new AsyncImageResponder(request, IMAGE_TIMEOUT);
+        } else {
+            responder = new ImageResponder(response);
+        }
+
+        if (imageCache.get(uriString, responder)) {
+            try {
+                GetMethod method = new GetMethod(uriString);
+                method.getParams().setSoTimeout(TIMEOUT);
+                HttpClientManager.executeAsync(httpClient, method, new HttpCallback() {
+                    @Override
+                    public void onResponse(HttpMethod method, int statusCode) {
+                        try {
+                            imageCache.put(uriString,
+                                    new CachedImage(statusCode, method.getResponseHeaders(), method.getResponseBody()));
+                        } catch (IOException e) {
+                            imageCache.fail(uriString, e);
+                        }
+                    }
+
+                    @Override
+                    public void onFailure(HttpMethod method, Exception error) {
+                        imageCache.fail(uriString, error);
+                    }
+                });
+            } catch (RuntimeException e) {
+                imageCache.fail(uriString, e);
+            }
+        }
 
-        // do the client request
+        try {
+            responder.awaitCompletion(IMAGE_TIMEOUT);
+        } catch (InterruptedException e) {
+            throw new ServletException("Interrupted while waiting for image '" + uriString + "'");
+        }
+    }
+
+    /**
+     * Streams the content, e.g. a video stream, through a pooled buffer without caching it.
+     */
+    private void streamContent(HttpServletResponse response, HttpClient httpClient, String uriString)
+            throws IOException {
         GetMethod method = new GetMethod(uriString);
-        httpClient.executeMethod(method);
+        try {
+            HttpClientManager.executeMethod(httpClient, method);
+
+            // copy all headers
+            for (Header header : method.getResponseHeaders()) {
+                response.setHeader(header.getName(), header.getValue());
+            }
 
-        // copy all headers
-        for (Header header : method.getResponseHeaders()) {
-            response.setHeader(header.getName(), header.getValue());
+            // now stream the body content
+            InputStream input = method.getResponseBodyAsStream();
+            if (input != null) {
+                OutputStream output = response.getOutputStream();
+                byte[] buffer = takeBuffer();
+                try {
+                    int count;
+                    while ((count = input.read(buffer)) != -1) {
+                        output.write(buffer, 0, count);
+                        output.flush();
+                    }
+                } finally {
+                    buffers.offer(buffer);
+                }
+            }
+        } finally {
+            method.releaseConnection();
         }
+    }
 
-        // now copy/stream the body content
-        IOUtils.copy(method.getResponseBodyAsStream(), response.getOutputStream());
-        method.releaseConnection();
+    private byte[] takeBuffer() {
+        byte[] buffer = buffers.poll();
+        return buffer != null ? buffer : new byte[BUFFER_SIZE];
     }
 }